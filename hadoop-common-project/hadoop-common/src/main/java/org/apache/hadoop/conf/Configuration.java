@@ -40,6 +40,7 @@
 import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
 import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
@@ -337,6 +338,18 @@ private static boolean getRestrictParserDefault(Object resource) {
   private static final Map<ClassLoader, Map<String, WeakReference<Class<?>>>>
     CACHE_CLASSES = new WeakHashMap<ClassLoader, Map<String, WeakReference<Class<?>>>>();
 
+  /**
+   * Default resources parsed by class loader, so that new configurations
+   * do not parse them again. An entry is only valid for the deprecation
+   * context it was parsed with, as the parser maps the deprecated keys, and
+   * while the URL the resource is found at and the modification time of
+   * its file are unchanged, so that new configurations see the edited site
+   * files, e.g. to reconfigure a daemon.
+   */
+  private static final Map<ClassLoader, Map<String, ParsedResource>>
+      CACHE_DEFAULT_RESOURCES =
+      new WeakHashMap<ClassLoader, Map<String, ParsedResource>>();
+
   /**
    * Sentinel value to store negative cache results in {@link #CACHE_CLASSES}.
    */
@@ -871,13 +884,17 @@ public Configuration(Configuration other) {
   }
 
   /**
-   * Reload existing configuration instances.
+   * Reload existing configuration instances. The default resources are
+   * parsed again, in case they changed.
    */
   public static synchronized void reloadExistingConfigurations() {
     if (LOG.isDebugEnabled()) {
       LOG.debug("Reloading " + REGISTRY.keySet().size()
           + " existing configurations");
     }
+    synchronized (CACHE_DEFAULT_RESOURCES) {
+      CACHE_DEFAULT_RESOURCES.clear();
+    }
     for (Configuration conf : REGISTRY.keySet()) {
       conf.reloadConfiguration();
     }
@@ -1226,6 +1243,36 @@ public String get(String name) {
     return result;
   }
 
+  /**
+   * Get the values of all the properties after variable expansion, including
+   * the deprecated keys, which map to the value of their last replacing key.
+   * Used by {@link FrozenConfiguration} to resolve the values only once.
+   *
+   * @return the values of the properties by name.
+   */
+  synchronized Map<String, String> getResolvedProps() {
+    handleDeprecation();
+    Properties props = getProps();
+    Map<String, String> resolved = new HashMap<String, String>();
+    for (String name : props.stringPropertyNames()) {
+      String value = substituteVars(props.getProperty(name));
+      if (value != null) {
+        resolved.put(name, value);
+      }
+    }
+    for (Map.Entry<String, DeprecatedKeyInfo> entry :
+        deprecationContext.get().getDeprecatedKeyMap().entrySet()) {
+      String[] newKeys = entry.getValue().newKeys;
+      String value = resolved.get(newKeys[newKeys.length - 1]);
+      if (value != null) {
+        resolved.put(entry.getKey(), value);
+      } else {
+        resolved.remove(entry.getKey());
+      }
+    }
+    return resolved;
+  }
+
   /**
    * Set Configuration to allow keys without values during setup.  Intended
    * for use during testing.
@@ -2995,7 +3042,7 @@ private void loadResources(Properties properties,
                              boolean quiet) {
     if(loadDefaults) {
       for (String resource : defaultResources) {
-        loadResource(properties, new Resource(resource, false), quiet);
+        loadDefaultResource(properties, resource, quiet);
       }
     }
     
@@ -3034,11 +3081,8 @@ private Resource loadResource(Properties properties,
         toAddTo = new Properties();
       }
 
-      List<ParsedItem> items = new Parser(reader, wrapper, quiet).parse();
-      for (ParsedItem item : items) {
-        loadProperty(toAddTo, item.name, item.key, item.value,
-            item.isFinal, item.sources);
-      }
+      Parser parser = new Parser(reader, wrapper, quiet);
+      loadParsedItems(toAddTo, parser.parse(), parser.getTags());
       reader.close();
 
       if (returnCachedProperties) {
@@ -3055,6 +3099,96 @@ private Resource loadResource(Properties properties,
     }
   }
 
+  /**
+   * Load a default resource, parsing it only if it is not cached for the
+   * class loader and the deprecation context of this configuration, or if
+   * its file changed.
+   */
+  private void loadDefaultResource(Properties properties, String resource,
+      boolean quiet) {
+    URL url = getResource(resource);
+    long lastModified = url == null ? 0 : getLastModified(url);
+    Map<String, ParsedResource> cache;
+    synchronized (CACHE_DEFAULT_RESOURCES) {
+      cache = CACHE_DEFAULT_RESOURCES.get(classLoader);
+      if (cache == null) {
+        cache = new ConcurrentHashMap<String, ParsedResource>();
+        CACHE_DEFAULT_RESOURCES.put(classLoader, cache);
+      }
+    }
+    ParsedResource parsed = cache.get(resource);
+    if (parsed == null || parsed.deprecations != deprecationContext.get()
+        || !parsed.isFrom(url, lastModified)) {
+      parsed = parseDefaultResource(new Resource(url, resource, false), url,
+          lastModified, quiet);
+      if (lastModified == -1) {
+        // Not cached when the changes of the resource cannot be detected
+        cache.remove(resource);
+      } else {
+        cache.put(resource, parsed);
+      }
+    }
+    if (parsed.items == null) {
+      if (quiet) {
+        return;
+      }
+      throw new RuntimeException(resource + " not found");
+    }
+    loadParsedItems(properties, parsed.items, parsed.tags);
+  }
+
+  /**
+   * @return the last modification time of the file a resource is read
+   * from, directly or from a jar, 0 if the file does not exist, or -1 if
+   * the resource is not read from a local file.
+   */
+  private static long getLastModified(URL url) {
+    try {
+      URL fileUrl = url;
+      if ("jar".equals(url.getProtocol())) {
+        // Does not open the jar
+        fileUrl = ((JarURLConnection) url.openConnection()).getJarFileURL();
+      }
+      if ("file".equals(fileUrl.getProtocol())) {
+        return new File(fileUrl.toURI()).lastModified();
+      }
+    } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+      LOG.debug("Cannot get the modification time of {}", url, e);
+    }
+    return -1;
+  }
+
+  private ParsedResource parseDefaultResource(Resource wrapper, URL url,
+      long lastModified, boolean quiet) {
+    try {
+      XMLStreamReader2 reader = url == null ? null
+          : getStreamReader(wrapper, quiet);
+      if (reader == null) {
+        return new ParsedResource(deprecationContext.get(), url,
+            lastModified, null, null);
+      }
+      Parser parser = new Parser(reader, wrapper, quiet);
+      List<ParsedItem> items = parser.parse();
+      reader.close();
+      return new ParsedResource(parser.deprecations, url, lastModified,
+          items, parser.getTags());
+    } catch (IOException | XMLStreamException e) {
+      LOG.error("error parsing conf " + wrapper.getName(), e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void loadParsedItems(Properties properties, List<ParsedItem> items,
+      List<ParsedTag> tags) {
+    for (ParsedTag tag : tags) {
+      readTagFromConfig(tag.tag, tag.name, tag.value, tag.sources);
+    }
+    for (ParsedItem item : items) {
+      loadProperty(properties, item.name, item.key, item.value,
+          item.isFinal, item.sources);
+    }
+  }
+
   private XMLStreamReader2 getStreamReader(Resource wrapper, boolean quiet)
       throws XMLStreamException, IOException {
     Object resource = wrapper.getResource();
@@ -3102,6 +3236,52 @@ private static class ParsedItem {
     }
   }
 
+  /** The tags of a property, read into {@link #propertyTagsMap}. */
+  private static class ParsedTag {
+    private final String tag;
+    private final String name;
+    private final String value;
+    private final String[] sources;
+
+    ParsedTag(String tag, String name, String value, String[] sources) {
+      this.tag = tag;
+      this.name = name;
+      this.value = value;
+      this.sources = sources;
+    }
+  }
+
+  /**
+   * A parsed resource, with null items and tags if it was not found.
+   */
+  private static class ParsedResource {
+    private final DeprecationContext deprecations;
+    /** The URL the resource was parsed from, null if it was not found. */
+    private final String url;
+    private final long lastModified;
+    private final List<ParsedItem> items;
+    private final List<ParsedTag> tags;
+
+    ParsedResource(DeprecationContext deprecations, URL url,
+        long lastModified, List<ParsedItem> items, List<ParsedTag> tags) {
+      this.deprecations = deprecations;
+      this.url = url == null ? null : url.toString();
+      this.lastModified = lastModified;
+      this.items = items;
+      this.tags = tags;
+    }
+
+    /**
+     * @return whether the resource was parsed from the same, unmodified
+     * URL. URL.equals is not used as it resolves the host names.
+     */
+    boolean isFrom(URL currentUrl, long currentLastModified) {
+      String current = currentUrl == null ? null : currentUrl.toString();
+      return lastModified == currentLastModified
+          && (url == null ? current == null : url.equals(current));
+    }
+  }
+
   /**
    * Parser to consume SAX stream of XML elements from a Configuration.
    */
@@ -3126,6 +3306,7 @@ private class Parser {
     private boolean parseToken = false;
     private List<String> confSource = new ArrayList<>();
     private List<ParsedItem> results = new ArrayList<>();
+    private List<ParsedTag> tags = new ArrayList<>();
 
     Parser(XMLStreamReader2 reader,
            Resource wrapper,
@@ -3146,6 +3327,10 @@ List<ParsedItem> parse() throws IOException, XMLStreamException {
       return results;
     }
 
+    List<ParsedTag> getTags() {
+      return tags;
+    }
+
     private void handleStartElement() throws XMLStreamException, IOException {
       switch (reader.getLocalName()) {
       case "property":
@@ -3206,7 +3391,7 @@ private void handleInclude() throws XMLStreamException, IOException {
       // Determine href for xi:include
       confInclude = null;
       int attrCount = reader.getAttributeCount();
-      List<ParsedItem> items;
+      Parser includeParser;
       for (int i = 0; i < attrCount; i++) {
         String attrName = reader.getAttributeLocalName(i);
         if ("href".equals(attrName)) {
@@ -3235,7 +3420,8 @@ private void handleInclude() throws XMLStreamException, IOException {
           if (includeReader == null) {
             throw new RuntimeException(classpathResource + " not found");
           }
-          items = new Parser(includeReader, classpathResource, quiet).parse();
+          includeParser = new Parser(includeReader, classpathResource, quiet);
+          includeParser.parse();
         }
       } else {
         URL url;
@@ -3266,10 +3452,12 @@ private void handleInclude() throws XMLStreamException, IOException {
           if (includeReader == null) {
             throw new RuntimeException(uriResource + " not found");
           }
-          items = new Parser(includeReader, uriResource, quiet).parse();
+          includeParser = new Parser(includeReader, uriResource, quiet);
+          includeParser.parse();
         }
       }
-      results.addAll(items);
+      results.addAll(includeParser.results);
+      tags.addAll(includeParser.tags);
     }
 
     void handleEndElement() throws IOException {
@@ -3325,9 +3513,9 @@ void handleEndProperty() {
         confSourceArray = confSource.toArray(new String[confSource.size()]);
       }
 
-      // Read tags and put them in propertyTagsMap
+      // Read tags to put them in propertyTagsMap
       if (confTag != null) {
-        readTagFromConfig(confTag, confName, confValue, confSourceArray);
+        tags.add(new ParsedTag(confTag, confName, confValue, confSourceArray));
       }
 
       DeprecatedKeyInfo keyInfo =
@@ -0,0 +1,282 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.conf;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * An immutable snapshot of a {@link Configuration}, for code reading the
+ * same properties on hot paths.
+ * <p>
+ * The values of all the properties are expanded and their deprecated keys
+ * resolved when the snapshot is taken, so {@link #get(String)} is a lookup
+ * in an unsynchronized map. The values parsed by {@link #getInt},
+ * {@link #getLong} and {@link #getTimeDuration} are cached as well. Later
+ * changes of the configuration the snapshot was taken from, of the system
+ * properties or of the deprecated keys are not seen by the snapshot, and
+ * the deprecated keys are resolved without logging a warning.
+ * <p>
+ * All the methods modifying the properties, the resources, the class loader
+ * or how the values are parsed throw {@link UnsupportedOperationException}.
+ * Only {@link #setQuietMode(boolean)} still works, as it just changes the
+ * logging.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class FrozenConfiguration extends Configuration {
+
+  private final Map<String, String> values;
+  private final Map<String, Integer> ints = new ConcurrentHashMap<>();
+  private final Map<String, Long> longs = new ConcurrentHashMap<>();
+  private final Map<String, Duration> durations = new ConcurrentHashMap<>();
+
+  /** A time duration parsed from a value, without converting its unit. */
+  private static final class Duration {
+    private final long value;
+    /** The unit of the suffix of the value, null if it had no suffix. */
+    private final TimeUnit unit;
+
+    private Duration(long value, TimeUnit unit) {
+      this.value = value;
+      this.unit = unit;
+    }
+  }
+
+  /**
+   * Take a snapshot of a configuration.
+   * @param conf the configuration to take a snapshot of.
+   */
+  public FrozenConfiguration(Configuration conf) {
+    super(conf);
+    values = Collections.unmodifiableMap(getResolvedProps());
+  }
+
+  @Override
+  public String get(String name) {
+    String value = values.get(name);
+    if (value == null && name != null) {
+      value = values.get(name.trim());
+    }
+    return value;
+  }
+
+  @Override
+  public String get(String name, String defaultValue) {
+    String value = get(name);
+    return value == null ? defaultValue : value;
+  }
+
+  @Override
+  public int getInt(String name, int defaultValue) {
+    Integer value = ints.get(name);
+    if (value == null) {
+      if (get(name) == null) {
+        return defaultValue;
+      }
+      value = super.getInt(name, defaultValue);
+      ints.put(name, value);
+    }
+    return value;
+  }
+
+  @Override
+  public long getLong(String name, long defaultValue) {
+    Long value = longs.get(name);
+    if (value == null) {
+      if (get(name) == null) {
+        return defaultValue;
+      }
+      value = super.getLong(name, defaultValue);
+      longs.put(name, value);
+    }
+    return value;
+  }
+
+  @Override
+  public long getTimeDuration(String name, long defaultValue,
+      TimeUnit defaultUnit, TimeUnit returnUnit) {
+    Duration duration = getDuration(name);
+    if (duration == null) {
+      return super.getTimeDuration(name, defaultValue, defaultUnit,
+          returnUnit);
+    }
+    return returnUnit.convert(duration.value,
+        duration.unit == null ? defaultUnit : duration.unit);
+  }
+
+  @Override
+  public long getTimeDuration(String name, String defaultValue,
+      TimeUnit defaultUnit, TimeUnit returnUnit) {
+    Duration duration = getDuration(name);
+    if (duration == null) {
+      return super.getTimeDuration(name, defaultValue, defaultUnit,
+          returnUnit);
+    }
+    return returnUnit.convert(duration.value,
+        duration.unit == null ? defaultUnit : duration.unit);
+  }
+
+  /**
+   * @return the parsed duration of a property, null if it is not set or its
+   * value is not a valid duration.
+   */
+  private Duration getDuration(String name) {
+    Duration duration = durations.get(name);
+    if (duration == null) {
+      String value = get(name);
+      if (value == null) {
+        return null;
+      }
+      value = StringUtils.toLowerCase(value.trim());
+      ParsedTimeDuration unit = ParsedTimeDuration.unitFor(value);
+      if (unit != null) {
+        value = value.substring(0, value.lastIndexOf(unit.suffix()));
+      }
+      try {
+        duration = new Duration(Long.parseLong(value),
+            unit == null ? null : unit.unit());
+      } catch (NumberFormatException e) {
+        // Let the configuration report the invalid value
+        return null;
+      }
+      durations.put(name, duration);
+    }
+    return duration;
+  }
+
+  @Override
+  public void set(String name, String value, String source) {
+    throw new UnsupportedOperationException(
+        "Cannot set " + name + " in a frozen configuration");
+  }
+
+  @Override
+  public synchronized void unset(String name) {
+    throw new UnsupportedOperationException(
+        "Cannot unset " + name + " in a frozen configuration");
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException(
+        "Cannot clear a frozen configuration");
+  }
+
+  @Override
+  public void setClassLoader(ClassLoader classLoader) {
+    throw new UnsupportedOperationException(
+        "Cannot set the class loader of a frozen configuration");
+  }
+
+  @Override
+  public void setRestrictSystemProperties(boolean val) {
+    throw unsupportedFlag("restrictSystemProperties");
+  }
+
+  @Override
+  public void setRestrictSystemProps(boolean val) {
+    throw unsupportedFlag("restrictSystemProps");
+  }
+
+  @Override
+  public void setAllowNullValueProperties(boolean val) {
+    throw unsupportedFlag("allowNullValueProperties");
+  }
+
+  @Override
+  public synchronized void reloadConfiguration() {
+    // The snapshot is not reloaded, e.g. when a default resource is added
+  }
+
+  @Override
+  public void addResource(String name) {
+    throw unsupportedResource(name);
+  }
+
+  @Override
+  public void addResource(String name, boolean restrictedParser) {
+    throw unsupportedResource(name);
+  }
+
+  @Override
+  public void addResource(URL url) {
+    throw unsupportedResource(url);
+  }
+
+  @Override
+  public void addResource(URL url, boolean restrictedParser) {
+    throw unsupportedResource(url);
+  }
+
+  @Override
+  public void addResource(Path file) {
+    throw unsupportedResource(file);
+  }
+
+  @Override
+  public void addResource(Path file, boolean restrictedParser) {
+    throw unsupportedResource(file);
+  }
+
+  @Override
+  public void addResource(InputStream in) {
+    throw unsupportedResource(in);
+  }
+
+  @Override
+  public void addResource(InputStream in, boolean restrictedParser) {
+    throw unsupportedResource(in);
+  }
+
+  @Override
+  public void addResource(InputStream in, String name) {
+    throw unsupportedResource(name);
+  }
+
+  @Override
+  public void addResource(InputStream in, String name,
+      boolean restrictedParser) {
+    throw unsupportedResource(name);
+  }
+
+  @Override
+  public void addResource(Configuration conf) {
+    throw unsupportedResource(conf);
+  }
+
+  private static UnsupportedOperationException unsupportedFlag(String flag) {
+    return new UnsupportedOperationException(
+        "Cannot set " + flag + " in a frozen configuration");
+  }
+
+  private static UnsupportedOperationException unsupportedResource(
+      Object resource) {
+    return new UnsupportedOperationException(
+        "Cannot add resource " + resource + " to a frozen configuration");
+  }
+}
@@ -22,8 +22,11 @@
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
@@ -231,6 +234,31 @@ public KeyVersion decryptEncryptedKey(
         EncryptedKeyVersion encryptedKeyVersion) throws IOException,
         GeneralSecurityException;
 
+    /**
+     * Batched version of {@link #decryptEncryptedKey(EncryptedKeyVersion)}.
+     * <p>
+     * Decrypts the encrypted key material of each encrypted key version. The
+     * default implementation decrypts them one by one, the implementations
+     * calling a KMS decrypt them in one request.
+     *
+     * @param  ekvs List containing the EncryptedKeyVersion's, all of the same
+     *              key name
+     * @return the KeyVersion's with the decrypted key material, in the order
+     *         of the EncryptedKeyVersion's
+     * @throws IOException If any EncryptedKeyVersion could not be decrypted
+     * @throws GeneralSecurityException If any EncryptedKeyVersion could not be
+     *                            decrypted because of a cryptographic issue.
+     */
+    default List<KeyVersion> decryptEncryptedKeys(
+        List<EncryptedKeyVersion> ekvs)
+        throws IOException, GeneralSecurityException {
+      List<KeyVersion> keyVersions = new ArrayList<>(ekvs.size());
+      for (EncryptedKeyVersion ekv : ekvs) {
+        keyVersions.add(decryptEncryptedKey(ekv));
+      }
+      return keyVersions;
+    }
+
     /**
      * Re-encrypts an encrypted key version, using its initialization vector
      * and key material, but with the latest key version name of its key name
@@ -460,6 +488,41 @@ public KeyVersion decryptEncryptedKey(
       }
     }
 
+    @Override
+    public List<KeyVersion> decryptEncryptedKeys(
+        List<EncryptedKeyVersion> ekvs)
+        throws IOException, GeneralSecurityException {
+      Preconditions.checkNotNull(ekvs, "Input list is null");
+      final List<KeyVersion> keyVersions = new ArrayList<>(ekvs.size());
+      // The encryption keys of the batch, by version name
+      final Map<String, KeyVersion> encryptionKeys = new HashMap<>();
+      try (CryptoCodec cc = CryptoCodec.getInstance(keyProvider.getConf())) {
+        final Decryptor decryptor = cc.createDecryptor();
+        for (EncryptedKeyVersion ekv : ekvs) {
+          Preconditions.checkNotNull(ekv, "EncryptedKeyVersion is null");
+          final String encryptionKeyVersionName =
+              ekv.getEncryptionKeyVersionName();
+          KeyVersion encryptionKey =
+              encryptionKeys.get(encryptionKeyVersionName);
+          if (encryptionKey == null) {
+            encryptionKey = keyProvider.getKeyVersion(encryptionKeyVersionName);
+            Preconditions.checkNotNull(encryptionKey,
+                "KeyVersion name '%s' does not exist",
+                encryptionKeyVersionName);
+            encryptionKeys.put(encryptionKeyVersionName, encryptionKey);
+          }
+          Preconditions.checkArgument(
+              ekv.getEncryptedKeyVersion().getVersionName()
+                  .equals(KeyProviderCryptoExtension.EEK),
+              "encryptedKey version name must be '%s', but found '%s'",
+              KeyProviderCryptoExtension.EEK,
+              ekv.getEncryptedKeyVersion().getVersionName());
+          keyVersions.add(decryptEncryptedKey(decryptor, encryptionKey, ekv));
+        }
+      }
+      return keyVersions;
+    }
+
     @Override
     public void warmUpEncryptedKeys(String... keyNames)
         throws IOException {
@@ -532,6 +595,25 @@ public KeyVersion decryptEncryptedKey(EncryptedKeyVersion encryptedKey)
     return getExtension().decryptEncryptedKey(encryptedKey);
   }
 
+  /**
+   * Batched version of {@link #decryptEncryptedKey(EncryptedKeyVersion)}.
+   * <p>
+   * Decrypts the encrypted key material of each encrypted key version, with
+   * a single request if the underlying provider is a KMS.
+   *
+   * @param  ekvs List containing the EncryptedKeyVersion's, all of the same
+   *              key name
+   * @return the KeyVersion's with the decrypted key material, in the order of
+   *         the EncryptedKeyVersion's
+   * @throws IOException If any EncryptedKeyVersion could not be decrypted
+   * @throws GeneralSecurityException If any EncryptedKeyVersion could not be
+   *                            decrypted because of a cryptographic issue.
+   */
+  public List<KeyVersion> decryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    return getExtension().decryptEncryptedKeys(ekvs);
+  }
+
   /**
    * Re-encrypts an encrypted key version, using its initialization vector
    * and key material, but with the latest key version name of its key name
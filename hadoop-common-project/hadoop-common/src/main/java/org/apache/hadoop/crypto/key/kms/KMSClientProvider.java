@@ -49,6 +49,7 @@
 
 import javax.net.ssl.HttpsURLConnection;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -329,6 +330,8 @@ private KMSClientProvider[] createProviders(Configuration conf,
   private SSLFactory sslFactory;
   private ConnectionConfigurator configurator;
   private DelegationTokenAuthenticatedURL.Token authToken;
+  /** Whether the KMS is too old to serve batch decryptions. */
+  private volatile boolean decryptBatchUnsupported;
   private final int authRetry;
 
   @Override
@@ -901,6 +904,88 @@ public void reencryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
     }
   }
 
+  @Override
+  public List<KeyVersion> decryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    checkNotNull(ekvs, "ekvs");
+    if (ekvs.isEmpty()) {
+      return new ArrayList<>();
+    }
+    final List<Map> jsonPayload = new ArrayList<>();
+    String keyName = null;
+    for (EncryptedKeyVersion ekv : ekvs) {
+      checkNotNull(ekv.getEncryptionKeyName(), "keyName");
+      checkNotNull(ekv.getEncryptionKeyVersionName(), "versionName");
+      checkNotNull(ekv.getEncryptedKeyIv(), "iv");
+      checkNotNull(ekv.getEncryptedKeyVersion(), "encryptedKey");
+      Preconditions.checkArgument(ekv.getEncryptedKeyVersion().getVersionName()
+              .equals(KeyProviderCryptoExtension.EEK),
+          "encryptedKey version name must be '%s', is '%s'",
+          KeyProviderCryptoExtension.EEK,
+          ekv.getEncryptedKeyVersion().getVersionName());
+      if (keyName == null) {
+        keyName = ekv.getEncryptionKeyName();
+      } else {
+        Preconditions.checkArgument(keyName.equals(ekv.getEncryptionKeyName()),
+            "All EncryptedKey must have the same key name.");
+      }
+      jsonPayload.add(KMSUtil.toJSON(ekv));
+    }
+    if (decryptBatchUnsupported) {
+      return decryptEachEncryptedKey(ekvs);
+    }
+    final URL url = createURL(KMSRESTConstants.KEY_RESOURCE, keyName,
+        KMSRESTConstants.DECRYPT_BATCH_SUB_RESOURCE, null);
+    HttpURLConnection conn = null;
+    final List<Map> response;
+    try {
+      conn = createConnection(url, HTTP_POST);
+      conn.setRequestProperty(CONTENT_TYPE, APPLICATION_JSON_MIME);
+      response =
+          call(conn, jsonPayload, HttpURLConnection.HTTP_OK, List.class);
+    } catch (IOException e) {
+      // Authenticating to a missing resource throws FileNotFoundException
+      if (!(e instanceof FileNotFoundException) && !isNotFound(conn)) {
+        throw e;
+      }
+      // A KMS without the batch resource, unless the keys are not found
+      LOG.debug("Batch decryption not found on {}", kmsUrl, e);
+      List<KeyVersion> keyVersions = decryptEachEncryptedKey(ekvs);
+      LOG.info("{} does not support batch decryption, decrypting the keys"
+          + " one by one", kmsUrl);
+      decryptBatchUnsupported = true;
+      return keyVersions;
+    }
+    Preconditions.checkArgument(response.size() == ekvs.size(),
+        "Response size is different than input size.");
+    final List<KeyVersion> keyVersions = new ArrayList<>(response.size());
+    for (Map item : response) {
+      keyVersions.add(parseJSONKeyVersion(item));
+    }
+    return keyVersions;
+  }
+
+  private List<KeyVersion> decryptEachEncryptedKey(
+      List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    final List<KeyVersion> keyVersions = new ArrayList<>(ekvs.size());
+    for (EncryptedKeyVersion ekv : ekvs) {
+      keyVersions.add(decryptEncryptedKey(ekv));
+    }
+    return keyVersions;
+  }
+
+  private static boolean isNotFound(HttpURLConnection conn) {
+    if (conn == null) {
+      return false;
+    }
+    try {
+      return conn.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
   @Override
   public List<KeyVersion> getKeyVersions(String name) throws IOException {
     checkNotEmpty(name, "name");
@@ -24,9 +24,15 @@
 import java.net.URI;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLHandshakeException;
@@ -43,6 +49,7 @@
 import org.apache.hadoop.io.retry.RetryPolicy.RetryAction;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.Credentials;
+import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.security.token.TokenIdentifier;
 import org.apache.hadoop.util.KMSUtil;
@@ -52,6 +59,8 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * A simple LoadBalancing KMSClientProvider that round-robins requests
@@ -59,6 +68,15 @@
  * requests on the next available provider in the load balancer group. It
  * only retries failed requests that result in an IOException, sending back
  * all other Exceptions to the caller without retry.
+ * <p>
+ * The concurrent decryptions of encrypted keys of the same key name by the
+ * same user can be coalesced into batch requests, and the decrypted keys
+ * cached for a short time for the user who decrypted them, see the
+ * hadoop.security.kms.client.decrypt.batch.window.ms and
+ * hadoop.security.kms.client.decrypted.key.cache.expiry properties. The
+ * batches and the cache are never shared between users, as the provider is
+ * shared by all the users of a process, and the KMS checks the key ACLs of
+ * the user sending the request.
  */
 public class LoadBalancingKMSClientProvider extends KeyProvider implements
     CryptoExtension,
@@ -85,6 +103,62 @@ public WrapperException(Throwable cause) {
 
   private RetryPolicy retryPolicy = null;
 
+  /** The maximum number of decrypted keys cached. */
+  private static final int DECRYPTED_KEY_CACHE_MAX_SIZE = 10000;
+
+  private final long decryptBatchWindowMs;
+  private final int decryptBatchMaxSize;
+  /** The batches of keys to decrypt being collected, by user and key name. */
+  private final Map<List<String>, DecryptBatch> decryptBatches =
+      new HashMap<>();
+  /** The decrypted keys, null if they are not cached. */
+  private final Cache<EncryptedKeyId, KeyVersion> decryptedKeyCache;
+
+  /** Encrypted keys decrypted with a single request. */
+  private static final class DecryptBatch {
+    private final List<EncryptedKeyVersion> ekvs = new ArrayList<>();
+    private final CompletableFuture<List<KeyVersion>> result =
+        new CompletableFuture<>();
+    /** Whether the batch is complete, and being decrypted. */
+    private boolean closed;
+  }
+
+  /**
+   * The identity of an encrypted key and of the user who decrypted it, to
+   * cache its decrypted key.
+   */
+  private static final class EncryptedKeyId {
+    private final String user;
+    private final String versionName;
+    private final byte[] iv;
+    private final byte[] material;
+
+    private EncryptedKeyId(String user, EncryptedKeyVersion ekv) {
+      this.user = user;
+      versionName = ekv.getEncryptionKeyVersionName();
+      iv = ekv.getEncryptedKeyIv();
+      material = ekv.getEncryptedKeyVersion().getMaterial();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof EncryptedKeyId)) {
+        return false;
+      }
+      EncryptedKeyId other = (EncryptedKeyId) o;
+      return user.equals(other.user)
+          && versionName.equals(other.versionName)
+          && Arrays.equals(iv, other.iv)
+          && Arrays.equals(material, other.material);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * user.hashCode() + versionName.hashCode())
+          + Arrays.hashCode(iv)) + Arrays.hashCode(material);
+    }
+  }
+
   public LoadBalancingKMSClientProvider(URI providerUri,
       KMSClientProvider[] providers, Configuration conf) {
     this(providerUri, providers, Time.monotonicNow(), conf);
@@ -133,6 +207,24 @@ private LoadBalancingKMSClientProvider(URI uri,
     this.retryPolicy = RetryPolicies.failoverOnNetworkException(
         RetryPolicies.TRY_ONCE_THEN_FAIL, maxNumRetries, 0, sleepBaseMillis,
         sleepMaxMillis);
+    decryptBatchWindowMs = conf.getLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS,
+        CommonConfigurationKeysPublic.
+            KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS_DEFAULT);
+    decryptBatchMaxSize = conf.getInt(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE,
+        CommonConfigurationKeysPublic.
+            KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE_DEFAULT);
+    Preconditions.checkState(decryptBatchMaxSize > 0);
+    long decryptedKeyCacheExpiry = conf.getLong(CommonConfigurationKeysPublic.
+            KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_MS,
+        CommonConfigurationKeysPublic.
+            KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_DEFAULT);
+    decryptedKeyCache = decryptedKeyCacheExpiry <= 0 ? null
+        : CacheBuilder.newBuilder()
+            .maximumSize(DECRYPTED_KEY_CACHE_MAX_SIZE)
+            .expireAfterWrite(decryptedKeyCacheExpiry, TimeUnit.MILLISECONDS)
+            .build();
     LOG.debug("Created LoadBalancingKMSClientProvider for KMS url: {} with {} "
             + "providers. delegation token service: {}, canonical service: {}",
         uri, providers.length, dtService, canonicalService);
@@ -346,6 +438,116 @@ public EncryptedKeyVersion call(KMSClientProvider provider)
   public KeyVersion
       decryptEncryptedKey(final EncryptedKeyVersion encryptedKeyVersion)
           throws IOException, GeneralSecurityException {
+    if (decryptedKeyCache == null && decryptBatchWindowMs <= 0) {
+      return decryptUncached(encryptedKeyVersion);
+    }
+    final String user = getCurrentUserId();
+    EncryptedKeyId id = null;
+    if (decryptedKeyCache != null) {
+      id = new EncryptedKeyId(user, encryptedKeyVersion);
+      KeyVersion cached = decryptedKeyCache.getIfPresent(id);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    KeyVersion keyVersion = decryptBatchWindowMs > 0
+        ? decryptInBatch(user, encryptedKeyVersion)
+        : decryptUncached(encryptedKeyVersion);
+    if (id != null) {
+      decryptedKeyCache.put(id, keyVersion);
+    }
+    return keyVersion;
+  }
+
+  /**
+   * @return the identity of the current user the KMS authorizes the
+   * requests of, including the real user of a proxy user.
+   */
+  private static String getCurrentUserId() throws IOException {
+    UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+    UserGroupInformation realUser = ugi.getRealUser();
+    return realUser == null ? ugi.getUserName()
+        : ugi.getUserName() + " via " + realUser.getUserName();
+  }
+
+  /**
+   * Decrypt an encrypted key with the keys of the same key name decrypted
+   * concurrently by the same user. The first caller collects the keys of
+   * the other callers for the batch window, or until the batch is full, and
+   * decrypts them all with a single request.
+   */
+  private KeyVersion decryptInBatch(String user, EncryptedKeyVersion ekv)
+      throws IOException, GeneralSecurityException {
+    final String keyName = ekv.getEncryptionKeyName();
+    final List<String> batchKey = Arrays.asList(user, keyName);
+    DecryptBatch batch;
+    int index;
+    boolean first = false;
+    synchronized (decryptBatches) {
+      batch = decryptBatches.get(batchKey);
+      if (batch == null) {
+        batch = new DecryptBatch();
+        decryptBatches.put(batchKey, batch);
+        first = true;
+      }
+      index = batch.ekvs.size();
+      batch.ekvs.add(ekv);
+      if (batch.ekvs.size() >= decryptBatchMaxSize) {
+        closeBatch(batchKey, batch);
+        decryptBatches.notifyAll();
+      }
+    }
+    if (first) {
+      synchronized (decryptBatches) {
+        long deadline = Time.monotonicNow() + decryptBatchWindowMs;
+        long remaining;
+        while (!batch.closed
+            && (remaining = deadline - Time.monotonicNow()) > 0) {
+          try {
+            decryptBatches.wait(remaining);
+          } catch (InterruptedException e) {
+            // Still decrypt the keys of the other callers
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+        closeBatch(batchKey, batch);
+      }
+      try {
+        batch.result.complete(decryptEncryptedKeysUncached(batch.ekvs));
+      } catch (IOException | GeneralSecurityException | RuntimeException e) {
+        batch.result.completeExceptionally(e);
+      }
+    }
+    try {
+      return batch.result.get().get(index);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted waiting for the decryption of a key of " + keyName);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof GeneralSecurityException) {
+        throw (GeneralSecurityException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private void closeBatch(List<String> batchKey, DecryptBatch batch) {
+    if (decryptBatches.get(batchKey) == batch) {
+      decryptBatches.remove(batchKey);
+    }
+    batch.closed = true;
+  }
+
+  private KeyVersion decryptUncached(
+      final EncryptedKeyVersion encryptedKeyVersion)
+      throws IOException, GeneralSecurityException {
     try {
       return doOp(new ProviderCallable<KeyVersion>() {
         @Override
@@ -362,6 +564,57 @@ public KeyVersion call(KMSClientProvider provider)
     }
   }
 
+  @Override
+  public List<KeyVersion> decryptEncryptedKeys(
+      final List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    if (decryptedKeyCache == null) {
+      return decryptEncryptedKeysUncached(ekvs);
+    }
+    final String user = getCurrentUserId();
+    final List<KeyVersion> keyVersions = new ArrayList<>(ekvs.size());
+    final List<EncryptedKeyVersion> missing = new ArrayList<>();
+    for (EncryptedKeyVersion ekv : ekvs) {
+      KeyVersion cached = decryptedKeyCache.getIfPresent(
+          new EncryptedKeyId(user, ekv));
+      keyVersions.add(cached);
+      if (cached == null) {
+        missing.add(ekv);
+      }
+    }
+    if (!missing.isEmpty()) {
+      List<KeyVersion> decrypted = decryptEncryptedKeysUncached(missing);
+      for (int i = 0, j = 0; i < keyVersions.size(); i++) {
+        if (keyVersions.get(i) == null) {
+          KeyVersion keyVersion = decrypted.get(j++);
+          decryptedKeyCache.put(new EncryptedKeyId(user, ekvs.get(i)),
+              keyVersion);
+          keyVersions.set(i, keyVersion);
+        }
+      }
+    }
+    return keyVersions;
+  }
+
+  private List<KeyVersion> decryptEncryptedKeysUncached(
+      final List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    try {
+      return doOp(new ProviderCallable<List<KeyVersion>>() {
+        @Override
+        public List<KeyVersion> call(KMSClientProvider provider)
+            throws IOException, GeneralSecurityException {
+          return provider.decryptEncryptedKeys(ekvs);
+        }
+      }, nextIdx(), true);
+    } catch (WrapperException we) {
+      if (we.getCause() instanceof GeneralSecurityException) {
+        throw (GeneralSecurityException) we.getCause();
+      }
+      throw new IOException(we.getCause());
+    }
+  }
+
   @Override
   public EncryptedKeyVersion reencryptEncryptedKey(
       final EncryptedKeyVersion ekv)
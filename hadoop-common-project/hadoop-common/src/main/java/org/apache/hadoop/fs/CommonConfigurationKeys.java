@@ -176,6 +176,47 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean IO_COMPRESSION_CODEC_LZ4_USELZ4HC_DEFAULT =
       false;
 
+  /**
+   * Number of threads compressing the blocks of the output streams of the
+   * gzip, bzip2 and zstd codecs in parallel. 1 compresses on the thread
+   * writing to the stream.
+   */
+  public static final String IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY =
+      "io.compression.codec.parallel.threads";
+
+  /** Default value for IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY */
+  public static final int IO_COMPRESSION_CODEC_PARALLEL_THREADS_DEFAULT = 1;
+
+  /** Size of the blocks compressed in parallel. */
+  public static final String IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY =
+      "io.compression.codec.parallel.block.size";
+
+  /** Default value for IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY */
+  public static final int IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_DEFAULT =
+      1024 * 1024;
+
+  /**
+   * Number of uncompressed bytes of the seekable frames written by the
+   * seekable zstd codec.
+   */
+  public static final String IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY =
+      "io.compression.codec.zstd.seekable.frame.size";
+
+  /** Default value for IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY */
+  public static final int
+      IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_DEFAULT = 4 * 1024 * 1024;
+
+  /**
+   * Number of uncompressed bytes of the seekable frames written by the
+   * seekable lz4 codec.
+   */
+  public static final String IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_KEY =
+      "io.compression.codec.lz4.seekable.frame.size";
+
+  /** Default value for IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_KEY */
+  public static final int
+      IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_DEFAULT = 4 * 1024 * 1024;
+
 
 
   /**
@@ -373,6 +414,18 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean RPC_METRICS_QUANTILE_ENABLE_DEFAULT = false;
   public static final String  RPC_METRICS_PERCENTILES_INTERVALS_KEY =
       "rpc.metrics.percentiles.intervals";
+  public static final String RPC_METRICS_DETAILED_QUANTILE_ENABLE =
+      "rpc.metrics.detailed.quantile.enable";
+  public static final boolean RPC_METRICS_DETAILED_QUANTILE_ENABLE_DEFAULT =
+      false;
+  /**
+   * Whether the RPC metrics use lock-free percentiles and per method rates.
+   * @see org.apache.hadoop.metrics2.lib.MutableHistogramQuantiles
+   * @see org.apache.hadoop.metrics2.lib.MutableRatesWithAdders
+   */
+  public static final String RPC_METRICS_LOCKFREE_ENABLE =
+      "rpc.metrics.lockfree.enable";
+  public static final boolean RPC_METRICS_LOCKFREE_ENABLE_DEFAULT = false;
   
   /** Allowed hosts for nfs exports */
   public static final String NFS_EXPORTS_ALLOWED_HOSTS_SEPARATOR = ";";
@@ -570,6 +570,27 @@ public class CommonConfigurationKeysPublic {
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
    * core-default.xml</a>
    */
+  public static final String HADOOP_SECURITY_GROUPS_CACHE_PREFETCH =
+      "hadoop.security.groups.cache.prefetch";
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final boolean HADOOP_SECURITY_GROUPS_CACHE_PREFETCH_DEFAULT =
+      false;
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String HADOOP_SECURITY_GROUPS_CACHE_WARM_START_FILE =
+      "hadoop.security.groups.cache.warm-start.file";
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
   public static final String HADOOP_SECURITY_GROUP_SHELL_COMMAND_TIMEOUT_KEY =
       "hadoop.security.groups.shell.command.timeout";
   /**
@@ -851,6 +872,35 @@ public class CommonConfigurationKeysPublic {
   /** Default value is 2 secs. */
   public static final int KMS_CLIENT_FAILOVER_SLEEP_MAX_MILLIS_DEFAULT  = 2000;
 
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS =
+      "hadoop.security.kms.client.decrypt.batch.window.ms";
+  /** Default value is 0, decrypting each key with its own request. */
+  public static final int KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS_DEFAULT = 0;
+
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE =
+      "hadoop.security.kms.client.decrypt.batch.max.size";
+  public static final int KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE_DEFAULT = 100;
+
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_MS =
+      "hadoop.security.kms.client.decrypted.key.cache.expiry";
+  /** Default value is 0, not caching the decrypted keys. */
+  public static final int KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_DEFAULT = 0;
+
   /**
    * @see
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
@@ -988,5 +1038,16 @@ public class CommonConfigurationKeysPublic {
   public static final String HADOOP_PROMETHEUS_ENABLED =
       "hadoop.prometheus.endpoint.enabled";
   public static final boolean HADOOP_PROMETHEUS_ENABLED_DEFAULT = false;
+
+  /**
+   * The minimum time between two refreshes of the metrics served by the
+   * prometheus endpoint, in milliseconds if no unit is given.
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String HADOOP_PROMETHEUS_REFRESH_INTERVAL =
+      "hadoop.prometheus.endpoint.refresh.interval";
+  public static final long HADOOP_PROMETHEUS_REFRESH_INTERVAL_DEFAULT = 1000;
 }
 
@@ -35,6 +35,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -628,7 +629,11 @@ private void addPrometheusServlet(Configuration conf) {
         CommonConfigurationKeysPublic.HADOOP_PROMETHEUS_ENABLED,
         CommonConfigurationKeysPublic.HADOOP_PROMETHEUS_ENABLED_DEFAULT);
     if (prometheusSupport) {
-      prometheusMetricsSink = new PrometheusMetricsSink();
+      prometheusMetricsSink = new PrometheusMetricsSink(conf.getTimeDuration(
+          CommonConfigurationKeysPublic.HADOOP_PROMETHEUS_REFRESH_INTERVAL,
+          CommonConfigurationKeysPublic.
+              HADOOP_PROMETHEUS_REFRESH_INTERVAL_DEFAULT,
+          TimeUnit.MILLISECONDS));
       getWebAppContext().getServletContext()
           .setAttribute(PROMETHEUS_SINK, prometheusMetricsSink);
       addServlet("prometheus", "/prom", PrometheusServlet.class);
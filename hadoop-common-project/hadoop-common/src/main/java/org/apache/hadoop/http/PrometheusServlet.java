@@ -40,8 +40,9 @@ public PrometheusMetricsSink getPrometheusSink() {
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp)
       throws ServletException, IOException {
-    DefaultMetricsSystem.instance().publishMetricsNow();
-    getPrometheusSink().writeMetrics(resp.getWriter());
+    PrometheusMetricsSink sink = getPrometheusSink();
+    sink.refresh(DefaultMetricsSystem.instance());
+    sink.writeMetrics(resp.getWriter());
     resp.getWriter().flush();
   }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * A ByteBufferPool which caches the released ByteBuffers up to a maximum
+ * number of bytes, like {@link ElasticByteBufferPool} but without letting
+ * the cache grow with the peak usage. It returns the smallest cached buffer
+ * with at least the capacity requested, or a new buffer of exactly that
+ * capacity. The buffers released when the cache is full are left to the
+ * garbage collector.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public final class BoundedByteBufferPool implements ByteBufferPool {
+  private final long maxBytes;
+
+  private final TreeMap<Integer, Deque<ByteBuffer>> buffers =
+      new TreeMap<>();
+  private final TreeMap<Integer, Deque<ByteBuffer>> directBuffers =
+      new TreeMap<>();
+  /** The total capacity of the cached buffers, heap and direct. */
+  private long cachedBytes;
+
+  /**
+   * @param maxBytes the maximum total capacity of the cached buffers.
+   */
+  public BoundedByteBufferPool(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  private TreeMap<Integer, Deque<ByteBuffer>> getBufferTree(boolean direct) {
+    return direct ? directBuffers : buffers;
+  }
+
+  @Override
+  public synchronized ByteBuffer getBuffer(boolean direct, int length) {
+    TreeMap<Integer, Deque<ByteBuffer>> tree = getBufferTree(direct);
+    Map.Entry<Integer, Deque<ByteBuffer>> entry = tree.ceilingEntry(length);
+    if (entry == null) {
+      return direct ? ByteBuffer.allocateDirect(length) :
+                      ByteBuffer.allocate(length);
+    }
+    ByteBuffer buffer = entry.getValue().pop();
+    if (entry.getValue().isEmpty()) {
+      tree.remove(entry.getKey());
+    }
+    cachedBytes -= buffer.capacity();
+    buffer.clear();
+    return buffer;
+  }
+
+  @Override
+  public synchronized void putBuffer(ByteBuffer buffer) {
+    if (cachedBytes + buffer.capacity() > maxBytes) {
+      return;
+    }
+    getBufferTree(buffer.isDirect())
+        .computeIfAbsent(buffer.capacity(), k -> new ArrayDeque<>())
+        .push(buffer);
+    cachedBytes += buffer.capacity();
+  }
+
+  /**
+   * @return the total capacity of the cached buffers.
+   */
+  @InterfaceAudience.Private
+  @InterfaceStability.Unstable
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  /**
+   * Get the number of the cached buffers, for the specified buffer type.
+   *
+   * @param direct Whether the size is returned for direct buffers
+   * @return The size
+   */
+  @InterfaceAudience.Private
+  @InterfaceStability.Unstable
+  public synchronized int size(boolean direct) {
+    int size = 0;
+    for (Deque<ByteBuffer> cached : getBufferTree(direct).values()) {
+      size += cached.size();
+    }
+    return size;
+  }
+}
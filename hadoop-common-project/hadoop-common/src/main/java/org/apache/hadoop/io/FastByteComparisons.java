@@ -17,10 +17,14 @@
  */
 package org.apache.hadoop.io;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.nio.ByteOrder;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,10 +62,11 @@ private static Comparer<byte[]> lexicographicalComparerJavaImpl() {
 
   /**
    * Provides a lexicographical comparer implementation; either a Java
-   * implementation or a faster implementation based on {@link Unsafe}.
+   * implementation or a faster implementation based on {@link Unsafe} or
+   * {@code Arrays.mismatch}.
    *
-   * <p>Uses reflection to gracefully fall back to the Java implementation if
-   * {@code Unsafe} isn't available.
+   * <p>Uses reflection to gracefully fall back to the {@code Arrays.mismatch}
+   * or Java implementation if {@code Unsafe} isn't available.
    */
   private static class LexicographicalComparerHolder {
     static final String UNSAFE_COMPARER_NAME =
@@ -69,8 +74,8 @@ private static class LexicographicalComparerHolder {
     
     static final Comparer<byte[]> BEST_COMPARER = getBestComparer();
     /**
-     * Returns the Unsafe-using Comparer, or falls back to the pure-Java
-     * implementation if unable to do so.
+     * Returns the Unsafe-using Comparer, or falls back to the
+     * {@code Arrays.mismatch} or pure-Java implementation if unable to do so.
      */
     static Comparer<byte[]> getBestComparer() {
       if (System.getProperty("os.arch").toLowerCase().startsWith("sparc")) {
@@ -78,7 +83,7 @@ static Comparer<byte[]> getBestComparer() {
           LOG.trace("Lexicographical comparer selected for "
               + "byte aligned system architecture");
         }
-        return lexicographicalComparerJavaImpl();
+        return lexicographicalComparerFallbackImpl();
       }
       try {
         Class<?> theClass = Class.forName(UNSAFE_COMPARER_NAME);
@@ -97,9 +102,20 @@ static Comparer<byte[]> getBestComparer() {
           LOG.trace(t.getMessage());
           LOG.trace("Lexicographical comparer selected");
         }
-        return lexicographicalComparerJavaImpl();
+        return lexicographicalComparerFallbackImpl();
       }
     }
+
+    /**
+     * Returns the {@code Arrays.mismatch} Comparer of Java 9 and later, which
+     * handles unaligned access itself, or the pure-Java implementation.
+     */
+    static Comparer<byte[]> lexicographicalComparerFallbackImpl() {
+      if (MismatchComparer.MISMATCH != null) {
+        return MismatchComparer.INSTANCE;
+      }
+      return lexicographicalComparerJavaImpl();
+    }
     
     private enum PureJavaComparer implements Comparer<byte[]> {
       INSTANCE;
@@ -127,6 +143,55 @@ public int compareTo(byte[] buffer1, int offset1, int length1,
       }
     }
     
+    /**
+     * Comparer finding the first different byte with
+     * {@code Arrays.mismatch(byte[], int, int, byte[], int, int)}, which the
+     * JIT compiles to vectorized instructions. The method is only available
+     * from Java 9, so it is looked up at runtime.
+     */
+    private enum MismatchComparer implements Comparer<byte[]> {
+      INSTANCE;
+
+      /** The mismatch method, null if it is not available. */
+      static final MethodHandle MISMATCH = findMismatch();
+
+      private static MethodHandle findMismatch() {
+        try {
+          return MethodHandles.publicLookup().findStatic(Arrays.class,
+              "mismatch", MethodType.methodType(int.class, byte[].class,
+                  int.class, int.class, byte[].class, int.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+          return null;
+        }
+      }
+
+      @Override
+      public int compareTo(byte[] buffer1, int offset1, int length1,
+          byte[] buffer2, int offset2, int length2) {
+        // Short circuit equal case
+        if (buffer1 == buffer2 &&
+            offset1 == offset2 &&
+            length1 == length2) {
+          return 0;
+        }
+        int i;
+        try {
+          i = (int) MISMATCH.invokeExact(buffer1, offset1, offset1 + length1,
+              buffer2, offset2, offset2 + length2);
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable t) {
+          // Arrays.mismatch does not throw checked exceptions
+          throw new IllegalStateException(t);
+        }
+        // No mismatch, or one array is a prefix of the other
+        if (i < 0 || i >= length1 || i >= length2) {
+          return length1 - length2;
+        }
+        return (buffer1[offset1 + i] & 0xff) - (buffer2[offset2 + i] & 0xff);
+      }
+    }
+
     @SuppressWarnings("unused") // used via reflection
     private enum UnsafeComparer implements Comparer<byte[]> {
       INSTANCE;
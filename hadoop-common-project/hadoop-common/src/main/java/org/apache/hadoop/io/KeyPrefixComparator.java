@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * A {@link RawComparator} providing a prefix of the serialized keys it
+ * compares, for sorts to compare precomputed prefixes before comparing the
+ * bytes of the keys.
+ * <p>
+ * The prefixes of two keys compared as unsigned longs must order them like
+ * {@link RawComparator#compare(byte[], int, int, byte[], int, int)} when they
+ * differ; keys with equal prefixes are compared by the comparator. Subclasses
+ * changing the order of the comparator must override
+ * {@link #getKeyPrefix(byte[], int, int)} as well.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public interface KeyPrefixComparator {
+
+  /**
+   * Compute the prefix of a serialized key.
+   * @param b the bytes of the key
+   * @param s the offset of the key
+   * @param l the length of the key
+   * @return the prefix of the key, as an unsigned long
+   */
+  long getKeyPrefix(byte[] b, int s, int l);
+}
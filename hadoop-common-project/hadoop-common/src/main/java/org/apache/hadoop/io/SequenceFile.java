@@ -19,12 +19,17 @@
 package org.apache.hadoop.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.rmi.server.UID;
 import java.security.MessageDigest;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.util.Options;
 import org.apache.hadoop.fs.*;
 import org.apache.hadoop.fs.Options.CreateOpts;
@@ -50,6 +55,7 @@
 import org.apache.hadoop.util.MergeSort;
 import org.apache.hadoop.util.PriorityQueue;
 import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -2775,6 +2781,355 @@ public String toString() {
 
   }
 
+  /**
+   * Reads the serialized keys and values of the records of a sequence file
+   * as {@link ByteBuffer}s, without deserializing them.
+   *
+   * <p>The records are read and decompressed by batches: a compressed block
+   * of a block-compressed file, or the records up to
+   * {@link CommonConfigurationKeysPublic#IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY}
+   * bytes for the other files, with the values of record-compressed files
+   * decompressed. With prefetching, the next batch is read and decompressed
+   * on a background thread while the records of the current batch are
+   * iterated.</p>
+   *
+   * <p>The buffers returned by {@link #getKey()} and {@link #getValue()}
+   * share the memory of the batch, and are only valid until the next call
+   * of {@link #next()}. This class is not thread-safe.</p>
+   */
+  public static class RawReader implements java.io.Closeable {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Reader header;
+    private final FSDataInputStream in;
+    private final int batchSize;
+    private final byte[] syncCheck = new byte[SYNC_HASH_SIZE];
+
+    // Only used by the thread filling the batches
+    private final DataOutputBuffer raw = new DataOutputBuffer();
+    private final DataOutputBuffer lengths = new DataOutputBuffer();
+    private final DataInputBuffer lengthsIn = new DataInputBuffer();
+    private final DataInputBuffer compressedIn = new DataInputBuffer();
+    private final byte[] chunk;
+    private Decompressor decompressor;
+    private CompressionInputStream filter;
+
+    private final ExecutorService executor;
+    private Future<Batch> pending;
+    private Batch current;
+    private Batch spare = new Batch();
+    private int record;
+    private ByteBuffer keyBuffer;
+    private ByteBuffer valueBuffer;
+    private boolean eof;
+    /** The failure reading the next batch, thrown again by later calls. */
+    private IOException failure;
+
+    /** The keys and values of a batch of records. */
+    private static final class Batch {
+      private final DataOutputBuffer keys = new DataOutputBuffer();
+      private final DataOutputBuffer values = new DataOutputBuffer();
+      /** The offsets of the records, with the end of the last record. */
+      private int[] keyOffsets = new int[1];
+      private int[] valueOffsets = new int[1];
+      private int numRecords;
+
+      private void reset() {
+        keys.reset();
+        values.reset();
+        numRecords = 0;
+      }
+
+      private void ensureCapacity(int records) {
+        if (records + 1 > keyOffsets.length) {
+          int length = Math.max(records + 1, keyOffsets.length * 2);
+          keyOffsets = Arrays.copyOf(keyOffsets, length);
+          valueOffsets = Arrays.copyOf(valueOffsets, length);
+        }
+      }
+
+      /** Add a record whose key and value were written. */
+      private void addRecord() {
+        ensureCapacity(numRecords + 1);
+        numRecords++;
+        keyOffsets[numRecords] = keys.getLength();
+        valueOffsets[numRecords] = values.getLength();
+      }
+    }
+
+    /**
+     * @param conf the configuration
+     * @param prefetch whether to read the batches on a background thread
+     * @param opts the options of the file, as for {@link Reader}
+     * @throws IOException if the file cannot be opened
+     */
+    public RawReader(Configuration conf, boolean prefetch,
+        Reader.Option... opts) throws IOException {
+      header = new Reader(conf,
+          Options.prependOptions(opts, new Reader.OnlyHeaderOption()));
+      in = header.in;
+      batchSize = conf.getInt(IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY,
+          IO_SEQFILE_COMPRESS_BLOCKSIZE_DEFAULT);
+      chunk = header.decompress ? new byte[CHUNK_SIZE] : null;
+      if (header.decompress) {
+        decompressor = CodecPool.getDecompressor(header.codec);
+        filter = header.codec.createInputStream(compressedIn, decompressor);
+      }
+      if (prefetch) {
+        executor = HadoopExecutors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("SequenceFile prefetch "
+                    + header.toString().replace("%", "%%")).build());
+        pending = executor.submit(() -> fill(new Batch()));
+      } else {
+        executor = null;
+      }
+    }
+
+    /** Returns the name of the key class. */
+    public String getKeyClassName() {
+      return header.getKeyClassName();
+    }
+
+    /** Returns the name of the value class. */
+    public String getValueClassName() {
+      return header.getValueClassName();
+    }
+
+    /** Returns the compression type of the file. */
+    public CompressionType getCompressionType() {
+      return header.getCompressionType();
+    }
+
+    /** Returns the metadata of the file. */
+    public Metadata getMetadata() {
+      return header.getMetadata();
+    }
+
+    /**
+     * Move to the next record.
+     * @return false at the end of the file.
+     * @throws IOException if the file cannot be read
+     */
+    public boolean next() throws IOException {
+      if (current != null && record + 1 < current.numRecords) {
+        record++;
+      } else if (eof || !nextBatch()) {
+        return false;
+      }
+      keyBuffer.limit(current.keyOffsets[record + 1]);
+      keyBuffer.position(current.keyOffsets[record]);
+      valueBuffer.limit(current.valueOffsets[record + 1]);
+      valueBuffer.position(current.valueOffsets[record]);
+      return true;
+    }
+
+    /**
+     * @return the serialized key of the current record, between the
+     * position and the limit of the buffer.
+     */
+    public ByteBuffer getKey() {
+      return keyBuffer;
+    }
+
+    /**
+     * @return the serialized value of the current record, between the
+     * position and the limit of the buffer, decompressed.
+     */
+    public ByteBuffer getValue() {
+      return valueBuffer;
+    }
+
+    /** @return false at the end of the file. */
+    private boolean nextBatch() throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+      try {
+        return readNextBatch();
+      } catch (IOException e) {
+        // The position in the file is lost, the reader cannot go on
+        failure = e;
+        throw e;
+      }
+    }
+
+    private boolean readNextBatch() throws IOException {
+      Batch batch;
+      if (current != null) {
+        spare = current;
+      }
+      if (executor == null) {
+        batch = fill(spare);
+      } else {
+        batch = awaitPending();
+        if (batch.numRecords > 0) {
+          final Batch next = spare;
+          pending = executor.submit(() -> fill(next));
+        }
+      }
+      current = batch;
+      record = 0;
+      if (batch.numRecords == 0) {
+        eof = true;
+        return false;
+      }
+      keyBuffer = ByteBuffer.wrap(batch.keys.getData());
+      valueBuffer = ByteBuffer.wrap(batch.values.getData());
+      return true;
+    }
+
+    private Batch awaitPending() throws IOException {
+      try {
+        return pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw (IOException) new InterruptedIOException(
+            "Interrupted reading " + header).initCause(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException("Failed to read " + header, e.getCause());
+      } finally {
+        pending = null;
+      }
+    }
+
+    /**
+     * Read the next batch of records.
+     * @return the batch, without records at the end of the file.
+     */
+    private Batch fill(Batch batch) throws IOException {
+      batch.reset();
+      if (header.blockCompressed) {
+        while (batch.numRecords == 0 && in.getPos() < header.end) {
+          try {
+            readBlock(batch);
+          } catch (EOFException e) {
+            break;
+          }
+        }
+      } else {
+        while (batch.keys.getLength() + batch.values.getLength() < batchSize
+            && readRecord(batch)) {
+          // Read the records up to the size of a batch
+        }
+      }
+      return batch;
+    }
+
+    private void readSync() throws IOException {
+      in.readFully(syncCheck);
+      if (!Arrays.equals(header.sync, syncCheck)) {
+        throw new IOException("File is corrupt!");
+      }
+    }
+
+    /** As Reader#readRecordLength and Reader#nextRaw. */
+    private boolean readRecord(Batch batch) throws IOException {
+      if (in.getPos() >= header.end) {
+        return false;
+      }
+      int length = in.readInt();
+      if (header.version > 1 && header.sync != null
+          && length == SYNC_ESCAPE) {
+        readSync();
+        if (in.getPos() >= header.end) {
+          return false;
+        }
+        length = in.readInt();
+      }
+      int keyLength = in.readInt();
+      batch.keys.write(in, keyLength);
+      if (header.decompress) {
+        raw.reset();
+        raw.write(in, length - keyLength);
+        decompress(batch.values);
+      } else {
+        batch.values.write(in, length - keyLength);
+      }
+      batch.addRecord();
+      return true;
+    }
+
+    /** As Reader#readBlock, decompressing the values too. */
+    private void readBlock(Batch batch) throws IOException {
+      if (header.sync != null) {
+        in.readInt();
+        readSync();
+      }
+      int numRecords = WritableUtils.readVInt(in);
+      batch.ensureCapacity(numRecords);
+
+      lengths.reset();
+      readCompressed(lengths);
+      readCompressed(batch.keys);
+      readOffsets(batch.keyOffsets, numRecords, batch.keys.getLength());
+
+      lengths.reset();
+      readCompressed(lengths);
+      readCompressed(batch.values);
+      readOffsets(batch.valueOffsets, numRecords, batch.values.getLength());
+      batch.numRecords = numRecords;
+    }
+
+    /** Compute the offsets of the records from their lengths. */
+    private void readOffsets(int[] offsets, int numRecords, int length)
+        throws IOException {
+      lengthsIn.reset(lengths.getData(), lengths.getLength());
+      int offset = 0;
+      for (int i = 0; i < numRecords; i++) {
+        offset += WritableUtils.readVInt(lengthsIn);
+        offsets[i + 1] = offset;
+      }
+      if (offset != length) {
+        throw new IOException("Invalid lengths of the records of a block of "
+            + header);
+      }
+    }
+
+    /** Read a compressed buffer of a block. */
+    private void readCompressed(DataOutputBuffer dst) throws IOException {
+      raw.reset();
+      raw.write(in, WritableUtils.readVInt(in));
+      decompress(dst);
+    }
+
+    /** Decompress the raw buffer, appending to the destination. */
+    private void decompress(DataOutputBuffer dst) throws IOException {
+      compressedIn.reset(raw.getData(), raw.getLength());
+      filter.resetState();
+      int n;
+      while ((n = filter.read(chunk, 0, chunk.length)) > 0) {
+        dst.write(chunk, 0, n);
+      }
+    }
+
+    /** Close the file, after the batch being prefetched is read. */
+    @Override
+    public void close() throws IOException {
+      if (executor != null) {
+        if (pending != null) {
+          try {
+            awaitPending();
+          } catch (IOException e) {
+            LOG.debug("Failed to prefetch " + header, e);
+          }
+        }
+        executor.shutdown();
+      }
+      CodecPool.returnDecompressor(decompressor);
+      decompressor = null;
+      header.close();
+    }
+
+    @Override
+    public String toString() {
+      return header.toString();
+    }
+  }
+
   /** Sorts key/value pairs in a sequence-format file.
    *
    * <p>For best performance, applications should make sure that the {@link
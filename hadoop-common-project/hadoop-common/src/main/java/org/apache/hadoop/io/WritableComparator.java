@@ -227,6 +227,26 @@ public static long readLong(byte[] bytes, int start) {
       (readInt(bytes, start+4) & 0xFFFFFFFFL);
   }
 
+  /**
+   * Read the first 8 bytes of a byte array as a big-endian long, padding
+   * fewer bytes with zeros, so comparing the results as unsigned longs
+   * orders byte arrays with different first 8 bytes like
+   * {@link #compareBytes(byte[], int, int, byte[], int, int)}.
+   */
+  public static long readLongPrefix(byte[] bytes, int start, int length) {
+    if (length >= 8) {
+      return readLong(bytes, start);
+    }
+    long prefix = 0;
+    for (int i = 0; i < 8; i++) {
+      prefix <<= 8;
+      if (i < length) {
+        prefix |= bytes[start + i] & 0xff;
+      }
+    }
+    return prefix;
+  }
+
   /** Parse a double from a byte array. */
   public static double readDouble(byte[] bytes, int start) {
     return Double.longBitsToDouble(readLong(bytes, start));
@@ -94,7 +94,9 @@ public BZip2Codec() { }
 
   /**
    * Create a {@link CompressionOutputStream} that will write to the given
-   * {@link OutputStream}.
+   * {@link OutputStream}. The stream compresses in parallel into multiple
+   * bzip2 streams when {@link ParallelCompressorStream#isEnabled} is true
+   * for the configuration.
    *
    * @param out        the location for the final output stream
    * @return a stream the user can write uncompressed data to, to have it 
@@ -104,6 +106,9 @@ public BZip2Codec() { }
   @Override
   public CompressionOutputStream createOutputStream(OutputStream out)
       throws IOException {
+    if (ParallelCompressorStream.isEnabled(conf)) {
+      return new ParallelCompressorStream(out, this, conf);
+    }
     return CompressionCodec.Util.
         createOutputStreamWithCodecPool(this, conf, out);
   }
@@ -337,6 +342,8 @@ private static class BZip2CompressionInputStream extends
     private boolean isSubHeaderStripped = false;
     private READ_MODE readMode = READ_MODE.CONTINUOUS;
     private long startingPos = 0L;
+    /** The compressed bytes of the previous concatenated bzip2 streams. */
+    private long previousStreamsBytes = 0L;
 
     // Following state machine handles different states of compressed stream
     // position
@@ -488,6 +495,12 @@ public int read(byte[] b, int off, int len) throws IOException {
 
       int result = 0;
       result = this.input.read(b, off, len);
+      // Continue with the next bzip2 stream of concatenated streams, e.g.
+      // written by a ParallelCompressorStream
+      while (result == BZip2Constants.END_OF_STREAM
+          && this.readMode == READ_MODE.CONTINUOUS && startNextStream()) {
+        result = this.input.read(b, off, len);
+      }
       if (result == BZip2Constants.END_OF_BLOCK) {
         this.posSM = POS_ADVERTISEMENT_STATE_MACHINE.ADVERTISE;
       }
@@ -510,6 +523,25 @@ public int read() throws IOException {
       return (result < 0) ? result : (b[0] & 0xff);
     }
 
+    /**
+     * Start reading the next stream if another bzip2 stream follows the
+     * end of the current one.
+     * @return whether another stream follows.
+     */
+    private boolean startNextStream() throws IOException {
+      bufferedIn.mark(HEADER_LEN);
+      byte[] headerBytes = new byte[HEADER_LEN];
+      int actualRead = bufferedIn.read(headerBytes, 0, HEADER_LEN);
+      if (actualRead != HEADER_LEN || !HEADER.equals(
+          new String(headerBytes, StandardCharsets.UTF_8))) {
+        bufferedIn.reset();
+        return false;
+      }
+      previousStreamsBytes += this.input.getProcessedByteCount() + HEADER_LEN;
+      input = new CBZip2InputStream(bufferedIn, this.readMode);
+      return true;
+    }
+
     private void internalReset() throws IOException {
       if (needsReset) {
         needsReset = false;
@@ -542,7 +574,8 @@ public long getPos() {
     private void updatePos(boolean shouldAddOn) {
       int addOn = shouldAddOn ? 1 : 0;
       this.compressedStreamPosition = this.startingPos
-          + this.input.getProcessedByteCount() + addOn;
+          + this.previousStreamsBytes + this.input.getProcessedByteCount()
+          + addOn;
     }
 
   }// end of BZip2CompressionInputStream
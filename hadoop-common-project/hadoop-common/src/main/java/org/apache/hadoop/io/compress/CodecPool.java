@@ -26,6 +26,8 @@
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BoundedByteBufferPool;
+import org.apache.hadoop.io.ByteBufferPool;
 import org.apache.hadoop.util.ReflectionUtils;
 
 import com.google.common.cache.CacheBuilder;
@@ -57,6 +59,33 @@ public class CodecPool {
   private static final Map<Class<Decompressor>, Set<Decompressor>> decompressorPool =
     new HashMap<Class<Decompressor>, Set<Decompressor>>();
 
+  /**
+   * A global pool of the direct compressors, by the class of the codecs
+   * which created them.
+   */
+  private static final Map<Class<?>, Set<DirectCompressor>>
+      directCompressorPool = new HashMap<>();
+
+  /**
+   * A global pool of the direct decompressors, by the class of the codecs
+   * which created them.
+   */
+  private static final Map<Class<?>, Set<DirectDecompressor>>
+      directDecompressorPool = new HashMap<>();
+
+  /**
+   * The maximum total capacity of the buffers cached by
+   * {@link #getDirectBufferPool()}.
+   */
+  public static final long DIRECT_BUFFER_POOL_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * A global pool of the direct buffers given to the direct compressors and
+   * decompressors.
+   */
+  private static final BoundedByteBufferPool directBufferPool =
+      new BoundedByteBufferPool(DIRECT_BUFFER_POOL_MAX_BYTES);
+
   private static <T> LoadingCache<Class<T>, AtomicInteger> createCache(
       Class<T> klass) {
     return CacheBuilder.newBuilder().build(
@@ -80,8 +109,7 @@ public AtomicInteger load(Class<T> key) throws Exception {
   private static final LoadingCache<Class<Decompressor>, AtomicInteger> decompressorCounts =
       createCache(Decompressor.class);
 
-  private static <T> T borrow(Map<Class<T>, Set<T>> pool,
-                             Class<? extends T> codecClass) {
+  private static <T> T borrow(Map<?, Set<T>> pool, Object codecClass) {
     T codec = null;
     
     // Check if an appropriate codec is available
@@ -103,8 +131,13 @@ private static <T> T borrow(Map<Class<T>, Set<T>> pool,
   }
 
   private static <T> boolean payback(Map<Class<T>, Set<T>> pool, T codec) {
+    return codec != null &&
+        payback(pool, ReflectionUtils.getClass(codec), codec);
+  }
+
+  private static <K, T> boolean payback(Map<K, Set<T>> pool, K codecClass,
+      T codec) {
     if (codec != null) {
-      Class<T> codecClass = ReflectionUtils.getClass(codec);
       Set<T> codecSet;
       synchronized (pool) {
         codecSet = pool.get(codecClass);
@@ -233,6 +266,108 @@ public static void returnDecompressor(Decompressor decompressor) {
     }
   }
 
+  /**
+   * Get a {@link DirectCompressor} for the given
+   * {@link DirectCompressionCodec} from the pool or a new one.
+   *
+   * @param codec the <code>DirectCompressionCodec</code> for which to get
+   *              the <code>DirectCompressor</code>
+   * @param conf the <code>Configuration</code> object which contains confs
+   *             for reinit the compressor
+   * @return <code>DirectCompressor</code> for the given
+   *         <code>DirectCompressionCodec</code> from the pool or a new one,
+   *         null if the codec does not support direct compression
+   */
+  public static DirectCompressor getDirectCompressor(
+      DirectCompressionCodec codec, Configuration conf) {
+    DirectCompressor compressor = borrow(directCompressorPool,
+        codec.getClass());
+    if (compressor == null) {
+      compressor = codec.createDirectCompressor();
+      LOG.info("Got brand-new direct compressor ["
+          + codec.getDefaultExtension() + "]");
+    } else {
+      if (compressor instanceof Compressor) {
+        ((Compressor) compressor).reinit(conf);
+      }
+      LOG.debug("Got recycled direct compressor");
+    }
+    return compressor;
+  }
+
+  /**
+   * Get a {@link DirectDecompressor} for the given
+   * {@link DirectDecompressionCodec} from the pool or a new one.
+   *
+   * @param codec the <code>DirectDecompressionCodec</code> for which to get
+   *              the <code>DirectDecompressor</code>
+   * @return <code>DirectDecompressor</code> for the given
+   *         <code>DirectDecompressionCodec</code> from the pool or a new
+   *         one, null if the codec does not support direct decompression
+   */
+  public static DirectDecompressor getDirectDecompressor(
+      DirectDecompressionCodec codec) {
+    DirectDecompressor decompressor = borrow(directDecompressorPool,
+        codec.getClass());
+    if (decompressor == null) {
+      decompressor = codec.createDirectDecompressor();
+      LOG.info("Got brand-new direct decompressor ["
+          + codec.getDefaultExtension() + "]");
+    } else {
+      LOG.debug("Got recycled direct decompressor");
+    }
+    return decompressor;
+  }
+
+  /**
+   * Return the {@link DirectCompressor} to the pool.
+   *
+   * @param codec the <code>DirectCompressionCodec</code> which created the
+   *              compressor
+   * @param compressor the <code>DirectCompressor</code> to be returned to the
+   *                   pool
+   */
+  public static void returnDirectCompressor(DirectCompressionCodec codec,
+      DirectCompressor compressor) {
+    if (compressor == null ||
+        compressor.getClass().isAnnotationPresent(DoNotPool.class)) {
+      return;
+    }
+    payback(directCompressorPool, codec.getClass(), compressor);
+  }
+
+  /**
+   * Return the {@link DirectDecompressor} to the pool.
+   *
+   * @param codec the <code>DirectDecompressionCodec</code> which created the
+   *              decompressor
+   * @param decompressor the <code>DirectDecompressor</code> to be returned to
+   *                     the pool
+   */
+  public static void returnDirectDecompressor(DirectDecompressionCodec codec,
+      DirectDecompressor decompressor) {
+    if (decompressor == null ||
+        decompressor.getClass().isAnnotationPresent(DoNotPool.class)) {
+      return;
+    }
+    if (decompressor instanceof Decompressor) {
+      ((Decompressor) decompressor).reset();
+    }
+    payback(directDecompressorPool, codec.getClass(), decompressor);
+  }
+
+  /**
+   * Get the global pool of direct buffers for the source and destination of
+   * the {@link DirectCompressor}s and {@link DirectDecompressor}s. It caches
+   * up to {@link #DIRECT_BUFFER_POOL_MAX_BYTES} of released buffers, shared
+   * by all the codecs.
+   *
+   * @return the global pool of direct buffers
+   */
+  public static ByteBufferPool getDirectBufferPool() {
+    return directBufferPool;
+  }
+
   /**
    * Return the number of leased {@link Compressor}s for this
    * {@link CompressionCodec}
@@ -190,7 +190,8 @@ public CompressionCodecFactory(Configuration conf) {
   
   /**
    * Find the relevant compression codec for the given file based on its
-   * filename suffix.
+   * filename suffix. The codec with the longest matching suffix is chosen,
+   * e.g. for .seekable.zst over .zst.
    * @param file the filename to check
    * @return the codec object
    */
@@ -202,10 +203,13 @@ public CompressionCodec getCodec(Path file) {
           new StringBuilder(filename).reverse().toString();
       SortedMap<String, CompressionCodec> subMap = 
         codecs.headMap(reversedFilename);
-      if (!subMap.isEmpty()) {
+      // The longest matching suffix is the last one before the filename
+      while (result == null && !subMap.isEmpty()) {
         String potentialSuffix = subMap.lastKey();
         if (reversedFilename.startsWith(potentialSuffix)) {
           result = codecs.get(potentialSuffix);
+        } else {
+          subMap = codecs.headMap(potentialSuffix);
         }
       }
     }
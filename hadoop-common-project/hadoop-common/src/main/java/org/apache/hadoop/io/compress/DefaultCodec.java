@@ -36,7 +36,8 @@
 
 @InterfaceAudience.Public
 @InterfaceStability.Evolving
-public class DefaultCodec implements Configurable, CompressionCodec, DirectDecompressionCodec {
+public class DefaultCodec implements Configurable, CompressionCodec,
+    DirectDecompressionCodec, DirectCompressionCodec {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCodec.class);
   
   Configuration conf;
@@ -110,6 +111,14 @@ public Decompressor createDecompressor() {
   public DirectDecompressor createDirectDecompressor() {
     return ZlibFactory.getZlibDirectDecompressor(conf);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return ZlibFactory.getZlibDirectCompressor(conf);
+  }
   
   
   @Override
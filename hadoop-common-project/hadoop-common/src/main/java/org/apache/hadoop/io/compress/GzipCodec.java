@@ -129,9 +129,23 @@ public void resetState() throws IOException {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * The stream compresses in parallel into multiple gzip members when
+   * {@link ParallelCompressorStream#isEnabled} is true for the
+   * configuration.
+   */
   @Override
   public CompressionOutputStream createOutputStream(OutputStream out) 
     throws IOException {
+    if (ParallelCompressorStream.isEnabled(conf)) {
+      return new ParallelCompressorStream(out, this, conf);
+    }
+    return createSerialOutputStream(out);
+  }
+
+  private CompressionOutputStream createSerialOutputStream(OutputStream out)
+      throws IOException {
     if (!ZlibFactory.isNativeZlibLoaded(conf)) {
       return new GzipOutputStream(out);
     }
@@ -147,7 +161,7 @@ public CompressionOutputStream createOutputStream(OutputStream out,
                new CompressorStream(out, compressor,
                                     conf.getInt(IO_FILE_BUFFER_SIZE_KEY,
                                             IO_FILE_BUFFER_SIZE_DEFAULT)) :
-               createOutputStream(out);
+               createSerialOutputStream(out);
   }
 
   @Override
@@ -204,6 +218,15 @@ public DirectDecompressor createDirectDecompressor() {
           ZlibDecompressor.CompressionHeader.AUTODETECT_GZIP_ZLIB, 0) : null;
   }
 
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return ZlibFactory.isNativeZlibLoaded(conf)
+        ? new ZlibCompressor.ZlibDirectCompressor(
+            ZlibFactory.getCompressionLevel(conf),
+            ZlibFactory.getCompressionStrategy(conf),
+            ZlibCompressor.CompressionHeader.GZIP_FORMAT) : null;
+  }
+
   @Override
   public String getDefaultExtension() {
     return ".gz";
@@ -26,13 +26,16 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.lz4.Lz4Compressor;
 import org.apache.hadoop.io.compress.lz4.Lz4Decompressor;
+import org.apache.hadoop.io.compress.lz4.Lz4Compressor.Lz4DirectCompressor;
+import org.apache.hadoop.io.compress.lz4.Lz4Decompressor.Lz4DirectDecompressor;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.util.NativeCodeLoader;
 
 /**
  * This class creates lz4 compressors/decompressors.
  */
-public class Lz4Codec implements Configurable, CompressionCodec {
+public class Lz4Codec implements Configurable, CompressionCodec,
+    DirectDecompressionCodec, DirectCompressionCodec {
 
   static {
     NativeCodeLoader.isNativeCodeLoaded();
@@ -149,7 +152,8 @@ public Compressor createCompressor() {
 
   /**
    * Create a {@link CompressionInputStream} that will read from the given
-   * input stream.
+   * input stream, written with seekable frames by {@link SeekableLz4Codec}
+   * or not.
    *
    * @param in the stream to read compressed bytes from
    * @return a stream to read uncompressed bytes from
@@ -158,8 +162,7 @@ public Compressor createCompressor() {
   @Override
   public CompressionInputStream createInputStream(InputStream in)
       throws IOException {
-    return CompressionCodec.Util.
-        createInputStreamWithCodecPool(this, conf, in);
+    return SeekableFrameDecompressorStream.createInputStream(this, conf, in);
   }
 
   /**
@@ -214,6 +217,28 @@ public Decompressor createDecompressor() {
     return new Lz4Decompressor(bufferSize);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectDecompressor createDirectDecompressor() {
+    return isNativeCodeLoaded() ? new Lz4DirectDecompressor() : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    if (!isNativeCodeLoaded()) {
+      return null;
+    }
+    boolean useLz4HC = conf.getBoolean(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_LZ4_USELZ4HC_KEY,
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_LZ4_USELZ4HC_DEFAULT);
+    return new Lz4DirectCompressor(useLz4HC);
+  }
+
   /**
    * Get the default filename extension for this kind of compression.
    *
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
+
+/**
+ * A {@link CompressionOutputStream} compressing the data written to it in
+ * parallel, pigz-style.
+ * <p>
+ * The data is split into blocks of
+ * {@link CommonConfigurationKeys#IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY}
+ * bytes, each compressed independently by a pool of
+ * {@link CommonConfigurationKeys#IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY}
+ * threads into a complete stream of the codec, using the compressors of the
+ * {@link CodecPool}. The compressed blocks are written in order, so the
+ * output is a concatenation of gzip members, bzip2 streams or zstd frames,
+ * which the input streams of the codec read as one stream.
+ * <p>
+ * The codec must only create concatenable streams, and must not create a
+ * {@link ParallelCompressorStream} in
+ * {@link CompressionCodec#createOutputStream(OutputStream, Compressor)}.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class ParallelCompressorStream extends CompressionOutputStream {
+  private final CompressionCodec codec;
+  private final Configuration conf;
+  private final ExecutorService executor;
+  private final int blockSize;
+  /** The maximum number of blocks compressed or waiting to be written. */
+  private final int maxPending;
+
+  /** The blocks compressed or waiting to be written, in order. */
+  private final Deque<Block> pending = new ArrayDeque<>();
+  /** The buffers of the blocks already written, to reuse. */
+  private final Deque<byte[]> freeBuffers = new ArrayDeque<>();
+  private byte[] buffer;
+  private int bufferLen;
+  /** Whether a block was compressed since the last reset. */
+  private boolean compressed;
+  private boolean closed;
+
+  /** A block of data compressed by the pool. */
+  private static final class Block {
+    private final byte[] data;
+    private final Future<DataOutputBuffer> compressed;
+
+    private Block(byte[] data, Future<DataOutputBuffer> compressed) {
+      this.data = data;
+      this.compressed = compressed;
+    }
+  }
+
+  /**
+   * @param conf the configuration of the codec.
+   * @return whether the streams of the codecs supporting it compress in
+   * parallel.
+   */
+  public static boolean isEnabled(Configuration conf) {
+    return conf != null && conf.getInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY,
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_DEFAULT)
+        > 1;
+  }
+
+  /**
+   * Create a stream compressing in parallel with the settings of the
+   * configuration.
+   *
+   * @param out the stream to write the compressed data to
+   * @param codec the codec compressing each block
+   * @param conf the configuration of the codec
+   */
+  public ParallelCompressorStream(OutputStream out, CompressionCodec codec,
+      Configuration conf) {
+    this(out, codec, conf, conf.getInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY,
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_DEFAULT),
+        conf.getInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        CommonConfigurationKeys.
+            IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_DEFAULT));
+  }
+
+  /**
+   * @param out the stream to write the compressed data to
+   * @param codec the codec compressing each block
+   * @param conf the configuration of the codec
+   * @param threads the number of threads compressing the blocks
+   * @param blockSize the number of bytes of each block
+   */
+  public ParallelCompressorStream(OutputStream out, CompressionCodec codec,
+      Configuration conf, int threads, int blockSize) {
+    super(out);
+    if (threads < 1 || blockSize < 1) {
+      throw new IllegalArgumentException("Illegal threads " + threads
+          + " or block size " + blockSize);
+    }
+    this.codec = codec;
+    this.conf = conf;
+    this.blockSize = blockSize;
+    this.maxPending = 2 * threads;
+    this.executor = HadoopExecutors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("ParallelCompressor-" + codec.getClass()
+                .getSimpleName() + "-%d")
+            .build());
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    byte[] one = new byte[] {(byte) b};
+    write(one, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      if (buffer == null) {
+        buffer = freeBuffers.isEmpty() ? new byte[blockSize]
+            : freeBuffers.pop();
+        bufferLen = 0;
+      }
+      int n = Math.min(len, blockSize - bufferLen);
+      System.arraycopy(b, off, buffer, bufferLen, n);
+      bufferLen += n;
+      off += n;
+      len -= n;
+      if (bufferLen == blockSize) {
+        submitBuffer();
+      }
+    }
+  }
+
+  /**
+   * Compress the buffered data as a new block, after writing the oldest
+   * block if too many are pending.
+   */
+  private void submitBuffer() throws IOException {
+    while (pending.size() >= maxPending) {
+      writeBlock(pending.pop());
+    }
+    final byte[] data = buffer == null ? new byte[0] : buffer;
+    final int length = bufferLen;
+    pending.add(new Block(data, executor.submit(() -> compress(data,
+        length))));
+    compressed = true;
+    buffer = null;
+    bufferLen = 0;
+  }
+
+  /**
+   * Compress a block into a complete stream of the codec.
+   */
+  private DataOutputBuffer compress(byte[] data, int length)
+      throws IOException {
+    DataOutputBuffer compressedData = new DataOutputBuffer(length / 2 + 64);
+    Compressor compressor = CodecPool.getCompressor(codec, conf);
+    try {
+      CompressionOutputStream stream =
+          codec.createOutputStream(compressedData, compressor);
+      stream.write(data, 0, length);
+      stream.finish();
+    } finally {
+      CodecPool.returnCompressor(compressor);
+    }
+    return compressedData;
+  }
+
+  private void writeBlock(Block block) throws IOException {
+    DataOutputBuffer compressedData;
+    try {
+      compressedData = block.compressed.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted compressing a block").initCause(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to compress a block", e.getCause());
+    }
+    out.write(compressedData.getData(), 0, compressedData.getLength());
+    if (block.data.length == blockSize) {
+      freeBuffers.push(block.data);
+    }
+  }
+
+  private void writePending() throws IOException {
+    while (!pending.isEmpty()) {
+      writeBlock(pending.pop());
+    }
+  }
+
+  /**
+   * Write the blocks compressed so far and flush the underlying stream. The
+   * data of the incomplete block is kept to be compressed with the data
+   * written next.
+   */
+  @Override
+  public void flush() throws IOException {
+    writePending();
+    out.flush();
+  }
+
+  @Override
+  public void finish() throws IOException {
+    // An empty stream still gets a valid compressed block
+    if (bufferLen > 0 || !compressed) {
+      submitBuffer();
+    }
+    writePending();
+  }
+
+  @Override
+  public void resetState() throws IOException {
+    compressed = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      super.close();
+    } finally {
+      closed = true;
+      pending.clear();
+      executor.shutdownNow();
+    }
+  }
+}
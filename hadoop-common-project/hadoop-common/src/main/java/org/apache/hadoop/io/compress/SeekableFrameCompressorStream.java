@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.base.Preconditions;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
+
+/**
+ * A {@link CompressionOutputStream} writing the data in independent frames
+ * that can be found from any offset of the stream, so that the streams can
+ * be split by {@link SeekableFrameDecompressorStream}.
+ * <p>
+ * Each frame holds a fixed number of uncompressed bytes, compressed into a
+ * complete stream of the codec, and is preceded by a zstd skippable frame
+ * holding a synchronization marker random to the stream and the compressed
+ * and uncompressed sizes of the frame. The stream ends with an index of the
+ * frames in a skippable frame, laid out as the seek table of the zstd
+ * seekable format: the size of each frame, including its skippable frame,
+ * and its uncompressed size, followed by the number of frames, a descriptor
+ * and a magic number. All the integers are little-endian.
+ * <p>
+ * zstd decoders skip the skippable frames, so the streams written with the
+ * zstd codec are standard zstd streams.
+ * <p>
+ * {@link #flush()} does not write the frame that is not full yet.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class SeekableFrameCompressorStream extends CompressionOutputStream {
+  /** The magic number of the skippable frames preceding the frames. */
+  static final int SYNC_MAGIC = 0x184D2A5B;
+  /** The magic number of the skippable frame of the index. */
+  static final int INDEX_MAGIC = 0x184D2A5E;
+  /** The mask of the magic numbers of all the skippable frames. */
+  static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+  static final int SKIPPABLE_MAGIC = 0x184D2A50;
+  /** The magic number ending the index. */
+  static final int INDEX_FOOTER_MAGIC = 0x8F92EAB1;
+  /** The length of the header of the skippable frames. */
+  static final int SKIPPABLE_HEADER_LEN = 8;
+  static final int SYNC_SIZE = 16;
+  /** The length of the content of the skippable frames before the frames. */
+  static final int SYNC_FRAME_SIZE = SYNC_SIZE + 8;
+  static final int INDEX_ENTRY_LEN = 8;
+  static final int INDEX_FOOTER_LEN = 9;
+
+  private final CompressionOutputStream frameOut;
+  private final DataOutputBuffer compressed = new DataOutputBuffer();
+  private final byte[] sync = new byte[SYNC_SIZE];
+  private final byte[] header =
+      new byte[SKIPPABLE_HEADER_LEN + SYNC_FRAME_SIZE];
+  private final byte[] frame;
+  private int frameLen;
+  /** The entries of the index of the frames written since the last reset. */
+  private final DataOutputBuffer index = new DataOutputBuffer();
+  private int numFrames;
+  private boolean finished;
+
+  /**
+   * Create a stream compressing with a compressor of the {@link CodecPool},
+   * returned when the stream is closed.
+   *
+   * @param out the stream to write the compressed data to
+   * @param codec the codec compressing each frame
+   * @param conf the configuration of the codec
+   * @param frameSize the number of uncompressed bytes of each frame
+   * @throws IOException if the stream of the codec cannot be created
+   */
+  public SeekableFrameCompressorStream(OutputStream out,
+      CompressionCodec codec, Configuration conf, int frameSize)
+      throws IOException {
+    super(out);
+    Preconditions.checkArgument(frameSize > 0,
+        "Invalid frame size %s", frameSize);
+    Compressor compressor = CodecPool.getCompressor(codec, conf);
+    try {
+      frameOut = codec.createOutputStream(compressed, compressor);
+    } catch (IOException | RuntimeException e) {
+      CodecPool.returnCompressor(compressor);
+      throw e;
+    }
+    setTrackedCompressor(compressor);
+    frame = new byte[frameSize];
+    ThreadLocalRandom.current().nextBytes(sync);
+    putIntLE(header, 0, SYNC_MAGIC);
+    putIntLE(header, 4, SYNC_FRAME_SIZE);
+    System.arraycopy(sync, 0, header, SKIPPABLE_HEADER_LEN, SYNC_SIZE);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("write beyond end of stream");
+    }
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      int n = Math.min(len, frame.length - frameLen);
+      System.arraycopy(b, off, frame, frameLen, n);
+      frameLen += n;
+      off += n;
+      len -= n;
+      if (frameLen == frame.length) {
+        writeFrame();
+      }
+    }
+  }
+
+  /**
+   * Write the frame buffered. The stream of the codec is reset after each
+   * frame, so that each frame can be decompressed on its own.
+   */
+  private void writeFrame() throws IOException {
+    compressed.reset();
+    frameOut.write(frame, 0, frameLen);
+    frameOut.finish();
+    frameOut.resetState();
+    putIntLE(header, SKIPPABLE_HEADER_LEN + SYNC_SIZE, compressed.getLength());
+    putIntLE(header, SKIPPABLE_HEADER_LEN + SYNC_SIZE + 4, frameLen);
+    out.write(header);
+    out.write(compressed.getData(), 0, compressed.getLength());
+
+    writeIntLE(index, header.length + compressed.getLength());
+    writeIntLE(index, frameLen);
+    numFrames++;
+    frameLen = 0;
+  }
+
+  /**
+   * Write the frame buffered, even if it is not full, and the index of the
+   * frames. An empty stream is made of an empty frame, so that all the
+   * streams start with a synchronization marker.
+   */
+  @Override
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    if (frameLen > 0 || numFrames == 0) {
+      writeFrame();
+    }
+    byte[] footer = new byte[INDEX_FOOTER_LEN];
+    putIntLE(footer, 0, numFrames);
+    putIntLE(footer, 5, INDEX_FOOTER_MAGIC);
+    byte[] indexHeader = new byte[SKIPPABLE_HEADER_LEN];
+    putIntLE(indexHeader, 0, INDEX_MAGIC);
+    putIntLE(indexHeader, 4, index.getLength() + INDEX_FOOTER_LEN);
+    out.write(indexHeader);
+    out.write(index.getData(), 0, index.getLength());
+    out.write(footer);
+    finished = true;
+  }
+
+  /**
+   * Start a new sequence of frames, discarding the data not written yet.
+   * The frames of the new sequence have the same synchronization marker.
+   */
+  @Override
+  public void resetState() throws IOException {
+    frameOut.resetState();
+    frameLen = 0;
+    index.reset();
+    numFrames = 0;
+    finished = false;
+  }
+
+  private static void writeIntLE(DataOutputBuffer buf, int value)
+      throws IOException {
+    buf.writeInt(Integer.reverseBytes(value));
+  }
+
+  static void putIntLE(byte[] buf, int off, int value) {
+    buf[off] = (byte) value;
+    buf[off + 1] = (byte) (value >>> 8);
+    buf[off + 2] = (byte) (value >>> 16);
+    buf[off + 3] = (byte) (value >>> 24);
+  }
+
+  static int getIntLE(byte[] buf, int off) {
+    return (buf[off] & 0xFF) | (buf[off + 1] & 0xFF) << 8
+        | (buf[off + 2] & 0xFF) << 16 | (buf[off + 3] & 0xFF) << 24;
+  }
+}
@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.INDEX_ENTRY_LEN;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.INDEX_FOOTER_LEN;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.INDEX_FOOTER_MAGIC;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.INDEX_MAGIC;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SKIPPABLE_HEADER_LEN;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SKIPPABLE_MAGIC;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SKIPPABLE_MAGIC_MASK;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SYNC_FRAME_SIZE;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SYNC_MAGIC;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.SYNC_SIZE;
+import static org.apache.hadoop.io.compress.SeekableFrameCompressorStream.getIntLE;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IOUtils;
+
+/**
+ * A {@link SplitCompressionInputStream} reading the frames written by
+ * {@link SeekableFrameCompressorStream}.
+ * <p>
+ * A split starting at 0 reads from the first frame, and a split starting at
+ * another offset reads from the first frame after its start, found by
+ * scanning for the synchronization marker of the stream, read from its
+ * first frame. The split owns the frames starting after its start and up to
+ * its end included. Reading continues past the end of the split, and
+ * {@link #getPos()} is the offset of the frame of the last bytes read in
+ * both read modes, so it exceeds the end of the split once a frame of the
+ * next split is read. A read never returns bytes of two frames.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class SeekableFrameDecompressorStream
+    extends SplitCompressionInputStream {
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  private final CompressionInputStream frameIn;
+  private final DataInputBuffer compressedIn = new DataInputBuffer();
+  private final byte[] header =
+      new byte[SKIPPABLE_HEADER_LEN + SYNC_FRAME_SIZE];
+  private byte[] compressed = new byte[0];
+  private byte[] frame = new byte[0];
+  private int frameLen;
+  private int frameOff;
+  /** The offset of the next frame. */
+  private long nextPos;
+  /** The offset of the frame of the last bytes read. */
+  private long pos;
+  private boolean eof;
+
+  /**
+   * Create a stream reading all the frames of a stream from its current
+   * position.
+   *
+   * @param in the stream of frames
+   * @param codec the codec decompressing each frame
+   * @param decompressor the decompressor of the codec
+   * @throws IOException if the stream of the codec cannot be created
+   */
+  public SeekableFrameDecompressorStream(InputStream in,
+      CompressionCodec codec, Decompressor decompressor) throws IOException {
+    super(in, 0, Long.MAX_VALUE);
+    frameIn = codec.createInputStream(compressedIn, decompressor);
+  }
+
+  /**
+   * Create a stream reading a split of a stream of frames.
+   *
+   * @param seekableIn the seekable stream of frames
+   * @param codec the codec decompressing each frame
+   * @param decompressor the decompressor of the codec
+   * @param start the start of the split
+   * @param end the end of the split
+   * @throws IOException if the stream is not a stream of frames
+   */
+  public SeekableFrameDecompressorStream(InputStream seekableIn,
+      CompressionCodec codec, Decompressor decompressor, long start,
+      long end) throws IOException {
+    super(seekableIn, start, end);
+    if (!(seekableIn instanceof Seekable)) {
+      throw new IOException("seekableIn must be an instance of " +
+          Seekable.class.getName());
+    }
+    Seekable seekable = (Seekable) seekableIn;
+    seekable.seek(0);
+    byte[] syncHeader = new byte[SKIPPABLE_HEADER_LEN + SYNC_SIZE];
+    if (!isSyncHeader(readHeader(seekableIn, syncHeader), syncHeader)) {
+      throw new IOException("Not a stream of seekable frames");
+    }
+    if (start > 0) {
+      long found = findSync(seekableIn, syncHeader, start + 1, end);
+      if (found < 0) {
+        // No frame starts in the split
+        eof = true;
+        nextPos = end;
+      } else {
+        nextPos = found;
+      }
+      setStart(nextPos);
+    }
+    pos = nextPos;
+    seekable.seek(nextPos);
+    frameIn = codec.createInputStream(compressedIn, decompressor);
+  }
+
+  /**
+   * Create a stream reading a stream written by
+   * {@link SeekableFrameCompressorStream} or a stream of the codec with a
+   * decompressor of the {@link CodecPool}, returned when the stream is
+   * closed. A seekable stream is left at its position, other streams are
+   * wrapped to look ahead.
+   *
+   * @param codec the codec of the stream
+   * @param conf the configuration of the codec
+   * @param in the compressed stream
+   * @return a stream to read uncompressed bytes from
+   * @throws IOException if the stream cannot be read
+   */
+  static CompressionInputStream createInputStream(CompressionCodec codec,
+      Configuration conf, InputStream in) throws IOException {
+    byte[] magic = new byte[4];
+    int n;
+    if (in instanceof Seekable) {
+      long start = ((Seekable) in).getPos();
+      n = readHeader(in, magic);
+      ((Seekable) in).seek(start);
+    } else {
+      PushbackInputStream pushbackIn =
+          new PushbackInputStream(in, magic.length);
+      n = readHeader(pushbackIn, magic);
+      pushbackIn.unread(magic, 0, n);
+      in = pushbackIn;
+    }
+    if (n < magic.length || getIntLE(magic, 0) != SYNC_MAGIC) {
+      return CompressionCodec.Util.createInputStreamWithCodecPool(
+          codec, conf, in);
+    }
+    Decompressor decompressor = CodecPool.getDecompressor(codec);
+    CompressionInputStream stream = null;
+    try {
+      stream = new SeekableFrameDecompressorStream(in, codec, decompressor);
+    } finally {
+      if (stream == null) {
+        CodecPool.returnDecompressor(decompressor);
+      } else {
+        stream.setTrackedDecompressor(decompressor);
+      }
+    }
+    return stream;
+  }
+
+  /**
+   * Create a stream reading a split of a stream written by
+   * {@link SeekableFrameCompressorStream}, or of a stream of the codec. The
+   * first split of a stream of the codec reads the whole stream, and the
+   * others read nothing.
+   *
+   * @param codec the codec of the stream
+   * @param seekableIn the seekable compressed stream
+   * @param decompressor the decompressor of the codec
+   * @param start the start of the split
+   * @param end the end of the split
+   * @return a stream to read the uncompressed bytes of the split from
+   * @throws IOException if the stream cannot be read
+   */
+  static SplitCompressionInputStream createInputStream(
+      CompressionCodec codec, InputStream seekableIn,
+      Decompressor decompressor, long start, long end) throws IOException {
+    if (!(seekableIn instanceof Seekable)) {
+      throw new IOException("seekableIn must be an instance of " +
+          Seekable.class.getName());
+    }
+    ((Seekable) seekableIn).seek(0);
+    byte[] syncHeader = new byte[SKIPPABLE_HEADER_LEN + SYNC_SIZE];
+    if (isSyncHeader(readHeader(seekableIn, syncHeader), syncHeader)) {
+      return new SeekableFrameDecompressorStream(seekableIn, codec,
+          decompressor, start, end);
+    }
+    ((Seekable) seekableIn).seek(0);
+    return new UnsplittableInputStream(seekableIn, start == 0
+        ? codec.createInputStream(seekableIn, decompressor) : null,
+        start, end);
+  }
+
+  /**
+   * Read the offsets of the frames of a stream from the index at its end.
+   * For a stream reset by {@link SeekableFrameCompressorStream#resetState()},
+   * these are the frames written after the last reset.
+   *
+   * @param in the stream
+   * @param length the length of the stream
+   * @return the offsets of the frames, or null if the stream does not end
+   * with an index
+   * @throws IOException if the stream cannot be read
+   */
+  public static long[] readFrameOffsets(FSDataInputStream in, long length)
+      throws IOException {
+    if (length < SKIPPABLE_HEADER_LEN + INDEX_FOOTER_LEN) {
+      return null;
+    }
+    byte[] footer = new byte[INDEX_FOOTER_LEN];
+    in.readFully(length - INDEX_FOOTER_LEN, footer);
+    int numFrames = getIntLE(footer, 0);
+    long indexLen = (long) numFrames * INDEX_ENTRY_LEN + INDEX_FOOTER_LEN;
+    long indexStart = length - indexLen - SKIPPABLE_HEADER_LEN;
+    if (getIntLE(footer, 5) != INDEX_FOOTER_MAGIC || numFrames < 0
+        || indexStart < 0) {
+      return null;
+    }
+    byte[] index = new byte[(int) (indexLen - INDEX_FOOTER_LEN)
+        + SKIPPABLE_HEADER_LEN];
+    in.readFully(indexStart, index);
+    if (getIntLE(index, 0) != INDEX_MAGIC || getIntLE(index, 4) != indexLen) {
+      return null;
+    }
+    long[] offsets = new long[numFrames];
+    long offset = 0;
+    for (int i = 0; i < numFrames; i++) {
+      offsets[i] = offset;
+      offset += getIntLE(index, SKIPPABLE_HEADER_LEN + i * INDEX_ENTRY_LEN)
+          & 0xFFFFFFFFL;
+    }
+    // The frames end at the index
+    for (int i = 0; i < numFrames; i++) {
+      offsets[i] += indexStart - offset;
+    }
+    return offsets;
+  }
+
+  /**
+   * @return the number of bytes of the header read, less than its length
+   * at the end of the stream.
+   */
+  private static int readHeader(InputStream in, byte[] header)
+      throws IOException {
+    return readHeader(in, header, 0, header.length);
+  }
+
+  private static int readHeader(InputStream in, byte[] header, int off,
+      int len) throws IOException {
+    int read = 0;
+    while (read < len) {
+      int n = in.read(header, off + read, len - read);
+      if (n < 0) {
+        break;
+      }
+      read += n;
+    }
+    return read;
+  }
+
+  private static boolean isSyncHeader(int len, byte[] header) {
+    return len >= SKIPPABLE_HEADER_LEN + SYNC_SIZE
+        && getIntLE(header, 0) == SYNC_MAGIC
+        && getIntLE(header, 4) == SYNC_FRAME_SIZE;
+  }
+
+  /**
+   * Find the first synchronization marker starting in a range of offsets.
+   * @return the offset of the marker, -1 if there is none.
+   */
+  private static long findSync(InputStream seekableIn, byte[] syncHeader,
+      long from, long to) throws IOException {
+    ((Seekable) seekableIn).seek(from);
+    InputStream in = new BufferedInputStream(seekableIn, SCAN_BUFFER_SIZE);
+    int len = syncHeader.length;
+    byte[] window = new byte[len];
+    if (readHeader(in, window) < len) {
+      return -1;
+    }
+    for (long offset = from; offset <= to; offset++) {
+      int first = (int) ((offset - from) % len);
+      int i = 0;
+      while (i < len && window[(first + i) % len] == syncHeader[i]) {
+        i++;
+      }
+      if (i == len) {
+        return offset;
+      }
+      int b = in.read();
+      if (b < 0) {
+        return -1;
+      }
+      window[first] = (byte) b;
+    }
+    return -1;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xFF);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    } else if (len == 0) {
+      return 0;
+    }
+    if (frameOff == frameLen && !nextFrame()) {
+      return -1;
+    }
+    int n = Math.min(len, frameLen - frameOff);
+    System.arraycopy(frame, frameOff, b, off, n);
+    frameOff += n;
+    return n;
+  }
+
+  /**
+   * Decompress the next frame that is not empty, skipping the other
+   * skippable frames.
+   * @return false at the end of the stream.
+   */
+  private boolean nextFrame() throws IOException {
+    while (!eof) {
+      int n = readHeader(in, header, 0, SKIPPABLE_HEADER_LEN);
+      if (n == 0) {
+        eof = true;
+        break;
+      } else if (n < SKIPPABLE_HEADER_LEN) {
+        throw new IOException("Truncated frame at offset " + nextPos);
+      }
+      int magic = getIntLE(header, 0);
+      long size = getIntLE(header, 4) & 0xFFFFFFFFL;
+      if (magic == SYNC_MAGIC && size == SYNC_FRAME_SIZE) {
+        if (readHeader(in, header, SKIPPABLE_HEADER_LEN, SYNC_FRAME_SIZE)
+            < SYNC_FRAME_SIZE) {
+          throw new IOException("Truncated frame at offset " + nextPos);
+        }
+        int compressedLen = getIntLE(header, SKIPPABLE_HEADER_LEN + SYNC_SIZE);
+        int uncompressedLen =
+            getIntLE(header, SKIPPABLE_HEADER_LEN + SYNC_SIZE + 4);
+        if (compressedLen < 0 || uncompressedLen < 0) {
+          throw new IOException("Invalid frame at offset " + nextPos);
+        }
+        decompress(compressedLen, uncompressedLen);
+        pos = nextPos;
+        nextPos += header.length + compressedLen;
+        if (frameLen > 0) {
+          return true;
+        }
+      } else if ((magic & SKIPPABLE_MAGIC_MASK) == SKIPPABLE_MAGIC) {
+        // The index or another skippable frame
+        IOUtils.skipFully(in, size);
+        nextPos += SKIPPABLE_HEADER_LEN + size;
+      } else {
+        throw new IOException("No seekable frame at offset " + nextPos);
+      }
+    }
+    return false;
+  }
+
+  private void decompress(int compressedLen, int uncompressedLen)
+      throws IOException {
+    if (compressed.length < compressedLen) {
+      compressed = new byte[compressedLen];
+    }
+    IOUtils.readFully(in, compressed, 0, compressedLen);
+    if (frame.length < uncompressedLen) {
+      frame = new byte[uncompressedLen];
+    }
+    compressedIn.reset(compressed, compressedLen);
+    frameIn.resetState();
+    IOUtils.readFully(frameIn, frame, 0, uncompressedLen);
+    frameLen = uncompressedLen;
+    frameOff = 0;
+  }
+
+  /**
+   * @return the offset of the frame of the last bytes read, or the adjusted
+   * start of the split before the first read.
+   */
+  @Override
+  public long getPos() {
+    return pos;
+  }
+
+  /**
+   * Discard the frame decompressed. The underlying stream must be at the
+   * start of a frame or at the end.
+   */
+  @Override
+  public void resetState() throws IOException {
+    frameIn.resetState();
+    frameLen = 0;
+    frameOff = 0;
+  }
+
+  /**
+   * The first split of a stream that cannot be split, reading the whole
+   * stream, or another split, reading nothing.
+   */
+  private static class UnsplittableInputStream
+      extends SplitCompressionInputStream {
+    private final CompressionInputStream codecIn;
+
+    UnsplittableInputStream(InputStream in, CompressionInputStream codecIn,
+        long start, long end) throws IOException {
+      super(in, start, end);
+      this.codecIn = codecIn;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return codecIn == null ? -1 : codecIn.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return codecIn == null ? -1 : codecIn.read(b, off, len);
+    }
+
+    /**
+     * @return the position in the stream, up to the end of the split, so
+     * that the whole stream is read.
+     */
+    @Override
+    public long getPos() throws IOException {
+      return codecIn == null ? getAdjustedEnd()
+          : Math.min(codecIn.getPos(), getAdjustedEnd());
+    }
+
+    @Override
+    public void resetState() throws IOException {
+      if (codecIn != null) {
+        codecIn.resetState();
+      }
+    }
+  }
+}
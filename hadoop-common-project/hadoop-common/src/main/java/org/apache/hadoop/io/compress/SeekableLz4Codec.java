@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+
+/**
+ * This class creates lz4 compressors/decompressors for files written with
+ * seekable frames, which can be split, as for {@link SeekableZStandardCodec}.
+ * The files can only be read by the lz4 codec of releases supporting the
+ * seekable frames. The files have their own extension, so that only they
+ * are split by the input formats.
+ */
+public class SeekableLz4Codec extends Lz4Codec
+    implements SplittableCompressionCodec {
+
+  /**
+   * Create a {@link CompressionOutputStream} that will write seekable frames
+   * to the given {@link OutputStream}.
+   *
+   * @param out the location for the final output stream
+   * @return a stream the user can write uncompressed data to have it compressed
+   * @throws IOException
+   */
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out)
+      throws IOException {
+    if (!isNativeCodeLoaded()) {
+      throw new RuntimeException("native lz4 library not available");
+    }
+    return new SeekableFrameCompressorStream(out, this, getConf(),
+        getConf().getInt(CommonConfigurationKeys.
+                IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_KEY,
+            CommonConfigurationKeys.
+                IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_DEFAULT));
+  }
+
+  /**
+   * Create a stream reading a split of a file written with seekable frames.
+   * The first split of a file written without seekable frames reads the
+   * whole file, and the other splits read nothing.
+   *
+   * @param seekableIn the seekable stream of the file
+   * @param decompressor decompressor to use
+   * @param start the start of the split
+   * @param end the end of the split
+   * @param readMode ignored, the position is that of the frame read
+   * @return a stream to read the uncompressed bytes of the split from
+   * @throws IOException
+   */
+  @Override
+  public SplitCompressionInputStream createInputStream(InputStream seekableIn,
+      Decompressor decompressor, long start, long end, READ_MODE readMode)
+      throws IOException {
+    if (!isNativeCodeLoaded()) {
+      throw new RuntimeException("native lz4 library not available");
+    }
+    return SeekableFrameDecompressorStream.createInputStream(this, seekableIn,
+        decompressor, start, end);
+  }
+
+  /**
+   * Get the default filename extension for this kind of compression.
+   *
+   * @return <code>.seekable.lz4</code>.
+   */
+  @Override
+  public String getDefaultExtension() {
+    return ".seekable.lz4";
+  }
+}
@@ -36,7 +36,8 @@
  * This class creates zstd compressors/decompressors.
  */
 public class ZStandardCodec implements
-    Configurable, CompressionCodec, DirectDecompressionCodec  {
+    Configurable, CompressionCodec, DirectDecompressionCodec,
+    DirectCompressionCodec {
   private Configuration conf;
 
   /**
@@ -112,7 +113,9 @@ private static int getBufferSize(Configuration conf) {
 
   /**
    * Create a {@link CompressionOutputStream} that will write to the given
-   * {@link OutputStream}.
+   * {@link OutputStream}. The stream compresses in parallel into multiple
+   * zstd frames when {@link ParallelCompressorStream#isEnabled} is true for
+   * the configuration.
    *
    * @param out the location for the final output stream
    * @return a stream the user can write uncompressed data to have compressed
@@ -121,6 +124,10 @@ private static int getBufferSize(Configuration conf) {
   @Override
   public CompressionOutputStream createOutputStream(OutputStream out)
       throws IOException {
+    if (ParallelCompressorStream.isEnabled(conf)) {
+      checkNativeCodeLoaded();
+      return new ParallelCompressorStream(out, this, conf);
+    }
     return Util.
         createOutputStreamWithCodecPool(this, conf, out);
   }
@@ -169,7 +176,8 @@ public Compressor createCompressor() {
 
   /**
    * Create a {@link CompressionInputStream} that will read from the given
-   * input stream.
+   * input stream, written with seekable frames by
+   * {@link SeekableZStandardCodec} or not.
    *
    * @param in the stream to read compressed bytes from
    * @return a stream to read uncompressed bytes from
@@ -178,8 +186,7 @@ public Compressor createCompressor() {
   @Override
   public CompressionInputStream createInputStream(InputStream in)
       throws IOException {
-    return Util.
-        createInputStreamWithCodecPool(this, conf, in);
+    return SeekableFrameDecompressorStream.createInputStream(this, conf, in);
   }
 
   /**
@@ -239,4 +246,11 @@ public DirectDecompressor createDirectDecompressor() {
         getDecompressionBufferSize(conf)
     );
   }
+
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return isNativeCodeLoaded()
+        ? new ZStandardCompressor.ZStandardDirectCompressor(
+            getCompressionLevel(conf)) : null;
+  }
 }
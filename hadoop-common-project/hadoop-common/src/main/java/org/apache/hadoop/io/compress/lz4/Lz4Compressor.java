@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -302,6 +303,82 @@ public synchronized long getBytesWritten() {
   public synchronized void end() {
   }
 
+  int compressDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
+    assert (this instanceof Lz4DirectCompressor);
+
+    int maxLength = compressBound(src.remaining());
+    if (dst.remaining() < maxLength) {
+      throw new IOException("Destination buffer has " + dst.remaining()
+          + " bytes remaining, " + maxLength + " bytes are required");
+    }
+    Buffer originalCompressed = compressedDirectBuf;
+    Buffer originalUncompressed = uncompressedDirectBuf;
+    int originalBufferSize = directBufferSize;
+    uncompressedDirectBuf = src.slice();
+    uncompressedDirectBufLen = src.remaining();
+    compressedDirectBuf = dst.slice();
+    directBufferSize = dst.remaining();
+    int n = 0;
+    try {
+      n = useLz4HC ? compressBytesDirectHC() : compressBytesDirect();
+      dst.position(dst.position() + n);
+      // LZ4 always consumes the whole buffer or throws an exception
+      src.position(src.limit());
+    } finally {
+      compressedDirectBuf = originalCompressed;
+      uncompressedDirectBuf = originalUncompressed;
+      uncompressedDirectBufLen = 0;
+      directBufferSize = originalBufferSize;
+    }
+    return n;
+  }
+
+  /**
+   * @param uncompressedLength the number of bytes to compress
+   * @return the largest size of the compressed lz4 block of the bytes.
+   */
+  private static int compressBound(int uncompressedLength) {
+    return uncompressedLength + uncompressedLength / 255 + 16;
+  }
+
+  /**
+   * A {@link DirectCompressor} for Lz4, compressing a buffer into one
+   * lz4 block as {@link Lz4Decompressor.Lz4DirectDecompressor}
+   * expects it.
+   */
+  public static class Lz4DirectCompressor extends Lz4Compressor
+      implements DirectCompressor {
+
+    public Lz4DirectCompressor(boolean useLz4HC) {
+      super(0, useLz4HC);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, ByteBuffer dst)
+        throws IOException {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      return compressDirect(src, dst);
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedLength) {
+      return compressBound(uncompressedLength);
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
+
   private native static void initIDs();
 
   private native int compressBytesDirect();
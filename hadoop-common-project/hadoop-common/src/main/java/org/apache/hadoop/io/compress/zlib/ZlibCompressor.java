@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -471,6 +472,92 @@ private void checkStream() {
     if (stream == 0)
       throw new NullPointerException();
   }
+
+  int compressDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
+    assert (this instanceof ZlibDirectCompressor);
+    checkStream();
+
+    Buffer originalCompressed = compressedDirectBuf;
+    Buffer originalUncompressed = uncompressedDirectBuf;
+    int originalBufferSize = directBufferSize;
+    int start = dst.position();
+    reset(stream);
+    uncompressedDirectBuf = src;
+    uncompressedDirectBufOff = src.position();
+    uncompressedDirectBufLen = src.remaining();
+    finish = true;
+    finished = false;
+    try {
+      // Deflate the whole input with Z_FINISH until the end of the stream
+      while (!finished) {
+        compressedDirectBuf = dst.slice();
+        directBufferSize = dst.remaining();
+        int n = deflateBytesDirect();
+        dst.position(dst.position() + n);
+        if (n == 0 && !finished) {
+          throw new IOException("Destination buffer is too small, "
+              + (src.limit() - uncompressedDirectBufOff)
+              + " bytes are left to compress");
+        }
+      }
+      src.position(src.limit());
+    } finally {
+      compressedDirectBuf = originalCompressed;
+      uncompressedDirectBuf = originalUncompressed;
+      directBufferSize = originalBufferSize;
+      reset();
+    }
+    return dst.position() - start;
+  }
+
+  /**
+   * A {@link DirectCompressor} for zlib, compressing a buffer into one
+   * complete zlib or gzip stream.
+   */
+  public static class ZlibDirectCompressor extends ZlibCompressor
+      implements DirectCompressor {
+
+    public ZlibDirectCompressor() {
+      this(CompressionLevel.DEFAULT_COMPRESSION,
+          CompressionStrategy.DEFAULT_STRATEGY,
+          CompressionHeader.DEFAULT_HEADER);
+    }
+
+    public ZlibDirectCompressor(CompressionLevel level,
+        CompressionStrategy strategy, CompressionHeader header) {
+      super(level, strategy, header, 0);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      return compressDirect(src, dst);
+    }
+
+    /**
+     * The bound of deflateBound() in zlib, with the largest header and
+     * trailer of the gzip format.
+     */
+    @Override
+    public int maxCompressedLength(int uncompressedLength) {
+      return uncompressedLength + (uncompressedLength >> 12)
+          + (uncompressedLength >> 14) + (uncompressedLength >> 25) + 13
+          + 18;
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
   
   private native static void initIDs();
   private native static long init(int level, int strategy, int windowBits);
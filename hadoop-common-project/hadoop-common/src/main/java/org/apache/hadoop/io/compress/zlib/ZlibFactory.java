@@ -21,6 +21,7 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.io.compress.DirectDecompressor;
 import org.apache.hadoop.io.compress.zlib.ZlibCompressor.CompressionLevel;
 import org.apache.hadoop.io.compress.zlib.ZlibCompressor.CompressionStrategy;
@@ -146,6 +147,21 @@ public static DirectDecompressor getZlibDirectDecompressor(Configuration conf) {
       new ZlibDecompressor.ZlibDirectDecompressor() : null; 
   }
 
+  /**
+   * Return the appropriate implementation of the zlib direct compressor.
+   *
+   * @param conf configuration
+   * @return the appropriate implementation of the zlib direct compressor,
+   * null if the native zlib is not loaded.
+   */
+  public static DirectCompressor getZlibDirectCompressor(Configuration conf) {
+    return isNativeZlibLoaded(conf)
+        ? new ZlibCompressor.ZlibDirectCompressor(getCompressionLevel(conf),
+            getCompressionStrategy(conf),
+            ZlibCompressor.CompressionHeader.DEFAULT_HEADER)
+        : null;
+  }
+
   public static void setCompressionStrategy(Configuration conf,
       CompressionStrategy strategy) {
     conf.setEnum("zlib.compress.strategy", strategy);
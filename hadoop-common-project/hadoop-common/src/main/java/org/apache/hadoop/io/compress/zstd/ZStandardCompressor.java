@@ -23,6 +23,7 @@
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.io.compress.ZStandardCodec;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
@@ -294,6 +295,74 @@ private void checkStream() {
     }
   }
 
+  int compressDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
+    assert (this instanceof ZStandardDirectCompressor);
+    checkStream();
+
+    int start = dst.position();
+    reset();
+    finish = true;
+    try {
+      // Compress the whole input and end the frame
+      while (!finished) {
+        ByteBuffer out = dst.slice();
+        int n = deflateBytesDirect(src, src.position(), src.limit(), out,
+            out.remaining());
+        src.position(uncompressedDirectBufOff);
+        dst.position(dst.position() + n);
+        if (n == 0 && !finished) {
+          throw new IOException("Destination buffer is too small, "
+              + src.remaining() + " bytes are left to compress");
+        }
+      }
+    } finally {
+      reset();
+    }
+    return dst.position() - start;
+  }
+
+  /**
+   * A {@link DirectCompressor} for ZStandard, compressing a buffer into one
+   * complete zstd frame.
+   */
+  public static class ZStandardDirectCompressor extends ZStandardCompressor
+      implements DirectCompressor {
+
+    public ZStandardDirectCompressor(int level) {
+      super(level, 0, 0);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      return compressDirect(src, dst);
+    }
+
+    /**
+     * The bound of ZSTD_compressBound() in zstd.
+     */
+    @Override
+    public int maxCompressedLength(int uncompressedLength) {
+      int smallBlockLimit = 128 << 10;
+      return uncompressedLength + (uncompressedLength >> 8)
+          + (uncompressedLength < smallBlockLimit
+              ? (smallBlockLimit - uncompressedLength) >> 11 : 0);
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
+
   private native static long create();
   private native static void init(int level, long stream);
   private native int deflateBytesDirect(ByteBuffer src, int srcOffset,
@@ -20,6 +20,9 @@
 import org.apache.hadoop.classification.InterfaceAudience;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
 
 /**
  * Utilities for implementing Reed-Solomon code, used by RS coder. Some of the
@@ -184,4 +187,150 @@ public static void encodeData(byte[] gfTables, ByteBuffer[] inputs,
     }
   }
 
+  /**
+   * Number of long words each input is processed in at a time by
+   * {@link #encodeDataWide}, small enough for all the blocks to stay in cache.
+   */
+  private static final int WIDE_BLOCK_WORDS = 512;
+
+  /**
+   * Same as {@link #encodeData(byte[], int, byte[][], int[], byte[][], int[])},
+   * but works on long words instead of looking up one byte at a time. Each
+   * byte lane of a word is an independent GF(2^8) element, so doubling a whole
+   * word is a shift plus a reduction by the primitive polynomial, and
+   * multiplying by a coefficient is the XOR of the doublings selected by its
+   * bits. The loops only use shifts, ANDs and XORs over long arrays, which the
+   * JIT compiles into SIMD instructions where the CPU has them. Unlike
+   * {@link #encodeData(byte[], int, byte[][], int[], byte[][], int[])} the
+   * outputs are overwritten rather than accumulated into.
+   */
+  public static void encodeDataWide(byte[] gfTables, int dataLen,
+      byte[][] inputs, int[] inputOffsets, byte[][] outputs,
+      int[] outputOffsets) {
+    ByteBuffer[] inputBuffers = new ByteBuffer[inputs.length];
+    ByteBuffer[] outputBuffers = new ByteBuffer[outputs.length];
+    for (int j = 0; j < inputs.length; j++) {
+      inputBuffers[j] = ByteBuffer.wrap(inputs[j]);
+    }
+    for (int l = 0; l < outputs.length; l++) {
+      outputBuffers[l] = ByteBuffer.wrap(outputs[l]);
+    }
+
+    encodeDataWide(gfTables, dataLen, inputBuffers, inputOffsets,
+        outputBuffers, outputOffsets);
+  }
+
+  /**
+   * See above. The positions of the buffers are not changed.
+   */
+  public static void encodeDataWide(byte[] gfTables, ByteBuffer[] inputs,
+      ByteBuffer[] outputs) {
+    int[] inputOffsets = new int[inputs.length];
+    int[] outputOffsets = new int[outputs.length];
+    for (int j = 0; j < inputs.length; j++) {
+      inputOffsets[j] = inputs[j].position();
+    }
+    for (int l = 0; l < outputs.length; l++) {
+      outputOffsets[l] = outputs[l].position();
+    }
+
+    encodeDataWide(gfTables, inputs[0].remaining(), inputs, inputOffsets,
+        outputs, outputOffsets);
+  }
+
+  private static void encodeDataWide(byte[] gfTables, int dataLen,
+      ByteBuffer[] inputs, int[] inputOffsets, ByteBuffer[] outputs,
+      int[] outputOffsets) {
+    final int numInputs = inputs.length;
+    final int numOutputs = outputs.length;
+    final int numWords = dataLen / 8;
+    final int wideLen = numWords * 8;
+    int i, j, l, b;
+
+    int[][] coefficients = new int[numOutputs][numInputs];
+    int[] topBits = new int[numInputs];
+    for (l = 0; l < numOutputs; l++) {
+      for (j = 0; j < numInputs; j++) {
+        coefficients[l][j] = gfTables[j * 32 + l * numInputs * 32 + 1] & 0xff;
+        topBits[j] = Math.max(topBits[j],
+            31 - Integer.numberOfLeadingZeros(coefficients[l][j]));
+      }
+    }
+
+    LongBuffer[] inputWords = new LongBuffer[numInputs];
+    LongBuffer[] outputWords = new LongBuffer[numOutputs];
+    for (j = 0; j < numInputs; j++) {
+      inputWords[j] = asLongBuffer(inputs[j], inputOffsets[j], wideLen);
+    }
+    for (l = 0; l < numOutputs; l++) {
+      outputWords[l] = asLongBuffer(outputs[l], outputOffsets[l], wideLen);
+    }
+
+    final long[] word = new long[Math.min(numWords, WIDE_BLOCK_WORDS)];
+    final long[][] acc = new long[numOutputs][word.length];
+    long w, overflow;
+    long[] out;
+
+    for (int done = 0; done < numWords; done += word.length) {
+      final int len = Math.min(word.length, numWords - done);
+      for (l = 0; l < numOutputs; l++) {
+        Arrays.fill(acc[l], 0, len, 0L);
+      }
+
+      for (j = 0; j < numInputs; j++) {
+        inputWords[j].get(word, 0, len);
+        for (b = 0; b <= topBits[j]; b++) {
+          // Add input * 2^b to every output whose coefficient has bit b set.
+          for (l = 0; l < numOutputs; l++) {
+            if (((coefficients[l][j] >>> b) & 1) != 0) {
+              out = acc[l];
+              for (i = 0; i < len; i++) {
+                out[i] ^= word[i];
+              }
+            }
+          }
+          if (b < topBits[j]) {
+            // Double every byte lane; 0x1d spread as shifts of the overflow.
+            for (i = 0; i < len; i++) {
+              w = word[i];
+              overflow = (w >>> 7) & 0x0101010101010101L;
+              word[i] = ((w & 0x7f7f7f7f7f7f7f7fL) << 1) ^ overflow ^
+                  (overflow << 2) ^ (overflow << 3) ^ (overflow << 4);
+            }
+          }
+        }
+      }
+
+      for (l = 0; l < numOutputs; l++) {
+        outputWords[l].put(acc[l], 0, len);
+      }
+    }
+
+    /**
+     * For the left bytes, do it one by one.
+     */
+    byte[][] mulTab = GF256.gfMulTab();
+    for (i = wideLen; i < dataLen; i++) {
+      for (l = 0; l < numOutputs; l++) {
+        byte s = 0;
+        for (j = 0; j < numInputs; j++) {
+          s ^= mulTab[coefficients[l][j]][
+              0xff & inputs[j].get(inputOffsets[j] + i)];
+        }
+        outputs[l].put(outputOffsets[l] + i, s);
+      }
+    }
+  }
+
+  /**
+   * View len bytes of the buffer from the given offset as native order longs.
+   * All buffers must use the same order so that their byte lanes line up.
+   */
+  private static LongBuffer asLongBuffer(ByteBuffer buffer, int offset,
+      int len) {
+    ByteBuffer dup = buffer.duplicate();
+    dup.limit(offset + len);
+    dup.position(offset);
+    return dup.slice().order(ByteOrder.nativeOrder()).asLongBuffer();
+  }
 }
@@ -29,9 +29,11 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.InterruptedIOException;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.Iterator;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -46,14 +48,15 @@ public class AsyncCallHandler {
 
   private static final ThreadLocal<AsyncGet<?, Exception>>
       LOWER_LAYER_ASYNC_RETURN = new ThreadLocal<>();
-  private static final ThreadLocal<AsyncGet<Object, Throwable>>
+  private static final ThreadLocal<AsyncReturn>
       ASYNC_RETURN = new ThreadLocal<>();
 
   /** @return the async return value from {@link AsyncCallHandler}. */
   @InterfaceStability.Unstable
   @SuppressWarnings("unchecked")
   public static <R, T extends  Throwable> AsyncGet<R, T> getAsyncReturn() {
-    final AsyncGet<R, T> asyncGet = (AsyncGet<R, T>)ASYNC_RETURN.get();
+    final AsyncGet<R, T> asyncGet =
+        (AsyncGet<R, T>) (AsyncGet<?, ?>) ASYNC_RETURN.get();
     if (asyncGet != null) {
       ASYNC_RETURN.set(null);
       return asyncGet;
@@ -62,6 +65,34 @@ public static <R, T extends  Throwable> AsyncGet<R, T> getAsyncReturn() {
     }
   }
 
+  /**
+   * @return the async return value from {@link AsyncCallHandler} as a
+   * {@link CompletableFuture}. The future is completed by the thread
+   * processing the async calls, so dependent actions which may block should
+   * use the async variants of the {@link CompletableFuture} methods.
+   */
+  @InterfaceStability.Unstable
+  @SuppressWarnings("unchecked")
+  public static <R> CompletableFuture<R> getCompletableAsyncReturn() {
+    final AsyncReturn asyncReturn = ASYNC_RETURN.get();
+    Preconditions.checkState(asyncReturn != null,
+        "No async call was made through a RetryInvocationHandler.");
+    ASYNC_RETURN.set(null);
+    return (CompletableFuture<R>) asyncReturn.future;
+  }
+
+  /**
+   * Proxies cannot return null from methods with a primitive return type, so
+   * async calls to such methods return the default value of the type.
+   */
+  static Object getAsyncPlaceholder(Method method) {
+    final Class<?> type = method.getReturnType();
+    if (!type.isPrimitive() || type == void.class) {
+      return null;
+    }
+    return Array.get(Array.newInstance(type, 1), 0);
+  }
+
   /** For the lower rpc layers to set the async return value. */
   @InterfaceStability.Unstable
   public static void setLowerLayerAsyncReturn(
@@ -154,12 +185,18 @@ void tryStart() {
             @Override
             public void run() {
               for (; isRunning(this);) {
+                synchronized (AsyncCallHandler.this) {
+                  callCompleted = false;
+                }
                 final long waitTime = checkCalls();
                 tryStop(this);
 
                 try {
                   synchronized (AsyncCallHandler.this) {
-                    AsyncCallHandler.this.wait(waitTime);
+                    // A call completed while checking is not missed
+                    if (!callCompleted) {
+                      AsyncCallHandler.this.wait(waitTime);
+                    }
                   }
                 } catch (InterruptedException e) {
                   kill(this);
@@ -195,6 +232,7 @@ void kill(Daemon d) {
 
   static class AsyncValue<V> {
     private V value;
+    private final CompletableFuture<V> future = new CompletableFuture<>();
 
     synchronized V waitAsyncValue(long timeout, TimeUnit unit)
         throws InterruptedException, TimeoutException {
@@ -210,11 +248,15 @@ synchronized V waitAsyncValue(long timeout, TimeUnit unit)
           + timeout + " " + unit);
     }
 
-    synchronized void set(V v) {
-      Preconditions.checkNotNull(v);
-      Preconditions.checkState(value == null);
-      value = v;
-      notify();
+    void set(V v) {
+      synchronized (this) {
+        Preconditions.checkNotNull(v);
+        Preconditions.checkState(value == null);
+        value = v;
+        notify();
+      }
+      // Run dependent actions outside the lock.
+      future.complete(v);
     }
 
     synchronized boolean isDone() {
@@ -294,8 +336,10 @@ CallReturn invoke() throws Throwable {
       try {
         Client.setAsynchronousMode(true);
         final Object r = invokeMethod();
-        // invokeMethod should set LOWER_LAYER_ASYNC_RETURN and return null.
-        Preconditions.checkState(r == null);
+        // invokeMethod should set LOWER_LAYER_ASYNC_RETURN and return null,
+        // or the default value for a primitive return type.
+        Preconditions.checkState(r == null
+            || r.equals(getAsyncPlaceholder(getMethod())));
         lowerLayerAsyncGet = getLowerLayerAsyncReturn();
 
         if (getCounters().isZeros()) {
@@ -311,7 +355,20 @@ CallReturn invoke() throws Throwable {
   }
 
   private final AsyncCallQueue asyncCalls = new AsyncCallQueue();
+  /** Set by the callers of get and by the processor completing futures. */
   private volatile boolean hasSuccessfulCall = false;
+  /** Whether an rpc call completed since the processor checked the calls. */
+  private boolean callCompleted = false;
+  /**
+   * Run by the ipc client when a call completes, to wake up the processor
+   * so that the call and its future complete without waiting.
+   */
+  private final Runnable callCompletionHandler = () -> {
+    synchronized (AsyncCallHandler.this) {
+      callCompleted = true;
+      AsyncCallHandler.this.notifyAll();
+    }
+  };
 
   AsyncCall newAsyncCall(Method method, Object[] args, boolean isRpc,
                          int callId,
@@ -324,26 +381,47 @@ boolean hasSuccessfulCall() {
     return hasSuccessfulCall;
   }
 
+  Runnable getCallCompletionHandler() {
+    return callCompletionHandler;
+  }
+
   private void initAsyncCall(final AsyncCall asyncCall,
                              final AsyncValue<CallReturn> asyncCallReturn) {
     asyncCalls.addCall(asyncCall);
 
-    final AsyncGet<Object, Throwable> asyncGet
-        = new AsyncGet<Object, Throwable>() {
-      @Override
-      public Object get(long timeout, TimeUnit unit) throws Throwable {
-        final CallReturn c = asyncCallReturn.waitAsyncValue(timeout, unit);
-        final Object r = c.getReturnValue();
-        hasSuccessfulCall = true;
-        return r;
-      }
+    ASYNC_RETURN.set(new AsyncReturn(asyncCallReturn));
+  }
 
-      @Override
-      public boolean isDone() {
-        return asyncCallReturn.isDone();
-      }
-    };
-    ASYNC_RETURN.set(asyncGet);
+  /** The value returned to the caller of an async call. */
+  private class AsyncReturn implements AsyncGet<Object, Throwable> {
+    private final AsyncValue<CallReturn> asyncCallReturn;
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    AsyncReturn(AsyncValue<CallReturn> asyncCallReturn) {
+      this.asyncCallReturn = asyncCallReturn;
+      asyncCallReturn.future.thenAccept(c -> {
+        try {
+          final Object r = c.getReturnValue();
+          hasSuccessfulCall = true;
+          future.complete(r);
+        } catch (Throwable t) {
+          future.completeExceptionally(t);
+        }
+      });
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws Throwable {
+      final CallReturn c = asyncCallReturn.waitAsyncValue(timeout, unit);
+      final Object r = c.getReturnValue();
+      hasSuccessfulCall = true;
+      return r;
+    }
+
+    @Override
+    public boolean isDone() {
+      return asyncCallReturn.isDone();
+    }
   }
 
   @VisibleForTesting
@@ -76,6 +76,10 @@ Counters getCounters() {
       return counters;
     }
 
+    Method getMethod() {
+      return method;
+    }
+
     synchronized Long getWaitTime(final long now) {
       return retryInfo == null? null: retryInfo.retryTime - now;
     }
@@ -160,7 +164,8 @@ CallReturn invoke() throws Throwable {
     Object invokeMethod() throws Throwable {
       if (isRpc) {
         Client.setCallIdAndRetryCount(callId, counters.retries,
-            retryInvocationHandler.asyncCallHandler);
+            retryInvocationHandler.asyncCallHandler
+                .getCallCompletionHandler());
       }
       return retryInvocationHandler.invokeMethod(method, args);
     }
@@ -359,7 +364,8 @@ public Object invoke(Object proxy, Method method, Object[] args)
       final CallReturn c = call.invokeOnce();
       final CallReturn.State state = c.getState();
       if (state == CallReturn.State.ASYNC_INVOKED) {
-        return null; // return null for async calls
+        // return null, or a placeholder for primitives, for async calls
+        return AsyncCallHandler.getAsyncPlaceholder(method);
       } else if (c.getState() != CallReturn.State.RETRY) {
         return c.getReturnValue();
       }
@@ -111,7 +111,11 @@ protected Boolean initialValue() {
     return (AsyncGet<T, IOException>) ASYNC_RPC_RESPONSE.get();
   }
 
-  /** Set call id and retry count for the next call. */
+  /**
+   * Set call id and retry count for the next call.
+   * The external handler is run when the call completes if it is a
+   * {@link Runnable}, and notified otherwise.
+   */
   public static void setCallIdAndRetryCount(int cid, int rc,
                                             Object externalHandler) {
     Preconditions.checkArgument(cid != RpcConstants.INVALID_CALL_ID);
@@ -366,7 +370,10 @@ protected synchronized void callComplete() {
       this.done = true;
       notify();                                 // notify caller
 
-      if (externalHandler != null) {
+      if (externalHandler instanceof Runnable) {
+        // The handler records the completion itself
+        ((Runnable) externalHandler).run();
+      } else if (externalHandler != null) {
         synchronized (externalHandler) {
           externalHandler.notify();
         }
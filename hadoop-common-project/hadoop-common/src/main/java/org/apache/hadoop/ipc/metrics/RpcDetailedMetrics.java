@@ -17,11 +17,21 @@
  */
 package org.apache.hadoop.ipc.metrics;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.hadoop.classification.InterfaceAudience;
-import org.apache.hadoop.metrics2.annotation.Metric;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.ipc.ProcessingDetails;
+import org.apache.hadoop.ipc.ProcessingDetails.Timing;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsSource;
 import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
 import org.apache.hadoop.metrics2.lib.MutableRatesWithAggregation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,26 +42,85 @@
  */
 @InterfaceAudience.Private
 @Metrics(about="Per method RPC metrics", context="rpcdetailed")
-public class RpcDetailedMetrics {
+public class RpcDetailedMetrics implements MetricsSource {
+
+  final MutableRatesWithAggregation rates;
+  final MutableRatesWithAggregation deferredRpcRates;
 
-  @Metric MutableRatesWithAggregation rates;
-  @Metric MutableRatesWithAggregation deferredRpcRates;
+  /** The phases of a call published as percentiles for each method. */
+  static final Timing[] PHASES = {Timing.ENQUEUE, Timing.QUEUE,
+      Timing.LOCKWAIT, Timing.LOCKSHARED, Timing.LOCKEXCLUSIVE,
+      Timing.RESPONSE};
+  static final String[] PHASE_NAMES = {"EnqueueTime", "QueueTime",
+      "LockWaitTime", "LockSharedTime", "LockExclusiveTime", "ResponseTime"};
+  /** The time unit of the phase percentiles. */
+  public static final TimeUnit PHASE_TIMEUNIT = TimeUnit.MICROSECONDS;
 
   static final Logger LOG = LoggerFactory.getLogger(RpcDetailedMetrics.class);
   final MetricsRegistry registry;
   final String name;
+  /** Intervals of the phase percentiles, empty if they are disabled. */
+  private final int[] phaseIntervals;
+  /** Whether the rates and percentiles are updated without locking. */
+  private final boolean lockFree;
+  /** Phase percentiles by method, one per phase and interval. */
+  private final ConcurrentMap<String, MutableQuantiles[]> phaseQuantiles =
+      new ConcurrentHashMap<>();
 
   RpcDetailedMetrics(int port) {
+    this(port, new int[0], false);
+  }
+
+  RpcDetailedMetrics(int port, int[] phaseIntervals, boolean lockFree) {
     name = "RpcDetailedActivityForPort"+ port;
     registry = new MetricsRegistry("rpcdetailed")
         .tag("port", "RPC port", String.valueOf(port));
+    this.phaseIntervals = phaseIntervals;
+    this.lockFree = lockFree;
+    if (lockFree) {
+      rates = registry.newRatesWithAdders("Rates");
+      deferredRpcRates = registry.newRatesWithAdders("DeferredRpcRates");
+    } else {
+      rates = registry.newRatesWithAggregation("Rates");
+      deferredRpcRates = registry.newRatesWithAggregation("DeferredRpcRates");
+    }
     LOG.debug(registry.info().toString());
   }
 
+  @Override
+  public void getMetrics(MetricsCollector collector, boolean all) {
+    registry.snapshot(collector.addRecord(registry.info()), all);
+  }
+
   public String name() { return name; }
 
   public static RpcDetailedMetrics create(int port) {
-    RpcDetailedMetrics m = new RpcDetailedMetrics(port);
+    return register(new RpcDetailedMetrics(port));
+  }
+
+  /**
+   * Create the metrics of an RPC server, with the percentiles of the phases
+   * of each method if rpc.metrics.detailed.quantile.enable is set and
+   * rpc.metrics.percentiles.intervals is not empty, updated without locking
+   * if rpc.metrics.lockfree.enable is set.
+   * @param port the port of the RPC server
+   * @param conf configuration of the RPC server
+   */
+  public static RpcDetailedMetrics create(int port, Configuration conf) {
+    int[] intervals = new int[0];
+    if (conf.getBoolean(
+        CommonConfigurationKeys.RPC_METRICS_DETAILED_QUANTILE_ENABLE,
+        CommonConfigurationKeys.RPC_METRICS_DETAILED_QUANTILE_ENABLE_DEFAULT)) {
+      intervals = conf.getInts(
+          CommonConfigurationKeys.RPC_METRICS_PERCENTILES_INTERVALS_KEY);
+    }
+    boolean lockFree = conf.getBoolean(
+        CommonConfigurationKeys.RPC_METRICS_LOCKFREE_ENABLE,
+        CommonConfigurationKeys.RPC_METRICS_LOCKFREE_ENABLE_DEFAULT);
+    return register(new RpcDetailedMetrics(port, intervals, lockFree));
+  }
+
+  private static RpcDetailedMetrics register(RpcDetailedMetrics m) {
     return DefaultMetricsSystem.instance().register(m.name, null, m);
   }
 
@@ -78,11 +147,64 @@ public void addDeferredProcessingTime(String name, long processingTime) {
     deferredRpcRates.add(name, processingTime);
   }
 
+  /**
+   * @return true if the percentiles of the phases of the calls are published.
+   */
+  public boolean isPhaseQuantileEnabled() {
+    return phaseIntervals.length > 0;
+  }
+
+  /**
+   * Add the time a call spent in each phase, from being read to having its
+   * response sent, to the percentiles of its method. The percentiles of a
+   * method are only created with its first call.
+   * @param rpcCallName of the RPC call
+   * @param details the processing details of the call
+   */
+  public void addProcessingDetails(String rpcCallName,
+      ProcessingDetails details) {
+    if (!isPhaseQuantileEnabled()) {
+      return;
+    }
+    MutableQuantiles[] quantiles = phaseQuantiles.computeIfAbsent(
+        rpcCallName, this::newPhaseQuantiles);
+    for (int p = 0; p < PHASES.length; p++) {
+      long time = details.get(PHASES[p], PHASE_TIMEUNIT);
+      for (int i = 0; i < phaseIntervals.length; i++) {
+        quantiles[p * phaseIntervals.length + i].add(time);
+      }
+    }
+  }
+
+  private MutableQuantiles[] newPhaseQuantiles(String rpcCallName) {
+    MutableQuantiles[] quantiles =
+        new MutableQuantiles[PHASES.length * phaseIntervals.length];
+    for (int p = 0; p < PHASES.length; p++) {
+      for (int i = 0; i < phaseIntervals.length; i++) {
+        int interval = phaseIntervals[i];
+        String quantileName = rpcCallName + PHASE_NAMES[p] + interval + "s";
+        String desc = rpcCallName + " " + PHASE_NAMES[p] + " in "
+            + PHASE_TIMEUNIT;
+        quantiles[p * phaseIntervals.length + i] = lockFree
+            ? registry.newHistogramQuantiles(quantileName, desc, "ops",
+                "latency", interval)
+            : registry.newQuantiles(quantileName, desc, "ops", "latency",
+                interval);
+      }
+    }
+    return quantiles;
+  }
+
   /**
    * Shutdown the instrumentation for the process
    */
   //@Override // some instrumentation interface
   public void shutdown() {
     DefaultMetricsSystem.instance().unregisterSource(name);
+    for (MutableQuantiles[] quantiles : phaseQuantiles.values()) {
+      for (MutableQuantiles q : quantiles) {
+        q.stop();
+      }
+    }
   }
 }
@@ -72,28 +72,35 @@ public class RpcMetrics {
           new MutableQuantiles[intervals.length];
       deferredRpcProcessingTimeQuantiles =
           new MutableQuantiles[intervals.length];
+      boolean lockFree = conf.getBoolean(
+          CommonConfigurationKeys.RPC_METRICS_LOCKFREE_ENABLE,
+          CommonConfigurationKeys.RPC_METRICS_LOCKFREE_ENABLE_DEFAULT);
       for (int i = 0; i < intervals.length; i++) {
         int interval = intervals[i];
-        rpcQueueTimeQuantiles[i] = registry.newQuantiles("rpcQueueTime"
-            + interval + "s", "rpc queue time in " + TIMEUNIT, "ops",
-            "latency", interval);
-        rpcLockWaitTimeQuantiles[i] = registry.newQuantiles(
+        rpcQueueTimeQuantiles[i] = newQuantiles(lockFree, "rpcQueueTime"
+            + interval + "s", "rpc queue time in " + TIMEUNIT, interval);
+        rpcLockWaitTimeQuantiles[i] = newQuantiles(lockFree,
             "rpcLockWaitTime" + interval + "s",
-            "rpc lock wait time in " + TIMEUNIT, "ops",
-            "latency", interval);
-        rpcProcessingTimeQuantiles[i] = registry.newQuantiles(
+            "rpc lock wait time in " + TIMEUNIT, interval);
+        rpcProcessingTimeQuantiles[i] = newQuantiles(lockFree,
             "rpcProcessingTime" + interval + "s",
-            "rpc processing time in " + TIMEUNIT, "ops",
-            "latency", interval);
-        deferredRpcProcessingTimeQuantiles[i] = registry.newQuantiles(
+            "rpc processing time in " + TIMEUNIT, interval);
+        deferredRpcProcessingTimeQuantiles[i] = newQuantiles(lockFree,
             "deferredRpcProcessingTime" + interval + "s",
-            "deferred rpc processing time in " + TIMEUNIT, "ops",
-            "latency", interval);
+            "deferred rpc processing time in " + TIMEUNIT, interval);
       }
     }
     LOG.debug("Initialized " + registry);
   }
 
+  private MutableQuantiles newQuantiles(boolean lockFree, String name,
+      String desc, int interval) {
+    return lockFree
+        ? registry.newHistogramQuantiles(name, desc, "ops", "latency",
+            interval)
+        : registry.newQuantiles(name, desc, "ops", "latency", interval);
+  }
+
   public String name() { return name; }
 
   public static RpcMetrics create(Server server, Configuration conf) {
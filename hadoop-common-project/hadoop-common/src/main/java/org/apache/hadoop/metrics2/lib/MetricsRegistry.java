@@ -227,6 +227,30 @@ public synchronized MutableQuantiles newQuantiles(String name, String desc,
     return ret;
   }
 
+  /**
+   * Create a mutable metric that estimates quantiles of a stream of values
+   * with a histogram, without locking when adding values.
+   * @param name of the metric
+   * @param desc metric description
+   * @param sampleName of the metric (e.g., "Ops")
+   * @param valueName of the metric (e.g., "Time" or "Latency")
+   * @param interval rollover interval of estimator in seconds
+   * @return a new quantile estimator object
+   * @throws MetricsException if interval is not a positive integer
+   */
+  public synchronized MutableQuantiles newHistogramQuantiles(String name,
+      String desc, String sampleName, String valueName, int interval) {
+    checkMetricName(name);
+    if (interval <= 0) {
+      throw new MetricsException("Interval should be positive.  Value passed" +
+          " is: " + interval);
+    }
+    MutableQuantiles ret = new MutableHistogramQuantiles(name, desc,
+        sampleName, valueName, interval);
+    metricsMap.put(name, ret);
+    return ret;
+  }
+
   /**
    * Create a mutable metric with stats
    * @param name  of the metric
@@ -313,6 +337,14 @@ public synchronized MutableRatesWithAggregation newRatesWithAggregation(
     return rates;
   }
 
+  public synchronized MutableRatesWithAdders newRatesWithAdders(
+      String name) {
+    checkMetricName(name);
+    MutableRatesWithAdders rates = new MutableRatesWithAdders();
+    metricsMap.put(name, rates);
+    return rates;
+  }
+
   public synchronized MutableRollingAverages newMutableRollingAverages(
       String name, String valueName) {
     checkMetricName(name);
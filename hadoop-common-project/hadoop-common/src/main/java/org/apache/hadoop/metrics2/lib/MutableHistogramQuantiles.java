@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.lib;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.metrics2.util.HistogramQuantiles;
+
+/**
+ * {@link MutableQuantiles} estimating the quantiles with the buckets of a
+ * {@link HistogramQuantiles}, for metrics updated by many threads.
+ * <p>
+ * {@link #add(long)} increments the count of a bucket without locking. The
+ * values are added to one of two histograms, and the other one is the
+ * estimator of {@link MutableQuantiles}, which the rollover swaps before
+ * taking its snapshot, so a value added concurrently with the rollover may
+ * be counted in the next interval but one.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MutableHistogramQuantiles extends MutableQuantiles {
+
+  /** The histogram the values are added to. */
+  private volatile HistogramQuantiles active;
+  /** The histogram the values of the last interval were added to. */
+  private HistogramQuantiles standby;
+
+  /**
+   * Instantiates a new {@link MutableHistogramQuantiles} for a metric that
+   * rolls itself over on the specified time interval.
+   *
+   * @param name
+   *          of the metric
+   * @param description
+   *          long-form textual description of the metric
+   * @param sampleName
+   *          type of items in the stream (e.g., "Ops")
+   * @param valueName
+   *          type of the values
+   * @param interval
+   *          rollover interval (in seconds) of the estimator
+   */
+  public MutableHistogramQuantiles(String name, String description,
+      String sampleName, String valueName, int interval) {
+    super(name, description, sampleName, valueName, interval);
+    active = new HistogramQuantiles(quantiles);
+    standby = new HistogramQuantiles(quantiles);
+    setEstimator(standby);
+  }
+
+  @Override
+  public void add(long value) {
+    active.insert(value);
+  }
+
+  @Override
+  void rollover() {
+    synchronized (this) {
+      HistogramQuantiles retired = active;
+      active = standby;
+      standby = retired;
+      setEstimator(retired);
+    }
+    super.rollover();
+  }
+}
@@ -74,6 +74,9 @@ MutableMetric newForField(Field field, Metric annotation,
     if (cls == MutableRatesWithAggregation.class) {
       return registry.newRatesWithAggregation(info.name());
     }
+    if (cls == MutableRatesWithAdders.class) {
+      return registry.newRatesWithAdders(info.name());
+    }
     if (cls == MutableStat.class) {
       return registry.newStat(info.name(), info.description(),
                               annotation.sampleName(), annotation.valueName(),
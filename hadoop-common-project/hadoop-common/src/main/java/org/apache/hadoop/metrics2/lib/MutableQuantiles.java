@@ -158,6 +158,19 @@ public synchronized void setEstimator(QuantileEstimator quantileEstimator) {
     this.estimator = quantileEstimator;
   }
 
+  /**
+   * Keep the count and the quantiles of the values added in the interval
+   * and clear the estimator.
+   */
+  void rollover() {
+    synchronized (this) {
+      previousCount = estimator.getCount();
+      previousSnapshot = estimator.snapshot();
+      estimator.clear();
+    }
+    setChanged();
+  }
+
   /**
    * Runnable used to periodically roll over the internal
    * {@link SampleQuantiles} every interval.
@@ -172,12 +185,7 @@ public RolloverSample(MutableQuantiles parent) {
 
     @Override
     public void run() {
-      synchronized (parent) {
-        parent.previousCount = parent.estimator.getCount();
-        parent.previousSnapshot = parent.estimator.snapshot();
-        parent.estimator.clear();
-      }
-      parent.setChanged();
+      parent.rollover();
     }
 
   }
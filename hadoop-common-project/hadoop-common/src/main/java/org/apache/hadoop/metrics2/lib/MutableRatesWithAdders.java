@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.lib;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+
+/**
+ * {@link MutableRatesWithAggregation} counting the samples of each rate with
+ * {@link LongAdder}s shared by all the threads, instead of thread local
+ * stats.
+ * <p>
+ * Adding a sample does not lock, and the samples of threads dying before
+ * the snapshot are not lost, so this class can also be used for short
+ * lived threads. A sample added concurrently with the snapshot may have
+ * its time counted in the next interval.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MutableRatesWithAdders extends MutableRatesWithAggregation {
+
+  private final ConcurrentMap<String, AdderStat> stats =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public void add(String name, long elapsed) {
+    AdderStat stat = stats.get(name);
+    if (stat == null) {
+      stat = stats.computeIfAbsent(name, n -> new AdderStat());
+    }
+    stat.add(elapsed);
+  }
+
+  @Override
+  public synchronized void snapshot(MetricsRecordBuilder rb, boolean all) {
+    aggregateStats();
+    super.snapshot(rb, all);
+  }
+
+  @Override
+  synchronized void collectThreadLocalStates() {
+    aggregateStats();
+  }
+
+  private void aggregateStats() {
+    for (Map.Entry<String, AdderStat> entry : stats.entrySet()) {
+      entry.getValue().snapshotInto(addMetricIfNotExists(entry.getKey()));
+    }
+  }
+
+  private static class AdderStat {
+    private final LongAdder numSamples = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    void add(long elapsed) {
+      numSamples.increment();
+      total.add(elapsed);
+    }
+
+    void snapshotInto(MutableRate metric) {
+      long n = numSamples.sumThenReset();
+      if (n > 0) {
+        metric.add(n, total.sumThenReset());
+      }
+    }
+  }
+}
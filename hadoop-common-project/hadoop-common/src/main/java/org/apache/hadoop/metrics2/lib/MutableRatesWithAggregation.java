@@ -145,7 +145,7 @@ Map<String, MutableRate> getGlobalMetrics() {
     return globalMetrics;
   }
 
-  private synchronized MutableRate addMetricIfNotExists(String name) {
+  synchronized MutableRate addMetricIfNotExists(String name) {
     MutableRate metric = globalMetrics.get(name);
     if (metric == null) {
       metric = new MutableRate(name, name, false);
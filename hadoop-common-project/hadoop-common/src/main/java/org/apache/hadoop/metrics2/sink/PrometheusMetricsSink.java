@@ -22,12 +22,21 @@
 import org.apache.hadoop.metrics2.MetricType;
 import org.apache.hadoop.metrics2.MetricsRecord;
 import org.apache.hadoop.metrics2.MetricsSink;
+import org.apache.hadoop.metrics2.MetricsSystem;
 import org.apache.hadoop.metrics2.MetricsTag;
+import org.apache.hadoop.util.Time;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -35,53 +44,199 @@
 /**
  * Metrics sink for prometheus exporter.
  * <p>
- * Stores the metric data in-memory and return with it on request.
+ * Stores the metric data in-memory and return with it on request. The
+ * lines of the metrics are rendered when the records are put, and the
+ * records whose metrics did not change since they were last put are not
+ * rendered again, so writing the metrics only streams the rendered lines.
+ * {@link #refresh(MetricsSystem)} publishes the metrics of the sources at
+ * most once per refresh interval, however many scrapes ask for them.
+ * <p>
+ * The time spent refreshing and writing the metrics, in milliseconds, is
+ * published with them as the metrics of the PrometheusSink record.
  */
 public class PrometheusMetricsSink implements MetricsSink {
 
+  private static final String SELF_RECORD = "PrometheusSink";
+
+  /**
+   * Cached output lines for each metrics, by metric name.
+   */
+  private final ConcurrentMap<String, MetricFamily> metricLines =
+      new ConcurrentSkipListMap<>();
+
   /**
-   * Cached output lines for each metrics.
+   * The records rendered, by record name. Only accessed by the thread
+   * putting the records.
    */
-  private Map<String, String> metricLines = new HashMap<>();
+  private final Map<String, List<RenderedRecord>> records = new HashMap<>();
 
   private static final Pattern SPLIT_PATTERN =
       Pattern.compile("(?<!(^|[A-Z_]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])");
 
+  /** The minimum time between two refreshes, in milliseconds. */
+  private final long refreshInterval;
+  private final Object refreshLock = new Object();
+  /** The time the records were last put, -1 if they never were. */
+  private volatile long lastRefresh = -1;
+
+  private final LongAdder numScrapes = new LongAdder();
+  private final LongAdder scrapeTime = new LongAdder();
+  private final LongAdder numRefreshes = new LongAdder();
+  private final LongAdder refreshTime = new LongAdder();
+  private final LongAdder renderedRecords = new LongAdder();
+  private final LongAdder unchangedRecords = new LongAdder();
+
+  /** The lines of a metric, one for each record with the metric. */
+  private static final class MetricFamily {
+    private final String typeLine;
+    private final ConcurrentMap<RenderedRecord, String> lines =
+        new ConcurrentHashMap<>();
+
+    private MetricFamily(String typeLine) {
+      this.typeLine = typeLine;
+    }
+  }
+
+  /** The tags and metrics a record was last rendered with. */
+  private static final class RenderedRecord {
+    private final List<MetricsTag> tags;
+    private final String labels;
+    private String[] names = new String[0];
+    private Object[] values = new Object[0];
+    private String[] keys = new String[0];
+
+    private RenderedRecord(List<MetricsTag> tags, String labels) {
+      this.tags = tags;
+      this.labels = labels;
+    }
+  }
+
   public PrometheusMetricsSink() {
+    this(0);
+  }
+
+  /**
+   * @param refreshInterval the minimum time between two refreshes of the
+   * metrics by {@link #refresh(MetricsSystem)}, in milliseconds.
+   */
+  public PrometheusMetricsSink(long refreshInterval) {
+    this.refreshInterval = refreshInterval;
   }
 
   @Override
   public void putMetrics(MetricsRecord metricsRecord) {
+    RenderedRecord rendered = getRenderedRecord(metricsRecord);
+    if (isUnchanged(rendered, metricsRecord)) {
+      unchangedRecords.increment();
+      return;
+    }
+    List<String> names = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
     for (AbstractMetric metrics : metricsRecord.metrics()) {
       if (metrics.type() == MetricType.COUNTER
           || metrics.type() == MetricType.GAUGE) {
 
         String key = prometheusName(
             metricsRecord.name(), metrics.name());
+        names.add(metrics.name());
+        values.add(metrics.value());
+        keys.add(key);
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("# TYPE " + key + " " +
-            metrics.type().toString().toLowerCase() + "\n");
-        builder.append(key + "{");
-        String sep = "";
-
-        //add tags
-        for (MetricsTag tag : metricsRecord.tags()) {
-          String tagName = tag.name().toLowerCase();
-
-          //ignore specific tag which includes sub-hierarchy
-          if (!tagName.equals("numopenconnectionsperuser")) {
-            builder.append(
-                sep + tagName + "=\"" + tag.value() + "\"");
-            sep = ",";
-          }
+        MetricFamily family = metricLines.computeIfAbsent(key,
+            k -> new MetricFamily("# TYPE " + k + " "
+                + metrics.type().toString().toLowerCase()));
+        family.lines.put(rendered,
+            key + "{" + rendered.labels + "} " + metrics.value());
+      }
+    }
+    // Remove the lines of the metrics the record does not have anymore
+    for (String key : rendered.keys) {
+      if (!keys.contains(key)) {
+        MetricFamily family = metricLines.get(key);
+        if (family != null) {
+          family.lines.remove(rendered);
         }
-        builder.append("} ");
-        builder.append(metrics.value());
-        metricLines.put(key, builder.toString());
+      }
+    }
+    rendered.names = names.toArray(new String[0]);
+    rendered.values = values.toArray();
+    rendered.keys = keys.toArray(new String[0]);
+    renderedRecords.increment();
+  }
+
+  /**
+   * @return the record rendered with the same name and tags, a new one if
+   * there is none.
+   */
+  private RenderedRecord getRenderedRecord(MetricsRecord metricsRecord) {
+    List<RenderedRecord> named = records.computeIfAbsent(
+        metricsRecord.name(), k -> new ArrayList<>());
+    for (RenderedRecord rendered : named) {
+      if (hasTags(rendered, metricsRecord.tags())) {
+        return rendered;
+      }
+    }
+    List<MetricsTag> tags = new ArrayList<>();
+    StringBuilder labels = new StringBuilder();
+    String sep = "";
+
+    //add tags
+    for (MetricsTag tag : metricsRecord.tags()) {
+      String tagName = tag.name().toLowerCase();
 
+      //ignore specific tag which includes sub-hierarchy
+      if (!isIgnored(tag)) {
+        tags.add(tag);
+        labels.append(sep).append(tagName).append("=\"")
+            .append(tag.value()).append('"');
+        sep = ",";
       }
     }
+    RenderedRecord rendered = new RenderedRecord(tags, labels.toString());
+    named.add(rendered);
+    return rendered;
+  }
+
+  private static boolean isIgnored(MetricsTag tag) {
+    return tag.name().equalsIgnoreCase("numopenconnectionsperuser");
+  }
+
+  private static boolean hasTags(RenderedRecord rendered,
+      Iterable<MetricsTag> tags) {
+    int i = 0;
+    for (MetricsTag tag : tags) {
+      if (isIgnored(tag)) {
+        continue;
+      }
+      if (i >= rendered.tags.size() || !rendered.tags.get(i).equals(tag)) {
+        return false;
+      }
+      i++;
+    }
+    return i == rendered.tags.size();
+  }
+
+  /**
+   * @return true if the counters and gauges of the record have the names
+   * and values they were last rendered with.
+   */
+  private static boolean isUnchanged(RenderedRecord rendered,
+      MetricsRecord metricsRecord) {
+    int i = 0;
+    for (AbstractMetric metrics : metricsRecord.metrics()) {
+      if (metrics.type() != MetricType.COUNTER
+          && metrics.type() != MetricType.GAUGE) {
+        continue;
+      }
+      if (i >= rendered.names.length
+          || !rendered.names[i].equals(metrics.name())
+          || !Objects.equals(rendered.values[i], metrics.value())) {
+        return false;
+      }
+      i++;
+    }
+    return i == rendered.names.length;
   }
 
   /**
@@ -99,7 +254,7 @@ public String prometheusName(String recordName,
 
   @Override
   public void flush() {
-
+    lastRefresh = Time.monotonicNow();
   }
 
   @Override
@@ -107,9 +262,72 @@ public void init(SubsetConfiguration subsetConfiguration) {
 
   }
 
+  /**
+   * Publish the metrics of the sources of the metrics system to its sinks,
+   * unless this sink was given the metrics less than the refresh interval
+   * ago. Concurrent callers wait for a single publication.
+   * @param system the metrics system this sink is registered with.
+   */
+  public void refresh(MetricsSystem system) {
+    long start = Time.monotonicNow();
+    if (isFresh(start)) {
+      return;
+    }
+    synchronized (refreshLock) {
+      long now = Time.monotonicNow();
+      // The metrics may have been published while waiting
+      if (isFresh(now) || lastRefresh > start) {
+        return;
+      }
+      system.publishMetricsNow();
+      numRefreshes.increment();
+      refreshTime.add(Time.monotonicNow() - now);
+    }
+  }
+
+  private boolean isFresh(long now) {
+    long last = lastRefresh;
+    return last >= 0 && now - last < refreshInterval;
+  }
+
+  /**
+   * Write the rendered lines of the metrics, followed by the metrics of
+   * this sink.
+   * @param writer the writer to stream the lines to.
+   * @throws IOException if writing fails.
+   */
   public void writeMetrics(Writer writer) throws IOException {
-    for (String line : metricLines.values()) {
-      writer.write(line + "\n");
+    long start = Time.monotonicNow();
+    for (MetricFamily family : metricLines.values()) {
+      if (family.lines.isEmpty()) {
+        continue;
+      }
+      writer.write(family.typeLine);
+      writer.write('\n');
+      for (String line : family.lines.values()) {
+        writer.write(line);
+        writer.write('\n');
+      }
     }
+    writeCounter(writer, "NumScrapes", numScrapes.sum());
+    writeCounter(writer, "ScrapeTime", scrapeTime.sum());
+    writeCounter(writer, "NumRefreshes", numRefreshes.sum());
+    writeCounter(writer, "RefreshTime", refreshTime.sum());
+    writeCounter(writer, "RenderedRecords", renderedRecords.sum());
+    writeCounter(writer, "UnchangedRecords", unchangedRecords.sum());
+    numScrapes.increment();
+    scrapeTime.add(Time.monotonicNow() - start);
+  }
+
+  private void writeCounter(Writer writer, String name, long value)
+      throws IOException {
+    String key = prometheusName(SELF_RECORD, name);
+    writer.write("# TYPE ");
+    writer.write(key);
+    writer.write(" counter\n");
+    writer.write(key);
+    writer.write(' ');
+    writer.write(Long.toString(value));
+    writer.write('\n');
   }
 }
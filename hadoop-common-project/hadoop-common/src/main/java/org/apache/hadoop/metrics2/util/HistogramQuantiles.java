@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+
+/**
+ * Quantile estimator counting the values in the buckets of a log-linear
+ * histogram, like HdrHistogram.
+ * <p>
+ * The values below 2^(PRECISION_BITS + 1) have their own bucket, and the
+ * larger values share buckets of 2^PRECISION_BITS per power of two, so the
+ * quantiles are the largest value of their bucket, within 1/2^PRECISION_BITS
+ * of the actual value. Negative values are counted as 0.
+ * <p>
+ * {@link #insert(long)} increments the count of a bucket atomically, without
+ * locking, so values may be inserted concurrently. The other methods may
+ * see some of the values inserted concurrently with them only.
+ * <p>
+ * The counts of the buckets of each power of two are allocated by the first
+ * value inserted in it, so a histogram takes 1 KB per power of two of the
+ * inserted values, e.g. 10 KB for latencies up to a minute in milliseconds,
+ * instead of 58 KB for all the positive longs.
+ */
+@InterfaceAudience.Private
+public class HistogramQuantiles implements QuantileEstimator {
+
+  /** The number of significant bits of the buckets. */
+  static final int PRECISION_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+
+  private final Quantile[] quantiles;
+  /** The counts of the buckets, by the index of the bucket / SUB_BUCKETS. */
+  private final AtomicReferenceArray<AtomicLongArray> counts =
+      new AtomicReferenceArray<>(Long.SIZE - PRECISION_BITS);
+
+  public HistogramQuantiles(Quantile[] quantiles) {
+    this.quantiles = quantiles;
+  }
+
+  /**
+   * @return the index of the bucket of a value.
+   */
+  static int bucketIndex(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return value < 0 ? 0 : (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value)
+        - PRECISION_BITS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * @return the largest value of a bucket.
+   */
+  static long bucketValue(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  @Override
+  public void insert(long value) {
+    int index = bucketIndex(value);
+    int row = index / SUB_BUCKETS;
+    AtomicLongArray rowCounts = counts.get(row);
+    if (rowCounts == null) {
+      counts.compareAndSet(row, null, new AtomicLongArray(SUB_BUCKETS));
+      rowCounts = counts.get(row);
+    }
+    rowCounts.incrementAndGet(index % SUB_BUCKETS);
+  }
+
+  /**
+   * @return the number of buckets whose counts are allocated.
+   */
+  @VisibleForTesting
+  int getAllocatedBuckets() {
+    int buckets = 0;
+    for (int row = 0; row < counts.length(); row++) {
+      if (counts.get(row) != null) {
+        buckets += SUB_BUCKETS;
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * Get a snapshot of the current values of all the tracked quantiles.
+   *
+   * @return snapshot of the tracked quantiles. If no items are added
+   * to the estimator, returns null.
+   */
+  @Override
+  public Map<Quantile, Long> snapshot() {
+    int rows = counts.length();
+    while (rows > 0 && counts.get(rows - 1) == null) {
+      rows--;
+    }
+    long[] snapshot = new long[rows * SUB_BUCKETS];
+    long count = 0;
+    for (int row = 0; row < rows; row++) {
+      AtomicLongArray rowCounts = counts.get(row);
+      if (rowCounts != null) {
+        for (int i = 0; i < SUB_BUCKETS; i++) {
+          snapshot[row * SUB_BUCKETS + i] = rowCounts.get(i);
+          count += snapshot[row * SUB_BUCKETS + i];
+        }
+      }
+    }
+    if (count == 0) {
+      return null;
+    }
+    Map<Quantile, Long> values = new TreeMap<Quantile, Long>();
+    for (Quantile quantile : quantiles) {
+      long rank = Math.max(1, (long) Math.ceil(quantile.quantile * count));
+      long seen = 0;
+      int i = 0;
+      while (i < snapshot.length - 1 && seen + snapshot[i] < rank) {
+        seen += snapshot[i++];
+      }
+      values.put(quantile, bucketValue(i));
+    }
+    return values;
+  }
+
+  @Override
+  public long getCount() {
+    long count = 0;
+    for (int row = 0; row < counts.length(); row++) {
+      AtomicLongArray rowCounts = counts.get(row);
+      if (rowCounts != null) {
+        for (int i = 0; i < SUB_BUCKETS; i++) {
+          count += rowCounts.get(i);
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reset the counts to 0, keeping the allocated buckets for the next
+   * values, as the same range of values is likely to be inserted again.
+   */
+  @Override
+  public void clear() {
+    for (int row = 0; row < counts.length(); row++) {
+      AtomicLongArray rowCounts = counts.get(row);
+      if (rowCounts != null) {
+        for (int i = 0; i < SUB_BUCKETS; i++) {
+          rowCounts.set(i, 0);
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    Map<Quantile, Long> data = snapshot();
+    if (data == null) {
+      return "[no samples]";
+    } else {
+      return Joiner.on("\n").withKeyValueSeparator(": ").join(data);
+    }
+  }
+}
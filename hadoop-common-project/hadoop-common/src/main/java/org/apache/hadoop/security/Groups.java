@@ -17,18 +17,30 @@
  */
 package org.apache.hadoop.security;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -69,6 +81,11 @@
  * of a given user via the {@link #getGroups(String)} call, thus ensuring 
  * a consistent user-to-groups mapping and protects against vagaries of 
  * different mappings on servers and clients in a Hadoop cluster. 
+ * <p>
+ * The groups of the active users can be refreshed ahead of their
+ * expiration by {@link #prefetchGroups(Collection)}. The process-wide
+ * service also prefetches the groups of the users looked up and saves the
+ * cached groups to a warm-start file loaded when it is created, if enabled.
  */
 @InterfaceAudience.LimitedPrivate({"HDFS", "MapReduce"})
 @InterfaceStability.Evolving
@@ -98,6 +115,16 @@ public class Groups {
   private final AtomicLong backgroundRefreshRunning =
       new AtomicLong(0);
 
+  /** The simple class name of the provider, to publish its metrics. */
+  private final String providerName;
+  private final boolean prefetchActiveUsers;
+  /** The users whose groups were looked up since the last prefetch. */
+  private final Set<String> activeUsers = ConcurrentHashMap.newKeySet();
+  /** The file the cached groups are saved to, null if disabled. */
+  private final File warmStartFile;
+  private ScheduledThreadPoolExecutor prefetchExecutor;
+  private ScheduledFuture<?> prefetchAndSaveTask;
+
   public Groups(Configuration conf) {
     this(conf, new Timer());
   }
@@ -130,6 +157,14 @@ public Groups(Configuration conf, final Timer timer) {
               HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD_THREADS,
           CommonConfigurationKeys.
               HADOOP_SECURITY_GROUPS_CACHE_BACKGROUND_RELOAD_THREADS_DEFAULT);
+    prefetchActiveUsers = conf.getBoolean(
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_PREFETCH,
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_PREFETCH_DEFAULT);
+    String warmStartPath = conf.getTrimmed(
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_WARM_START_FILE,
+        "");
+    warmStartFile = warmStartPath.isEmpty() ? null : new File(warmStartPath);
+    providerName = impl.getClass().getSimpleName();
     parseStaticMapping(conf);
 
     this.timer = timer;
@@ -224,6 +259,9 @@ public List<String> getGroups(final String user) throws IOException {
       }
     }
 
+    if (prefetchActiveUsers && !activeUsers.contains(user)) {
+      activeUsers.add(user);
+    }
     try {
       return cache.get(user);
     } catch (ExecutionException e) {
@@ -247,6 +285,180 @@ public long getBackgroundRefreshRunning() {
     return backgroundRefreshRunning.get();
   }
 
+  /**
+   * Load the groups of users into the cache asynchronously, or refresh them
+   * if they are cached, so that the lookups of their groups do not wait for
+   * the group mapping provider. The groups are loaded by
+   * hadoop.security.groups.cache.background.reload.threads threads.
+   * @param users the users to load the groups of
+   */
+  public void prefetchGroups(Collection<String> users) {
+    ScheduledThreadPoolExecutor executor = getPrefetchExecutor();
+    for (String user : users) {
+      executor.execute(() -> prefetchGroups(user));
+    }
+  }
+
+  private void prefetchGroups(String user) {
+    Map<String, List<String>> staticUserToGroupsMap = staticMapRef.get();
+    if ((staticUserToGroupsMap != null
+        && staticUserToGroupsMap.containsKey(user))
+        || (isNegativeCacheEnabled() && negativeCache.contains(user))) {
+      return;
+    }
+    if (cache.getIfPresent(user) != null) {
+      // The old groups are served until the refresh completes
+      cache.refresh(user);
+      return;
+    }
+    try {
+      cache.get(user);
+    } catch (ExecutionException e) {
+      LOG.debug("Failed to prefetch the groups of {}", user, e.getCause());
+    }
+  }
+
+  private synchronized ScheduledThreadPoolExecutor getPrefetchExecutor() {
+    if (prefetchExecutor == null) {
+      prefetchExecutor = new ScheduledThreadPoolExecutor(
+          reloadGroupsThreadCount, new ThreadFactoryBuilder()
+              .setNameFormat("Group-Cache-Prefetch-%d")
+              .setDaemon(true)
+              .build());
+      // The threads of an idle service die, like the reload threads
+      prefetchExecutor.setKeepAliveTime(60, TimeUnit.SECONDS);
+      prefetchExecutor.allowCoreThreadTimeOut(true);
+    }
+    return prefetchExecutor;
+  }
+
+  /**
+   * Load the warm-start file, then periodically prefetch the groups of the
+   * active users and save the cached groups to the warm-start file, as
+   * configured. Only the process-wide service does this, so that the other
+   * instances do not start threads or write to the same file.
+   */
+  @VisibleForTesting
+  synchronized void start() {
+    if (warmStartFile != null) {
+      loadWarmStartFile();
+    }
+    long period = cacheTimeout / 2;
+    if ((prefetchActiveUsers || warmStartFile != null) && period > 0
+        && prefetchAndSaveTask == null) {
+      prefetchAndSaveTask = getPrefetchExecutor().scheduleAtFixedRate(
+          this::prefetchAndSave, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stop prefetching groups and saving them to the warm-start file.
+   */
+  @VisibleForTesting
+  synchronized void stop() {
+    if (prefetchAndSaveTask != null) {
+      prefetchAndSaveTask.cancel(false);
+      prefetchAndSaveTask = null;
+    }
+    if (prefetchExecutor != null) {
+      prefetchExecutor.shutdownNow();
+      prefetchExecutor = null;
+    }
+  }
+
+  private void prefetchAndSave() {
+    if (prefetchActiveUsers) {
+      prefetchActiveUsers();
+    }
+    if (warmStartFile != null) {
+      saveWarmStartFile();
+    }
+  }
+
+  /**
+   * Prefetch the groups of the users looked up since the last prefetch.
+   */
+  @VisibleForTesting
+  void prefetchActiveUsers() {
+    List<String> users = new ArrayList<>();
+    for (Iterator<String> it = activeUsers.iterator(); it.hasNext();) {
+      users.add(it.next());
+      it.remove();
+    }
+    LOG.debug("Prefetching the groups of {} active users", users.size());
+    prefetchGroups(users);
+  }
+
+  /**
+   * Load the groups saved to the warm-start file into the cache, and
+   * refresh them in the background. Each line of the file has a user and
+   * its groups, separated by tabs.
+   */
+  private void loadWarmStartFile() {
+    if (!warmStartFile.exists()) {
+      return;
+    }
+    List<String> users = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(
+        warmStartFile.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t");
+        if (fields.length < 2 || fields[0].isEmpty()) {
+          continue;
+        }
+        cache.put(fields[0], Collections.unmodifiableList(
+            Arrays.asList(fields).subList(1, fields.length)));
+        users.add(fields[0]);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to load the groups from {}", warmStartFile, e);
+    }
+    LOG.info("Loaded the groups of {} users from {}", users.size(),
+        warmStartFile);
+    prefetchGroups(users);
+  }
+
+  /**
+   * Save the cached groups to the warm-start file, replacing it atomically.
+   */
+  @VisibleForTesting
+  void saveWarmStartFile() {
+    Path tmp = null;
+    try {
+      // A new file in the same directory, only readable by its owner
+      tmp = Files.createTempFile(
+          warmStartFile.getAbsoluteFile().getParentFile().toPath(),
+          warmStartFile.getName(), ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp,
+          StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, List<String>> entry
+            : cache.asMap().entrySet()) {
+          writer.write(entry.getKey());
+          for (String group : entry.getValue()) {
+            writer.write('\t');
+            writer.write(group);
+          }
+          writer.newLine();
+        }
+      }
+      Files.move(tmp, warmStartFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      tmp = null;
+    } catch (IOException e) {
+      LOG.warn("Failed to save the groups to {}", warmStartFile, e);
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          LOG.debug("Failed to delete {}", tmp, e);
+        }
+      }
+    }
+  }
+
   /**
    * Convert millisecond times from hadoop's timer to guava's nanosecond ticker.
    */
@@ -387,7 +599,7 @@ private List<String> fetchGroupList(String user) throws IOException {
       List<String> groupList = impl.getGroups(user);
       long endMs = timer.monotonicNow();
       long deltaMs = endMs - startMs ;
-      UserGroupInformation.metrics.addGetGroups(deltaMs);
+      UserGroupInformation.metrics.addGetGroups(providerName, deltaMs);
       if (deltaMs > warningDeltaMs) {
         LOG.warn("Potential performance problem: getGroups(user=" + user +") " +
           "took " + deltaMs + " milliseconds.");
@@ -449,6 +661,7 @@ public static synchronized Groups getUserToGroupsMappingService(
         LOG.debug(" Creating new Groups object");
       }
       GROUPS = new Groups(conf);
+      GROUPS.start();
     }
     return GROUPS;
   }
@@ -463,7 +676,11 @@ public static synchronized Groups getUserToGroupsMappingService(
       getUserToGroupsMappingServiceWithLoadedConfiguration(
           Configuration conf) {
 
+    if (GROUPS != null) {
+      GROUPS.stop();
+    }
     GROUPS = new Groups(conf);
+    GROUPS.start();
     return GROUPS;
   }
 }
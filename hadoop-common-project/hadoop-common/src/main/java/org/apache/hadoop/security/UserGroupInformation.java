@@ -51,6 +51,8 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -84,6 +86,7 @@
 import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
 import org.apache.hadoop.metrics2.lib.MutableQuantiles;
 import org.apache.hadoop.metrics2.lib.MutableRate;
+import org.apache.hadoop.metrics2.lib.MutableRatesWithAggregation;
 import org.apache.hadoop.security.SaslRpcServer.AuthMethod;
 import org.apache.hadoop.security.authentication.util.KerberosUtil;
 import org.apache.hadoop.security.token.Token;
@@ -140,6 +143,12 @@ static class UgiMetrics {
     MutableRate loginFailure;
     @Metric("GetGroups") MutableRate getGroups;
     MutableQuantiles[] getGroupsQuantiles;
+    @Metric("GetGroups of each group mapping provider")
+    MutableRatesWithAggregation getGroupsByProvider;
+    /** Intervals of the percentiles of each provider, null if disabled. */
+    int[] getGroupsIntervals;
+    private final ConcurrentMap<String, MutableQuantiles[]>
+        providerQuantiles = new ConcurrentHashMap<>();
     @Metric("Renewal failures since startup")
     private MutableGaugeLong renewalFailuresTotal;
     @Metric("Renewal failures since last successful login")
@@ -153,13 +162,32 @@ static void reattach() {
       metrics = UgiMetrics.create();
     }
 
-    void addGetGroups(long latency) {
+    void addGetGroups(String provider, long latency) {
       getGroups.add(latency);
       if (getGroupsQuantiles != null) {
         for (MutableQuantiles q : getGroupsQuantiles) {
           q.add(latency);
         }
       }
+      getGroupsByProvider.add("GetGroups" + provider, latency);
+      if (getGroupsIntervals != null) {
+        for (MutableQuantiles q : providerQuantiles.computeIfAbsent(
+            provider, this::newProviderQuantiles)) {
+          q.add(latency);
+        }
+      }
+    }
+
+    private MutableQuantiles[] newProviderQuantiles(String provider) {
+      MutableQuantiles[] quantiles =
+          new MutableQuantiles[getGroupsIntervals.length];
+      for (int i = 0; i < quantiles.length; i++) {
+        quantiles[i] = registry.newHistogramQuantiles(
+            "getGroups" + provider + getGroupsIntervals[i] + "s",
+            "Get groups of " + provider, "ops", "latency",
+            getGroupsIntervals[i]);
+      }
+      return quantiles;
     }
 
     MutableGaugeInt getRenewalFailures() {
@@ -367,6 +395,7 @@ private static synchronized void initialize(Configuration conf,
             "Get groups", "ops", "latency", intervals[i]);
         }
         metrics.getGroupsQuantiles = getGroupsQuantiles;
+        metrics.getGroupsIntervals = intervals;
       }
     }
   }
@@ -32,6 +32,8 @@
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -1684,6 +1686,35 @@ public void testUpdateSocketAddress() throws IOException {
         InetAddress.getLocalHost().getHostName());
   }
 
+  @Test
+  public void testDefaultResourceReparsedWhenModified() throws Exception {
+    File dir = GenericTestUtils.getRandomizedTestDir();
+    assertTrue(dir.mkdirs());
+    File file = new File(dir, "test-default-resource-site.xml");
+    out = new BufferedWriter(new FileWriter(file));
+    startConfig();
+    appendProperty("test.default.key", "value1");
+    endConfig();
+    ClassLoader classLoader = new URLClassLoader(
+        new URL[] {dir.toURI().toURL()}, getClass().getClassLoader());
+    Configuration.addDefaultResource(file.getName());
+
+    Configuration conf1 = new Configuration();
+    conf1.setClassLoader(classLoader);
+    assertEquals("value1", conf1.get("test.default.key"));
+
+    // A new configuration sees the edited resource, e.g. to reconfigure
+    out = new BufferedWriter(new FileWriter(file));
+    startConfig();
+    appendProperty("test.default.key", "value2");
+    endConfig();
+    assertTrue(file.setLastModified(file.lastModified() + 10000));
+    Configuration conf2 = new Configuration();
+    conf2.setClassLoader(classLoader);
+    assertEquals("value2", conf2.get("test.default.key"));
+    assertEquals("value1", conf1.get("test.default.key"));
+  }
+
   @Test
   public void testReload() throws IOException {
     out=new BufferedWriter(new FileWriter(CONFIG));
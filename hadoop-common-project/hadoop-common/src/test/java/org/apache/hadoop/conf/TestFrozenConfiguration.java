@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.conf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.junit.Test;
+
+/**
+ * Test the snapshots of {@link FrozenConfiguration}.
+ */
+public class TestFrozenConfiguration {
+
+  @Test
+  public void testGet() throws Exception {
+    Configuration conf = new Configuration();
+    conf.set("test.frozen.base", "/base");
+    conf.set("test.frozen.dir", "${test.frozen.base}/dir");
+    Configuration.addDeprecation("test.frozen.old", "test.frozen.new");
+    conf.set("test.frozen.old", "value");
+
+    FrozenConfiguration frozen = new FrozenConfiguration(conf);
+    assertEquals("/base/dir", frozen.get("test.frozen.dir"));
+    assertEquals("/base/dir", frozen.get(" test.frozen.dir "));
+    assertEquals("value", frozen.get("test.frozen.new"));
+    assertEquals("value", frozen.get("test.frozen.old"));
+    assertNull(frozen.get("test.frozen.unset"));
+    assertEquals("default", frozen.get("test.frozen.unset", "default"));
+    // Values from the default resources
+    assertEquals(conf.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY),
+        frozen.get(CommonConfigurationKeysPublic.FS_DEFAULT_NAME_KEY));
+    assertEquals(conf.size(), frozen.size());
+
+    // Later changes are not seen by the snapshot
+    conf.set("test.frozen.base", "/other");
+    assertEquals("/base/dir", frozen.get("test.frozen.dir"));
+    Configuration copy = new Configuration(frozen);
+    assertEquals("/base/dir", copy.get("test.frozen.dir"));
+  }
+
+  @Test
+  public void testTypedValues() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.set("test.int", " 10 ");
+    conf.set("test.hex", "0x1F");
+    conf.set("test.long", "12345678901");
+    conf.set("test.invalid", "ten");
+    conf.set("test.duration", "3s");
+    conf.set("test.duration.nounit", "5");
+
+    FrozenConfiguration frozen = new FrozenConfiguration(conf);
+    for (int i = 0; i < 2; i++) {
+      assertEquals(10, frozen.getInt("test.int", 1));
+      assertEquals(31, frozen.getInt("test.hex", 1));
+      assertEquals(1, frozen.getInt("test.unset", 1));
+      assertEquals(12345678901L, frozen.getLong("test.long", 1));
+      assertEquals(2L, frozen.getLong("test.unset", 2));
+      assertEquals(3000, frozen.getTimeDuration("test.duration", 1,
+          TimeUnit.MILLISECONDS));
+      assertEquals(3, frozen.getTimeDuration("test.duration", 1,
+          TimeUnit.SECONDS));
+      assertEquals(5000, frozen.getTimeDuration("test.duration.nounit", 1,
+          TimeUnit.SECONDS, TimeUnit.MILLISECONDS));
+      assertEquals(5, frozen.getTimeDuration("test.duration.nounit", 1,
+          TimeUnit.MINUTES));
+      assertEquals(7000, frozen.getTimeDuration("test.unset", "7s",
+          TimeUnit.MILLISECONDS));
+    }
+    try {
+      frozen.getInt("test.invalid", 1);
+      fail("Expected an invalid int");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+    try {
+      frozen.getTimeDuration("test.invalid", 1, TimeUnit.SECONDS);
+      fail("Expected an invalid duration");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testImmutable() throws Exception {
+    FrozenConfiguration frozen = new FrozenConfiguration(new Configuration());
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.set("test.frozen", "value"));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.setInt("test.frozen", 1));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.unset("test.frozen"));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.addResource("test.xml"));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        frozen::clear);
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.setClassLoader(getClass().getClassLoader()));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.setRestrictSystemProps(true));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.setRestrictSystemProperties(true));
+    LambdaTestUtils.intercept(UnsupportedOperationException.class,
+        () -> frozen.setAllowNullValueProperties(true));
+    frozen.setQuietMode(false);
+    assertNull(frozen.get("test.frozen"));
+  }
+}
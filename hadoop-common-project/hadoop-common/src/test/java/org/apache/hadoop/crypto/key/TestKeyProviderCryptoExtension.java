@@ -140,6 +140,23 @@ public void testEncryptDecrypt() throws Exception {
         manualMaterial, apiMaterial);
   }
 
+  @Test
+  public void testDecryptEncryptedKeys() throws Exception {
+    final List<EncryptedKeyVersion> ekvs = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      ekvs.add(kpExt.generateEncryptedKey(encryptionKey.getName()));
+    }
+    // Each key decrypted by the batch is the one decrypted alone
+    final List<KeyVersion> decryptedKeys = kpExt.decryptEncryptedKeys(ekvs);
+    assertEquals(ekvs.size(), decryptedKeys.size());
+    for (int i = 0; i < ekvs.size(); i++) {
+      assertArrayEquals("Wrong key material from decryptEncryptedKeys",
+          kpExt.decryptEncryptedKey(ekvs.get(i)).getMaterial(),
+          decryptedKeys.get(i).getMaterial());
+    }
+    assertTrue(kpExt.decryptEncryptedKeys(new ArrayList<>()).isEmpty());
+  }
+
   @Test
   public void testReencryptEncryptedKey() throws Exception {
     // Generate a new EEK
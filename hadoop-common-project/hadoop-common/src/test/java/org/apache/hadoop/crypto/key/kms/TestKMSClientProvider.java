@@ -18,12 +18,19 @@
 package org.apache.hadoop.crypto.key.kms;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.security.Credentials;
 import org.apache.hadoop.security.SecurityUtil;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.security.token.delegation.web.DelegationTokenAuthenticatedURL;
 import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.JsonSerialization;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -36,9 +43,19 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import static org.apache.hadoop.crypto.key.kms.KMSDelegationToken.TOKEN_KIND;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -135,4 +152,78 @@ private void testURLSelectToken(final Token tok)
     final Token chosen = url.selectDelegationToken(new URL(urlString), creds);
     assertEquals(tok, chosen);
   }
-}
\ No newline at end of file
+
+  /**
+   * A KMS without the batch decryption resource, decrypting each key to its
+   * encrypted material.
+   */
+  public static class OldKMSServlet extends HttpServlet {
+    private static final AtomicInteger BATCH_REQUESTS = new AtomicInteger();
+    private static final AtomicInteger DECRYPT_REQUESTS = new AtomicInteger();
+
+    @Override
+    protected void doOptions(HttpServletRequest req,
+        HttpServletResponse resp) {
+      resp.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+        throws IOException {
+      if (req.getRequestURI().endsWith(
+          KMSRESTConstants.DECRYPT_BATCH_SUB_RESOURCE)) {
+        BATCH_REQUESTS.incrementAndGet();
+        resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      DECRYPT_REQUESTS.incrementAndGet();
+      Map request = JsonSerialization.mapReader().readValue(
+          req.getInputStream());
+      Map<String, Object> json = new HashMap<>();
+      json.put(KMSRESTConstants.NAME_FIELD, "k1");
+      json.put(KMSRESTConstants.VERSION_NAME_FIELD, "EK");
+      json.put(KMSRESTConstants.MATERIAL_FIELD,
+          request.get(KMSRESTConstants.MATERIAL_FIELD));
+      resp.setStatus(HttpServletResponse.SC_OK);
+      resp.setContentType("application/json");
+      JsonSerialization.writer().writeValue(resp.getOutputStream(), json);
+    }
+  }
+
+  @Test
+  public void testDecryptEncryptedKeysFromOldKMS() throws Exception {
+    Server jetty = new Server(0);
+    ((ServerConnector) jetty.getConnectors()[0]).setHost("localhost");
+    ServletContextHandler context = new ServletContextHandler();
+    context.setContextPath("/kms");
+    context.addServlet(new ServletHolder(OldKMSServlet.class), "/*");
+    jetty.setHandler(context);
+    jetty.start();
+    int port = ((ServerConnector) jetty.getConnectors()[0]).getLocalPort();
+    KMSClientProvider kp = new KMSClientProvider(
+        new URI("kms://http@localhost:" + port + "/kms"), new Configuration());
+    try {
+      List<EncryptedKeyVersion> ekvs = Arrays.asList(
+          EncryptedKeyVersion.createForDecryption("k1", "k1@0",
+              new byte[16], new byte[] {1}),
+          EncryptedKeyVersion.createForDecryption("k1", "k1@0",
+              new byte[16], new byte[] {2}));
+      // The keys are decrypted one by one after the batch is not found
+      List<KeyVersion> keyVersions = kp.decryptEncryptedKeys(ekvs);
+      assertEquals(2, keyVersions.size());
+      assertArrayEquals(new byte[] {1}, keyVersions.get(0).getMaterial());
+      assertArrayEquals(new byte[] {2}, keyVersions.get(1).getMaterial());
+      assertEquals(1, OldKMSServlet.BATCH_REQUESTS.get());
+      assertEquals(2, OldKMSServlet.DECRYPT_REQUESTS.get());
+
+      // The batch resource is not requested again
+      keyVersions = kp.decryptEncryptedKeys(ekvs);
+      assertArrayEquals(new byte[] {2}, keyVersions.get(1).getMaterial());
+      assertEquals(1, OldKMSServlet.BATCH_REQUESTS.get());
+      assertEquals(4, OldKMSServlet.DECRYPT_REQUESTS.get());
+    } finally {
+      kp.close();
+      jetty.stop();
+    }
+  }
+}
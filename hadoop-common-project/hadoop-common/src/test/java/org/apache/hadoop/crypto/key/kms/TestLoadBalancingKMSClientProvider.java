@@ -37,13 +37,18 @@
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.net.ssl.SSLHandshakeException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.crypto.key.KeyProvider;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
 import org.apache.hadoop.crypto.key.KeyProvider.Options;
 import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
@@ -61,6 +66,7 @@
 import org.junit.Test;
 import org.junit.rules.Timeout;
 import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
 
 import com.google.common.collect.Sets;
 
@@ -977,4 +983,166 @@ public void testGetActualUGI() throws Exception {
     // test client without hadoop.security.key.provider.path configured.
     testTokenSelectionWithConf(conf);
   }
-}
\ No newline at end of file
+
+  private static EncryptedKeyVersion newEncryptedKey(int i) {
+    return EncryptedKeyVersion.createForDecryption("key1", "key1@0",
+        new byte[] {(byte) i}, new byte[] {(byte) i, 1});
+  }
+
+  private static KeyVersion decrypted(EncryptedKeyVersion ekv) {
+    return new KMSClientProvider.KMSKeyVersion("key1", "EK",
+        ekv.getEncryptedKeyVersion().getMaterial());
+  }
+
+  @Test
+  public void testDecryptEncryptedKeysCoalesced() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS,
+        60000);
+    conf.setInt(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE, 3);
+    KMSClientProvider p1 = mock(KMSClientProvider.class);
+    when(p1.getKMSUrl()).thenReturn("p1");
+    when(p1.decryptEncryptedKeys(Mockito.anyList())).thenAnswer(
+        (Answer<List<KeyVersion>>) invocation -> {
+          List<KeyVersion> keyVersions = new ArrayList<>();
+          for (Object ekv : (List<?>) invocation.getArguments()[0]) {
+            keyVersions.add(decrypted((EncryptedKeyVersion) ekv));
+          }
+          return keyVersions;
+        });
+    final LoadBalancingKMSClientProvider kp =
+        new LoadBalancingKMSClientProvider(
+            new KMSClientProvider[] {p1}, 0, conf);
+
+    // The batch is full with the third key, before the window ends
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<KeyVersion>> futures = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        final EncryptedKeyVersion ekv = newEncryptedKey(i);
+        futures.add(executor.submit(() -> kp.decryptEncryptedKey(ekv)));
+      }
+      for (int i = 0; i < 3; i++) {
+        assertTrue(Arrays.equals(new byte[] {(byte) i, 1},
+            futures.get(i).get().getMaterial()));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(p1, Mockito.times(1)).decryptEncryptedKeys(Mockito.anyList());
+    verify(p1, Mockito.never()).decryptEncryptedKey(
+        Mockito.any(EncryptedKeyVersion.class));
+  }
+
+  @Test
+  public void testDecryptedKeyCache() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_MS,
+        60000);
+    KMSClientProvider p1 = mock(KMSClientProvider.class);
+    when(p1.getKMSUrl()).thenReturn("p1");
+    when(p1.decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class)))
+        .thenAnswer((Answer<KeyVersion>) invocation ->
+            decrypted((EncryptedKeyVersion) invocation.getArguments()[0]));
+    when(p1.decryptEncryptedKeys(Mockito.anyList())).thenAnswer(
+        (Answer<List<KeyVersion>>) invocation -> {
+          List<KeyVersion> keyVersions = new ArrayList<>();
+          for (Object ekv : (List<?>) invocation.getArguments()[0]) {
+            keyVersions.add(decrypted((EncryptedKeyVersion) ekv));
+          }
+          return keyVersions;
+        });
+    LoadBalancingKMSClientProvider kp = new LoadBalancingKMSClientProvider(
+        new KMSClientProvider[] {p1}, 0, conf);
+
+    kp.decryptEncryptedKey(newEncryptedKey(0));
+    KeyVersion keyVersion = kp.decryptEncryptedKey(newEncryptedKey(0));
+    assertTrue(Arrays.equals(new byte[] {0, 1}, keyVersion.getMaterial()));
+    verify(p1, Mockito.times(1)).decryptEncryptedKey(
+        Mockito.any(EncryptedKeyVersion.class));
+
+    // Only the keys not cached are decrypted by the batch
+    List<KeyVersion> keyVersions = kp.decryptEncryptedKeys(
+        Arrays.asList(newEncryptedKey(0), newEncryptedKey(1)));
+    assertEquals(2, keyVersions.size());
+    assertTrue(Arrays.equals(new byte[] {1, 1},
+        keyVersions.get(1).getMaterial()));
+    verify(p1).decryptEncryptedKeys(
+        Mockito.argThat(ekvs -> ekvs.size() == 1));
+  }
+
+  @Test
+  public void testDecryptBatchesAndCacheArePerUser() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS,
+        60000);
+    conf.setInt(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_MAX_SIZE, 2);
+    conf.setLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPTED_KEY_CACHE_EXPIRY_MS,
+        60000);
+    final UserGroupInformation alice =
+        UserGroupInformation.createRemoteUser("alice");
+    final UserGroupInformation bob =
+        UserGroupInformation.createRemoteUser("bob");
+    KMSClientProvider p1 = mock(KMSClientProvider.class);
+    when(p1.getKMSUrl()).thenReturn("p1");
+    // The material of the keys of each user starts with the user's id
+    when(p1.decryptEncryptedKeys(Mockito.anyList())).thenAnswer(
+        (Answer<List<KeyVersion>>) invocation -> {
+          byte user = UserGroupInformation.getCurrentUser().getUserName()
+              .equals("alice") ? (byte) 0 : (byte) 1;
+          List<KeyVersion> keyVersions = new ArrayList<>();
+          for (Object o : (List<?>) invocation.getArguments()[0]) {
+            EncryptedKeyVersion ekv = (EncryptedKeyVersion) o;
+            assertEquals(user, ekv.getEncryptedKeyVersion().getMaterial()[0]);
+            keyVersions.add(decrypted(ekv));
+          }
+          return keyVersions;
+        });
+    final LoadBalancingKMSClientProvider kp =
+        new LoadBalancingKMSClientProvider(
+            new KMSClientProvider[] {p1}, 0, conf);
+
+    // Each user fills its own batch of 2 keys
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<KeyVersion>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        final UserGroupInformation ugi = i % 2 == 0 ? alice : bob;
+        final EncryptedKeyVersion ekv = newEncryptedKey(i % 2);
+        futures.add(executor.submit(() -> ugi.doAs(
+            (PrivilegedExceptionAction<KeyVersion>) () ->
+                kp.decryptEncryptedKey(ekv))));
+      }
+      for (Future<KeyVersion> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(p1, Mockito.times(2)).decryptEncryptedKeys(Mockito.anyList());
+
+    // The key decrypted for alice is not used for bob
+    verify(p1, Mockito.never()).decryptEncryptedKey(
+        Mockito.any(EncryptedKeyVersion.class));
+    when(p1.decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class)))
+        .thenAnswer((Answer<KeyVersion>) invocation ->
+            decrypted((EncryptedKeyVersion) invocation.getArguments()[0]));
+    conf.setLong(
+        CommonConfigurationKeysPublic.KMS_CLIENT_DECRYPT_BATCH_WINDOW_MS, 0);
+    final LoadBalancingKMSClientProvider cachingKp =
+        new LoadBalancingKMSClientProvider(
+            new KMSClientProvider[] {p1}, 0, conf);
+    for (UserGroupInformation ugi : Arrays.asList(alice, bob, alice, bob)) {
+      ugi.doAs((PrivilegedExceptionAction<KeyVersion>) () ->
+          cachingKp.decryptEncryptedKey(newEncryptedKey(0)));
+    }
+    verify(p1, Mockito.times(2)).decryptEncryptedKey(
+        Mockito.any(EncryptedKeyVersion.class));
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.QuickSort;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * KeySortBenchmark
+ *   Synopsis: KeySortBenchmark [-records numRecords] [-keyLength bytes]
+ *        [-sharedPrefix bytes] [-partitions numPartitions]
+ *        [-iterations numIterations]
+ *
+ *   Measure the time to sort serialized {@link Text} keys like the map
+ *   output buffer of MapTask does: the keys are in one buffer, the sort
+ *   swaps their metadata, and compares their partitions and then the keys
+ *   with the raw comparator, without and with the key prefixes of
+ *   {@link KeyPrefixComparator} computed before sorting.
+ *
+ *   The first sharedPrefix bytes of all the keys are the same, like the
+ *   dates or ids starting the keys of many jobs.
+ */
+public class KeySortBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: KeySortBenchmark"
+      + " [-records numRecords] [-keyLength bytes] [-sharedPrefix bytes]"
+      + " [-partitions numPartitions] [-iterations numIterations]";
+
+  private static final int KEYSTART = 0;
+  private static final int KEYLEN = 1;
+  private static final int PARTITION = 2;
+  private static final int NMETA = 3;
+
+  public KeySortBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    int numRecords = 1000000;
+    int keyLength = 20;
+    int sharedPrefix = 0;
+    int partitions = 1;
+    int iterations = 3;
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-records")) {
+        numRecords = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-keyLength")) {
+        keyLength = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-sharedPrefix")) {
+        sharedPrefix = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-partitions")) {
+        partitions = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-iterations")) {
+        iterations = Integer.parseInt(args[++i]);
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+
+    DataOutputBuffer keys = new DataOutputBuffer();
+    int[] meta = new int[numRecords * NMETA];
+    Random random = new Random(0);
+    Text key = new Text();
+    byte[] bytes = new byte[keyLength];
+    for (int i = 0; i < numRecords; i++) {
+      for (int j = 0; j < keyLength; j++) {
+        bytes[j] = (byte) (j < sharedPrefix ? 'k' : 'a' + random.nextInt(26));
+      }
+      key.set(bytes);
+      meta[i * NMETA + KEYSTART] = keys.getLength();
+      key.write(keys);
+      meta[i * NMETA + KEYLEN] = keys.getLength() - meta[i * NMETA + KEYSTART];
+      meta[i * NMETA + PARTITION] = random.nextInt(partitions);
+    }
+
+    Text.Comparator comparator = new Text.Comparator();
+    for (int i = 0; i < iterations; i++) {
+      for (boolean prefixes : new boolean[] {false, true}) {
+        KeySortable sortable = new KeySortable(keys.getData(), meta.clone(),
+            comparator, prefixes);
+        long start = Time.monotonicNowNanos();
+        sortable.sort();
+        long time = (Time.monotonicNowNanos() - start) / 1000000;
+        System.out.println("Key prefixes: " + prefixes + ", records: "
+            + numRecords + ", key length: " + keyLength + ", shared prefix: "
+            + sharedPrefix + ", time: " + time + " ms, comparisons: "
+            + sortable.comparisons);
+      }
+    }
+    return 0;
+  }
+
+  /** The records sorted by the benchmark. */
+  private static final class KeySortable implements IndexedSortable {
+    private final byte[] keys;
+    private final int[] meta;
+    private final Text.Comparator comparator;
+    private final long[] prefixes;
+    private long comparisons;
+
+    private KeySortable(byte[] keys, int[] meta, Text.Comparator comparator,
+        boolean usePrefixes) {
+      this.keys = keys;
+      this.meta = meta;
+      this.comparator = comparator;
+      this.prefixes = usePrefixes ? new long[meta.length / NMETA] : null;
+    }
+
+    private void sort() {
+      int numRecords = meta.length / NMETA;
+      if (prefixes != null) {
+        for (int i = 0; i < numRecords; i++) {
+          prefixes[i] = comparator.getKeyPrefix(keys,
+              meta[i * NMETA + KEYSTART], meta[i * NMETA + KEYLEN]);
+        }
+      }
+      new QuickSort().sort(this, 0, numRecords);
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      int ip = meta[i * NMETA + PARTITION];
+      int jp = meta[j * NMETA + PARTITION];
+      if (ip != jp) {
+        return ip - jp;
+      }
+      if (prefixes != null) {
+        int cmp = Long.compareUnsigned(prefixes[i], prefixes[j]);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      comparisons++;
+      return comparator.compare(keys, meta[i * NMETA + KEYSTART],
+          meta[i * NMETA + KEYLEN], keys, meta[j * NMETA + KEYSTART],
+          meta[j * NMETA + KEYLEN]);
+    }
+
+    @Override
+    public void swap(int i, int j) {
+      for (int k = 0; k < NMETA; k++) {
+        int tmp = meta[i * NMETA + k];
+        meta[i * NMETA + k] = meta[j * NMETA + k];
+        meta[j * NMETA + k] = tmp;
+      }
+      if (prefixes != null) {
+        long tmp = prefixes[i];
+        prefixes[i] = prefixes[j];
+        prefixes[j] = tmp;
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(new KeySortBenchmark(new Configuration()),
+        args));
+  }
+}
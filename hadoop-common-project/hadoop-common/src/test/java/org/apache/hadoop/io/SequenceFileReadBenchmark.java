@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.SequenceFile.RawReader;
+import org.apache.hadoop.io.SequenceFile.Reader;
+import org.apache.hadoop.io.SequenceFile.Writer;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * SequenceFileReadBenchmark
+ *   Synopsis: SequenceFileReadBenchmark [-records numRecords]
+ *        [-valueSize bytes] [-codec codecClass] [-work workDirectory]
+ *
+ *   Measure the time to read the records of record and block compressed
+ *   sequence files, and of uncompressed ones, with
+ *   {@link Reader#next(Writable, Writable)}, with
+ *   {@link Reader#nextRaw(DataOutputBuffer, SequenceFile.ValueBytes)} and
+ *   with {@link RawReader}, without and with prefetching.
+ *
+ *   The keys are {@link Text} and the values {@link BytesWritable}s of
+ *   random words, compressible like text.
+ */
+public class SequenceFileReadBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: SequenceFileReadBenchmark"
+      + " [-records numRecords] [-valueSize bytes] [-codec codecClass]"
+      + " [-work workDirectory]";
+
+  public SequenceFileReadBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    int numRecords = 1000000;
+    int valueSize = 200;
+    String codecName = DefaultCodec.class.getName();
+    Path workDir = new Path(System.getProperty("java.io.tmpdir"),
+        "SequenceFileReadBenchmark");
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-records")) {
+        numRecords = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-valueSize")) {
+        valueSize = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-codec")) {
+        codecName = args[++i];
+      } else if (args[i].equals("-work")) {
+        workDir = new Path(args[++i]);
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+
+    CompressionCodec codec = (CompressionCodec) ReflectionUtils.newInstance(
+        getConf().getClassByName(codecName), getConf());
+    FileSystem fs = FileSystem.getLocal(getConf());
+    Path file = new Path(workDir, "data.seq");
+    try {
+      for (CompressionType type : CompressionType.values()) {
+        writeFile(fs, file, type, codec, numRecords, valueSize);
+        long length = fs.getFileStatus(file).getLen();
+        System.out.println(type + ": " + numRecords + " records, "
+            + length / (1024 * 1024) + " MB");
+        // Read once to warm up the cache and the JIT
+        readRaw(file, true);
+        print("Reader.next", numRecords, readDeserialized(file));
+        print("Reader.nextRaw", numRecords, readNextRaw(file));
+        print("RawReader", numRecords, readRaw(file, false));
+        print("RawReader with prefetch", numRecords, readRaw(file, true));
+      }
+    } finally {
+      fs.delete(workDir, true);
+    }
+    return 0;
+  }
+
+  private void writeFile(FileSystem fs, Path file, CompressionType type,
+      CompressionCodec codec, int numRecords, int valueSize)
+      throws IOException {
+    Random random = new Random(0);
+    String[] words = new String[1000];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = Long.toString(random.nextLong(), 36);
+    }
+    Text key = new Text();
+    BytesWritable value = new BytesWritable();
+    StringBuilder text = new StringBuilder();
+    try (Writer writer = SequenceFile.createWriter(getConf(),
+        Writer.file(fs.makeQualified(file)), Writer.keyClass(Text.class),
+        Writer.valueClass(BytesWritable.class),
+        Writer.compression(type, codec))) {
+      for (int i = 0; i < numRecords; i++) {
+        key.set(String.format("key%010d", i));
+        text.setLength(0);
+        while (text.length() < valueSize) {
+          text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        byte[] bytes = text.toString().getBytes();
+        value.set(bytes, 0, valueSize);
+        writer.append(key, value);
+      }
+    }
+  }
+
+  private long readDeserialized(Path file) throws IOException {
+    Text key = new Text();
+    BytesWritable value = new BytesWritable();
+    long start = Time.monotonicNowNanos();
+    try (Reader reader = new Reader(getConf(), Reader.file(file))) {
+      while (reader.next(key, value)) {
+        // Deserialize all the records
+      }
+    }
+    return Time.monotonicNowNanos() - start;
+  }
+
+  private long readNextRaw(Path file) throws IOException {
+    DataOutputBuffer key = new DataOutputBuffer();
+    DataOutputBuffer value = new DataOutputBuffer();
+    long start = Time.monotonicNowNanos();
+    try (Reader reader = new Reader(getConf(), Reader.file(file))) {
+      SequenceFile.ValueBytes rawValue = reader.createValueBytes();
+      key.reset();
+      while (reader.nextRaw(key, rawValue) >= 0) {
+        // As the merges of the sorter, copying the uncompressed values
+        value.reset();
+        rawValue.writeUncompressedBytes(value);
+        key.reset();
+      }
+    }
+    return Time.monotonicNowNanos() - start;
+  }
+
+  private long readRaw(Path file, boolean prefetch) throws IOException {
+    long bytes = 0;
+    long start = Time.monotonicNowNanos();
+    try (RawReader reader = new RawReader(getConf(), prefetch,
+        Reader.file(file))) {
+      while (reader.next()) {
+        bytes += reader.getKey().remaining() + reader.getValue().remaining();
+      }
+    }
+    if (bytes < 0) {
+      throw new IllegalStateException();
+    }
+    return Time.monotonicNowNanos() - start;
+  }
+
+  private static void print(String name, int numRecords, long nanos) {
+    System.out.println(String.format("  %-25s %8d ms %10.0f records/s",
+        name, nanos / 1000000, numRecords * 1e9 / nanos));
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(
+        new SequenceFileReadBenchmark(new Configuration()), args));
+  }
+}
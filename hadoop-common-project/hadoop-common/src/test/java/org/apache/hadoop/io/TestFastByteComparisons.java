@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNotNull;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test the comparers of {@link FastByteComparisons} against each other.
+ */
+public class TestFastByteComparisons {
+
+  private static final String HOLDER = FastByteComparisons.class.getName()
+      + "$LexicographicalComparerHolder";
+
+  /** Get the instance of a comparer. */
+  private static Object getComparer(String name) throws Exception {
+    return Class.forName(HOLDER + "$" + name).getEnumConstants()[0];
+  }
+
+  private static int compare(Object comparer, byte[] b1, int s1, int l1,
+      byte[] b2, int s2, int l2) throws Exception {
+    Method compareTo = comparer.getClass().getMethod("compareTo",
+        Object.class, int.class, int.class, Object.class, int.class,
+        int.class);
+    compareTo.setAccessible(true);
+    return (Integer) compareTo.invoke(comparer, b1, s1, l1, b2, s2, l2);
+  }
+
+  @Test
+  public void testMismatchComparer() throws Exception {
+    Object mismatch = getComparer("MismatchComparer");
+    Class<?> comparerClass = Class.forName(HOLDER + "$MismatchComparer");
+    assumeNotNull(comparerClass.getDeclaredField("MISMATCH").get(null));
+    Object pureJava = getComparer("PureJavaComparer");
+    Random random = new Random(1);
+    byte[] b1 = new byte[300];
+    byte[] b2 = new byte[300];
+    for (int i = 0; i < 2000; i++) {
+      random.nextBytes(b1);
+      // Equal bytes up to a random position, at random offsets
+      int s1 = random.nextInt(50);
+      int s2 = random.nextInt(50);
+      int l1 = random.nextInt(250);
+      int l2 = random.nextInt(250);
+      System.arraycopy(b1, s1, b2, s2, Math.min(l1, l2));
+      if (random.nextBoolean() && l2 > 0) {
+        b2[s2 + random.nextInt(l2)] ^= (byte) (1 << random.nextInt(8));
+      }
+      assertEquals(Integer.signum(compare(pureJava, b1, s1, l1, b2, s2, l2)),
+          Integer.signum(compare(mismatch, b1, s1, l1, b2, s2, l2)));
+      assertEquals(Integer.signum(compare(pureJava, b2, s2, l2, b1, s1, l1)),
+          Integer.signum(compare(mismatch, b2, s2, l2, b1, s1, l1)));
+    }
+    assertEquals(0, compare(mismatch, b1, 0, 10, b1, 0, 10));
+    assertEquals(0, compare(mismatch, b1, 0, 0, b2, 5, 0));
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.SequenceFile.RawReader;
+import org.apache.hadoop.io.SequenceFile.Reader;
+import org.apache.hadoop.io.SequenceFile.Writer;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link RawReader} reads the same records as {@link Reader}.
+ */
+public class TestSequenceFileRawReader {
+  private static final int RECORDS = 5000;
+
+  private Configuration conf;
+  private LocalFileSystem fs;
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    conf = new Configuration();
+    // Several blocks and batches
+    conf.setInt(CommonConfigurationKeysPublic.IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY,
+        10000);
+    fs = FileSystem.getLocal(conf);
+    file = new Path(GenericTestUtils.getTempPath("TestSequenceFileRawReader"),
+        "data.seq");
+  }
+
+  @Test(timeout = 60000)
+  public void testUncompressed() throws Exception {
+    testRawReader(CompressionType.NONE);
+  }
+
+  @Test(timeout = 60000)
+  public void testRecordCompressed() throws Exception {
+    testRawReader(CompressionType.RECORD);
+  }
+
+  @Test(timeout = 60000)
+  public void testBlockCompressed() throws Exception {
+    testRawReader(CompressionType.BLOCK);
+  }
+
+  @Test(timeout = 60000)
+  public void testEmptyFile() throws Exception {
+    for (CompressionType type : CompressionType.values()) {
+      writeFile(type, 0);
+      for (boolean prefetch : new boolean[] {false, true}) {
+        try (RawReader reader = new RawReader(conf, prefetch,
+            Reader.file(file))) {
+          assertEquals(Text.class.getName(), reader.getKeyClassName());
+          assertEquals(type, reader.getCompressionType());
+          assertFalse(reader.next());
+          assertFalse(reader.next());
+        }
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testCloseBeforeEnd() throws Exception {
+    writeFile(CompressionType.BLOCK, RECORDS);
+    try (RawReader reader = new RawReader(conf, true, Reader.file(file))) {
+      assertTrue(reader.next());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testTruncatedFile() throws Exception {
+    // Cut a record in the middle, a truncated block reads as the end
+    writeFile(CompressionType.NONE, RECORDS);
+    fs.delete(fs.getChecksumFile(file), false);
+    File localFile = new File(file.toUri().getPath());
+    try (RandomAccessFile raf = new RandomAccessFile(localFile, "rw")) {
+      raf.setLength(localFile.length() / 2);
+    }
+    for (boolean prefetch : new boolean[] {false, true}) {
+      try (RawReader reader = new RawReader(conf, prefetch,
+          Reader.file(file))) {
+        IOException failure = null;
+        try {
+          while (reader.next()) {
+            // Read until the truncated record
+          }
+        } catch (IOException e) {
+          failure = e;
+        }
+        assertNotNull("Reading a truncated file should fail", failure);
+        // The next calls report the same failure
+        assertSame(failure,
+            LambdaTestUtils.intercept(IOException.class, reader::next));
+      }
+    }
+  }
+
+  private void testRawReader(CompressionType type) throws IOException {
+    writeFile(type, RECORDS);
+    for (boolean prefetch : new boolean[] {false, true}) {
+      Text key = new Text();
+      BytesWritable value = new BytesWritable();
+      Text rawKey = new Text();
+      BytesWritable rawValue = new BytesWritable();
+      DataInputBuffer in = new DataInputBuffer();
+      int records = 0;
+      try (Reader reader = new Reader(conf, Reader.file(file));
+          RawReader rawReader = new RawReader(conf, prefetch,
+              Reader.file(file))) {
+        assertEquals(type, rawReader.getCompressionType());
+        while (reader.next(key, value)) {
+          assertTrue(rawReader.next());
+          ByteBuffer keyBuffer = rawReader.getKey();
+          in.reset(keyBuffer.array(), keyBuffer.position(),
+              keyBuffer.remaining());
+          rawKey.readFields(in);
+          assertEquals(keyBuffer.limit(), in.getPosition());
+          assertEquals(key, rawKey);
+
+          ByteBuffer valueBuffer = rawReader.getValue();
+          in.reset(valueBuffer.array(), valueBuffer.position(),
+              valueBuffer.remaining());
+          rawValue.readFields(in);
+          assertEquals(valueBuffer.limit(), in.getPosition());
+          assertEquals(value, rawValue);
+          records++;
+        }
+        assertFalse(rawReader.next());
+      }
+      assertEquals(RECORDS, records);
+    }
+  }
+
+  private void writeFile(CompressionType type, int records)
+      throws IOException {
+    try (Writer writer = SequenceFile.createWriter(conf,
+        Writer.file(file), Writer.keyClass(Text.class),
+        Writer.valueClass(BytesWritable.class),
+        Writer.compression(type, new DefaultCodec()))) {
+      for (int i = 0; i < records; i++) {
+        // Values of varied lengths, some empty
+        byte[] value = new byte[i % 100];
+        for (int j = 0; j < value.length; j++) {
+          value[j] = (byte) (i + j);
+        }
+        writer.append(new Text("key" + i), new BytesWritable(value));
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.util.Arrays;
 import java.util.Random;
 import com.google.common.base.Charsets;
 import com.google.common.primitives.Bytes;
@@ -447,4 +448,42 @@ public void testUtf8Length() {
             2, Text.utf8Length(new String(new char[]{(char)254})));
   }
 
+  @Test
+  public void testComparatorAndKeyPrefix() throws Exception {
+    Text.Comparator comparator = new Text.Comparator();
+    byte[][] keys = new byte[200][];
+    for (int i = 0; i < keys.length; i++) {
+      // Shared prefixes of all lengths, compared by bytes and by words
+      byte[] bytes = new byte[RANDOM.nextInt(150)];
+      for (int j = 0; j < bytes.length; j++) {
+        bytes[j] = (byte) (j < i % 100 ? 'a' : RANDOM.nextInt(256));
+      }
+      DataOutputBuffer out = new DataOutputBuffer();
+      new Text(bytes).write(out);
+      keys[i] = Arrays.copyOf(out.getData(), out.getLength());
+    }
+    for (byte[] k1 : keys) {
+      for (byte[] k2 : keys) {
+        int expected = Integer.signum(compareUnsigned(k1, k2));
+        assertEquals(expected, Integer.signum(
+            comparator.compare(k1, 0, k1.length, k2, 0, k2.length)));
+        int prefixes = Long.compareUnsigned(
+            comparator.getKeyPrefix(k1, 0, k1.length),
+            comparator.getKeyPrefix(k2, 0, k2.length));
+        assertTrue(prefixes == 0 || Integer.signum(prefixes) == expected);
+      }
+    }
+  }
+
+  /** Compare the bytes of two serialized texts, after their lengths. */
+  private static int compareUnsigned(byte[] k1, byte[] k2) {
+    int n1 = WritableUtils.decodeVIntSize(k1[0]);
+    int n2 = WritableUtils.decodeVIntSize(k2[0]);
+    for (int i = n1, j = n2; i < k1.length && j < k2.length; i++, j++) {
+      if (k1[i] != k2[j]) {
+        return (k1[i] & 0xff) - (k2[j] & 0xff);
+      }
+    }
+    return (k1.length - n1) - (k2.length - n2);
+  }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * DirectCodecBenchmark
+ *   Synopsis: DirectCodecBenchmark [-size blockBytes] [-mb totalMB]
+ *        [-codec codecClass]
+ *
+ *   Measure the throughput of the compression and decompression of blocks
+ *   of direct buffers by the {@link DirectCompressor}s and
+ *   {@link DirectDecompressor}s of the native codecs, compared to the
+ *   streams of the heap {@link Compressor}s and {@link Decompressor}s.
+ *
+ *   The codecs whose native library is not loaded are skipped. The blocks
+ *   are made of random words, compressible like text.
+ */
+public class DirectCodecBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: DirectCodecBenchmark"
+      + " [-size blockBytes] [-mb totalMB] [-codec codecClass]";
+
+  private static final String[] CODECS = {
+      DefaultCodec.class.getName(),
+      GzipCodec.class.getName(),
+      SnappyCodec.class.getName(),
+      Lz4Codec.class.getName(),
+      ZStandardCodec.class.getName()
+  };
+
+  public DirectCodecBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    int blockSize = 64 * 1024;
+    long totalBytes = 256L * 1024 * 1024;
+    String[] codecs = CODECS;
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-size")) {
+        blockSize = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-mb")) {
+        totalBytes = Long.parseLong(args[++i]) * 1024 * 1024;
+      } else if (args[i].equals("-codec")) {
+        codecs = new String[] {args[++i]};
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+
+    byte[] data = createData(blockSize);
+    int blocks = (int) Math.max(1, totalBytes / blockSize);
+    for (String codecName : codecs) {
+      CompressionCodec codec = (CompressionCodec) ReflectionUtils.newInstance(
+          getConf().getClassByName(codecName), getConf());
+      DirectCompressor compressor = null;
+      DirectDecompressor decompressor = null;
+      try {
+        compressor = CodecPool.getDirectCompressor(
+            (DirectCompressionCodec) codec, getConf());
+        decompressor = CodecPool.getDirectDecompressor(
+            (DirectDecompressionCodec) codec);
+      } catch (RuntimeException | UnsatisfiedLinkError e) {
+        // The native library of the codec is not loaded
+      }
+      if (compressor == null || decompressor == null) {
+        System.out.println(codecName + ": native library not loaded");
+        continue;
+      }
+      try {
+        measureDirect(codecName, compressor, decompressor, data, blocks);
+        measureStreams(codecName, codec, data, blocks);
+      } finally {
+        CodecPool.returnDirectCompressor((DirectCompressionCodec) codec,
+            compressor);
+        CodecPool.returnDirectDecompressor((DirectDecompressionCodec) codec,
+            decompressor);
+      }
+    }
+    return 0;
+  }
+
+  private static byte[] createData(int size) {
+    Random random = new Random(0);
+    String[] words = new String[1000];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = Long.toString(random.nextLong(), 36);
+    }
+    StringBuilder text = new StringBuilder(size + 20);
+    while (text.length() < size) {
+      text.append(words[random.nextInt(words.length)]).append(' ');
+    }
+    byte[] data = new byte[size];
+    System.arraycopy(text.toString().getBytes(), 0, data, 0, size);
+    return data;
+  }
+
+  private void measureDirect(String codecName, DirectCompressor compressor,
+      DirectDecompressor decompressor, byte[] data, int blocks)
+      throws IOException {
+    ByteBuffer src = CodecPool.getDirectBufferPool()
+        .getBuffer(true, data.length);
+    ByteBuffer compressed = CodecPool.getDirectBufferPool()
+        .getBuffer(true, compressor.maxCompressedLength(data.length));
+    ByteBuffer dst = CodecPool.getDirectBufferPool()
+        .getBuffer(true, data.length);
+    try {
+      src.put(data);
+      long compressedBytes = 0;
+      long compressTime = 0;
+      long decompressTime = 0;
+      for (int i = 0; i < blocks; i++) {
+        src.flip();
+        compressed.clear();
+        long start = Time.monotonicNowNanos();
+        compressedBytes += compressor.compress(src, compressed);
+        compressTime += Time.monotonicNowNanos() - start;
+
+        compressed.flip();
+        dst.clear();
+        dst.limit(data.length);
+        start = Time.monotonicNowNanos();
+        while (compressed.hasRemaining() && dst.hasRemaining()) {
+          decompressor.decompress(compressed, dst);
+        }
+        decompressTime += Time.monotonicNowNanos() - start;
+        if (decompressor instanceof Decompressor) {
+          ((Decompressor) decompressor).reset();
+        }
+      }
+      print(codecName, "direct", (long) blocks * data.length,
+          compressedBytes, compressTime, decompressTime);
+    } finally {
+      CodecPool.getDirectBufferPool().putBuffer(src);
+      CodecPool.getDirectBufferPool().putBuffer(compressed);
+      CodecPool.getDirectBufferPool().putBuffer(dst);
+    }
+  }
+
+  private void measureStreams(String codecName, CompressionCodec codec,
+      byte[] data, int blocks) throws IOException {
+    Compressor compressor = CodecPool.getCompressor(codec, getConf());
+    Decompressor decompressor = CodecPool.getDecompressor(codec);
+    try {
+      DataOutputBuffer out = new DataOutputBuffer();
+      byte[] result = new byte[data.length];
+      long compressedBytes = 0;
+      long compressTime = 0;
+      long decompressTime = 0;
+      for (int i = 0; i < blocks; i++) {
+        out.reset();
+        compressor.reset();
+        long start = Time.monotonicNowNanos();
+        CompressionOutputStream cout =
+            codec.createOutputStream(out, compressor);
+        cout.write(data);
+        cout.finish();
+        compressTime += Time.monotonicNowNanos() - start;
+        compressedBytes += out.getLength();
+
+        decompressor.reset();
+        start = Time.monotonicNowNanos();
+        CompressionInputStream cin = codec.createInputStream(
+            new ByteArrayInputStream(out.getData(), 0, out.getLength()),
+            decompressor);
+        IOUtils.readFully(cin, result, 0, result.length);
+        decompressTime += Time.monotonicNowNanos() - start;
+      }
+      print(codecName, "stream", (long) blocks * data.length,
+          compressedBytes, compressTime, decompressTime);
+    } finally {
+      CodecPool.returnCompressor(compressor);
+      CodecPool.returnDecompressor(decompressor);
+    }
+  }
+
+  private static void print(String codecName, String mode, long bytes,
+      long compressedBytes, long compressNanos, long decompressNanos) {
+    System.out.println(String.format("%s %s: ratio %.3f, compress %.1f MB/s,"
+        + " decompress %.1f MB/s", codecName, mode,
+        (double) compressedBytes / bytes, toMBps(bytes, compressNanos),
+        toMBps(bytes, decompressNanos)));
+  }
+
+  private static double toMBps(long bytes, long nanos) {
+    return bytes * 1e9 / Math.max(nanos, 1) / (1024 * 1024);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(
+        new DirectCodecBenchmark(new Configuration()), args));
+  }
+}
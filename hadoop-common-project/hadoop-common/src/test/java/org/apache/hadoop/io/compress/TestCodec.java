@@ -41,6 +41,7 @@
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -54,6 +55,7 @@
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ByteBufferPool;
 import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.IOUtils;
@@ -974,4 +976,99 @@ public void testCodecPoolAndGzipDecompressor() {
       }
     }
   }
+
+  @Test(timeout=20000)
+  public void testDirectZlibCodecs() throws IOException {
+    assumeTrue(ZlibFactory.isNativeZlibLoaded(conf));
+    directCodecTest(new DefaultCodec());
+    directCodecTest(new GzipCodec());
+  }
+
+  @Test(timeout=20000)
+  public void testDirectSnappyCodec() throws IOException {
+    assumeTrue(SnappyCodec.isNativeCodeLoaded());
+    directCodecTest(new SnappyCodec());
+  }
+
+  @Test(timeout=20000)
+  public void testDirectLz4Codec() throws IOException {
+    assumeTrue(Lz4Codec.isNativeCodeLoaded());
+    directCodecTest(new Lz4Codec());
+    Configuration hcConf = new Configuration(conf);
+    hcConf.setBoolean(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_LZ4_USELZ4HC_KEY, true);
+    Lz4Codec codec = new Lz4Codec();
+    codec.setConf(hcConf);
+    directCodecTest(codec);
+  }
+
+  @Test(timeout=20000)
+  public void testDirectZStandardCodec() throws IOException {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    directCodecTest(new ZStandardCodec());
+  }
+
+  /**
+   * Compress and decompress direct buffers of pooled codecs and buffers, at
+   * non-zero positions of the buffers.
+   */
+  private void directCodecTest(CompressionCodec codec) throws IOException {
+    ReflectionUtils.setConf(codec, conf);
+    DirectCompressionCodec compressionCodec = (DirectCompressionCodec) codec;
+    DirectDecompressionCodec decompressionCodec =
+        (DirectDecompressionCodec) codec;
+    ByteBufferPool pool = CodecPool.getDirectBufferPool();
+    Random random = new Random();
+    for (int length : new int[] {0, 1, 1000, 200000}) {
+      byte[] data = new byte[length];
+      for (int i = 0; i < length; i++) {
+        // Compressible data
+        data[i] = (byte) ('a' + random.nextInt(4));
+      }
+      DirectCompressor compressor =
+          CodecPool.getDirectCompressor(compressionCodec, conf);
+      DirectDecompressor decompressor =
+          CodecPool.getDirectDecompressor(decompressionCodec);
+      ByteBuffer src = pool.getBuffer(true, length + 1);
+      src.position(1);
+      src.put(data);
+      src.flip();
+      src.position(1);
+      ByteBuffer compressed = pool.getBuffer(true,
+          compressor.maxCompressedLength(length) + 1);
+      compressed.position(1);
+      int n = compressor.compress(src, compressed);
+      assertFalse(src.hasRemaining());
+      assertEquals(n + 1, compressed.position());
+      if (length > 0) {
+        assertTrue("Data was not compressed", length < 1000 || n < length);
+        compressed.flip();
+        compressed.position(1);
+        ByteBuffer dst = pool.getBuffer(true, length + 1);
+        dst.position(1);
+        dst.limit(length + 1);
+        while (compressed.hasRemaining() && dst.hasRemaining()) {
+          decompressor.decompress(compressed, dst);
+        }
+        assertFalse(compressed.hasRemaining());
+        dst.flip();
+        dst.position(1);
+        byte[] result = new byte[dst.remaining()];
+        dst.get(result);
+        assertArrayEquals(data, result);
+        pool.putBuffer(dst);
+      }
+      pool.putBuffer(src);
+      pool.putBuffer(compressed);
+      CodecPool.returnDirectCompressor(compressionCodec, compressor);
+      CodecPool.returnDirectDecompressor(decompressionCodec, decompressor);
+    }
+
+    // The pooled compressors are reused
+    DirectCompressor compressor =
+        CodecPool.getDirectCompressor(compressionCodec, conf);
+    CodecPool.returnDirectCompressor(compressionCodec, compressor);
+    assertTrue(compressor ==
+        CodecPool.getDirectCompressor(compressionCodec, conf));
+  }
 }
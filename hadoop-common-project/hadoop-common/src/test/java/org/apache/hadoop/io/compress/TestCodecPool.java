@@ -18,7 +18,11 @@
 package org.apache.hadoop.io.compress;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -26,6 +30,7 @@
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BoundedByteBufferPool;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -189,4 +194,33 @@ public void testDecompressorNotReturnSameInstance() {
       CodecPool.returnDecompressor(decompressor);
     }
   }
+
+  @Test(timeout = 10000)
+  public void testBoundedDirectBufferPool() {
+    BoundedByteBufferPool pool = new BoundedByteBufferPool(3000);
+    ByteBuffer buf1 = pool.getBuffer(true, 1000);
+    ByteBuffer buf2 = pool.getBuffer(true, 2000);
+    ByteBuffer buf3 = pool.getBuffer(true, 1000);
+    assertTrue(buf1.isDirect());
+    assertEquals(1000, buf1.capacity());
+
+    // Only the buffers fitting in the pool are cached
+    pool.putBuffer(buf1);
+    pool.putBuffer(buf2);
+    pool.putBuffer(buf3);
+    assertEquals(3000, pool.getCachedBytes());
+    assertEquals(2, pool.size(true));
+    assertEquals(0, pool.size(false));
+
+    // The smallest cached buffer large enough is reused
+    buf2.position(10);
+    assertSame(buf1, pool.getBuffer(true, 500));
+    ByteBuffer buf = pool.getBuffer(true, 1500);
+    assertSame(buf2, buf);
+    assertEquals(0, buf.position());
+    assertEquals(2000, buf.limit());
+    assertEquals(0, pool.getCachedBytes());
+    assertEquals(4000, pool.getBuffer(true, 4000).capacity());
+    assertFalse(pool.getBuffer(false, 10).isDirect());
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the output of {@link ParallelCompressorStream} is read back by the
+ * input streams of the codecs.
+ */
+public class TestParallelCompressorStream {
+  private Configuration conf;
+
+  @Before
+  public void setup() {
+    conf = new Configuration();
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_THREADS_KEY, 3);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_PARALLEL_BLOCK_SIZE_KEY,
+        10000);
+  }
+
+  @Test(timeout = 60000)
+  public void testGzip() throws Exception {
+    byte[] data = createData(123456);
+    byte[] compressed = compress(GzipCodec.class, data);
+    assertArrayEquals(data, decompress(GzipCodec.class, compressed));
+    // Any gzip reader reads the members as one stream
+    try (InputStream in = new GZIPInputStream(
+        new ByteArrayInputStream(compressed))) {
+      assertArrayEquals(data, readFully(in, data.length));
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testBZip2() throws Exception {
+    conf.set("io.compression.codec.bzip2.library", "java-builtin");
+    byte[] data = createData(54321);
+    byte[] compressed = compress(BZip2Codec.class, data);
+    assertArrayEquals(data, decompress(BZip2Codec.class, compressed));
+  }
+
+  @Test(timeout = 60000)
+  public void testZStandard() throws Exception {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    byte[] data = createData(123456);
+    byte[] compressed = compress(ZStandardCodec.class, data);
+    assertArrayEquals(data, decompress(ZStandardCodec.class, compressed));
+  }
+
+  @Test(timeout = 60000)
+  public void testEmptyAndFlushedStreams() throws Exception {
+    // An empty stream is still a valid compressed stream
+    byte[] compressed = compress(GzipCodec.class, new byte[0]);
+    assertTrue(compressed.length > 0);
+    assertEquals(0, decompress(GzipCodec.class, compressed).length);
+
+    // Flushes and finishes only write the complete blocks
+    byte[] data = createData(25000);
+    CompressionCodec codec = ReflectionUtils.newInstance(GzipCodec.class,
+        conf);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CompressionOutputStream cout = codec.createOutputStream(out)) {
+      assertTrue(cout instanceof ParallelCompressorStream);
+      cout.write(data, 0, 15000);
+      cout.flush();
+      int flushed = out.size();
+      assertTrue(flushed > 0);
+      cout.write(data[15000]);
+      cout.write(data, 15001, 5000);
+      cout.finish();
+      assertTrue(out.size() > flushed);
+      cout.resetState();
+      cout.write(data, 20001, data.length - 20001);
+    }
+    assertArrayEquals(data, decompress(GzipCodec.class, out.toByteArray()));
+  }
+
+  private static byte[] createData(int length) {
+    Random random = new Random(length);
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(10));
+    }
+    return data;
+  }
+
+  private byte[] compress(Class<? extends CompressionCodec> codecClass,
+      byte[] data) throws IOException {
+    CompressionCodec codec = ReflectionUtils.newInstance(codecClass, conf);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CompressionOutputStream cout = codec.createOutputStream(out)) {
+      assertTrue(cout instanceof ParallelCompressorStream);
+      // Writes across the blocks
+      Random random = new Random();
+      int off = 0;
+      while (off < data.length) {
+        int len = Math.min(data.length - off, random.nextInt(30000));
+        cout.write(data, off, len);
+        off += len;
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private byte[] decompress(Class<? extends CompressionCodec> codecClass,
+      byte[] compressed) throws IOException {
+    CompressionCodec codec = ReflectionUtils.newInstance(codecClass,
+        new Configuration(conf));
+    try (InputStream in = codec.createInputStream(
+        new ByteArrayInputStream(compressed))) {
+      return readFully(in, -1);
+    }
+  }
+
+  private static byte[] readFully(InputStream in, int expected)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    IOUtils.copyBytes(in, out, 4096, false);
+    if (expected >= 0) {
+      assertEquals(expected, out.size());
+    }
+    return out.toByteArray();
+  }
+}
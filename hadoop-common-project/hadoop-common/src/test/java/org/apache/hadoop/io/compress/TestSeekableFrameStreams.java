@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the streams of seekable frames are read back whole and by splits.
+ */
+public class TestSeekableFrameStreams {
+  private static final int FRAME_SIZE = 1000;
+
+  private Configuration conf;
+  private FileSystem fs;
+  private Path file;
+  private byte[] data;
+
+  @Before
+  public void setup() throws IOException {
+    conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    file = new Path(GenericTestUtils.getTempPath("TestSeekableFrameStreams"),
+        "data");
+    data = new byte[12345];
+    Random random = new Random(0);
+    for (int i = 0; i < data.length; i++) {
+      // Compressible text with lines
+      data[i] = (byte) (i % 80 == 79 ? '\n' : 'a' + random.nextInt(4));
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testRoundTrip() throws Exception {
+    CompressionCodec codec = createCodec(DefaultCodec.class);
+    writeFrames(codec, data);
+    byte[] compressed = readFile();
+    assertEquals(SeekableFrameCompressorStream.SYNC_MAGIC,
+        SeekableFrameCompressorStream.getIntLE(compressed, 0));
+
+    // Streams that are not seekable are read ahead
+    try (InputStream in = SeekableFrameDecompressorStream.createInputStream(
+        codec, conf, new ByteArrayInputStream(compressed))) {
+      assertArrayEquals(data, readFully(in));
+    }
+    try (InputStream in = SeekableFrameDecompressorStream.createInputStream(
+        codec, conf, fs.open(file))) {
+      assertTrue(in instanceof SeekableFrameDecompressorStream);
+      assertArrayEquals(data, readFully(in));
+    }
+
+    // Streams written without frames are read by the codec
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream codecOut = codec.createOutputStream(out)) {
+      codecOut.write(data);
+    }
+    try (InputStream in = SeekableFrameDecompressorStream.createInputStream(
+        codec, conf, new ByteArrayInputStream(out.toByteArray()))) {
+      assertArrayEquals(data, readFully(in));
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testEmptyStream() throws Exception {
+    CompressionCodec codec = createCodec(DefaultCodec.class);
+    writeFrames(codec, new byte[0]);
+    try (InputStream in = SeekableFrameDecompressorStream.createInputStream(
+        codec, conf, fs.open(file))) {
+      assertEquals(-1, in.read());
+    }
+    try (FSDataInputStream in = fs.open(file)) {
+      assertEquals(1, SeekableFrameDecompressorStream.readFrameOffsets(in,
+          fs.getFileStatus(file).getLen()).length);
+    }
+    assertEquals(0, readSplits(codec, 10).length);
+  }
+
+  @Test(timeout = 60000)
+  public void testFrameOffsets() throws Exception {
+    CompressionCodec codec = createCodec(DefaultCodec.class);
+    writeFrames(codec, data);
+    byte[] compressed = readFile();
+    long[] offsets;
+    try (FSDataInputStream in = fs.open(file)) {
+      offsets = SeekableFrameDecompressorStream.readFrameOffsets(in,
+          compressed.length);
+      assertNull(SeekableFrameDecompressorStream.readFrameOffsets(in,
+          compressed.length - 1));
+    }
+    assertEquals((data.length + FRAME_SIZE - 1) / FRAME_SIZE, offsets.length);
+    assertEquals(0, offsets[0]);
+    for (long offset : offsets) {
+      assertEquals(SeekableFrameCompressorStream.SYNC_MAGIC,
+          SeekableFrameCompressorStream.getIntLE(compressed, (int) offset));
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testSplits() throws Exception {
+    CompressionCodec codec = createCodec(DefaultCodec.class);
+    writeFrames(codec, data);
+    long length = fs.getFileStatus(file).getLen();
+    for (long splitSize : new long[] {1, 37, 500, 1000, 4096, length}) {
+      assertArrayEquals("Split size " + splitSize, data,
+          readSplits(codec, splitSize));
+    }
+
+    // Splits starting and ending at, just before and just after the frames
+    long[] offsets;
+    try (FSDataInputStream in = fs.open(file)) {
+      offsets = SeekableFrameDecompressorStream.readFrameOffsets(in, length);
+    }
+    TreeSet<Long> bounds = new TreeSet<>();
+    for (long offset : offsets) {
+      for (long bound = offset - 1; bound <= offset + 1; bound++) {
+        if (bound > 0 && bound < length) {
+          bounds.add(bound);
+        }
+      }
+    }
+    bounds.add(length);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long start = 0;
+    for (long end : bounds) {
+      readSplit(codec, start, end, out);
+      start = end;
+    }
+    assertArrayEquals(data, out.toByteArray());
+  }
+
+  @Test(timeout = 60000)
+  public void testUnsplittableStream() throws Exception {
+    CompressionCodec codec = createCodec(DefaultCodec.class);
+    try (OutputStream out = codec.createOutputStream(fs.create(file, true))) {
+      out.write(data);
+    }
+    long length = fs.getFileStatus(file).getLen();
+    try (FSDataInputStream in = fs.open(file)) {
+      assertNull(SeekableFrameDecompressorStream.readFrameOffsets(in,
+          length));
+    }
+    // The first split reads the whole stream
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    readSplit(codec, 0, length / 2, out);
+    assertArrayEquals(data, out.toByteArray());
+    out.reset();
+    readSplit(codec, length / 2, length, out);
+    assertEquals(0, out.size());
+  }
+
+  @Test(timeout = 60000)
+  public void testLz4() throws Exception {
+    assumeTrue(Lz4Codec.isNativeCodeLoaded());
+    conf.setInt(CommonConfigurationKeys.
+        IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_KEY, FRAME_SIZE);
+    testCodec(createCodec(SeekableLz4Codec.class),
+        createCodec(Lz4Codec.class));
+  }
+
+  @Test(timeout = 60000)
+  public void testZStandard() throws Exception {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    conf.setInt(CommonConfigurationKeys.
+        IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY, FRAME_SIZE);
+    testCodec(createCodec(SeekableZStandardCodec.class),
+        createCodec(ZStandardCodec.class));
+  }
+
+  @Test
+  public void testSeekableCodecExtensions() {
+    CompressionCodecFactory factory = new CompressionCodecFactory(conf);
+    assertEquals(SeekableZStandardCodec.class,
+        factory.getCodec(new Path("part-00000.seekable.zst")).getClass());
+    assertEquals(ZStandardCodec.class,
+        factory.getCodec(new Path("part-00000.zst")).getClass());
+    assertEquals(SeekableLz4Codec.class,
+        factory.getCodec(new Path("part-00000.seekable.lz4")).getClass());
+    assertEquals(Lz4Codec.class,
+        factory.getCodec(new Path("part-00000.lz4")).getClass());
+    // Only the files written with seekable frames can be split
+    assertFalse(createCodec(ZStandardCodec.class)
+        instanceof SplittableCompressionCodec);
+    assertFalse(createCodec(Lz4Codec.class)
+        instanceof SplittableCompressionCodec);
+  }
+
+  private void testCodec(CompressionCodec codec, CompressionCodec plainCodec)
+      throws IOException {
+    assertTrue(codec instanceof SplittableCompressionCodec);
+    try (OutputStream out = codec.createOutputStream(fs.create(file, true))) {
+      assertTrue(out instanceof SeekableFrameCompressorStream);
+      out.write(data);
+    }
+    try (InputStream in = codec.createInputStream(fs.open(file))) {
+      assertArrayEquals(data, readFully(in));
+    }
+    try (InputStream in = plainCodec.createInputStream(fs.open(file))) {
+      assertArrayEquals(data, readFully(in));
+    }
+    for (long splitSize : new long[] {100, 1000}) {
+      assertArrayEquals(data, readSplits(codec, splitSize));
+    }
+
+    // The codec without seekable frames writes a single stream
+    try (OutputStream out =
+        plainCodec.createOutputStream(fs.create(file, true))) {
+      assertFalse(out instanceof SeekableFrameCompressorStream);
+      out.write(data);
+    }
+  }
+
+  private CompressionCodec createCodec(
+      Class<? extends CompressionCodec> codecClass) {
+    return ReflectionUtils.newInstance(codecClass, conf);
+  }
+
+  private void writeFrames(CompressionCodec codec, byte[] bytes)
+      throws IOException {
+    try (OutputStream out = new SeekableFrameCompressorStream(
+        fs.create(file, true), codec, conf, FRAME_SIZE)) {
+      // Written in pieces not aligned with the frames
+      for (int off = 0; off < bytes.length; off += 777) {
+        out.write(bytes, off, Math.min(777, bytes.length - off));
+      }
+    }
+  }
+
+  private byte[] readFile() throws IOException {
+    try (InputStream in = fs.open(file)) {
+      return readFully(in);
+    }
+  }
+
+  /**
+   * Read all the splits of the file, each up to the first frame starting
+   * after its end.
+   */
+  private byte[] readSplits(CompressionCodec codec, long splitSize)
+      throws IOException {
+    long length = fs.getFileStatus(file).getLen();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (long start = 0; start < length; start += splitSize) {
+      readSplit(codec, start, Math.min(start + splitSize, length), out);
+    }
+    return out.toByteArray();
+  }
+
+  private void readSplit(CompressionCodec codec, long start, long end,
+      ByteArrayOutputStream out) throws IOException {
+    Decompressor decompressor = CodecPool.getDecompressor(codec);
+    try (FSDataInputStream fileIn = fs.open(file)) {
+      SplitCompressionInputStream in = codec instanceof
+          SplittableCompressionCodec
+          ? ((SplittableCompressionCodec) codec).createInputStream(fileIn,
+              decompressor, start, end,
+              SplittableCompressionCodec.READ_MODE.BYBLOCK)
+          : SeekableFrameDecompressorStream.createInputStream(codec, fileIn,
+              decompressor, start, end);
+      assertTrue(in.getAdjustedStart() >= start);
+      byte[] buffer = new byte[100];
+      int n;
+      while ((n = in.read(buffer, 0, buffer.length)) > 0
+          && in.getPos() <= end) {
+        out.write(buffer, 0, n);
+      }
+    } finally {
+      CodecPool.returnDecompressor(decompressor);
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    IOUtils.copyBytes(in, out, 4096, false);
+    return out.toByteArray();
+  }
+}
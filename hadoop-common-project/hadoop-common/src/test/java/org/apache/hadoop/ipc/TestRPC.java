@@ -1103,6 +1103,76 @@ public TestRpcService run() {
     }
   }
 
+  @Test
+  public void testRpcDetailedPhaseMetrics() throws Exception {
+    final int interval = 1;
+    conf.setBoolean(CommonConfigurationKeys.
+        RPC_METRICS_DETAILED_QUANTILE_ENABLE, true);
+    conf.set(CommonConfigurationKeys.
+        RPC_METRICS_PERCENTILES_INTERVALS_KEY, "" + interval);
+    Server server = setupTestServer(conf, 5);
+    TestRpcService proxy = null;
+    try {
+      proxy = getClient(addr, conf);
+      assertTrue(server.getRpcDetailedMetrics().isPhaseQuantileEnabled());
+      for (int i = 0; i < 100; i++) {
+        proxy.ping(null, newEmptyRequest());
+      }
+      proxy.lockAndSleep(null, newSleepRequest(5));
+      // Wait for the rollover of the percentiles
+      Thread.sleep(interval * 1000 + 500);
+
+      MetricsRecordBuilder rpcDetailedMetrics =
+          getMetrics(server.getRpcDetailedMetrics().name());
+      for (String phase : new String[] {"EnqueueTime", "QueueTime",
+          "LockWaitTime", "LockSharedTime", "LockExclusiveTime",
+          "ResponseTime"}) {
+        MetricsAsserts.assertQuantileGauges("Ping" + phase + interval + "s",
+            rpcDetailedMetrics);
+      }
+      // The lock wait of 10 seconds is published in microseconds
+      assertGauge("LockAndSleepLockWaitTime" + interval
+          + "s50thPercentileLatency", 10000000L, rpcDetailedMetrics);
+    } finally {
+      stop(server, proxy);
+    }
+  }
+
+  @Test
+  public void testRpcLockFreeMetrics() throws Exception {
+    final int interval = 1;
+    conf.setBoolean(CommonConfigurationKeys.RPC_METRICS_QUANTILE_ENABLE, true);
+    conf.setBoolean(CommonConfigurationKeys.
+        RPC_METRICS_DETAILED_QUANTILE_ENABLE, true);
+    conf.setBoolean(CommonConfigurationKeys.RPC_METRICS_LOCKFREE_ENABLE, true);
+    conf.set(CommonConfigurationKeys.
+        RPC_METRICS_PERCENTILES_INTERVALS_KEY, "" + interval);
+    Server server = setupTestServer(conf, 5);
+    TestRpcService proxy = null;
+    try {
+      proxy = getClient(addr, conf);
+      for (int i = 0; i < 100; i++) {
+        proxy.ping(null, newEmptyRequest());
+      }
+      // Wait for the rollover of the percentiles
+      Thread.sleep(interval * 1000 + 500);
+
+      MetricsRecordBuilder rpcMetrics =
+          getMetrics(server.getRpcMetrics().name());
+      MetricsAsserts.assertQuantileGauges("RpcQueueTime" + interval + "s",
+          rpcMetrics);
+      MetricsAsserts.assertQuantileGauges("RpcProcessingTime" + interval + "s",
+          rpcMetrics);
+      MetricsRecordBuilder rpcDetailedMetrics =
+          getMetrics(server.getRpcDetailedMetrics().name());
+      assertCounter("PingNumOps", 100L, rpcDetailedMetrics);
+      MetricsAsserts.assertQuantileGauges("PingQueueTime" + interval + "s",
+          rpcDetailedMetrics);
+    } finally {
+      stop(server, proxy);
+    }
+  }
+
   /**
    *  Test RPC backoff by queue full.
    */
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.lib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongConsumer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * MetricsUpdateBenchmark
+ *   Synopsis: MetricsUpdateBenchmark [-threads numThreads]
+ *        [-updates numUpdatesPerThread] [-iterations numIterations]
+ *
+ *   Measure the time per update of the percentiles and the rates of the
+ *   RPC metrics updated by numThreads handlers at once:
+ *   {@link MutableQuantiles} against {@link MutableHistogramQuantiles}, and
+ *   {@link MutableRatesWithAggregation} against
+ *   {@link MutableRatesWithAdders}.
+ */
+public class MetricsUpdateBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: MetricsUpdateBenchmark"
+      + " [-threads numThreads] [-updates numUpdatesPerThread]"
+      + " [-iterations numIterations]";
+
+  private static final String[] METHODS = {"getFileInfo", "getListing",
+      "create", "addBlock", "complete", "renewLease", "mkdirs", "delete"};
+
+  public MetricsUpdateBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    int numThreads = 8;
+    int numUpdates = 1000000;
+    int iterations = 3;
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-threads")) {
+        numThreads = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-updates")) {
+        numUpdates = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-iterations")) {
+        iterations = Integer.parseInt(args[++i]);
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+
+    MetricsRegistry registry = new MetricsRegistry("benchmark");
+    MutableQuantiles quantiles = registry.newQuantiles("Sampled", "", "ops",
+        "latency", 60);
+    MutableQuantiles histogram = registry.newHistogramQuantiles("Histogram",
+        "", "ops", "latency", 60);
+    MutableRatesWithAggregation rates =
+        registry.newRatesWithAggregation("Rates");
+    MutableRatesWithAggregation adders = registry.newRatesWithAdders("Adders");
+    try {
+      for (int i = 0; i < iterations; i++) {
+        report("MutableQuantiles", measure(numThreads, numUpdates,
+            quantiles::add));
+        report("MutableHistogramQuantiles", measure(numThreads, numUpdates,
+            histogram::add));
+        report("MutableRatesWithAggregation", measure(numThreads, numUpdates,
+            v -> rates.add(METHODS[(int) v & (METHODS.length - 1)], v)));
+        report("MutableRatesWithAdders", measure(numThreads, numUpdates,
+            v -> adders.add(METHODS[(int) v & (METHODS.length - 1)], v)));
+      }
+    } finally {
+      quantiles.stop();
+      histogram.stop();
+    }
+    return 0;
+  }
+
+  private static void report(String name, double nanosPerUpdate) {
+    System.out.println(String.format("%-28s %8.1f ns/update", name,
+        nanosPerUpdate));
+  }
+
+  /**
+   * Update a metric from threads started at once.
+   * @return the time per update of a thread, in nanoseconds.
+   */
+  private static double measure(int numThreads, final int numUpdates,
+      final LongConsumer metric) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      final long seed = t;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        // Latencies spread over a few orders of magnitude
+        long value = seed;
+        for (int i = 0; i < numUpdates; i++) {
+          value = value * 6364136223846793005L + 1442695040888963407L;
+          metric.accept((value >>> 40) >>> ((value >>> 33) & 15));
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    long begin = Time.monotonicNowNanos();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return (double) (Time.monotonicNowNanos() - begin) / numUpdates;
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(
+        new MetricsUpdateBenchmark(new Configuration()), args));
+  }
+}
@@ -174,6 +174,43 @@ interface TestProtocol {
     assertGauge("BarAvgTime", 6.0, rb);
   }
 
+  @Test public void testMutableRatesWithAdders() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry("test");
+    MutableRatesWithAdders rates = registry.newRatesWithAdders("rates");
+
+    rates.add("foo", 1);
+    rates.add("bar", 5);
+
+    MetricsRecordBuilder rb = mockMetricsRecordBuilder();
+    rates.snapshot(rb, false);
+    assertCounter("FooNumOps", 1L, rb);
+    assertGauge("FooAvgTime", 1.0, rb);
+    assertCounter("BarNumOps", 1L, rb);
+    assertGauge("BarAvgTime", 5.0, rb);
+
+    // The samples of the threads which died before the snapshot are kept
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          rates.add("foo", 3);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    rates.add("bar", 6);
+
+    rb = mockMetricsRecordBuilder();
+    rates.snapshot(rb, false);
+    assertCounter("FooNumOps", 4001L, rb);
+    assertGauge("FooAvgTime", 3.0, rb);
+    assertCounter("BarNumOps", 2L, rb);
+    assertGauge("BarAvgTime", 6.0, rb);
+  }
+
   @Test public void testMutableRatesWithAggregationManyThreads()
       throws InterruptedException {
     final MutableRatesWithAggregation rates = new MutableRatesWithAggregation();
@@ -388,6 +425,51 @@ public void testMutableQuantilesRollover() throws Exception {
     }
   }
 
+  /**
+   * Test that {@link MutableHistogramQuantiles} publishes the quantiles of
+   * the values added in each interval.
+   */
+  @Test(timeout = 30000)
+  public void testMutableHistogramQuantilesRollover() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry("test");
+    MutableHistogramQuantiles quantiles =
+        (MutableHistogramQuantiles) registry.newHistogramQuantiles("foo",
+            "stat", "Ops", "Latency", 5);
+    quantiles.stop();
+
+    Quantile[] quants = MutableQuantiles.quantiles;
+    String name = "Foo%dthPercentileLatency";
+    String desc = "%d percentile latency with 5 second interval for stat";
+    for (int i = 1; i <= 3; i++) {
+      for (long j = 1; j <= 1000; j++) {
+        quantiles.add(i * j);
+      }
+      quantiles.rollover();
+      MetricsRecordBuilder mb = mockMetricsRecordBuilder();
+      registry.snapshot(mb, false);
+      verify(mb).addGauge(
+          info("FooNumOps", "Number of ops for stat with 5s interval"),
+          (long) 1000);
+      for (Quantile q : quants) {
+        int percentile = (int) (100 * q.quantile);
+        String n = String.format(name, percentile);
+        String d = String.format(desc, percentile);
+        long expected = (long) (q.quantile * 1000) * i;
+        verify(mb).addGauge(eq(info(n, d)), geq(expected));
+        verify(mb).addGauge(eq(info(n, d)), leq((long) (expected * 1.01)));
+      }
+    }
+
+    // An empty interval
+    quantiles.rollover();
+    MetricsRecordBuilder mb = mockMetricsRecordBuilder();
+    registry.snapshot(mb, false);
+    verify(mb).addGauge(
+        info("FooNumOps", "Number of ops for stat with 5s interval"), 0L);
+    verify(mb).addGauge(info(String.format(name, 50),
+        String.format(desc, 50)), 0L);
+  }
+
   /**
    * Test that {@link MutableQuantiles} rolls over correctly even if no items
    * have been added to the window
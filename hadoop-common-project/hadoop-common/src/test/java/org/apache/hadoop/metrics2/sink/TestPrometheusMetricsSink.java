@@ -20,17 +20,30 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
 
+import org.apache.hadoop.metrics2.AbstractMetric;
+import org.apache.hadoop.metrics2.MetricType;
+import org.apache.hadoop.metrics2.MetricsRecord;
 import org.apache.hadoop.metrics2.MetricsSystem;
+import org.apache.hadoop.metrics2.MetricsTag;
+import org.apache.hadoop.metrics2.MetricsVisitor;
 import org.apache.hadoop.metrics2.annotation.Metric;
 import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.Interns;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Test prometheus Sink.
@@ -71,6 +84,112 @@ public void testPublish() throws IOException {
     metrics.shutdown();
   }
 
+  @Test
+  public void testRecordsWithTags() throws IOException {
+    PrometheusMetricsSink sink = new PrometheusMetricsSink();
+    sink.putMetrics(newRecord("8020", 1, 2));
+    sink.putMetrics(newRecord("8021", 3, 4));
+    sink.putMetrics(newRecord("8020", 1, 2));
+
+    String writtenMetrics = writeMetrics(sink);
+    Assert.assertEquals(1, count(writtenMetrics,
+        "# TYPE test_record_calls counter\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "test_record_calls{port=\"8020\"} 1\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "test_record_calls{port=\"8021\"} 3\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "# TYPE test_record_queue gauge\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "test_record_queue{port=\"8021\"} 4\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "prometheus_sink_rendered_records 2\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "prometheus_sink_unchanged_records 1\n"));
+
+    // A changed record is rendered again
+    sink.putMetrics(newRecord("8020", 5, 2));
+    writtenMetrics = writeMetrics(sink);
+    Assert.assertTrue(writtenMetrics.contains(
+        "test_record_calls{port=\"8020\"} 5\n"));
+    Assert.assertFalse(writtenMetrics.contains(
+        "test_record_calls{port=\"8020\"} 1\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "prometheus_sink_rendered_records 3\n"));
+    Assert.assertTrue(writtenMetrics.contains(
+        "prometheus_sink_num_scrapes 1\n"));
+  }
+
+  @Test
+  public void testRefresh() {
+    PrometheusMetricsSink sink = new PrometheusMetricsSink(60 * 60 * 1000);
+    MetricsSystem system = mock(MetricsSystem.class);
+    doAnswer(invocation -> {
+      sink.flush();
+      return null;
+    }).when(system).publishMetricsNow();
+
+    sink.refresh(system);
+    sink.refresh(system);
+    verify(system, times(1)).publishMetricsNow();
+
+    // Each refresh publishes the metrics without an interval
+    PrometheusMetricsSink eager = new PrometheusMetricsSink();
+    eager.refresh(system);
+    eager.refresh(system);
+    verify(system, times(3)).publishMetricsNow();
+  }
+
+  private static MetricsRecord newRecord(String port, long calls,
+      long queue) {
+    MetricsRecord record = mock(MetricsRecord.class);
+    when(record.name()).thenReturn("TestRecord");
+    when(record.tags()).thenReturn(Arrays.asList(
+        new MetricsTag(Interns.info("Port", "RPC port"), port),
+        new MetricsTag(Interns.info("NumOpenConnectionsPerUser", ""),
+            "{\"user\":" + calls + "}")));
+    when(record.metrics()).thenReturn(Arrays.asList(
+        newMetric("Calls", MetricType.COUNTER, calls),
+        newMetric("Queue", MetricType.GAUGE, queue)));
+    return record;
+  }
+
+  private static AbstractMetric newMetric(String name, MetricType type,
+      long value) {
+    return new AbstractMetric(Interns.info(name, name)) {
+      @Override
+      public Number value() {
+        return value;
+      }
+
+      @Override
+      public MetricType type() {
+        return type;
+      }
+
+      @Override
+      public void visit(MetricsVisitor visitor) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static String writeMetrics(PrometheusMetricsSink sink)
+      throws IOException {
+    StringWriter writer = new StringWriter();
+    sink.writeMetrics(writer);
+    return writer.toString();
+  }
+
+  private static int count(String text, String line) {
+    int n = 0;
+    for (int i = text.indexOf(line); i >= 0;
+         i = text.indexOf(line, i + 1)) {
+      n++;
+    }
+    return n;
+  }
+
   @Test
   public void testNamingCamelCase() {
     PrometheusMetricsSink sink = new PrometheusMetricsSink();
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestHistogramQuantiles {
+
+  static final Quantile[] quantiles = TestSampleQuantiles.quantiles;
+
+  /**
+   * Check that the value of the bucket of a value is at most
+   * 1/2^PRECISION_BITS larger than the value.
+   */
+  @Test
+  public void testBuckets() {
+    Random random = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      long value = random.nextLong() >>> (1 + random.nextInt(63));
+      long bucketValue = HistogramQuantiles.bucketValue(
+          HistogramQuantiles.bucketIndex(value));
+      assertTrue(value + " in " + bucketValue, bucketValue >= value);
+      assertTrue(value + " in " + bucketValue, bucketValue - value
+          <= value >>> HistogramQuantiles.PRECISION_BITS);
+    }
+    for (long value = 0; value < 1000; value++) {
+      int index = HistogramQuantiles.bucketIndex(value);
+      assertTrue(index == HistogramQuantiles.bucketIndex(value + 1)
+          || HistogramQuantiles.bucketValue(index) == value);
+    }
+    assertEquals(0, HistogramQuantiles.bucketIndex(-5));
+    assertEquals(Long.MAX_VALUE, HistogramQuantiles.bucketValue(
+        HistogramQuantiles.bucketIndex(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testCountAndClear() {
+    HistogramQuantiles estimator = new HistogramQuantiles(quantiles);
+    assertEquals(0, estimator.getCount());
+    assertNull(estimator.snapshot());
+
+    estimator.insert(1337);
+    assertEquals(1, estimator.getCount());
+    for (Long value : estimator.snapshot().values()) {
+      assertEquals(1343, (long) value);
+    }
+
+    estimator.clear();
+    assertEquals(0, estimator.getCount());
+    assertNull(estimator.snapshot());
+  }
+
+  /**
+   * Check the buckets are allocated for the powers of two of the inserted
+   * values only.
+   */
+  @Test
+  public void testAllocatedBuckets() {
+    HistogramQuantiles estimator = new HistogramQuantiles(quantiles);
+    assertEquals(0, estimator.getAllocatedBuckets());
+    assertNull(estimator.snapshot());
+
+    estimator.insert(5);
+    assertEquals(128, estimator.getAllocatedBuckets());
+    estimator.insert(100);
+    assertEquals(128, estimator.getAllocatedBuckets());
+    long large = 1L << 40;
+    estimator.insert(large);
+    assertEquals(256, estimator.getAllocatedBuckets());
+    Map<Quantile, Long> snapshot = estimator.snapshot();
+    assertEquals(100L, (long) snapshot.get(quantiles[0]));
+    assertEquals(HistogramQuantiles.bucketValue(
+        HistogramQuantiles.bucketIndex(large)),
+        (long) snapshot.get(quantiles[4]));
+
+    estimator.clear();
+    assertEquals(0, estimator.getCount());
+    assertEquals(256, estimator.getAllocatedBuckets());
+  }
+
+  /**
+   * Check the quantiles of shuffled values are within 1% of the actual
+   * values.
+   */
+  @Test
+  public void testQuantiles() {
+    HistogramQuantiles estimator = new HistogramQuantiles(quantiles);
+    final int count = 100000;
+    long[] values = new long[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = i + 1;
+    }
+    Random random = new Random(1);
+    for (int i = count - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      long tmp = values[i];
+      values[i] = values[j];
+      values[j] = tmp;
+      estimator.insert(values[i]);
+    }
+    estimator.insert(values[0]);
+    assertEquals(count, estimator.getCount());
+
+    Map<Quantile, Long> snapshot = estimator.snapshot();
+    for (Quantile q : quantiles) {
+      long expected = (long) (q.quantile * count);
+      long actual = snapshot.get(q);
+      assertTrue(q + ": " + actual, actual >= expected);
+      assertTrue(q + ": " + actual, actual <= expected * 1.01);
+    }
+  }
+
+  @Test
+  public void testConcurrentInserts() throws Exception {
+    final HistogramQuantiles estimator = new HistogramQuantiles(quantiles);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100000; i++) {
+          estimator.insert(i % 100);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(400000, estimator.getCount());
+    assertEquals(49L, (long) estimator.snapshot().get(quantiles[0]));
+  }
+}
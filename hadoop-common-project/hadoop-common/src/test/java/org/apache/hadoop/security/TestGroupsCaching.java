@@ -17,7 +17,10 @@
  */
 package org.apache.hadoop.security;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +33,7 @@
 
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.util.FakeTimer;
+import org.apache.hadoop.util.Shell;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -39,6 +43,8 @@
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
@@ -835,4 +841,81 @@ public void testNegativeCacheEntriesExpire() throws Exception {
     timer.advance(1000);
     assertFalse(groups.getNegativeCache().contains("user2"));
   }
+
+  private static int getGroupCount(Groups groups, String user) {
+    try {
+      return groups.getGroups(user).size();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  @Test
+  public void testPrefetchActiveUsers() throws Exception {
+    conf.setBoolean(
+        CommonConfigurationKeys.HADOOP_SECURITY_GROUPS_CACHE_PREFETCH, true);
+    Groups groups = new Groups(conf, new FakeTimer());
+    groups.cacheGroupsAdd(Arrays.asList(myGroups));
+    groups.refresh();
+    FakeGroupMapping.clearBlackList();
+
+    // The groups of the prefetched users are loaded in the background
+    groups.prefetchGroups(Arrays.asList("user1", "user2"));
+    GenericTestUtils.waitFor(
+        () -> FakeGroupMapping.getRequestCount() == 2, 10, 10000);
+    assertEquals(2, groups.getGroups("user1").size());
+    assertEquals(2, groups.getGroups("user2").size());
+    assertEquals(2, FakeGroupMapping.getRequestCount());
+
+    // The groups of the users looked up are refreshed before they expire
+    groups.cacheGroupsAdd(Arrays.asList("grp3"));
+    groups.prefetchActiveUsers();
+    GenericTestUtils.waitFor(() -> getGroupCount(groups, "user1") == 3
+        && getGroupCount(groups, "user2") == 3, 10, 10000);
+    assertEquals(4, FakeGroupMapping.getRequestCount());
+    assertTrue(getLongCounter("GetGroupsFakeGroupMappingNumOps",
+        getMetrics("UgiMetrics")) >= 4);
+  }
+
+  @Test
+  public void testWarmStartFile() throws Exception {
+    File file = new File(GenericTestUtils.getTestDir(), "groups-warm-start");
+    file.delete();
+    conf.set(CommonConfigurationKeys
+        .HADOOP_SECURITY_GROUPS_CACHE_WARM_START_FILE, file.getPath());
+    Groups groups = new Groups(conf);
+    groups.cacheGroupsAdd(Arrays.asList(myGroups));
+    groups.refresh();
+    List<String> myGroupList = groups.getGroups("me");
+    groups.saveWarmStartFile();
+    assertTrue(file.exists());
+    if (!Shell.WINDOWS) {
+      assertEquals(PosixFilePermissions.fromString("rw-------"),
+          Files.getPosixFilePermissions(file.toPath()));
+    }
+    // Only the saved file is left in the directory
+    assertEquals(1, file.getParentFile().listFiles(
+        (dir, name) -> name.startsWith(file.getName())).length);
+
+    // Only the started service loads the file
+    FakeGroupMapping.resetRequestCount();
+    Groups other = new Groups(conf);
+    assertEquals(myGroupList, other.getGroups("me"));
+    assertEquals(1, FakeGroupMapping.getRequestCount());
+
+    // The saved groups are served while they are refreshed
+    FakeGroupMapping.resetRequestCount();
+    FakeGroupMapping.pause();
+    Groups restarted = new Groups(conf);
+    try {
+      restarted.start();
+      assertEquals(myGroupList, restarted.getGroups("me"));
+    } finally {
+      FakeGroupMapping.resume();
+    }
+    GenericTestUtils.waitFor(
+        () -> FakeGroupMapping.getRequestCount() == 1, 10, 10000);
+    restarted.stop();
+    assertTrue(file.delete());
+  }
 }
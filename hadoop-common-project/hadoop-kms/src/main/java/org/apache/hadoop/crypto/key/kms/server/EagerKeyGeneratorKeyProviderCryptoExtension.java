@@ -136,6 +136,13 @@ public EncryptedKeyVersion generateEncryptedKey(String encryptionKeyName)
           encryptedKeyVersion);
     }
 
+    @Override
+    public List<KeyVersion> decryptEncryptedKeys(
+        List<EncryptedKeyVersion> ekvs)
+        throws IOException, GeneralSecurityException {
+      return keyProviderCryptoExtension.decryptEncryptedKeys(ekvs);
+    }
+
     @Override
     public EncryptedKeyVersion reencryptEncryptedKey(EncryptedKeyVersion ekv)
         throws IOException, GeneralSecurityException {
@@ -21,6 +21,7 @@
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
@@ -43,7 +44,7 @@
  * <ol>
  * <li>MANAGEMENT operations : createKey, rollNewVersion, deleteKey</li>
  * <li>GENERATE_EEK operations : generateEncryptedKey, warmUpEncryptedKeys</li>
- * <li>DECRYPT_EEK operation : decryptEncryptedKey</li>
+ * <li>DECRYPT_EEK operation : decryptEncryptedKey, decryptEncryptedKeys</li>
  * <li>READ operations : getKeyVersion, getKeyVersions, getMetadata,
  * getKeysMetadata, getCurrentKey</li>
  * </ol>
@@ -275,6 +276,25 @@ public KeyVersion decryptEncryptedKey(EncryptedKeyVersion encryptedKeyVersion)
     }
   }
 
+  @Override
+  public List<KeyVersion> decryptEncryptedKeys(List<EncryptedKeyVersion> ekvs)
+      throws IOException, GeneralSecurityException {
+    if (ekvs.isEmpty()) {
+      return new ArrayList<>();
+    }
+    readLock.lock();
+    try {
+      for (EncryptedKeyVersion ekv : ekvs) {
+        verifyKeyVersionBelongsToKey(ekv);
+      }
+      final String keyName = ekvs.get(0).getEncryptionKeyName();
+      doAccessCheck(keyName, KeyOpType.DECRYPT_EEK);
+      return provider.decryptEncryptedKeys(ekvs);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
   @Override
   public EncryptedKeyVersion reencryptEncryptedKey(EncryptedKeyVersion ekv)
       throws IOException, GeneralSecurityException {
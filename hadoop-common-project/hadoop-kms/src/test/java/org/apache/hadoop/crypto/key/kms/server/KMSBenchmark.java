@@ -42,7 +42,8 @@
  *
  * Each benchmark measures throughput and average execution time
  * of a specific kms operation, e.g. encrypt or decrypt of
- * Data Encryption Keys.
+ * Data Encryption Keys. The decryptbatch operation decrypts batches of
+ * keys with a single call, to compare with the decrypt operation.
  *
  * The benchmark does not involve any other hadoop components
  * except for kms operations. Each operation is executed
@@ -519,11 +520,104 @@ void printResults() {
     }
   }
 
+  /**
+   * Batch decrypt key statistics.
+   *
+   * Each thread decrypts a batch of distinct keys with a single call, to
+   * compare with decrypting them one by one with {@link DecryptKeyStats}.
+   */
+  class DecryptBatchKeyStats extends OperationStatsBase {
+    // Operation types
+    static final String OP_DECRYPT_BATCH_KEY = "decryptbatch";
+    static final String OP_DECRYPT_BATCH_USAGE =
+            "-op decryptbatch [-threads T -numops N -batchsize B -warmup F]";
+
+    private int batchSize = 100;
+    private final List<KeyProviderCryptoExtension.EncryptedKeyVersion> eeks =
+        new ArrayList<>();
+
+    DecryptBatchKeyStats(List<String> args) throws IOException {
+      super();
+      parseArguments(args);
+      try {
+        for (int i = 0; i < batchSize; i++) {
+          eeks.add(kp.generateEncryptedKey(encryptionKeyName));
+        }
+      } catch (GeneralSecurityException e) {
+        throw new IOException("failed to generate encrypted keys", e);
+      }
+    }
+
+    @Override
+    String getOpName() {
+      return OP_DECRYPT_BATCH_KEY;
+    }
+
+    @Override
+    void parseArguments(List<String> args) {
+      verifyOpArgument(args);
+      // parse command line
+      for (int i = 2; i < args.size(); i++) {
+        if (args.get(i).equals("-threads")) {
+          if (i+1 == args.size()) {
+            printUsage();
+          }
+          setNumThreads(Integer.parseInt(args.get(++i)));
+        } else if (args.get(i).equals("-numops")) {
+          setNumOpsRequired(Integer.parseInt(args.get(++i)));
+        } else if (args.get(i).equals("-batchsize")) {
+          if (i+1 == args.size()) {
+            printUsage();
+          }
+          batchSize = Integer.parseInt(args.get(++i));
+        }
+      }
+      if (batchSize < 1) {
+        printUsage();
+      }
+    }
+
+    /**
+     * returns client name.
+     */
+    @Override
+    String getExecutionArgument(int daemonId) {
+      return getClientName(daemonId);
+    }
+
+    /**
+     * Execute the decryption of a batch of keys.
+     */
+    @Override
+    long executeOp(int daemonId, int inputIdx, String clientName)
+        throws IOException {
+      long start = Time.now();
+      try {
+        kp.decryptEncryptedKeys(eeks);
+      } catch (GeneralSecurityException e) {
+        LOG.warn("failed to decrypt keys", e);
+      }
+      long end = Time.now();
+      return end - start;
+    }
+
+    @Override
+    void printResults() {
+      LOG.info("--- " + getOpName() + " inputs ---");
+      LOG.info("nrOps = " + getNumOpsRequired());
+      LOG.info("nrThreads = " + getNumThreads());
+      LOG.info("batchSize = " + batchSize);
+      printStats();
+      LOG.info("Keys per sec: " + getOpsPerSecond() * batchSize);
+    }
+  }
+
   static void printUsage() {
     System.err.println("Usage: KMSBenchmark"
         + "\n\t"    + OperationStatsBase.OP_ALL_USAGE
         + " | \n\t" + EncryptKeyStats.OP_ENCRYPT_USAGE
         + " | \n\t" + DecryptKeyStats.OP_DECRYPT_USAGE
+        + " | \n\t" + DecryptBatchKeyStats.OP_DECRYPT_BATCH_USAGE
         + " | \n\t" + GENERAL_OPTIONS_USAGE
     );
     System.err.println();
@@ -579,6 +673,10 @@ public int run(String[] aArgs) throws Exception {
         opStat = new DecryptKeyStats(args);
         ops.add(opStat);
       }
+      if (runAll || DecryptBatchKeyStats.OP_DECRYPT_BATCH_KEY.equals(type)) {
+        opStat = new DecryptBatchKeyStats(args);
+        ops.add(opStat);
+      }
       if (ops.isEmpty()) {
         printUsage();
       }
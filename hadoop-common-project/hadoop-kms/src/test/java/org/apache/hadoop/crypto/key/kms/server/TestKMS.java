@@ -832,6 +832,14 @@ public Void call() throws Exception {
         assertArrayEquals(k1.getMaterial(), k1r.getMaterial());
         assertEquals(kv.getMaterial().length, k1r.getMaterial().length);
 
+        // test decrypt batch
+        List<KeyVersion> dks =
+            kpExt.decryptEncryptedKeys(Arrays.asList(ek1, ek2, ek1r));
+        assertEquals(3, dks.size());
+        assertArrayEquals(k1.getMaterial(), dks.get(0).getMaterial());
+        assertArrayEquals(k2.getMaterial(), dks.get(1).getMaterial());
+        assertArrayEquals(k1.getMaterial(), dks.get(2).getMaterial());
+
         // test re-encrypt batch
         EncryptedKeyVersion ek3 = kpExt.generateEncryptedKey(kv.getName());
         KeyVersion latest = kpExt.rollNewVersion(kv.getName());
@@ -1709,6 +1717,7 @@ public Void run() throws Exception {
               KeyProviderCryptoExtension kpCE = KeyProviderCryptoExtension.
                       createKeyProviderCryptoExtension(kp);
               kpCE.decryptEncryptedKey(encKv);
+              kpCE.decryptEncryptedKeys(Arrays.asList(encKv, encKv));
             } catch (Exception ex) {
               Assert.fail(ex.getMessage());
             }
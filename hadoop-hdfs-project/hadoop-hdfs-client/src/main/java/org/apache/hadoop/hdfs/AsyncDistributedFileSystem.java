@@ -0,0 +1,270 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.InvalidPathException;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.ParentNotDirectoryException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathIsNotEmptyDirectoryException;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.protocol.ClientProtocol;
+import org.apache.hadoop.hdfs.protocol.DSQuotaExceededException;
+import org.apache.hadoop.hdfs.protocol.DirectoryListing;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.protocol.LocatedBlocks;
+import org.apache.hadoop.hdfs.protocol.NSQuotaExceededException;
+import org.apache.hadoop.hdfs.protocol.QuotaByStorageTypeExceededException;
+import org.apache.hadoop.hdfs.protocol.SnapshotAccessControlException;
+import org.apache.hadoop.hdfs.protocol.UnresolvedPathException;
+import org.apache.hadoop.hdfs.server.namenode.SafeModeException;
+import org.apache.hadoop.io.retry.AsyncCallHandler;
+import org.apache.hadoop.ipc.Client;
+import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.security.AccessControlException;
+
+/**
+ * Asynchronous versions of the main metadata operations of
+ * {@link DistributedFileSystem}. Each method sends its NameNode call and
+ * returns a {@link CompletableFuture} right away, so a single thread can have
+ * many calls in flight, up to ipc.client.async.calls.max per connection.
+ * Calls beyond that limit fail with
+ * {@link org.apache.hadoop.ipc.AsyncCallLimitExceededException}.
+ *
+ * The futures are completed by the thread that processes the responses of
+ * the async calls, so callers should use the async variants of the
+ * {@link CompletableFuture} methods for dependent actions which may block.
+ *
+ * Symlinks are not resolved.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class AsyncDistributedFileSystem {
+
+  /** A NameNode call made in asynchronous mode. */
+  private interface AsyncCall {
+    void call(ClientProtocol namenode) throws IOException;
+  }
+
+  private final DistributedFileSystem dfs;
+
+  AsyncDistributedFileSystem(final DistributedFileSystem dfs) {
+    this.dfs = dfs;
+  }
+
+  private String getPathName(Path p) {
+    return dfs.getPathName(dfs.fixRelativePart(p));
+  }
+
+  private <T> CompletableFuture<T> callAsync(AsyncCall call) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    final CompletableFuture<T> returned;
+    final boolean isAsync = Client.isAsynchronousMode();
+    Client.setAsynchronousMode(true);
+    try {
+      dfs.getClient().checkOpen();
+      call.call(dfs.getClient().getNamenode());
+      returned = AsyncCallHandler.getCompletableAsyncReturn();
+    } catch (IOException e) {
+      future.completeExceptionally(unwrap(e));
+      return future;
+    } finally {
+      Client.setAsynchronousMode(isAsync);
+    }
+    returned.whenComplete((value, t) -> {
+      if (t == null) {
+        future.complete(value);
+      } else {
+        future.completeExceptionally(unwrap(t));
+      }
+    });
+    return future;
+  }
+
+  private static Throwable unwrap(Throwable t) {
+    if (t instanceof RemoteException) {
+      return ((RemoteException) t).unwrapRemoteException(
+          AccessControlException.class,
+          FileNotFoundException.class,
+          FileAlreadyExistsException.class,
+          InvalidPathException.class,
+          ParentNotDirectoryException.class,
+          PathIsNotEmptyDirectoryException.class,
+          SafeModeException.class,
+          NSQuotaExceededException.class,
+          DSQuotaExceededException.class,
+          QuotaByStorageTypeExceededException.class,
+          UnresolvedPathException.class,
+          SnapshotAccessControlException.class);
+    }
+    return t;
+  }
+
+  /**
+   * Asynchronous version of {@link DistributedFileSystem#getFileStatus(Path)}.
+   * The future fails with {@link FileNotFoundException} if the path does not
+   * exist.
+   */
+  public CompletableFuture<FileStatus> getFileStatus(Path p) {
+    dfs.incrementOpCounter(OpType.GET_FILE_STATUS, false);
+    final Path absF = dfs.fixRelativePart(p);
+    final String src = getPathName(absF);
+    return this.<HdfsFileStatus>callAsync(nn -> nn.getFileInfo(src))
+        .thenApply(status -> {
+          if (status == null) {
+            throw new CompletionException(
+                new FileNotFoundException("File does not exist: " + p));
+          }
+          return status.makeQualified(dfs.getUri(), absF);
+        });
+  }
+
+  /**
+   * Asynchronous version of {@link DistributedFileSystem#listStatus(Path)}.
+   * Large directories are listed with several calls, made one after the
+   * other.
+   */
+  public CompletableFuture<FileStatus[]> listStatus(Path p) {
+    dfs.incrementOpCounter(OpType.LIST_STATUS, false);
+    final Path absF = dfs.fixRelativePart(p);
+    return listStatus(absF, getPathName(absF), HdfsFileStatus.EMPTY_NAME,
+        new ArrayList<>());
+  }
+
+  private CompletableFuture<FileStatus[]> listStatus(final Path absF,
+      final String src, final byte[] startAfter,
+      final List<FileStatus> listing) {
+    return this.<DirectoryListing>callAsync(
+        nn -> nn.getListing(src, startAfter, false))
+        .thenCompose(thisListing -> {
+          if (thisListing == null) {
+            throw new CompletionException(new FileNotFoundException(
+                "File " + absF + " does not exist."));
+          }
+          for (HdfsFileStatus status : thisListing.getPartialListing()) {
+            listing.add(status.makeQualified(dfs.getUri(), absF));
+          }
+          if (!thisListing.hasMore()) {
+            return CompletableFuture.completedFuture(
+                listing.toArray(new FileStatus[listing.size()]));
+          }
+          return listStatus(absF, src, thisListing.getLastName(), listing);
+        });
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#getFileBlockLocations(Path, long, long)}.
+   */
+  public CompletableFuture<BlockLocation[]> getFileBlockLocations(Path p,
+      final long start, final long len) {
+    dfs.incrementOpCounter(OpType.GET_FILE_BLOCK_LOCATIONS, false);
+    final String src = getPathName(p);
+    return this.<LocatedBlocks>callAsync(
+        nn -> nn.getBlockLocations(src, start, len))
+        .thenApply(blocks -> {
+          if (blocks == null) {
+            throw new CompletionException(
+                new FileNotFoundException("File does not exist: " + p));
+          }
+          return DFSUtilClient.locatedBlocks2Locations(blocks);
+        });
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#mkdirs(Path, FsPermission)}.
+   */
+  public CompletableFuture<Boolean> mkdirs(Path p,
+      final FsPermission permission) {
+    dfs.incrementOpCounter(OpType.MKDIRS, true);
+    final String src = getPathName(p);
+    final FsPermission masked = dfs.getClient().applyUMaskDir(permission);
+    return callAsync(nn -> nn.mkdirs(src, masked, true));
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#delete(Path, boolean)}.
+   */
+  public CompletableFuture<Boolean> delete(Path p, final boolean recursive) {
+    dfs.incrementOpCounter(OpType.DELETE, true);
+    final String src = getPathName(p);
+    return this.<Boolean>callAsync(nn -> nn.delete(src, recursive))
+        .whenComplete((r, t) -> dfs.getClient().invalidateMetadataCache(src));
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#rename(Path, Path, Options.Rename...)}.
+   */
+  public CompletableFuture<Void> rename(Path src, Path dst,
+      final Options.Rename... options) {
+    dfs.incrementOpCounter(OpType.RENAME, true);
+    final String srcPath = getPathName(src);
+    final String dstPath = getPathName(dst);
+    return this.<Void>callAsync(nn -> nn.rename2(srcPath, dstPath, options))
+        .whenComplete((r, t) -> {
+          dfs.getClient().invalidateMetadataCache(srcPath);
+          dfs.getClient().invalidateMetadataCache(dstPath);
+        });
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#setPermission(Path, FsPermission)}.
+   */
+  public CompletableFuture<Void> setPermission(Path p,
+      final FsPermission permission) {
+    dfs.incrementOpCounter(OpType.SET_PERMISSION, true);
+    final String src = getPathName(p);
+    return this.<Void>callAsync(nn -> nn.setPermission(src, permission))
+        .whenComplete((r, t) -> dfs.getClient().invalidateMetadataCache(src));
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link DistributedFileSystem#setOwner(Path, String, String)}.
+   */
+  public CompletableFuture<Void> setOwner(Path p, final String username,
+      final String groupname) {
+    if (username == null && groupname == null) {
+      final CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(new IOException(
+          "username == null && groupname == null"));
+      return future;
+    }
+    dfs.incrementOpCounter(OpType.SET_OWNER, true);
+    final String src = getPathName(p);
+    return this.<Void>callAsync(nn -> nn.setOwner(src, username, groupname))
+        .whenComplete((r, t) -> dfs.getClient().invalidateMetadataCache(src));
+  }
+}
@@ -240,6 +240,9 @@ public class DFSClient implements java.io.Closeable, RemotePeerFactory,
       new DFSHedgedReadMetrics();
   private static ThreadPoolExecutor HEDGED_READ_THREAD_POOL;
   private static volatile ThreadPoolExecutor STRIPED_READ_THREAD_POOL;
+  private static final StripedReadLatencyTracker STRIPED_READ_LATENCIES =
+      new StripedReadLatencyTracker();
+  private final DFSMetadataCache metadataCache;
   private final int smallBufferSize;
   private final long serverDefaultsValidityPeriod;
 
@@ -394,6 +397,16 @@ public DFSClient(URI nameNodeUri, ClientProtocol rpcNamenode,
 
     this.initThreadsNumForStripedReads(dfsClientConf.
         getStripedReadThreadpoolSize());
+    if (dfsClientConf.isMetadataCacheEnabled()) {
+      this.metadataCache = new DFSMetadataCache(
+          dfsClientConf.getMetadataCacheMaxEntries(),
+          dfsClientConf.getMetadataCacheTtlMs());
+      if (dfsClientConf.isMetadataCacheInotifyEnabled()) {
+        metadataCache.startInvalidator(this);
+      }
+    } else {
+      this.metadataCache = null;
+    }
     this.saslClient = new SaslDataTransferClient(
         conf, DataTransferSaslUtil.getSaslPropertiesResolver(conf),
         TrustedChannelResolver.getInstance(conf), nnFallbackToSimpleAuth);
@@ -492,11 +505,16 @@ private void beginFileLease(final long inodeId, final DFSOutputStream out)
       putFileBeingWritten(inodeId, out);
       getLeaseRenewer().put(this);
     }
+    invalidateMetadataCache(out.getSrc());
   }
 
   /** Stop renewal of lease for the file. */
   void endFileLease(final long inodeId) {
     synchronized (filesBeingWritten) {
+      DFSOutputStream out = filesBeingWritten.get(inodeId);
+      if (out != null) {
+        invalidateMetadataCache(out.getSrc());
+      }
       removeFileBeingWritten(inodeId);
       // remove client from renewer if no files are open
       if (filesBeingWritten.isEmpty()) {
@@ -631,6 +649,9 @@ public synchronized void close() throws IOException {
       // lease renewal stops when all files are closed
       closeAllFilesBeingWritten(false);
       clientRunning = false;
+      if (metadataCache != null) {
+        metadataCache.stopInvalidator();
+      }
       // close connections to the namenode
       closeConnectionToNamenode();
     }
@@ -850,10 +871,34 @@ public LocatedBlocks getLocatedBlocks(String src, long start)
   public LocatedBlocks getLocatedBlocks(String src, long start, long length)
       throws IOException {
     try (TraceScope ignored = newPathTraceScope("getBlockLocations", src)) {
-      return callGetBlockLocations(namenode, src, start, length);
+      if (metadataCache == null) {
+        return callGetBlockLocations(namenode, src, start, length);
+      }
+      LocatedBlocks blocks = metadataCache.getLocatedBlocks(src, start, length);
+      if (blocks == null) {
+        final long generation = metadataCache.getGeneration();
+        blocks = callGetBlockLocations(namenode, src, start, length);
+        metadataCache.putLocatedBlocks(src, start, blocks, generation);
+      }
+      return blocks;
     }
   }
 
+  /**
+   * Drop the cached metadata of the path and everything below it, if the
+   * metadata cache is enabled.
+   */
+  void invalidateMetadataCache(String src) {
+    if (metadataCache != null) {
+      metadataCache.invalidate(src);
+    }
+  }
+
+  @VisibleForTesting
+  DFSMetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
   /**
    * @see ClientProtocol#getBlockLocations(String, long, long)
    */
@@ -1172,7 +1217,7 @@ private FsPermission applyUMask(FsPermission permission) {
     return FsCreateModes.applyUMask(permission, dfsClientConf.getUMask());
   }
 
-  private FsPermission applyUMaskDir(FsPermission permission) {
+  FsPermission applyUMaskDir(FsPermission permission) {
     if (permission == null) {
       permission = FsPermission.getDirDefault();
     }
@@ -1460,6 +1505,8 @@ public boolean setReplication(String src, short replication)
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1480,6 +1527,8 @@ public void setStoragePolicy(String src, String policyName)
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1498,6 +1547,8 @@ public void unsetStoragePolicy(String src) throws IOException {
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1544,6 +1595,9 @@ public boolean rename(String src, String dst) throws IOException {
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
+      invalidateMetadataCache(dst);
     }
   }
 
@@ -1559,6 +1613,11 @@ public void concat(String trg, String [] srcs) throws IOException {
       throw re.unwrapRemoteException(AccessControlException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(trg);
+      for (String s : srcs) {
+        invalidateMetadataCache(s);
+      }
     }
   }
   /**
@@ -1581,6 +1640,9 @@ public void rename(String src, String dst, Options.Rename... options)
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
+      invalidateMetadataCache(dst);
     }
   }
 
@@ -1599,6 +1661,8 @@ public boolean truncate(String src, long newLength) throws IOException {
     } catch (RemoteException re) {
       throw re.unwrapRemoteException(AccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1630,6 +1694,8 @@ public boolean delete(String src, boolean recursive) throws IOException {
           UnresolvedPathException.class,
           SnapshotAccessControlException.class,
           PathIsNotEmptyDirectoryException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1681,7 +1747,18 @@ public DirectoryListing listPaths(String src,  byte[] startAfter,
   public HdfsFileStatus getFileInfo(String src) throws IOException {
     checkOpen();
     try (TraceScope ignored = newPathTraceScope("getFileInfo", src)) {
-      return namenode.getFileInfo(src);
+      if (metadataCache == null) {
+        return namenode.getFileInfo(src);
+      }
+      HdfsFileStatus status = metadataCache.getFileStatus(src);
+      if (status == null) {
+        final long generation = metadataCache.getGeneration();
+        // The blocks tell if any client is still writing the file, whose
+        // length then keeps changing.
+        status = metadataCache.putFileStatus(src,
+            namenode.getLocatedFileInfo(src, false), generation);
+      }
+      return status;
     } catch (RemoteException re) {
       throw re.unwrapRemoteException(AccessControlException.class,
           FileNotFoundException.class,
@@ -1920,6 +1997,8 @@ public void setPermission(String src, FsPermission permission)
           SafeModeException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -1942,6 +2021,8 @@ public void setOwner(String src, String username, String groupname)
           SafeModeException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2574,6 +2655,8 @@ public void setTimes(String src, long mtime, long atime) throws IOException {
           FileNotFoundException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2635,6 +2718,8 @@ public void modifyAclEntries(String src, List<AclEntry> aclSpec)
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2651,6 +2736,8 @@ public void removeAclEntries(String src, List<AclEntry> aclSpec)
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2666,6 +2753,8 @@ public void removeDefaultAcl(String src) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2681,6 +2770,8 @@ public void removeAcl(String src) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2696,6 +2787,8 @@ public void setAcl(String src, List<AclEntry> aclSpec) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2768,6 +2861,8 @@ public void setErasureCodingPolicy(String src, String ecPolicyName)
           SafeModeException.class,
           UnresolvedPathException.class,
           FileNotFoundException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -2781,6 +2876,8 @@ public void unsetErasureCodingPolicy(String src) throws IOException {
           SafeModeException.class,
           UnresolvedPathException.class,
           FileNotFoundException.class, NoECPolicySetException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -3045,6 +3142,10 @@ ThreadPoolExecutor getStripedReadsThreadPool() {
     return STRIPED_READ_THREAD_POOL;
   }
 
+  StripedReadLatencyTracker getStripedReadLatencyTracker() {
+    return STRIPED_READ_LATENCIES;
+  }
+
   boolean isHedgedReadsEnabled() {
     return (HEDGED_READ_THREAD_POOL != null) &&
         HEDGED_READ_THREAD_POOL.getMaximumPoolSize() > 0;
@@ -3141,6 +3242,8 @@ public void satisfyStoragePolicy(String src) throws IOException {
           FileNotFoundException.class,
           SafeModeException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateMetadataCache(src);
     }
   }
 
@@ -22,6 +22,7 @@
 import com.google.common.annotations.VisibleForTesting;
 
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
 
 /**
  * Used for injecting faults in DFSClient and DFSOutputStream tests.
@@ -58,6 +59,8 @@ public void fetchFromDatanodeException() {}
 
   public void readFromDatanodeDelay() {}
 
+  public void delayStripedCellRead(DatanodeInfo datanode) {}
+
   public boolean skipRollingRestartWait() {
     return false;
   }
@@ -31,6 +31,8 @@ public class DFSHedgedReadMetrics {
   public final AtomicLong hedgedReadOps = new AtomicLong();
   public final AtomicLong hedgedReadOpsWin = new AtomicLong();
   public final AtomicLong hedgedReadOpsInCurThread = new AtomicLong();
+  public final AtomicLong stripedHedgedReadOps = new AtomicLong();
+  public final AtomicLong stripedHedgedReadOpsWin = new AtomicLong();
 
   public void incHedgedReadOps() {
     hedgedReadOps.incrementAndGet();
@@ -44,6 +46,14 @@ public void incHedgedReadWins() {
     hedgedReadOpsWin.incrementAndGet();
   }
 
+  public void incStripedHedgedReadOps() {
+    stripedHedgedReadOps.incrementAndGet();
+  }
+
+  public void incStripedHedgedReadWins() {
+    stripedHedgedReadOpsWin.incrementAndGet();
+  }
+
   public long getHedgedReadOps() {
     return hedgedReadOps.longValue();
   }
@@ -55,4 +65,20 @@ public long getHedgedReadOpsInCurThread() {
   public long getHedgedReadWins() {
     return hedgedReadOpsWin.longValue();
   }
+
+  /**
+   * @return the number of striped reads that read a parity cell because a
+   * data cell was slow.
+   */
+  public long getStripedHedgedReadOps() {
+    return stripedHedgedReadOps.longValue();
+  }
+
+  /**
+   * @return the number of striped reads that decoded a slow data cell from
+   * parity before the slow read finished.
+   */
+  public long getStripedHedgedReadWins() {
+    return stripedHedgedReadOpsWin.longValue();
+  }
 }
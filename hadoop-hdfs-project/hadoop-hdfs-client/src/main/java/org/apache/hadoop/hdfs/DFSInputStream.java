@@ -239,6 +239,10 @@ private long fetchLocatedBlocksAndGetLastBlockLength(boolean refresh)
       throws IOException {
     LocatedBlocks newInfo = locatedBlocks;
     if (locatedBlocks == null || refresh) {
+      if (refresh) {
+        // The locations we had did not work, don't get them back from cache.
+        dfsClient.invalidateMetadataCache(src);
+      }
       newInfo = dfsClient.getLocatedBlocks(src, 0);
     }
     DFSClient.LOG.debug("newInfo = {}", newInfo);
@@ -439,6 +443,7 @@ else if (offset >= locatedBlocks.getFileLength()) {
 
   /** Fetch a block from namenode and cache it */
   protected LocatedBlock fetchBlockAt(long offset) throws IOException {
+    dfsClient.invalidateMetadataCache(src);
     return fetchBlockAt(offset, 0, false); // don't use cache
   }
 
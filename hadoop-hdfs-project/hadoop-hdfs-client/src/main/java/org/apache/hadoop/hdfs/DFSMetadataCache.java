@@ -0,0 +1,375 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.fs.GlobalStorageStatistics;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.inotify.Event;
+import org.apache.hadoop.hdfs.inotify.EventBatch;
+import org.apache.hadoop.hdfs.inotify.MissingEventsException;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.protocol.HdfsLocatedFileStatus;
+import org.apache.hadoop.hdfs.protocol.LocatedBlock;
+import org.apache.hadoop.hdfs.protocol.LocatedBlocks;
+import org.apache.hadoop.util.Daemon;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded client side cache of {@link HdfsFileStatus} and
+ * {@link LocatedBlocks} of closed files, so that applications asking for the
+ * metadata of the same immutable files over and over don't have to go to the
+ * NameNode every time.
+ *
+ * The status of a file is fetched along with its blocks, so that the files
+ * still being written by any client are not cached.
+ *
+ * Every entry expires a fixed time after it was fetched. Entries are
+ * invalidated earlier when this client changes the path, and, if enabled,
+ * when the NameNode's inotify stream reports a change to it. Changes made by
+ * other clients are otherwise only seen once the entry expires.
+ */
+@InterfaceAudience.Private
+public class DFSMetadataCache {
+  public static final Logger LOG =
+      LoggerFactory.getLogger(DFSMetadataCache.class);
+
+  private final Cache<String, HdfsFileStatus> fileStatuses;
+  /** Block locations, only of complete files and covering the whole file. */
+  private final Cache<String, LocatedBlocks> locatedBlocks;
+  /** Paths cached in either cache, sorted to find the ones below a path. */
+  private final NavigableSet<String> cachedPaths =
+      new ConcurrentSkipListSet<>();
+  private final DFSOpsCountStatistics storageStatistics;
+  /**
+   * Bumped on every invalidation, so that metadata fetched from the NameNode
+   * before a concurrent change is not cached after it.
+   */
+  private final AtomicLong generation = new AtomicLong();
+  private volatile Daemon invalidator;
+
+  DFSMetadataCache(int maxEntries, long ttlMs) {
+    fileStatuses = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .removalListener(this::onRemoval)
+        .build();
+    locatedBlocks = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .removalListener(this::onRemoval)
+        .build();
+    storageStatistics = (DFSOpsCountStatistics) GlobalStorageStatistics
+        .INSTANCE.put(DFSOpsCountStatistics.NAME, DFSOpsCountStatistics::new);
+  }
+
+  /**
+   * @return the generation to pass to the put methods for metadata fetched
+   * from the NameNode after this call.
+   */
+  long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * @return a copy of the cached status of the file, or null if it isn't
+   * cached.
+   */
+  HdfsFileStatus getFileStatus(String src) {
+    final HdfsFileStatus cached =
+        countLookup(fileStatuses.getIfPresent(src));
+    // Callers qualify the path of the returned status, so always hand out a
+    // copy.
+    return cached == null ? null : copyOf(cached);
+  }
+
+  /**
+   * Cache a copy of the status of a closed file. Directories, symlinks and
+   * files under construction are not cached.
+   *
+   * @return the status without its blocks, as getFileInfo returns it, or
+   * null if the status is null.
+   */
+  synchronized HdfsFileStatus putFileStatus(String src,
+      HdfsLocatedFileStatus status, long fetchedAt) {
+    if (status == null) {
+      return null;
+    }
+    final HdfsFileStatus copy = copyOf(status);
+    final LocatedBlocks blocks = status.getLocatedBlocks();
+    if (fetchedAt == generation.get() && !status.isDirectory() &&
+        !status.isSymlink() && blocks != null &&
+        !blocks.isUnderConstruction()) {
+      synchronized (cachedPaths) {
+        cachedPaths.add(src);
+        fileStatuses.put(src, copyOf(status));
+      }
+    }
+    return copy;
+  }
+
+  private static HdfsFileStatus copyOf(HdfsFileStatus status) {
+    final EnumSet<HdfsFileStatus.Flags> flags =
+        EnumSet.noneOf(HdfsFileStatus.Flags.class);
+    if (status.hasAcl()) {
+      flags.add(HdfsFileStatus.Flags.HAS_ACL);
+    }
+    if (status.isEncrypted()) {
+      flags.add(HdfsFileStatus.Flags.HAS_CRYPT);
+    }
+    if (status.isErasureCoded()) {
+      flags.add(HdfsFileStatus.Flags.HAS_EC);
+    }
+    if (status.isSnapshotEnabled()) {
+      flags.add(HdfsFileStatus.Flags.SNAPSHOT_ENABLED);
+    }
+    return new HdfsFileStatus.Builder()
+        .length(status.getLen())
+        .isdir(status.isDirectory())
+        .replication(status.getReplication())
+        .blocksize(status.getBlockSize())
+        .mtime(status.getModificationTime())
+        .atime(status.getAccessTime())
+        .perm(status.getPermission())
+        .flags(flags)
+        .owner(status.getOwner())
+        .group(status.getGroup())
+        .path(status.getLocalNameInBytes())
+        .fileId(status.getFileId())
+        .children(status.getChildrenNum())
+        .feInfo(status.getFileEncryptionInfo())
+        .storagePolicy(status.getStoragePolicy())
+        .ecPolicy(status.getErasureCodingPolicy())
+        .build();
+  }
+
+  /**
+   * @return the cached blocks of the file that overlap the given range, in
+   * the form the NameNode would have returned them, or null if the file's
+   * blocks aren't cached.
+   */
+  LocatedBlocks getLocatedBlocks(String src, long start, long length) {
+    final LocatedBlocks cached = countLookup(locatedBlocks.getIfPresent(src));
+    if (cached == null) {
+      return null;
+    }
+    // Callers modify the returned block list, so always hand out a copy.
+    final long end = start + length;
+    final List<LocatedBlock> blocks = new ArrayList<>();
+    for (LocatedBlock block : cached.getLocatedBlocks()) {
+      final long blockEnd = block.getStartOffset() + block.getBlockSize();
+      if (blockEnd > start && block.getStartOffset() < end) {
+        blocks.add(block);
+      }
+    }
+    return new LocatedBlocks(cached.getFileLength(), false, blocks,
+        cached.getLastLocatedBlock(), true, cached.getFileEncryptionInfo(),
+        cached.getErasureCodingPolicy());
+  }
+
+  /**
+   * Cache the blocks of a file, provided the file is closed and the blocks
+   * were fetched from offset 0 and cover the whole file.
+   */
+  synchronized void putLocatedBlocks(String src, long start,
+      LocatedBlocks blocks, long fetchedAt) {
+    if (fetchedAt != generation.get() || start != 0 || blocks == null ||
+        blocks.isUnderConstruction() || !blocks.isLastBlockComplete()) {
+      return;
+    }
+    final LocatedBlock last = blocks.getLastLocatedBlock();
+    final int count = blocks.locatedBlockCount();
+    if (last != null && count > 0 &&
+        blocks.get(count - 1).getBlock().equals(last.getBlock())) {
+      synchronized (cachedPaths) {
+        cachedPaths.add(src);
+        locatedBlocks.put(src, new LocatedBlocks(blocks.getFileLength(),
+            false, new ArrayList<>(blocks.getLocatedBlocks()), last, true,
+            blocks.getFileEncryptionInfo(), blocks.getErasureCodingPolicy()));
+      }
+    }
+  }
+
+  /**
+   * Forget a path removed from a cache, unless it is still in the other one
+   * or was cached again in the meantime.
+   */
+  private void onRemoval(RemovalNotification<String, ?> notification) {
+    if (notification.getCause() == RemovalCause.REPLACED) {
+      return;
+    }
+    final String src = notification.getKey();
+    synchronized (cachedPaths) {
+      if (!fileStatuses.asMap().containsKey(src) &&
+          !locatedBlocks.asMap().containsKey(src)) {
+        cachedPaths.remove(src);
+      }
+    }
+  }
+
+  /**
+   * Drop everything cached for the path and, if it is a directory, for
+   * everything below it.
+   */
+  synchronized void invalidate(String src) {
+    if (src == null) {
+      return;
+    }
+    generation.incrementAndGet();
+    if (src.equals(Path.SEPARATOR)) {
+      invalidateAll();
+      return;
+    }
+    final String prefix = src.endsWith(Path.SEPARATOR) ?
+        src : src + Path.SEPARATOR;
+    fileStatuses.invalidate(src);
+    locatedBlocks.invalidate(src);
+    // The paths below it sort before the prefix with the separator replaced
+    // by the next character.
+    for (String path : cachedPaths.subSet(prefix, true,
+        prefix.substring(0, prefix.length() - 1) +
+            (char) (Path.SEPARATOR_CHAR + 1), false)) {
+      fileStatuses.invalidate(path);
+      locatedBlocks.invalidate(path);
+    }
+  }
+
+  synchronized void invalidateAll() {
+    generation.incrementAndGet();
+    fileStatuses.invalidateAll();
+    locatedBlocks.invalidateAll();
+  }
+
+  /**
+   * Start a daemon that follows the NameNode's inotify stream and
+   * invalidates the paths changed by any client. Reading the stream requires
+   * HDFS superuser privileges; without them the daemon logs a warning and
+   * exits, leaving expiry as the only invalidation.
+   */
+  synchronized void startInvalidator(final DFSClient client) {
+    if (invalidator != null) {
+      return;
+    }
+    invalidator = new Daemon(new Runnable() {
+      @Override
+      public void run() {
+        followInotifyStream(client);
+      }
+
+      @Override
+      public String toString() {
+        return "DFSMetadataCache invalidator for " + client.getClientName();
+      }
+    });
+    invalidator.start();
+  }
+
+  synchronized void stopInvalidator() {
+    if (invalidator != null) {
+      invalidator.interrupt();
+      invalidator = null;
+    }
+  }
+
+  private void followInotifyStream(DFSClient client) {
+    DFSInotifyEventInputStream stream = null;
+    while (client.isClientRunning() &&
+        !Thread.currentThread().isInterrupted()) {
+      try {
+        if (stream == null) {
+          stream = client.getInotifyEventStream();
+          // Anything cached before the stream was opened may be stale.
+          invalidateAll();
+        }
+        EventBatch batch = stream.poll(1, TimeUnit.SECONDS);
+        if (batch != null) {
+          for (Event event : batch.getEvents()) {
+            invalidate(event);
+          }
+        }
+      } catch (MissingEventsException e) {
+        LOG.info("Missed inotify events, dropping the metadata cache", e);
+        stream = null;
+      } catch (InterruptedException e) {
+        return;
+      } catch (IOException e) {
+        LOG.warn("Cannot follow the inotify stream, metadata cache entries "
+            + "will only be invalidated when they expire", e);
+        return;
+      }
+    }
+  }
+
+  private void invalidate(Event event) {
+    switch (event.getEventType()) {
+    case CREATE:
+      invalidate(((Event.CreateEvent) event).getPath());
+      break;
+    case CLOSE:
+      invalidate(((Event.CloseEvent) event).getPath());
+      break;
+    case APPEND:
+      invalidate(((Event.AppendEvent) event).getPath());
+      break;
+    case RENAME:
+      invalidate(((Event.RenameEvent) event).getSrcPath());
+      invalidate(((Event.RenameEvent) event).getDstPath());
+      break;
+    case METADATA:
+      invalidate(((Event.MetadataUpdateEvent) event).getPath());
+      break;
+    case UNLINK:
+      invalidate(((Event.UnlinkEvent) event).getPath());
+      break;
+    case TRUNCATE:
+      invalidate(((Event.TruncateEvent) event).getPath());
+      break;
+    default:
+      invalidateAll();
+    }
+  }
+
+  private <T> T countLookup(T value) {
+    storageStatistics.incrementOpCounter(value != null ?
+        OpType.METADATA_CACHE_HIT : OpType.METADATA_CACHE_MISS);
+    return value;
+  }
+
+  @VisibleForTesting
+  long size() {
+    return fileStatuses.size() + locatedBlocks.size();
+  }
+}
@@ -81,6 +81,8 @@ public enum OpType {
     LIST_ENCRYPTION_ZONE("op_list_encryption_zone"),
     LIST_LOCATED_STATUS(CommonStatisticNames.OP_LIST_LOCATED_STATUS),
     LIST_STATUS(CommonStatisticNames.OP_LIST_STATUS),
+    METADATA_CACHE_HIT("op_metadata_cache_hit"),
+    METADATA_CACHE_MISS("op_metadata_cache_miss"),
     MODIFY_CACHE_POOL("op_modify_cache_pool"),
     MODIFY_CACHE_DIRECTIVE("op_modify_cache_directive"),
     MKDIRS(CommonStatisticNames.OP_MKDIRS),
@@ -254,9 +254,32 @@ protected DFSOutputStream(DFSClient dfsClient, String src,
       streamer = new DataStreamer(stat, null, dfsClient, src, progress,
           checksum, cachingStrategy, byteArrayManager, favoredNodes,
           addBlockFlags);
+      initPacketSizeTuner();
     }
   }
 
+  /**
+   * Let the streamer adapt the packet size to the ack latency, if enabled.
+   */
+  private void initPacketSizeTuner() {
+    final DfsClientConf conf = dfsClient.getConf();
+    if (conf.isAdaptivePacketSizeEnabled()) {
+      getStreamer().setPacketSizeTuner(new PacketSizeTuner(writePacketSize,
+          conf.getAdaptivePacketSizeMin(),
+          Math.min(conf.getAdaptivePacketSizeMax(),
+              PacketReceiver.MAX_PACKET_SIZE),
+          conf.getAdaptivePacketSizeTargetAckLatencyMs()));
+    }
+  }
+
+  /**
+   * @return the size of the next packets, including the header.
+   */
+  private int getWritePacketSize() {
+    final PacketSizeTuner tuner = getStreamer().getPacketSizeTuner();
+    return tuner != null ? tuner.getPacketSize() : writePacketSize;
+  }
+
   static DFSOutputStream newStreamForCreate(DFSClient dfsClient, String src,
       FsPermission masked, EnumSet<CreateFlag> flag, boolean createParent,
       short replication, long blockSize, Progressable progress,
@@ -349,6 +372,7 @@ private DFSOutputStream(DFSClient dfsClient, String src,
           progress, checksum, cachingStrategy, byteArrayManager, favoredNodes,
           addBlockFlags);
     }
+    initPacketSizeTuner();
   }
 
   private void adjustPacketChunkSize(HdfsFileStatus stat) throws IOException{
@@ -519,7 +543,8 @@ protected void adjustChunkBoundary() {
 
     if (!getStreamer().getAppendChunk()) {
       final int psize = (int) Math
-          .min(blockSize - getStreamer().getBytesCurBlock(), writePacketSize);
+          .min(blockSize - getStreamer().getBytesCurBlock(),
+              getWritePacketSize());
       computePacketChunkSize(psize, bytesPerChecksum);
     }
   }
@@ -223,7 +223,8 @@ protected void closeCurrentBlockReaders() {
 
   protected void closeReader(BlockReaderInfo readerInfo) {
     if (readerInfo != null) {
-      if (readerInfo.reader != null) {
+      // An abandoned reader is closed by the read task still running on it.
+      if (readerInfo.reader != null && !readerInfo.isAbandoned()) {
         try {
           readerInfo.reader.close();
         } catch (Throwable ignored) {
@@ -532,6 +532,8 @@ boolean doWaitForRestart() {
   protected final LoadingCache<DatanodeInfo, DatanodeInfo> excludedNodes;
   private final String[] favoredNodes;
   private final EnumSet<AddBlockFlag> addBlockFlags;
+  /** Adapts the packet size to the ack latency, if enabled. */
+  private volatile PacketSizeTuner packetSizeTuner;
 
   private DataStreamer(HdfsFileStatus stat, ExtendedBlock block,
                        DFSClient dfsClient, String src,
@@ -1086,10 +1088,11 @@ public void run() {
         try {
           // read an ack from the pipeline
           ack.readFields(blockReplyStream);
+          long duration = -1;
           if (ack.getSeqno() != DFSPacket.HEART_BEAT_SEQNO) {
             Long begin = packetSendTime.get(ack.getSeqno());
             if (begin != null) {
-              long duration = Time.monotonicNow() - begin;
+              duration = Time.monotonicNow() - begin;
               if (duration > dfsclientSlowLogThresholdMs) {
                 LOG.info("Slow ReadProcessor read fields for block " + block
                     + " took " + duration + "ms (threshold="
@@ -1170,6 +1173,11 @@ public void run() {
           // update bytesAcked
           block.setNumBytes(one.getLastByteOffsetBlock());
 
+          final PacketSizeTuner tuner = packetSizeTuner;
+          if (tuner != null && duration >= 0 && !isLastPacketInBlock) {
+            tuner.addAck(duration);
+          }
+
           synchronized (dataQueue) {
             scope = one.getTraceScope();
             if (scope != null) {
@@ -2052,6 +2060,18 @@ long getLastQueuedSeqno() {
     return lastQueuedSeqno;
   }
 
+  void setPacketSizeTuner(PacketSizeTuner tuner) {
+    packetSizeTuner = tuner;
+  }
+
+  /**
+   * @return the tuner of the packet size, or null if the configured packet
+   * size is used.
+   */
+  PacketSizeTuner getPacketSizeTuner() {
+    return packetSizeTuner;
+  }
+
   /**
    * get the number of bytes of current block
    *
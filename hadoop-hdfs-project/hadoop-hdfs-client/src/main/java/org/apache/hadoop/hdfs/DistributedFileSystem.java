@@ -1373,6 +1373,25 @@ public DFSClient getClient() {
     return dfs;
   }
 
+  /**
+   * @return an {@link AsyncDistributedFileSystem} issuing the NameNode calls
+   * of this file system asynchronously.
+   */
+  @InterfaceStability.Unstable
+  public AsyncDistributedFileSystem getAsyncDistributedFileSystem() {
+    return new AsyncDistributedFileSystem(this);
+  }
+
+  /** Count an operation issued by {@link AsyncDistributedFileSystem}. */
+  void incrementOpCounter(OpType op, boolean isWrite) {
+    if (isWrite) {
+      statistics.incrementWriteOps(1);
+    } else {
+      statistics.incrementReadOps(1);
+    }
+    storageStatistics.incrementOpCounter(op);
+  }
+
   @Override
   public FsStatus getStatus(Path p) throws IOException {
     statistics.incrementReadOps(1);
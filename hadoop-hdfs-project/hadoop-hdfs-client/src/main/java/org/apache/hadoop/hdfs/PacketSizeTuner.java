@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the size of the packets a {@link DataStreamer} writes from the time
+ * the pipeline takes to acknowledge them.
+ *
+ * Each data packet has a fixed cost in the client, on the wire and on every
+ * DataNode of the pipeline, so a fast pipeline writes more per second with
+ * bigger packets. A slow one gains little from them, while bigger packets
+ * make hflush wait longer and grow the data resent on pipeline recovery. The
+ * size is doubled while the mean ack latency stays under half of the target
+ * and halved while it is over the target, within the configured bounds.
+ */
+@InterfaceAudience.Private
+class PacketSizeTuner {
+  static final Logger LOG = LoggerFactory.getLogger(PacketSizeTuner.class);
+
+  /** Number of acks averaged before the size is changed. */
+  static final int ACKS_PER_ADJUSTMENT = 16;
+
+  private final int minPacketSize;
+  private final int maxPacketSize;
+  private final long targetAckLatencyMs;
+
+  private volatile int packetSize;
+  private long totalAckLatencyMs = 0;
+  private int numAcks = 0;
+
+  PacketSizeTuner(int initialPacketSize, int minPacketSize, int maxPacketSize,
+      long targetAckLatencyMs) {
+    if (minPacketSize <= 0 || minPacketSize > maxPacketSize) {
+      throw new IllegalArgumentException("Invalid packet size range ["
+          + minPacketSize + ", " + maxPacketSize + "]");
+    }
+    this.minPacketSize = minPacketSize;
+    this.maxPacketSize = maxPacketSize;
+    this.targetAckLatencyMs = targetAckLatencyMs;
+    this.packetSize = clamp(initialPacketSize);
+  }
+
+  private int clamp(long size) {
+    return (int) Math.max(minPacketSize, Math.min(maxPacketSize, size));
+  }
+
+  /** @return the size of the next packets, including the header. */
+  int getPacketSize() {
+    return packetSize;
+  }
+
+  /**
+   * Record the time between sending a data packet and receiving its ack.
+   */
+  synchronized void addAck(long ackLatencyMs) {
+    totalAckLatencyMs += ackLatencyMs;
+    if (++numAcks < ACKS_PER_ADJUSTMENT) {
+      return;
+    }
+    final long meanAckLatencyMs = totalAckLatencyMs / numAcks;
+    totalAckLatencyMs = 0;
+    numAcks = 0;
+
+    final int oldPacketSize = packetSize;
+    if (meanAckLatencyMs > targetAckLatencyMs) {
+      packetSize = clamp(oldPacketSize / 2);
+    } else if (2 * meanAckLatencyMs < targetAckLatencyMs) {
+      packetSize = clamp(2L * oldPacketSize);
+    }
+    if (packetSize != oldPacketSize) {
+      LOG.debug("Mean ack latency {}ms, packet size changed from {} to {}",
+          meanAckLatencyMs, oldPacketSize, packetSize);
+    }
+  }
+}
@@ -30,6 +30,8 @@ public class ReadStatistics {
 
   private BlockType blockType = BlockType.CONTIGUOUS;
   private long totalEcDecodingTimeMillis;
+  private long totalEcHedgedReads;
+  private long totalEcHedgedReadWins;
 
   public ReadStatistics() {
     clear();
@@ -40,6 +42,8 @@ public ReadStatistics(ReadStatistics rhs) {
     this.totalLocalBytesRead = rhs.getTotalLocalBytesRead();
     this.totalShortCircuitBytesRead = rhs.getTotalShortCircuitBytesRead();
     this.totalZeroCopyBytesRead = rhs.getTotalZeroCopyBytesRead();
+    this.totalEcHedgedReads = rhs.getTotalEcHedgedReads();
+    this.totalEcHedgedReadWins = rhs.getTotalEcHedgedReadWins();
   }
 
   /**
@@ -95,6 +99,22 @@ public synchronized long getTotalEcDecodingTimeMillis() {
     return totalEcDecodingTimeMillis;
   }
 
+  /**
+   * Return the number of erasure coded stripes for which a parity cell was
+   * read because a data cell was slow.
+   */
+  public synchronized long getTotalEcHedgedReads() {
+    return totalEcHedgedReads;
+  }
+
+  /**
+   * Return the number of erasure coded stripes whose slow data cells were
+   * decoded from parity rather than waited for.
+   */
+  public synchronized long getTotalEcHedgedReadWins() {
+    return totalEcHedgedReadWins;
+  }
+
   public synchronized void addRemoteBytes(long amt) {
     this.totalBytesRead += amt;
   }
@@ -121,6 +141,14 @@ public synchronized void addErasureCodingDecodingTime(long millis) {
     this.totalEcDecodingTimeMillis += millis;
   }
 
+  public synchronized void incEcHedgedReads() {
+    this.totalEcHedgedReads++;
+  }
+
+  public synchronized void incEcHedgedReadWins() {
+    this.totalEcHedgedReadWins++;
+  }
+
   synchronized void setBlockType(BlockType blockType) {
     this.blockType = blockType;
   }
@@ -131,5 +159,7 @@ public synchronized void clear() {
     this.totalShortCircuitBytesRead = 0;
     this.totalZeroCopyBytesRead = 0;
     this.totalEcDecodingTimeMillis = 0;
+    this.totalEcHedgedReads = 0;
+    this.totalEcHedgedReadWins = 0;
   }
 }
@@ -19,6 +19,7 @@
 
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.fs.ChecksumException;
+import org.apache.hadoop.hdfs.client.impl.DfsClientConf;
 import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
 import org.apache.hadoop.hdfs.protocol.ErasureCodingPolicy;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
@@ -28,6 +29,7 @@
 import org.apache.hadoop.hdfs.util.StripedBlockUtil.StripingChunk;
 import org.apache.hadoop.hdfs.util.StripedBlockUtil.AlignedStripe;
 import org.apache.hadoop.hdfs.util.StripedBlockUtil.StripingChunkReadResult;
+import org.apache.hadoop.io.ByteBufferPool;
 import org.apache.hadoop.io.erasurecode.ECChunk;
 import org.apache.hadoop.io.erasurecode.rawcoder.RawErasureDecoder;
 import org.apache.hadoop.hdfs.DFSUtilClient.CorruptedBlocks;
@@ -36,8 +38,10 @@
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
@@ -90,6 +94,14 @@ static class BlockReaderInfo {
      * using it for the next stripe.
      */
     boolean shouldSkip = false;
+    /**
+     * Set once a hedged read stops waiting for this reader. From then on the
+     * read task still running on it must not touch the chunk buffers, and it
+     * closes the reader itself when it finishes.
+     */
+    private boolean abandoned = false;
+    /** Whether a read task has been submitted and not yet finished. */
+    private boolean reading = false;
 
     BlockReaderInfo(BlockReader reader, DatanodeInfo dn, long offset) {
       this.reader = reader;
@@ -104,6 +116,42 @@ void setOffset(long offset) {
     void skip() {
       this.shouldSkip = true;
     }
+
+    synchronized void startRead() {
+      reading = true;
+    }
+
+    /**
+     * @return true if the reader was abandoned while the read was running,
+     * in which case the caller has to close it.
+     */
+    synchronized boolean finishRead() {
+      reading = false;
+      return abandoned;
+    }
+
+    /**
+     * @return true if no read is running on the reader, in which case the
+     * caller has to close it.
+     */
+    synchronized boolean abandon() {
+      abandoned = true;
+      skip();
+      return !reading;
+    }
+
+    synchronized boolean isAbandoned() {
+      return abandoned;
+    }
+
+    void closeQuietly() {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (Throwable ignored) {
+        }
+      }
+    }
   }
 
   private final Map<Future<BlockReadStats>, Integer> futures =
@@ -119,6 +167,10 @@ void skip() {
   protected final int cellSize;
   protected final RawErasureDecoder decoder;
   protected final DFSStripedInputStream dfsStripedInputStream;
+  private final StripedReadLatencyTracker latencyTracker;
+  private final boolean hedgedReadEnabled;
+  /** Whether a parity cell has been read because a data cell was slow. */
+  private boolean hedged = false;
 
   protected ECChunk[] decodeInputs;
 
@@ -140,6 +192,9 @@ void skip() {
 
     service = new ExecutorCompletionService<>(
             dfsStripedInputStream.getStripedReadsThreadPool());
+    DFSClient client = dfsStripedInputStream.getDFSClient();
+    latencyTracker = client.getStripedReadLatencyTracker();
+    hedgedReadEnabled = client.getConf().isStripedHedgedReadEnabled();
   }
 
   /**
@@ -259,31 +314,74 @@ private int readToBuffer(BlockReader blockReader,
     }
   }
 
-  private Callable<BlockReadStats> readCells(final BlockReader reader,
+  /**
+   * Read into a scratch buffer and copy into the target only if the reader
+   * has not been abandoned meanwhile, so that a read we stopped waiting for
+   * can never overwrite buffers that have been handed back to the caller.
+   */
+  private int readToBufferIfWanted(BlockReaderInfo readerInfo,
+      BlockReader blockReader, DatanodeInfo currentNode,
+      ByteBufferStrategy strategy, ExtendedBlock currentBlock)
+      throws IOException {
+    final ByteBufferPool pool = dfsStripedInputStream.getBufferPool();
+    final int targetLength = strategy.getTargetLength();
+    ByteBuffer scratch = pool.getBuffer(useDirectBuffer(), targetLength);
+    try {
+      scratch.limit(targetLength);
+      int length = readToBuffer(blockReader, currentNode,
+          new ByteBufferStrategy(scratch, dfsStripedInputStream.readStatistics,
+              dfsStripedInputStream.getDFSClient()), currentBlock);
+      scratch.flip();
+      synchronized (readerInfo) {
+        if (!readerInfo.isAbandoned()) {
+          strategy.readFromBuffer(scratch);
+        }
+      }
+      return length;
+    } finally {
+      pool.putBuffer(scratch);
+    }
+  }
+
+  private Callable<BlockReadStats> readCells(final BlockReaderInfo readerInfo,
+      final BlockReader reader,
       final DatanodeInfo datanode, final long currentReaderOffset,
       final long targetReaderOffset, final ByteBufferStrategy[] strategies,
       final ExtendedBlock currentBlock) {
     return () -> {
-      // reader can be null if getBlockReaderWithRetry failed or
-      // the reader hit exception before
-      if (reader == null) {
-        throw new IOException("The BlockReader is null. " +
-            "The BlockReader creation failed or the reader hit exception.");
-      }
-      Preconditions.checkState(currentReaderOffset <= targetReaderOffset);
-      if (currentReaderOffset < targetReaderOffset) {
-        long skipped = reader.skip(targetReaderOffset - currentReaderOffset);
-        Preconditions.checkState(
-            skipped == targetReaderOffset - currentReaderOffset);
-      }
+      try {
+        // reader can be null if getBlockReaderWithRetry failed or
+        // the reader hit exception before
+        if (reader == null) {
+          throw new IOException("The BlockReader is null. " +
+              "The BlockReader creation failed or the reader hit exception.");
+        }
+        Preconditions.checkState(currentReaderOffset <= targetReaderOffset);
+        if (currentReaderOffset < targetReaderOffset) {
+          long skipped = reader.skip(targetReaderOffset - currentReaderOffset);
+          Preconditions.checkState(
+              skipped == targetReaderOffset - currentReaderOffset);
+        }
 
-      int ret = 0;
-      for (ByteBufferStrategy strategy : strategies) {
-        int bytesReead = readToBuffer(reader, datanode, strategy, currentBlock);
-        ret += bytesReead;
+        final long startNanos = Time.monotonicNowNanos();
+        DFSClientFaultInjector.get().delayStripedCellRead(datanode);
+        int ret = 0;
+        for (ByteBufferStrategy strategy : strategies) {
+          int bytesReead = hedgedReadEnabled ?
+              readToBufferIfWanted(readerInfo, reader, datanode, strategy,
+                  currentBlock) :
+              readToBuffer(reader, datanode, strategy, currentBlock);
+          ret += bytesReead;
+        }
+        latencyTracker.addSample(datanode, ret,
+            Time.monotonicNowNanos() - startNanos);
+        return new BlockReadStats(ret, reader.isShortCircuit(),
+            reader.getNetworkDistance());
+      } finally {
+        if (readerInfo.finishRead()) {
+          readerInfo.closeQuietly();
+        }
       }
-      return new BlockReadStats(ret, reader.isShortCircuit(),
-          reader.getNetworkDistance());
     };
   }
 
@@ -308,8 +406,9 @@ boolean readChunk(final LocatedBlock block, int chunkIndex)
     }
 
     chunk.state = StripingChunk.PENDING;
+    readerInfos[chunkIndex].startRead();
     Callable<BlockReadStats> readCallable =
-        readCells(readerInfos[chunkIndex].reader,
+        readCells(readerInfos[chunkIndex], readerInfos[chunkIndex].reader,
         readerInfos[chunkIndex].datanode,
         readerInfos[chunkIndex].blockReaderOffset,
         alignedStripe.getOffsetInBlock(), getReadStrategies(chunk),
@@ -342,12 +441,30 @@ void readStripe() throws IOException {
     }
     // TODO: for a full stripe we can start reading (dataBlkNum + 1) chunks
 
+    // When hedging, give the data chunks until this time before reading a
+    // parity chunk to decode the slow ones from.
+    long hedgeDeadline = hedgedReadEnabled ?
+        Time.monotonicNow() + getHedgedReadThresholdMillis() : 0;
+
     // Input buffers for potential decode operation, which remains null until
     // first read failure
     while (!futures.isEmpty()) {
       try {
+        long timeout = 0;
+        if (hedgeDeadline > 0) {
+          if (shouldHedge()) {
+            timeout = Math.max(1, hedgeDeadline - Time.monotonicNow());
+          } else {
+            hedgeDeadline = 0;
+          }
+        }
         StripingChunkReadResult r = StripedBlockUtil
-            .getNextCompletedStripedRead(service, futures, 0);
+            .getNextCompletedStripedRead(service, futures, timeout);
+        if (r.state == StripingChunkReadResult.TIMEOUT) {
+          hedgeDeadline = 0;
+          hedgeSlowChunks();
+          continue;
+        }
         dfsStripedInputStream.updateReadStats(r.getReadStats());
         if (DFSClient.LOG.isDebugEnabled()) {
           DFSClient.LOG.debug("Read task returned: " + r + ", for stripe "
@@ -361,6 +478,10 @@ void readStripe() throws IOException {
           returnedChunk.state = StripingChunk.FETCHED;
           alignedStripe.fetchedChunksNum++;
           updateState4SuccessRead(r);
+          if (hedged && hasEnoughChunksToDecode()) {
+            abandonPendingChunks();
+            break;
+          }
           if (alignedStripe.fetchedChunksNum == dataBlkNum) {
             clearFutures();
             break;
@@ -391,6 +512,104 @@ void readStripe() throws IOException {
     }
   }
 
+  /**
+   * Hedge only once per stripe, only while nothing is missing yet so that the
+   * extra parity read can never push the stripe over its parity budget, and
+   * only if a data chunk is outstanding and a parity chunk can be read.
+   */
+  private boolean shouldHedge() {
+    if (hedged || alignedStripe.missingChunksNum > 0 ||
+        !hasPendingDataChunk()) {
+      return false;
+    }
+    for (int i = dataBlkNum; i < dataBlkNum + parityBlkNum; i++) {
+      if (alignedStripe.chunks[i] == null && targetBlocks[i] != null &&
+          (readerInfos[i] == null || !readerInfos[i].shouldSkip)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean hasPendingDataChunk() {
+    for (Integer index : futures.values()) {
+      if (index < dataBlkNum) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * How long to wait for the data chunks before hedging: a multiple of what
+   * the recent latency of the DataNodes involved predicts for this span, but
+   * never less than the configured threshold.
+   */
+  private long getHedgedReadThresholdMillis() {
+    final DfsClientConf conf = dfsStripedInputStream.getDFSClient().getConf();
+    final List<DatanodeInfo> datanodes = new ArrayList<>(futures.size());
+    for (Integer index : futures.values()) {
+      datanodes.add(readerInfos[index].datanode);
+    }
+    long expected = latencyTracker.estimateMillis(datanodes,
+        alignedStripe.getSpanInBlock());
+    return Math.max(conf.getStripedHedgedReadThresholdMillis(),
+        (long) (expected * conf.getStripedHedgedReadLatencyMultiplier()));
+  }
+
+  /**
+   * Some data chunks are taking too long. Read everything needed for
+   * decoding plus one parity chunk, and decode whatever is still outstanding
+   * once enough chunks have arrived.
+   */
+  private void hedgeSlowChunks() throws IOException {
+    hedged = true;
+    if (DFSClient.LOG.isDebugEnabled()) {
+      DFSClient.LOG.debug("Reading parity for slow chunks " + futures.values()
+          + " of stripe " + alignedStripe);
+    }
+    readDataForDecoding();
+    readParityChunks(1);
+    dfsStripedInputStream.readStatistics.incEcHedgedReads();
+    dfsStripedInputStream.getDFSClient().getHedgedReadMetrics()
+        .incStripedHedgedReadOps();
+  }
+
+  private boolean hasEnoughChunksToDecode() {
+    int available = 0;
+    for (StripingChunk chunk : alignedStripe.chunks) {
+      if (chunk != null && (chunk.state == StripingChunk.FETCHED ||
+          chunk.state == StripingChunk.ALLZERO)) {
+        available++;
+      }
+    }
+    return available >= dataBlkNum;
+  }
+
+  /**
+   * Stop waiting for the outstanding chunks. Data chunks among them are
+   * marked missing so that they get decoded; parity chunks are dropped.
+   */
+  private void abandonPendingChunks() {
+    boolean decodesData = false;
+    for (Integer index : futures.values()) {
+      if (index < dataBlkNum) {
+        alignedStripe.chunks[index].state = StripingChunk.MISSING;
+        alignedStripe.missingChunksNum++;
+        decodesData = true;
+      } else {
+        alignedStripe.chunks[index] = null;
+        decodeInputs[index] = null;
+      }
+    }
+    clearFutures();
+    if (decodesData) {
+      dfsStripedInputStream.readStatistics.incEcHedgedReadWins();
+      dfsStripedInputStream.getDFSClient().getHedgedReadMetrics()
+          .incStripedHedgedReadWins();
+    }
+  }
+
   /**
    * Some fetched {@link StripingChunk} might be stored in original application
    * buffer instead of prepared decode input buffers. Some others are beyond
@@ -467,8 +686,18 @@ int[] prepareErasedIndices() {
   }
 
   void clearFutures() {
-    for (Future future : futures.keySet()) {
-      future.cancel(false);
+    for (Map.Entry<Future<BlockReadStats>, Integer> entry :
+        futures.entrySet()) {
+      if (hedgedReadEnabled) {
+        // A running task could still copy into buffers we are about to hand
+        // back, so make it drop its data instead of relying on cancellation.
+        BlockReaderInfo readerInfo = readerInfos[entry.getValue()];
+        if (readerInfo.abandon()) {
+          readerInfo.closeQuietly();
+        }
+      } else {
+        entry.getKey().cancel(false);
+      }
     }
     futures.clear();
   }
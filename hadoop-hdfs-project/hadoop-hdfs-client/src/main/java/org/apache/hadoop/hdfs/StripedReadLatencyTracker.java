@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps an exponentially weighted moving average of how long striped cell
+ * reads take per byte on each DataNode. Striped readers use it to tell a
+ * DataNode that is merely busy from one that is an outlier for the stripe.
+ */
+@InterfaceAudience.Private
+class StripedReadLatencyTracker {
+  /** Weight of the newest sample in the moving average. */
+  private static final double ALPHA = 0.25;
+
+  private final ConcurrentMap<String, Double> nanosPerByte =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Record that reading {@code bytes} bytes from the given DataNode took
+   * {@code elapsedNanos}.
+   */
+  void addSample(DatanodeInfo datanode, long bytes, long elapsedNanos) {
+    if (datanode == null || bytes <= 0 || elapsedNanos < 0) {
+      return;
+    }
+    final double sample = (double) elapsedNanos / bytes;
+    nanosPerByte.merge(datanode.getXferAddr(), sample,
+        (old, cur) -> old + ALPHA * (cur - old));
+  }
+
+  /**
+   * @return the average nanoseconds per byte read from the DataNode, or a
+   * negative value if nothing has been read from it yet.
+   */
+  double getNanosPerByte(DatanodeInfo datanode) {
+    Double value = nanosPerByte.get(datanode.getXferAddr());
+    return value == null ? -1 : value;
+  }
+
+  /**
+   * Estimate how long reading {@code bytes} bytes from each of the given
+   * DataNodes in parallel should take. The median of the known per-byte
+   * latencies is used so that a single slow DataNode doesn't raise the
+   * estimate for the whole stripe.
+   *
+   * @return the estimate in milliseconds, or -1 if none of the DataNodes has
+   * been read from yet.
+   */
+  long estimateMillis(Collection<DatanodeInfo> datanodes, long bytes) {
+    double[] known = new double[datanodes.size()];
+    int numKnown = 0;
+    for (DatanodeInfo datanode : datanodes) {
+      double value = getNanosPerByte(datanode);
+      if (value >= 0) {
+        known[numKnown++] = value;
+      }
+    }
+    if (numKnown == 0) {
+      return -1;
+    }
+    Arrays.sort(known, 0, numKnown);
+    return (long) (known[numKnown / 2] * bytes / 1000000);
+  }
+
+  void clear() {
+    nanosPerByte.clear();
+  }
+}
@@ -321,6 +321,19 @@ interface ByteArrayManager {
           PREFIX + "count-reset-time-period-ms";
       long    COUNT_RESET_TIME_PERIOD_MS_DEFAULT = 10*SECOND;
     }
+
+    interface AdaptivePacketSize {
+      String PREFIX = Write.PREFIX + "adaptive-packet-size.";
+
+      String  ENABLED_KEY = PREFIX + "enabled";
+      boolean ENABLED_DEFAULT = false;
+      String  MIN_KEY = PREFIX + "min";
+      int     MIN_DEFAULT = 16*1024;
+      String  MAX_KEY = PREFIX + "max";
+      int     MAX_DEFAULT = 1024*1024;
+      String  TARGET_ACK_LATENCY_MS_KEY = PREFIX + "target-ack-latency-ms";
+      long    TARGET_ACK_LATENCY_MS_DEFAULT = 20;
+    }
   }
 
   /** dfs.client.block.write configuration properties */
@@ -423,6 +436,34 @@ interface StripedRead {
      * span 6 DNs, so this default value accommodates 3 read streams
      */
     int     THREADPOOL_SIZE_DEFAULT = 18;
+
+    /**
+     * When enabled, a data cell that is much slower than its DataNode's
+     * recent latency suggests is reconstructed from a parity cell instead of
+     * being waited for.
+     */
+    String  HEDGED_READ_ENABLED_KEY = PREFIX + "hedged.read.enabled";
+    boolean HEDGED_READ_ENABLED_DEFAULT = false;
+    String  HEDGED_READ_THRESHOLD_MILLIS_KEY =
+        PREFIX + "hedged.read.threshold.millis";
+    long    HEDGED_READ_THRESHOLD_MILLIS_DEFAULT = 100;
+    String  HEDGED_READ_LATENCY_MULTIPLIER_KEY =
+        PREFIX + "hedged.read.latency.multiplier";
+    float   HEDGED_READ_LATENCY_MULTIPLIER_DEFAULT = 3.0f;
+  }
+
+  /** dfs.client.metadata.cache configuration properties */
+  interface MetadataCache {
+    String PREFIX = HdfsClientConfigKeys.PREFIX + "metadata.cache.";
+
+    String  ENABLED_KEY = PREFIX + "enabled";
+    boolean ENABLED_DEFAULT = false;
+    String  MAX_ENTRIES_KEY = PREFIX + "max.entries";
+    int     MAX_ENTRIES_DEFAULT = 10000;
+    String  TTL_MS_KEY = PREFIX + "ttl.ms";
+    long    TTL_MS_DEFAULT = 10*SECOND;
+    String  INOTIFY_ENABLED_KEY = PREFIX + "inotify.enabled";
+    boolean INOTIFY_ENABLED_DEFAULT = false;
   }
 
   /** dfs.http.client configuration properties */
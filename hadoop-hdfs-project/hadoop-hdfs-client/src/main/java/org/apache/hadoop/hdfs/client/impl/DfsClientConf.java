@@ -113,6 +113,10 @@ public class DfsClientConf {
   private final int writePacketSize;
   private final int writeMaxPackets;
   private final ByteArrayManager.Conf writeByteArrayManagerConf;
+  private final boolean adaptivePacketSizeEnabled;
+  private final int adaptivePacketSizeMin;
+  private final int adaptivePacketSizeMax;
+  private final long adaptivePacketSizeTargetAckLatencyMs;
   private final int socketTimeout;
   private final int socketSendBufferSize;
   private final long excludedNodesCacheExpiry;
@@ -142,6 +146,14 @@ public class DfsClientConf {
       replicaAccessorBuilderClasses;
 
   private final int stripedReadThreadpoolSize;
+  private final boolean stripedHedgedReadEnabled;
+  private final long stripedHedgedReadThresholdMillis;
+  private final float stripedHedgedReadLatencyMultiplier;
+
+  private final boolean metadataCacheEnabled;
+  private final int metadataCacheMaxEntries;
+  private final long metadataCacheTtlMs;
+  private final boolean metadataCacheInotifyEnabled;
 
   private final boolean dataTransferTcpNoDelay;
 
@@ -217,6 +229,19 @@ public DfsClientConf(Configuration conf) {
           countThreshold, countLimit, countResetTimePeriodMs);
     }
 
+    adaptivePacketSizeEnabled = conf.getBoolean(
+        Write.AdaptivePacketSize.ENABLED_KEY,
+        Write.AdaptivePacketSize.ENABLED_DEFAULT);
+    adaptivePacketSizeMin = conf.getInt(
+        Write.AdaptivePacketSize.MIN_KEY,
+        Write.AdaptivePacketSize.MIN_DEFAULT);
+    adaptivePacketSizeMax = conf.getInt(
+        Write.AdaptivePacketSize.MAX_KEY,
+        Write.AdaptivePacketSize.MAX_DEFAULT);
+    adaptivePacketSizeTargetAckLatencyMs = conf.getLong(
+        Write.AdaptivePacketSize.TARGET_ACK_LATENCY_MS_KEY,
+        Write.AdaptivePacketSize.TARGET_ACK_LATENCY_MS_DEFAULT);
+
     defaultBlockSize = conf.getLongBytes(DFS_BLOCK_SIZE_KEY,
         DFS_BLOCK_SIZE_DEFAULT);
     defaultReplication = (short) conf.getInt(
@@ -268,6 +293,39 @@ public DfsClientConf(Configuration conf) {
     Preconditions.checkArgument(stripedReadThreadpoolSize > 0, "The value of " +
         HdfsClientConfigKeys.StripedRead.THREADPOOL_SIZE_KEY +
         " must be greater than 0.");
+    stripedHedgedReadEnabled = conf.getBoolean(
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_ENABLED_KEY,
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_ENABLED_DEFAULT);
+    stripedHedgedReadThresholdMillis = conf.getLong(
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_THRESHOLD_MILLIS_KEY,
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_THRESHOLD_MILLIS_DEFAULT);
+    Preconditions.checkArgument(stripedHedgedReadThresholdMillis > 0,
+        "The value of " +
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_THRESHOLD_MILLIS_KEY +
+        " must be greater than 0.");
+    stripedHedgedReadLatencyMultiplier = conf.getFloat(
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_LATENCY_MULTIPLIER_KEY,
+        HdfsClientConfigKeys.StripedRead.
+            HEDGED_READ_LATENCY_MULTIPLIER_DEFAULT);
+    metadataCacheEnabled = conf.getBoolean(
+        HdfsClientConfigKeys.MetadataCache.ENABLED_KEY,
+        HdfsClientConfigKeys.MetadataCache.ENABLED_DEFAULT);
+    metadataCacheMaxEntries = conf.getInt(
+        HdfsClientConfigKeys.MetadataCache.MAX_ENTRIES_KEY,
+        HdfsClientConfigKeys.MetadataCache.MAX_ENTRIES_DEFAULT);
+    Preconditions.checkArgument(metadataCacheMaxEntries > 0, "The value of " +
+        HdfsClientConfigKeys.MetadataCache.MAX_ENTRIES_KEY +
+        " must be greater than 0.");
+    metadataCacheTtlMs = conf.getTimeDuration(
+        HdfsClientConfigKeys.MetadataCache.TTL_MS_KEY,
+        HdfsClientConfigKeys.MetadataCache.TTL_MS_DEFAULT,
+        TimeUnit.MILLISECONDS);
+    Preconditions.checkArgument(metadataCacheTtlMs > 0, "The value of " +
+        HdfsClientConfigKeys.MetadataCache.TTL_MS_KEY +
+        " must be greater than 0.");
+    metadataCacheInotifyEnabled = conf.getBoolean(
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_KEY,
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_DEFAULT);
     replicaAccessorBuilderClasses = loadReplicaAccessorBuilderClasses(conf);
   }
 
@@ -434,6 +492,34 @@ public int getWritePacketSize() {
     return writePacketSize;
   }
 
+  /**
+   * @return whether the write packet size adapts to the ack latency
+   */
+  public boolean isAdaptivePacketSizeEnabled() {
+    return adaptivePacketSizeEnabled;
+  }
+
+  /**
+   * @return the adaptivePacketSizeMin
+   */
+  public int getAdaptivePacketSizeMin() {
+    return adaptivePacketSizeMin;
+  }
+
+  /**
+   * @return the adaptivePacketSizeMax
+   */
+  public int getAdaptivePacketSizeMax() {
+    return adaptivePacketSizeMax;
+  }
+
+  /**
+   * @return the adaptivePacketSizeTargetAckLatencyMs
+   */
+  public long getAdaptivePacketSizeTargetAckLatencyMs() {
+    return adaptivePacketSizeTargetAckLatencyMs;
+  }
+
   /**
    * @return the writeMaxPackets
    */
@@ -595,6 +681,55 @@ public int getStripedReadThreadpoolSize() {
     return stripedReadThreadpoolSize;
   }
 
+  /**
+   * @return the stripedHedgedReadEnabled
+   */
+  public boolean isStripedHedgedReadEnabled() {
+    return stripedHedgedReadEnabled;
+  }
+
+  /**
+   * @return the stripedHedgedReadThresholdMillis
+   */
+  public long getStripedHedgedReadThresholdMillis() {
+    return stripedHedgedReadThresholdMillis;
+  }
+
+  /**
+   * @return the stripedHedgedReadLatencyMultiplier
+   */
+  public float getStripedHedgedReadLatencyMultiplier() {
+    return stripedHedgedReadLatencyMultiplier;
+  }
+
+  /**
+   * @return the metadataCacheEnabled
+   */
+  public boolean isMetadataCacheEnabled() {
+    return metadataCacheEnabled;
+  }
+
+  /**
+   * @return the metadataCacheMaxEntries
+   */
+  public int getMetadataCacheMaxEntries() {
+    return metadataCacheMaxEntries;
+  }
+
+  /**
+   * @return the metadataCacheTtlMs
+   */
+  public long getMetadataCacheTtlMs() {
+    return metadataCacheTtlMs;
+  }
+
+  /**
+   * @return the metadataCacheInotifyEnabled
+   */
+  public boolean isMetadataCacheInotifyEnabled() {
+    return metadataCacheInotifyEnabled;
+  }
+
   /**
    * @return the replicaAccessorBuilderClasses
    */
@@ -28,6 +28,7 @@
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -109,6 +110,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSymlinkRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DisallowSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.FinalizeUpgradeRequestProto;
@@ -159,6 +161,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ListOpenFilesResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MetaSaveRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MkdirsRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MkdirsResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ModifyCacheDirectiveRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ModifyCachePoolRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MsyncRequestProto;
@@ -169,6 +172,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.RemoveCachePoolRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.Rename2RequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.RenameRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.RenameResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.RenameSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.RenewLeaseRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ReportBadBlocksRequestProto;
@@ -321,6 +325,16 @@ public LocatedBlocks getBlockLocations(String src, long offset, long length)
         .setLength(length)
         .build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.getBlockLocations(null, req);
+        setAsyncReturnValue(message -> {
+          GetBlockLocationsResponseProto resp =
+              (GetBlockLocationsResponseProto) message;
+          return resp.hasLocations() ?
+              PBHelperClient.convert(resp.getLocations()) : null;
+        });
+        return null;
+      }
       GetBlockLocationsResponseProto resp = rpcProxy.getBlockLocations(null,
           req);
       return resp.hasLocations() ?
@@ -445,6 +459,28 @@ public void setPermission(String src, FsPermission permission)
     }
   }
 
+  /**
+   * In asynchronous mode, hand the retry layer an {@link AsyncGet} that
+   * converts the response of the call just sent once it arrives.
+   */
+  private static <T> void setAsyncReturnValue(
+      final Function<Message, T> converter) {
+    final AsyncGet<Message, Exception> asyncReturnMessage
+        = ProtobufRpcEngine.getAsyncReturnMessage();
+    final AsyncGet<T, Exception> asyncGet = new AsyncGet<T, Exception>() {
+      @Override
+      public T get(long timeout, TimeUnit unit) throws Exception {
+        return converter.apply(asyncReturnMessage.get(timeout, unit));
+      }
+
+      @Override
+      public boolean isDone() {
+        return asyncReturnMessage.isDone();
+      }
+    };
+    AsyncCallHandler.setLowerLayerAsyncReturn(asyncGet);
+  }
+
   private void setAsyncReturnValue() {
     final AsyncGet<Message, Exception> asyncReturnMessage
         = ProtobufRpcEngine.getAsyncReturnMessage();
@@ -584,6 +620,12 @@ public boolean rename(String src, String dst) throws IOException {
         .setDst(dst).build();
 
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.rename(null, req);
+        setAsyncReturnValue(
+            message -> ((RenameResponseProto) message).getResult());
+        return false;
+      }
       return rpcProxy.rename(null, req).getResult();
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
@@ -642,6 +684,12 @@ public boolean delete(String src, boolean recursive) throws IOException {
     DeleteRequestProto req = DeleteRequestProto.newBuilder().setSrc(src)
         .setRecursive(recursive).build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.delete(null, req);
+        setAsyncReturnValue(
+            message -> ((DeleteResponseProto) message).getResult());
+        return false;
+      }
       return rpcProxy.delete(null, req).getResult();
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
@@ -661,6 +709,12 @@ public boolean mkdirs(String src, FsPermission masked, boolean createParent)
     }
     MkdirsRequestProto req = builder.build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.mkdirs(null, req);
+        setAsyncReturnValue(
+            message -> ((MkdirsResponseProto) message).getResult());
+        return false;
+      }
       return rpcProxy.mkdirs(null, req).getResult();
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
@@ -675,6 +729,15 @@ public DirectoryListing getListing(String src, byte[] startAfter,
         .setStartAfter(ByteString.copyFrom(startAfter))
         .setNeedLocation(needLocation).build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.getListing(null, req);
+        setAsyncReturnValue(message -> {
+          GetListingResponseProto result = (GetListingResponseProto) message;
+          return result.hasDirList() ?
+              PBHelperClient.convert(result.getDirList()) : null;
+        });
+        return null;
+      }
       GetListingResponseProto result = rpcProxy.getListing(null, req);
 
       if (result.hasDirList()) {
@@ -908,6 +971,14 @@ public HdfsFileStatus getFileInfo(String src) throws IOException {
         .setSrc(src)
         .build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.getFileInfo(null, req);
+        setAsyncReturnValue(message -> {
+          GetFileInfoResponseProto res = (GetFileInfoResponseProto) message;
+          return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
+        });
+        return null;
+      }
       GetFileInfoResponseProto res = rpcProxy.getFileInfo(null, req);
       return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
     } catch (ServiceException e) {
@@ -48,6 +48,28 @@ public interface FederationRPCMBean {
 
   long getProxyOpNoNamenodes();
 
+  long getProxyOpPermitRejected();
+
+  /**
+   * JSON representation of the operations rejected for each nameservice
+   * because all its handlers were in use.
+   * @return JSON string representation.
+   */
+  String getProxyOpPermitRejectedPerNs();
+
+  /**
+   * JSON representation of the average time to proxy an operation to each
+   * nameservice.
+   * @return JSON string representation.
+   */
+  String getProxyAvgPerNs();
+
+  /**
+   * JSON representation of the handlers available for each nameservice.
+   * @return JSON string representation.
+   */
+  String getAvailableHandlersPerNs();
+
   long getRouterFailureStateStoreOps();
 
   long getRouterFailureReadOnlyOps();
@@ -20,6 +20,13 @@
 import static org.apache.hadoop.metrics2.impl.MsInfo.ProcessName;
 import static org.apache.hadoop.metrics2.impl.MsInfo.SessionId;
 
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.server.federation.router.RouterRpcServer;
 import org.apache.hadoop.metrics2.MetricsSystem;
@@ -29,6 +36,7 @@
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 import org.apache.hadoop.metrics2.lib.MutableRate;
+import org.eclipse.jetty.util.ajax.JSON;
 
 /**
  * Implementation of the RPC metrics collector.
@@ -62,6 +70,15 @@ public class FederationRPCMetrics implements FederationRPCMBean {
   private MutableCounterLong proxyOpRetries;
   @Metric("Number of operations to hit no namenodes available")
   private MutableCounterLong proxyOpNoNamenodes;
+  @Metric("Number of operations rejected for lack of nameservice handlers")
+  private MutableCounterLong proxyOpPermitRejected;
+
+  /** Time to proxy an operation to each nameservice. */
+  private final ConcurrentMap<String, MutableRate> proxyPerNs =
+      new ConcurrentHashMap<>();
+  /** Operations rejected for lack of handlers of each nameservice. */
+  private final ConcurrentMap<String, LongAdder> proxyOpPermitRejectedPerNs =
+      new ConcurrentHashMap<>();
 
   @Metric("Failed requests due to State Store unavailable")
   private MutableCounterLong routerFailureStateStore;
@@ -149,6 +166,37 @@ public long getProxyOpNoNamenodes() {
     return proxyOpNoNamenodes.value();
   }
 
+  /**
+   * Count an operation rejected because all the handlers of its nameservice
+   * were in use.
+   * @param nsId Nameservice identifier.
+   */
+  public void incrProxyOpPermitRejected(String nsId) {
+    proxyOpPermitRejected.incr();
+    proxyOpPermitRejectedPerNs.computeIfAbsent(nsId, ns -> new LongAdder())
+        .increment();
+  }
+
+  @Override
+  public long getProxyOpPermitRejected() {
+    return proxyOpPermitRejected.value();
+  }
+
+  @Override
+  public String getProxyOpPermitRejectedPerNs() {
+    Map<String, Long> rejected = new TreeMap<>();
+    for (Entry<String, LongAdder> entry :
+        proxyOpPermitRejectedPerNs.entrySet()) {
+      rejected.put(entry.getKey(), entry.getValue().sum());
+    }
+    return JSON.toString(rejected);
+  }
+
+  @Override
+  public String getAvailableHandlersPerNs() {
+    return rpcServer.getRPCClient().getAvailablePermitsPerNs();
+  }
+
   public void incrRouterFailureStateStore() {
     routerFailureStateStore.incr();
   }
@@ -230,6 +278,30 @@ public void addProxyTime(long time) {
     proxyOp.incr();
   }
 
+  /**
+   * Add the time to proxy an operation to a nameservice from the moment the
+   * Router sends it to the Namenode until it replied.
+   * @param time Proxy time of an operation in nanoseconds.
+   * @param nsId Nameservice identifier.
+   */
+  public void addProxyTime(long time, String nsId) {
+    addProxyTime(time);
+    if (nsId != null) {
+      proxyPerNs.computeIfAbsent(nsId, ns -> registry.newRate(
+          "Proxy" + ns, "Time for the Router to proxy an operation to " + ns,
+          false)).add(time);
+    }
+  }
+
+  @Override
+  public String getProxyAvgPerNs() {
+    Map<String, Double> avg = new TreeMap<>();
+    for (Entry<String, MutableRate> entry : proxyPerNs.entrySet()) {
+      avg.put(entry.getKey(), entry.getValue().lastStat().mean());
+    }
+    return JSON.toString(avg);
+  }
+
   @Override
   public double getProxyAvg() {
     return proxy.lastStat().mean();
@@ -136,11 +136,11 @@ public long proxyOp() {
   }
 
   @Override
-  public void proxyOpComplete(boolean success) {
+  public void proxyOpComplete(boolean success, String nsId) {
     if (success) {
       long proxyTime = getProxyTime();
       if (metrics != null && proxyTime >= 0) {
-        metrics.addProxyTime(proxyTime);
+        metrics.addProxyTime(proxyTime, nsId);
       }
     }
   }
@@ -187,6 +187,13 @@ public void proxyOpNoNamenodes() {
     }
   }
 
+  @Override
+  public void proxyOpPermitRejected(String nsId) {
+    if (metrics != null) {
+      metrics.incrProxyOpPermitRejected(nsId);
+    }
+  }
+
   @Override
   public void routerFailureStateStore() {
     if (metrics != null) {
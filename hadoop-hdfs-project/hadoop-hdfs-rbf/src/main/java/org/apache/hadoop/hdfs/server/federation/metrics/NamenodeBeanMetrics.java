@@ -744,6 +744,11 @@ public String getTopUserOpCounts() {
     return "N/A";
   }
 
+  @Override
+  public String getTopLockTimes() {
+    return "N/A";
+  }
+
   @Override
   public int getFsLockQueueLength() {
     return 0;
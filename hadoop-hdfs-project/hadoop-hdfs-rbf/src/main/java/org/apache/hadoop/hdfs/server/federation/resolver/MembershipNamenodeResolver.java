@@ -45,6 +45,8 @@
 import org.apache.hadoop.hdfs.server.federation.store.protocol.GetNamespaceInfoResponse;
 import org.apache.hadoop.hdfs.server.federation.store.protocol.NamenodeHeartbeatRequest;
 import org.apache.hadoop.hdfs.server.federation.store.protocol.UpdateNamenodeRegistrationRequest;
+import org.apache.hadoop.hdfs.server.federation.store.records.BaseRecord;
+import org.apache.hadoop.hdfs.server.federation.store.records.DisabledNameservice;
 import org.apache.hadoop.hdfs.server.federation.store.records.MembershipState;
 import org.apache.hadoop.hdfs.server.federation.store.records.MembershipStats;
 import org.apache.hadoop.util.Time;
@@ -135,6 +137,12 @@ public boolean loadCache(boolean force) {
     return true;
   }
 
+  @Override
+  public boolean dependsOn(Class<? extends BaseRecord> clazz) {
+    return MembershipState.class.isAssignableFrom(clazz) ||
+        DisabledNameservice.class.isAssignableFrom(clazz);
+  }
+
   @Override
   public void updateActiveNamenode(
       final String nsId, final InetSocketAddress address) throws IOException {
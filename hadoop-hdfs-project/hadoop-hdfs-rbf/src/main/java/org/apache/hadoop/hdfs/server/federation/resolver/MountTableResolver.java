@@ -24,11 +24,11 @@
 import static org.apache.hadoop.hdfs.server.federation.router.RBFConfigKeys.FEDERATION_MOUNT_TABLE_MAX_CACHE_SIZE_DEFAULT;
 import static org.apache.hadoop.hdfs.server.federation.router.RBFConfigKeys.FEDERATION_MOUNT_TABLE_CACHE_ENABLE;
 import static org.apache.hadoop.hdfs.server.federation.router.RBFConfigKeys.FEDERATION_MOUNT_TABLE_CACHE_ENABLE_DEFAULT;
-import static org.apache.hadoop.hdfs.server.federation.router.FederationUtil.isParentEntry;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -36,15 +36,14 @@
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -56,6 +55,7 @@
 import org.apache.hadoop.hdfs.server.federation.store.StateStoreUnavailableException;
 import org.apache.hadoop.hdfs.server.federation.store.protocol.GetMountTableEntriesRequest;
 import org.apache.hadoop.hdfs.server.federation.store.protocol.GetMountTableEntriesResponse;
+import org.apache.hadoop.hdfs.server.federation.store.records.BaseRecord;
 import org.apache.hadoop.hdfs.server.federation.store.records.MountTable;
 import org.apache.hadoop.hdfs.tools.federation.RouterAdmin;
 import org.slf4j.Logger;
@@ -70,7 +70,8 @@
  * {@link org.apache.hadoop.hdfs.server.federation.router.Router Router} to map
  * the global HDFS view to the remote namespaces. This is similar to
  * {@link org.apache.hadoop.fs.viewfs.ViewFs ViewFs}.
- * This is implemented as a tree.
+ * This is implemented as an immutable trie that is rebuilt and swapped when
+ * the mount table changes, so resolving a path does not take any lock.
  */
 public class MountTableResolver
     implements FileSubclusterResolver, StateStoreCache {
@@ -89,8 +90,10 @@
   private boolean init = false;
   /** If the mount table is manually disabled*/
   private boolean disabled = false;
-  /** Path -> Remote HDFS location. */
+  /** Path -> Remote HDFS location. Changes go here before the trie. */
   private final TreeMap<String, MountTable> tree = new TreeMap<>();
+  /** Snapshot of the tree to resolve paths, null if it has to be rebuilt. */
+  private volatile MountTableTrie trie = MountTableTrie.EMPTY;
   /** Path -> Remote location. */
   private final Cache<String, PathLocation> locationCache;
 
@@ -99,10 +102,10 @@
   /** If use default nameservice to read and write files. */
   private boolean defaultNSEnable = true;
 
-  /** Synchronization for both the tree and the cache. */
-  private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-  private final Lock readLock = readWriteLock.readLock();
-  private final Lock writeLock = readWriteLock.writeLock();
+  /** Synchronization for the changes to the tree and the trie. */
+  private final Lock writeLock = new ReentrantLock();
+  /** Listeners for the changes in the mount table. */
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
 
   @VisibleForTesting
@@ -209,19 +212,23 @@ protected MountTableStore getMountTableStore() throws IOException {
   }
 
   /**
-   * Add a mount entry to the table.
+   * Add a mount entry to the table. The trie is rebuilt the next time a path
+   * is resolved, so adding many entries one by one does not rebuild it for
+   * each of them.
    *
    * @param entry The mount table record to add from the state store.
    */
   public void addEntry(final MountTable entry) {
+    String srcPath = entry.getSourcePath();
     writeLock.lock();
     try {
-      String srcPath = entry.getSourcePath();
       this.tree.put(srcPath, entry);
-      invalidateLocationCache(srcPath);
+      this.trie = null;
     } finally {
       writeLock.unlock();
     }
+    invalidateLocationCache(Collections.singleton(srcPath));
+    notifyChangeListeners();
     this.init = true;
   }
 
@@ -234,42 +241,84 @@ public void removeEntry(final String srcPath) {
     writeLock.lock();
     try {
       this.tree.remove(srcPath);
-      invalidateLocationCache(srcPath);
+      this.trie = null;
     } finally {
       writeLock.unlock();
     }
+    invalidateLocationCache(Collections.singleton(srcPath));
+    notifyChangeListeners();
+  }
+
+  /**
+   * Add a listener called after the mount table changes, e.g. to invalidate
+   * the data cached for the paths it resolved.
+   *
+   * @param listener Listener for the changes.
+   */
+  public void addChangeListener(Runnable listener) {
+    this.changeListeners.add(listener);
+  }
+
+  /**
+   * Report a change in the mount table to the listeners.
+   */
+  private void notifyChangeListeners() {
+    for (Runnable listener : this.changeListeners) {
+      listener.run();
+    }
   }
 
   /**
-   * Invalidates all cache entries below this path. It requires the write lock.
+   * Get the current snapshot of the mount table, building it if there were
+   * changes since the last one.
    *
-   * @param path Source path.
+   * @return Snapshot of the mount table.
    */
-  private void invalidateLocationCache(final String path) {
-    LOG.debug("Invalidating {} from {}", path, locationCache);
-    if (locationCache == null || locationCache.size() == 0) {
+  private MountTableTrie getTrie() {
+    MountTableTrie current = this.trie;
+    if (current == null) {
+      writeLock.lock();
+      try {
+        current = this.trie;
+        if (current == null) {
+          current = new MountTableTrie(this.tree);
+          this.trie = current;
+        }
+      } finally {
+        writeLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Invalidates the cache entries for the paths at or below the changed mount
+   * points. It must be called after the new trie is visible, so a location
+   * built from the old one while it runs is either removed here or by
+   * {@link #getDestinationForPath(String)}.
+   *
+   * @param paths Source paths of the changed mount points.
+   */
+  private void invalidateLocationCache(final Collection<String> paths) {
+    LOG.debug("Invalidating {} from {}", paths, locationCache);
+    if (locationCache == null || locationCache.size() == 0 ||
+        paths.isEmpty()) {
       return;
     }
 
-    // Go through the entries and remove the ones from the path to invalidate
+    // Go through the entries once and remove the ones below a changed path
+    Set<String> changed = new HashSet<>(paths);
     ConcurrentMap<String, PathLocation> map = locationCache.asMap();
     Set<Entry<String, PathLocation>> entries = map.entrySet();
     Iterator<Entry<String, PathLocation>> it = entries.iterator();
     while (it.hasNext()) {
       Entry<String, PathLocation> entry = it.next();
       PathLocation loc = entry.getValue();
-      String src = loc.getSourcePath();
-      if (src != null) {
-        if (isParentEntry(src, path)) {
-          LOG.debug("Removing {}", src);
-          it.remove();
-        }
-      } else {
-        String dest = loc.getDefaultLocation().getDest();
-        if (dest.startsWith(path)) {
-          LOG.debug("Removing default cache {}", dest);
-          it.remove();
-        }
+      List<RemoteLocation> dests = loc.getDestinations();
+      if (dests.isEmpty() ||
+          isBelowAny(dests.get(0).getSrc(), changed)) {
+        LOG.debug("Removing {}", entry.getKey());
+        it.remove();
       }
     }
 
@@ -277,62 +326,85 @@ private void invalidateLocationCache(final String path) {
   }
 
   /**
-   * Updates the mount path tree with a new set of mount table entries. It also
-   * updates the needed caches.
+   * Check if a path is at or below any of the given paths.
+   *
+   * @param path Normalized path to check.
+   * @param parents Paths to check against.
+   * @return If any of the paths is a parent of the path.
+   */
+  private static boolean isBelowAny(final String path,
+      final Set<String> parents) {
+    if (parents.contains(Path.SEPARATOR) || parents.contains(path)) {
+      return true;
+    }
+    for (int i = path.indexOf(Path.SEPARATOR_CHAR, 1); i > 0;
+        i = path.indexOf(Path.SEPARATOR_CHAR, i + 1)) {
+      if (parents.contains(path.substring(0, i)) ||
+          parents.contains(path.substring(0, i + 1))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Updates the mount path tree with a new set of mount table entries. It
+   * builds a new trie, swaps it with the current one and only invalidates the
+   * cached locations below the mount points that changed.
    *
    * @param entries Full set of mount table entries to update.
    */
   @VisibleForTesting
   public void refreshEntries(final Collection<MountTable> entries) {
+    Set<String> changed = new HashSet<>();
     // The tree read/write must be atomic
     writeLock.lock();
     try {
       // New entries
-      Map<String, MountTable> newEntries = new ConcurrentHashMap<>();
+      Map<String, MountTable> newEntries = new TreeMap<>();
       for (MountTable entry : entries) {
         String srcPath = entry.getSourcePath();
         newEntries.put(srcPath, entry);
       }
 
-      // Old entries (reversed to sort from the leaves to the root)
-      Set<String> oldEntries = new TreeSet<>(Collections.reverseOrder());
-      for (MountTable entry : getTreeValues("/")) {
-        String srcPath = entry.getSourcePath();
-        oldEntries.add(srcPath);
-      }
-
       // Entries that need to be removed
-      for (String srcPath : oldEntries) {
+      Iterator<String> it = this.tree.keySet().iterator();
+      while (it.hasNext()) {
+        String srcPath = it.next();
         if (!newEntries.containsKey(srcPath)) {
-          this.tree.remove(srcPath);
-          invalidateLocationCache(srcPath);
+          it.remove();
+          changed.add(srcPath);
           LOG.info("Removed stale mount point {} from resolver", srcPath);
         }
       }
 
       // Entries that need to be added
-      for (MountTable entry : entries) {
+      for (MountTable entry : newEntries.values()) {
         String srcPath = entry.getSourcePath();
-        if (!oldEntries.contains(srcPath)) {
+        MountTable existingEntry = this.tree.put(srcPath, entry);
+        if (existingEntry == null) {
           // Add node, it does not exist
-          this.tree.put(srcPath, entry);
-          invalidateLocationCache(srcPath);
+          changed.add(srcPath);
           LOG.info("Added new mount point {} to resolver", srcPath);
-        } else {
+        } else if (!existingEntry.equals(entry)) {
           // Node exists, check for updates
-          MountTable existingEntry = this.tree.get(srcPath);
-          if (existingEntry != null && !existingEntry.equals(entry)) {
-            LOG.info("Entry has changed from \"{}\" to \"{}\"",
-                existingEntry, entry);
-            this.tree.put(srcPath, entry);
-            invalidateLocationCache(srcPath);
-            LOG.info("Updated mount point {} in resolver", srcPath);
-          }
+          LOG.info("Entry has changed from \"{}\" to \"{}\"",
+              existingEntry, entry);
+          changed.add(srcPath);
+          LOG.info("Updated mount point {} in resolver", srcPath);
         }
       }
+
+      if (!changed.isEmpty() || this.trie == null) {
+        this.trie = new MountTableTrie(this.tree);
+      }
     } finally {
       writeLock.unlock();
     }
+    invalidateLocationCache(changed);
+    if (!changed.isEmpty()) {
+      notifyChangeListeners();
+    }
     this.init = true;
   }
 
@@ -360,6 +432,11 @@ public boolean loadCache(boolean force) {
     return true;
   }
 
+  @Override
+  public boolean dependsOn(Class<? extends BaseRecord> clazz) {
+    return MountTable.class.isAssignableFrom(clazz);
+  }
+
   /**
    * Clears all data.
    */
@@ -367,31 +444,38 @@ public void clear() {
     LOG.info("Clearing all mount location caches");
     writeLock.lock();
     try {
-      if (this.locationCache != null) {
-        this.locationCache.invalidateAll();
-      }
       this.tree.clear();
+      this.trie = MountTableTrie.EMPTY;
     } finally {
       writeLock.unlock();
     }
+    if (this.locationCache != null) {
+      this.locationCache.invalidateAll();
+    }
+    notifyChangeListeners();
   }
 
   @Override
   public PathLocation getDestinationForPath(final String path)
       throws IOException {
     verifyMountTable();
-    readLock.lock();
+    final MountTableTrie current = getTrie();
     try {
       if (this.locationCache == null) {
-        return lookupLocation(path);
+        return lookupLocation(path, current);
       }
       Callable<? extends PathLocation> meh = new Callable<PathLocation>() {
         @Override
         public PathLocation call() throws Exception {
-          return lookupLocation(path);
+          return lookupLocation(path, current);
         }
       };
-      return this.locationCache.get(path, meh);
+      PathLocation ret = this.locationCache.get(path, meh);
+      if (this.trie != current) {
+        // The mount table changed while resolving, it may be stale
+        this.locationCache.invalidate(path);
+      }
+      return ret;
     } catch (ExecutionException e) {
       Throwable cause = e.getCause();
       final IOException ioe;
@@ -401,22 +485,31 @@ public PathLocation call() throws Exception {
         ioe = new IOException(cause);
       }
       throw ioe;
-    } finally {
-      readLock.unlock();
     }
   }
 
   /**
-   * Build the path location to insert into the cache atomically. It must hold
-   * the read lock.
+   * Build the path location to insert into the cache.
    * @param str Path to check/insert.
    * @return New remote location.
    * @throws IOException If it cannot find the location.
    */
   public PathLocation lookupLocation(final String str) throws IOException {
+    return lookupLocation(str, getTrie());
+  }
+
+  /**
+   * Build the path location from a snapshot of the mount table.
+   * @param str Path to check/insert.
+   * @param current Snapshot of the mount table.
+   * @return New remote location.
+   * @throws IOException If it cannot find the location.
+   */
+  private PathLocation lookupLocation(final String str,
+      final MountTableTrie current) throws IOException {
     PathLocation ret = null;
     final String path = RouterAdmin.normalizeFileSystemPath(str);
-    MountTable entry = findDeepest(path);
+    MountTable entry = current.findDeepest(path);
     if (entry != null) {
       ret = buildLocation(path, entry);
     } else {
@@ -443,7 +536,7 @@ public PathLocation lookupLocation(final String str) throws IOException {
    */
   public MountTable getMountPoint(final String path) throws IOException {
     verifyMountTable();
-    return findDeepest(RouterAdmin.normalizeFileSystemPath(path));
+    return getTrie().findDeepest(RouterAdmin.normalizeFileSystemPath(path));
   }
 
   @Override
@@ -451,49 +544,11 @@ public List<String> getMountPoints(final String str) throws IOException {
     verifyMountTable();
     final String path = RouterAdmin.normalizeFileSystemPath(str);
 
-    Set<String> children = new TreeSet<>();
-    readLock.lock();
-    try {
-      String from = path;
-      String to = path + Character.MAX_VALUE;
-      SortedMap<String, MountTable> subMap = this.tree.subMap(from, to);
-
-      boolean exists = false;
-      for (String subPath : subMap.keySet()) {
-        String child = subPath;
-
-        // Special case for /
-        if (!path.equals(Path.SEPARATOR)) {
-          // Get the children
-          int ini = path.length();
-          child = subPath.substring(ini);
-        }
-
-        if (child.isEmpty()) {
-          // This is a mount point but without children
-          exists = true;
-        } else if (child.startsWith(Path.SEPARATOR)) {
-          // This is a mount point with children
-          exists = true;
-          child = child.substring(1);
-
-          // We only return immediate children
-          int fin = child.indexOf(Path.SEPARATOR);
-          if (fin > -1) {
-            child = child.substring(0, fin);
-          }
-          if (!child.isEmpty()) {
-            children.add(child);
-          }
-        }
-      }
-      if (!exists) {
-        return null;
-      }
-      return new LinkedList<>(children);
-    } finally {
-      readLock.unlock();
+    SortedSet<String> children = getTrie().getChildren(path);
+    if (children == null) {
+      return null;
     }
+    return new LinkedList<>(children);
   }
 
   /**
@@ -520,12 +575,7 @@ private void verifyMountTable() throws StateStoreUnavailableException {
 
   @Override
   public String toString() {
-    readLock.lock();
-    try {
-      return this.tree.toString();
-    } finally {
-      readLock.unlock();
-    }
+    return getTrie().toString();
   }
 
   /**
@@ -576,36 +626,6 @@ public String getDefaultNamespace() {
     return this.defaultNameService;
   }
 
-  /**
-   * Find the deepest mount point for a path.
-   * @param path Path to look for.
-   * @return Mount table entry.
-   */
-  private MountTable findDeepest(final String path) {
-    readLock.lock();
-    try {
-      Entry<String, MountTable> entry = this.tree.floorEntry(path);
-      while (entry != null && !isParentEntry(path, entry.getKey())) {
-        entry = this.tree.lowerEntry(entry.getKey());
-      }
-      if (entry == null) {
-        return null;
-      }
-      return entry.getValue();
-    } finally {
-      readLock.unlock();
-    }
-  }
-
-  /**
-   * Get the mount table entries under a path.
-   * @param path Path to search from.
-   * @return Mount Table entries.
-   */
-  private List<MountTable> getTreeValues(final String path) {
-    return getTreeValues(path, false);
-  }
-
   /**
    * Get the mount table entries under a path.
    * @param path Path to search from.
@@ -614,20 +634,13 @@ private List<MountTable> getTreeValues(final String path) {
    */
   private List<MountTable> getTreeValues(final String path, boolean reverse) {
     LinkedList<MountTable> ret = new LinkedList<>();
-    readLock.lock();
-    try {
-      String from = path;
-      String to = path + Character.MAX_VALUE;
-      SortedMap<String, MountTable> subMap = this.tree.subMap(from, to);
-      for (MountTable entry : subMap.values()) {
-        if (!reverse) {
-          ret.add(entry);
-        } else {
-          ret.addFirst(entry);
-        }
+    SortedMap<String, MountTable> subMap = getTrie().subMap(path);
+    for (MountTable entry : subMap.values()) {
+      if (!reverse) {
+        ret.add(entry);
+      } else {
+        ret.addFirst(entry);
       }
-    } finally {
-      readLock.unlock();
     }
     return ret;
   }
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.resolver;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.server.federation.store.records.MountTable;
+
+/**
+ * Immutable snapshot of the mount table. The mount points are kept in a trie
+ * with one level per path component, so finding the deepest mount point of a
+ * path takes as many steps as the path has components, whatever the size of
+ * the mount table. A sorted copy of the entries serves the range queries.
+ * <p>
+ * A snapshot is never modified once built, so it can be read without locks
+ * while a new one is built and swapped in by {@link MountTableResolver}.
+ */
+final class MountTableTrie {
+
+  /** Snapshot without mount points. */
+  static final MountTableTrie EMPTY =
+      new MountTableTrie(Collections.<String, MountTable>emptySortedMap());
+
+  /** Node of the trie for one path component. */
+  private static final class Node {
+    /** Mount point at this path, null if it is only an intermediate path. */
+    private MountTable entry;
+    /** Path component -> child node. */
+    private final Map<String, Node> children = new HashMap<>(2);
+  }
+
+  /** Node for the root path. */
+  private final Node root = new Node();
+  /** Source path -> Mount table entry. */
+  private final SortedMap<String, MountTable> entries;
+
+  /**
+   * Build a snapshot of the mount table.
+   *
+   * @param mountPoints Source path -> Mount table entry.
+   */
+  MountTableTrie(final SortedMap<String, MountTable> mountPoints) {
+    this.entries = Collections.unmodifiableSortedMap(
+        new TreeMap<>(mountPoints));
+    for (Map.Entry<String, MountTable> e : this.entries.entrySet()) {
+      String srcPath = e.getKey();
+      if (!srcPath.startsWith(Path.SEPARATOR)) {
+        // Never a parent of a normalized path
+        continue;
+      }
+      Node node = this.root;
+      for (String name : getComponents(srcPath)) {
+        Node child = node.children.get(name);
+        if (child == null) {
+          child = new Node();
+          node.children.put(name, child);
+        }
+        node = child;
+      }
+      node.entry = e.getValue();
+    }
+  }
+
+  /**
+   * Get the components of an absolute path. A trailing separator gives an
+   * empty last component, so a mount point like /a/ is only the parent of the
+   * paths {@link org.apache.hadoop.hdfs.server.federation.router.FederationUtil
+   * #isParentEntry} considers its children.
+   *
+   * @param path Absolute path.
+   * @return Components of the path, none for the root.
+   */
+  private static String[] getComponents(final String path) {
+    if (path.equals(Path.SEPARATOR)) {
+      return new String[0];
+    }
+    return path.substring(1).split(Path.SEPARATOR, -1);
+  }
+
+  /**
+   * Find the node for a path.
+   *
+   * @param path Absolute path.
+   * @return Node for the path or null if no mount point is at or below it.
+   */
+  private Node getNode(final String path) {
+    Node node = this.root;
+    for (String name : getComponents(path)) {
+      node = node.children.get(name);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Find the deepest mount point for a path.
+   *
+   * @param path Normalized path to look for.
+   * @return Mount table entry or null if no mount point is a parent of it.
+   */
+  MountTable findDeepest(final String path) {
+    if (!path.startsWith(Path.SEPARATOR)) {
+      return null;
+    }
+    Node node = this.root;
+    MountTable deepest = node.entry;
+    for (String name : getComponents(path)) {
+      node = node.children.get(name);
+      if (node == null) {
+        break;
+      }
+      if (node.entry != null) {
+        deepest = node.entry;
+      }
+    }
+    return deepest;
+  }
+
+  /**
+   * Get the names of the immediate children of a path with mount points at
+   * or below them.
+   *
+   * @param path Normalized path.
+   * @return Sorted names or null if there is no mount point at or below it.
+   */
+  SortedSet<String> getChildren(final String path) {
+    if (path.equals(Path.SEPARATOR) && this.entries.isEmpty()) {
+      return null;
+    }
+    Node node = path.startsWith(Path.SEPARATOR) ? getNode(path) : null;
+    if (node == null) {
+      return null;
+    }
+    SortedSet<String> children = new TreeSet<>(node.children.keySet());
+    // Consecutive or trailing separators in mount points
+    children.remove("");
+    return children;
+  }
+
+  /**
+   * Get the entries in the range of a path: the path and all the paths that
+   * start with it.
+   *
+   * @param path Path to search from.
+   * @return Source path -> Mount table entry, sorted by source path.
+   */
+  SortedMap<String, MountTable> subMap(final String path) {
+    return this.entries.subMap(path, path + Character.MAX_VALUE);
+  }
+
+  /**
+   * Get all the mount points.
+   *
+   * @return Source path -> Mount table entry, sorted by source path.
+   */
+  SortedMap<String, MountTable> getEntries() {
+    return this.entries;
+  }
+
+  @Override
+  public String toString() {
+    return this.entries.toString();
+  }
+}
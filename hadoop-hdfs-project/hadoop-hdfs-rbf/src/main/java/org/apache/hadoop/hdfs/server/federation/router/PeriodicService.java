@@ -21,6 +21,7 @@
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.hadoop.service.AbstractService;
 import org.apache.hadoop.service.ServiceStateException;
@@ -52,6 +53,8 @@ public abstract class PeriodicService extends AbstractService {
 
   /** If the service is running. */
   private volatile boolean isRunning = false;
+  /** If an extra run is already waiting to be executed. */
+  private final AtomicBoolean runPending = new AtomicBoolean(false);
 
   /** How many times we run. */
   private long runCount;
@@ -167,15 +170,48 @@ protected synchronized void startPeriodic() {
     stopPeriodic();
 
     // Create the runnable service
-    Runnable updateRunnable = new Runnable() {
+    Runnable updateRunnable = newRunnable(false);
+
+    // Start the execution of the periodic service
+    this.isRunning = true;
+    this.scheduler.scheduleWithFixedDelay(
+        updateRunnable, 0, this.intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Run the service as soon as possible, without waiting for the next period.
+   * The requests received while a run is pending are served by that run.
+   */
+  protected synchronized void runNow() {
+    if (!this.isRunning || !this.runPending.compareAndSet(false, true)) {
+      return;
+    }
+    this.scheduler.execute(newRunnable(true));
+  }
+
+  /**
+   * Create the task running the service.
+   *
+   * @param now If the task is an extra run requested by {@link #runNow()}.
+   * @return Task running the service.
+   */
+  private Runnable newRunnable(final boolean now) {
+    return new Runnable() {
       @Override
       public void run() {
         LOG.debug("Running {} update task", serviceName);
         try {
+          if (now) {
+            runPending.set(false);
+          }
           if (!isRunning) {
             return;
           }
-          periodicInvoke();
+          if (now) {
+            invokeNow();
+          } else {
+            periodicInvoke();
+          }
           runCount++;
           lastRun = Time.now();
         } catch (Exception ex) {
@@ -184,15 +220,18 @@ public void run() {
         }
       }
     };
-
-    // Start the execution of the periodic service
-    this.isRunning = true;
-    this.scheduler.scheduleWithFixedDelay(
-        updateRunnable, 0, this.intervalMs, TimeUnit.MILLISECONDS);
   }
 
   /**
    * Method that the service will run periodically.
    */
   protected abstract void periodicInvoke();
+
+  /**
+   * Method that the service runs when {@link #runNow()} is called. By
+   * default, it is the same as the periodic one.
+   */
+  protected void invokeNow() {
+    periodicInvoke();
+  }
 }
\ No newline at end of file
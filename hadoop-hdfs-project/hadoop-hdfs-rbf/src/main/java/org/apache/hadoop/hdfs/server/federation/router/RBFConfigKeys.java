@@ -156,6 +156,29 @@ public class RBFConfigKeys extends CommonConfigurationKeysPublic {
   public static final long DFS_ROUTER_CLIENT_CONNECT_TIMEOUT_DEFAULT =
       TimeUnit.SECONDS.toMillis(2);
 
+  // HDFS Router fair share of the handlers between nameservices
+  public static final String DFS_ROUTER_FAIRNESS_ENABLE =
+      FEDERATION_ROUTER_PREFIX + "fairness.enable";
+  public static final boolean DFS_ROUTER_FAIRNESS_ENABLE_DEFAULT = false;
+  public static final String DFS_ROUTER_FAIRNESS_HANDLER_COUNT_KEY_PREFIX =
+      FEDERATION_ROUTER_PREFIX + "fairness.handler.count.";
+  public static final String DFS_ROUTER_FAIRNESS_ACQUIRE_TIMEOUT =
+      FEDERATION_ROUTER_PREFIX + "fairness.acquire.timeout";
+  public static final long DFS_ROUTER_FAIRNESS_ACQUIRE_TIMEOUT_DEFAULT =
+      TimeUnit.SECONDS.toMillis(1);
+
+  // HDFS Router coalescing and caching of the read-only metadata calls
+  public static final String DFS_ROUTER_METADATA_COALESCE_ENABLE =
+      FEDERATION_ROUTER_PREFIX + "metadata.coalesce.enable";
+  public static final boolean DFS_ROUTER_METADATA_COALESCE_ENABLE_DEFAULT =
+      false;
+  public static final String DFS_ROUTER_METADATA_CACHE_TTL =
+      FEDERATION_ROUTER_PREFIX + "metadata.cache.ttl";
+  public static final long DFS_ROUTER_METADATA_CACHE_TTL_DEFAULT = 0;
+  public static final String DFS_ROUTER_METADATA_CACHE_MAX_SIZE =
+      FEDERATION_ROUTER_PREFIX + "metadata.cache.max-size";
+  public static final int DFS_ROUTER_METADATA_CACHE_MAX_SIZE_DEFAULT = 10000;
+
   // HDFS Router State Store connection
   public static final String FEDERATION_FILE_RESOLVER_CLIENT_CLASS =
       FEDERATION_ROUTER_PREFIX + "file.resolver.client.class";
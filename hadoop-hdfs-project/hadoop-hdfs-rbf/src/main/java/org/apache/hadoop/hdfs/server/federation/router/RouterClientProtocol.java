@@ -140,6 +140,8 @@ public class RouterClientProtocol implements ClientProtocol {
   private final RouterSnapshot snapshotProto;
   /** Router security manager to handle token operations. */
   private RouterSecurityManager securityManager = null;
+  /** Coalescing and caching of the read-only metadata calls. */
+  private final RouterMetadataCache metadataCache;
 
   RouterClientProtocol(Configuration conf, RouterRpcServer rpcServer) {
     this.rpcServer = rpcServer;
@@ -171,6 +173,31 @@ public class RouterClientProtocol implements ClientProtocol {
     this.snapshotProto = new RouterSnapshot(rpcServer);
     this.routerCacheAdmin = new RouterCacheAdmin(rpcServer);
     this.securityManager = rpcServer.getRouterSecurityManager();
+    this.metadataCache = new RouterMetadataCache(conf, rpcServer.getRouter());
+    if (this.subclusterResolver instanceof MountTableResolver) {
+      // The mount table may move the paths to other locations
+      ((MountTableResolver) this.subclusterResolver).addChangeListener(
+          this.metadataCache::invalidateAll);
+    }
+  }
+
+  /**
+   * Invalidate the cached metadata for paths changed by a write.
+   *
+   * @param paths Paths changed by the write.
+   */
+  void invalidateMetadata(String... paths) {
+    this.metadataCache.invalidate(paths);
+  }
+
+  /**
+   * Invalidate the cached metadata for a path changed by a write which may
+   * also create its missing ancestors.
+   *
+   * @param path Path changed by the write.
+   */
+  void invalidateMetadataWithAncestors(String path) {
+    this.metadataCache.invalidateWithAncestors(path);
   }
 
   @Override
@@ -691,7 +718,7 @@ public boolean mkdirs(String src, FsPermission masked, boolean createParent)
     if (locations.size() > 1) {
       // Check if this directory already exists
       try {
-        HdfsFileStatus fileStatus = getFileInfo(src);
+        HdfsFileStatus fileStatus = getFileInfoFromNamenodes(src);
         if (fileStatus != null) {
           // When existing, the NN doesn't return an exception; return true
           return true;
@@ -725,10 +752,18 @@ public void renewLease(String clientName) throws IOException {
   }
 
   @Override
-  public DirectoryListing getListing(String src, byte[] startAfter,
-      boolean needLocation) throws IOException {
+  public DirectoryListing getListing(final String src,
+      final byte[] startAfter, final boolean needLocation) throws IOException {
     rpcServer.checkOperation(NameNode.OperationCategory.READ);
 
+    // The block locations change without writes through the Router
+    String args = DFSUtil.bytes2String(startAfter) + "," + needLocation;
+    return metadataCache.get("getListing", src, args, !needLocation,
+        () -> getListingFromNamenodes(src, startAfter, needLocation));
+  }
+
+  private DirectoryListing getListingFromNamenodes(String src,
+      byte[] startAfter, boolean needLocation) throws IOException {
     // Locate the dir and fetch the listing
     final List<RemoteLocation> locations =
         rpcServer.getLocationsForPath(src, false, false);
@@ -824,9 +859,15 @@ public DirectoryListing getListing(String src, byte[] startAfter,
   }
 
   @Override
-  public HdfsFileStatus getFileInfo(String src) throws IOException {
+  public HdfsFileStatus getFileInfo(final String src) throws IOException {
     rpcServer.checkOperation(NameNode.OperationCategory.READ);
 
+    return metadataCache.get("getFileInfo", src, "", true,
+        () -> getFileInfoFromNamenodes(src));
+  }
+
+  private HdfsFileStatus getFileInfoFromNamenodes(String src)
+      throws IOException {
     final List<RemoteLocation> locations =
         rpcServer.getLocationsForPath(src, false, false);
     RemoteMethod method = new RemoteMethod("getFileInfo",
@@ -0,0 +1,402 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.router;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.tools.federation.RouterAdmin;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * Serves the read-only metadata calls of the clients of a Router, like
+ * getFileInfo and getListing, with fewer calls to the Namenodes.
+ * <p>
+ * Identical concurrent calls from the same user are coalesced: the first one
+ * goes to the Namenodes and the others wait for its result. Optionally, the
+ * results are also kept for a short time and served to the next identical
+ * calls. The writes through this Router invalidate the results for the paths
+ * they change and their parents, or all their ancestors for the writes which
+ * may create them, and a change in the mount table invalidates all of them.
+ * The writes through other Routers or to the Namenodes directly are only
+ * visible when the cached results expire.
+ */
+public class RouterMetadataCache {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(RouterMetadataCache.class);
+
+  /** Cached value for a call which returned null. */
+  private static final Object NULL_RESULT = new Object();
+
+  /** A call to the Namenodes. */
+  public interface Call<T> {
+    T call() throws IOException;
+  }
+
+  /**
+   * Identifier of a call: user, method, path and other arguments. The keys
+   * are sorted by path first, to find the calls for a path and below it.
+   */
+  private static final class Key implements Comparable<Key> {
+    private final String user;
+    private final String method;
+    private final String path;
+    private final String args;
+
+    private Key(String user, String method, String path, String args) {
+      this.user = user;
+      this.method = method;
+      this.path = path;
+      this.args = args;
+    }
+
+    /**
+     * Get a key lower than the keys of all the calls for a path.
+     *
+     * @param path Path of the calls.
+     * @return Lowest key for the path.
+     */
+    private static Key lowest(String path) {
+      return new Key("", "", path, "");
+    }
+
+    @Override
+    public int compareTo(Key other) {
+      int cmp = path.compareTo(other.path);
+      if (cmp == 0) {
+        cmp = user.compareTo(other.user);
+      }
+      if (cmp == 0) {
+        cmp = method.compareTo(other.method);
+      }
+      if (cmp == 0) {
+        cmp = args.compareTo(other.args);
+      }
+      return cmp;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return user.equals(other.user) && method.equals(other.method) &&
+          path.equals(other.path) && args.equals(other.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(user, method, path, args);
+    }
+
+    @Override
+    public String toString() {
+      return method + "(" + path + args + ") for " + user;
+    }
+  }
+
+  /** Router to report the metrics to. */
+  private final Router router;
+  /** If identical concurrent calls are coalesced. */
+  private final boolean coalesce;
+  /** Results of the recent calls, null if they are not cached. */
+  private final Cache<Key, Object> cache;
+  /** Keys of the cached results, to find the ones a write invalidates. */
+  private final NavigableSet<Key> cachedKeys = new ConcurrentSkipListSet<>();
+  /** Calls to the Namenodes other identical calls can wait for. */
+  private final ConcurrentNavigableMap<Key, CompletableFuture<Object>>
+      inFlight = new ConcurrentSkipListMap<>();
+  /** Number of invalidations, to not cache results older than them. */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public RouterMetadataCache(Configuration conf, Router router) {
+    this.router = router;
+    this.coalesce = conf.getBoolean(
+        RBFConfigKeys.DFS_ROUTER_METADATA_COALESCE_ENABLE,
+        RBFConfigKeys.DFS_ROUTER_METADATA_COALESCE_ENABLE_DEFAULT);
+    long ttlMs = conf.getTimeDuration(
+        RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_TTL,
+        RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_TTL_DEFAULT,
+        TimeUnit.MILLISECONDS);
+    if (ttlMs > 0) {
+      int maxSize = conf.getInt(
+          RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_MAX_SIZE,
+          RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_MAX_SIZE_DEFAULT);
+      this.cache = CacheBuilder.newBuilder()
+          .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+          .maximumSize(maxSize)
+          .removalListener(this::onRemoval)
+          .build();
+      LOG.info("Caching metadata results for {}ms, up to {} results",
+          ttlMs, maxSize);
+    } else {
+      this.cache = null;
+    }
+  }
+
+  /**
+   * Check if calls go through the cache.
+   *
+   * @return If coalescing or caching is enabled.
+   */
+  public boolean isEnabled() {
+    return this.coalesce || this.cache != null;
+  }
+
+  /**
+   * Get the result of a read-only call, from the cache, from an identical
+   * call in progress or from the Namenodes.
+   *
+   * @param method Name of the method.
+   * @param path Path the call reads.
+   * @param args Other arguments of the call.
+   * @param cacheable If the result can be cached.
+   * @param call Call to the Namenodes.
+   * @return Result of the call.
+   * @throws IOException If the call to the Namenodes fails.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String method, String path, String args, boolean cacheable,
+      Call<T> call) throws IOException {
+    if (!isEnabled()) {
+      return call.call();
+    }
+    UserGroupInformation ugi = RouterRpcServer.getRemoteUser();
+    Key key = new Key(ugi.getUserName(), method, normalize(path), args);
+    cacheable &= this.cache != null;
+
+    if (cacheable) {
+      Object cached = this.cache.getIfPresent(key);
+      RouterMetrics metrics = router.getRouterMetrics();
+      if (cached != null) {
+        if (metrics != null) {
+          metrics.incrMetadataCacheHit();
+        }
+        return cached == NULL_RESULT ? null : (T) cached;
+      }
+      if (metrics != null) {
+        metrics.incrMetadataCacheMiss();
+      }
+    }
+
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    if (this.coalesce) {
+      CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+      if (existing != null) {
+        RouterMetrics metrics = router.getRouterMetrics();
+        if (metrics != null) {
+          metrics.incrMetadataCoalesced();
+        }
+        LOG.debug("Waiting for the result of {}", key);
+        return (T) waitFor(existing);
+      }
+    }
+
+    long invalidationsBefore = invalidations.get();
+    try {
+      T ret = call.call();
+      future.complete(ret);
+      if (cacheable) {
+        synchronized (cachedKeys) {
+          cachedKeys.add(key);
+          this.cache.put(key, ret == null ? NULL_RESULT : ret);
+        }
+        if (invalidations.get() != invalidationsBefore) {
+          // A write might have changed the result while it was read
+          this.cache.invalidate(key);
+        }
+      }
+      return ret;
+    } catch (IOException | RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      if (this.coalesce) {
+        inFlight.remove(key, future);
+      }
+    }
+  }
+
+  /**
+   * Wait for the result of a call in progress.
+   *
+   * @param future Result of the call.
+   * @return Result of the call.
+   * @throws IOException If the call failed or the wait was interrupted.
+   */
+  private static Object waitFor(CompletableFuture<Object> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted waiting for a coalesced call");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Forget the key of a result removed from the cache, unless it was cached
+   * again in the meantime.
+   *
+   * @param notification Removal of the result.
+   */
+  private void onRemoval(RemovalNotification<Key, Object> notification) {
+    if (notification.getCause() == RemovalCause.REPLACED) {
+      return;
+    }
+    Key key = notification.getKey();
+    synchronized (cachedKeys) {
+      if (!this.cache.asMap().containsKey(key)) {
+        cachedKeys.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Invalidate the results for paths changed by a write, for the paths below
+   * them and for their parents. The calls in progress for them are not shared
+   * with later calls anymore.
+   *
+   * @param paths Paths changed by the write.
+   */
+  public void invalidate(String... paths) {
+    invalidate(false, paths);
+  }
+
+  /**
+   * Invalidate the results for a path changed by a write which may also
+   * create its missing ancestors, for the paths below it and for all its
+   * ancestors.
+   *
+   * @param path Path changed by the write.
+   */
+  public void invalidateWithAncestors(String path) {
+    invalidate(true, path);
+  }
+
+  /**
+   * Invalidate all the results and the calls in progress, e.g. when the mount
+   * table changes the locations of the paths.
+   */
+  public void invalidateAll() {
+    if (!isEnabled()) {
+      return;
+    }
+    invalidations.incrementAndGet();
+    LOG.debug("Invalidating all the metadata");
+    if (this.cache != null) {
+      this.cache.invalidateAll();
+    }
+    inFlight.clear();
+  }
+
+  private void invalidate(boolean ancestors, String... paths) {
+    if (!isEnabled()) {
+      return;
+    }
+    invalidations.incrementAndGet();
+    for (String src : paths) {
+      if (src == null) {
+        continue;
+      }
+      String path = normalize(src);
+      // The path and the paths below it
+      removeAffected(Key.lowest(path), Key.lowest(path + '\0'));
+      String prefix = path.endsWith(Path.SEPARATOR) ?
+          path : path + Path.SEPARATOR;
+      removeAffected(Key.lowest(prefix),
+          Key.lowest(prefix.substring(0, prefix.length() - 1) +
+              (char) (Path.SEPARATOR_CHAR + 1)));
+      // Its parent or all its ancestors
+      for (String parent = getParent(path); parent != null;
+          parent = ancestors ? getParent(parent) : null) {
+        removeAffected(Key.lowest(parent), Key.lowest(parent + '\0'));
+      }
+    }
+  }
+
+  /**
+   * Remove the results and the calls in progress in a range of keys.
+   *
+   * @param from Lowest key to remove, inclusive.
+   * @param to Highest key to remove, exclusive.
+   */
+  private void removeAffected(Key from, Key to) {
+    if (this.cache != null) {
+      for (Key key : cachedKeys.subSet(from, to)) {
+        LOG.debug("Invalidating {}", key);
+        this.cache.invalidate(key);
+      }
+    }
+    for (Key key : inFlight.subMap(from, to).keySet()) {
+      LOG.debug("Invalidating {}", key);
+      inFlight.remove(key);
+    }
+  }
+
+  /**
+   * Normalize a path, so the calls for the same path share their keys.
+   *
+   * @param path Path of a call.
+   * @return Path without repeated or trailing separators.
+   */
+  private static String normalize(String path) {
+    return RouterAdmin.normalizeFileSystemPath(path);
+  }
+
+  private static String getParent(String path) {
+    int index = path.lastIndexOf(Path.SEPARATOR);
+    if (index < 0 || path.equals(Path.SEPARATOR)) {
+      return null;
+    }
+    return index == 0 ? Path.SEPARATOR : path.substring(0, index);
+  }
+}
@@ -27,6 +27,7 @@
 import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 import org.apache.hadoop.metrics2.lib.MutableGaugeInt;
 import org.apache.hadoop.metrics2.source.JvmMetrics;
 
@@ -41,6 +42,12 @@ public class RouterMetrics {
 
   @Metric("Duration in SafeMode at startup in msec")
   private MutableGaugeInt safeModeTime;
+  @Metric("Number of metadata calls served from the cache")
+  private MutableCounterLong metadataCacheHit;
+  @Metric("Number of cacheable metadata calls not in the cache")
+  private MutableCounterLong metadataCacheMiss;
+  @Metric("Number of metadata calls which waited for an identical call")
+  private MutableCounterLong metadataCoalesced;
 
   private JvmMetrics jvmMetrics = null;
 
@@ -70,4 +77,28 @@ public void shutdown() {
   public void setSafeModeTime(long elapsed) {
     safeModeTime.set((int) elapsed);
   }
+
+  public void incrMetadataCacheHit() {
+    metadataCacheHit.incr();
+  }
+
+  public long getMetadataCacheHit() {
+    return metadataCacheHit.value();
+  }
+
+  public void incrMetadataCacheMiss() {
+    metadataCacheMiss.incr();
+  }
+
+  public long getMetadataCacheMiss() {
+    return metadataCacheMiss.value();
+  }
+
+  public void incrMetadataCoalesced() {
+    metadataCoalesced.incr();
+  }
+
+  public long getMetadataCoalesced() {
+    return metadataCoalesced.value();
+  }
 }
@@ -53,6 +53,7 @@
 import java.util.regex.Pattern;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.DFSUtilClient;
 import org.apache.hadoop.hdfs.NameNodeProxiesClient.ProxyAndInfo;
 import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
@@ -112,6 +113,8 @@ public class RouterRpcClient {
   private final RetryPolicy retryPolicy;
   /** Optional perf monitor. */
   private final RouterRpcMonitor rpcMonitor;
+  /** Optional share of the handlers for each nameservice. */
+  private final RouterRpcFairnessController fairnessController;
 
   /** Pattern to parse a stack trace line. */
   private static final Pattern STACK_TRACE_PATTERN =
@@ -155,6 +158,14 @@ public RouterRpcClient(Configuration conf, Router router,
 
     this.rpcMonitor = monitor;
 
+    if (conf.getBoolean(RBFConfigKeys.DFS_ROUTER_FAIRNESS_ENABLE,
+        RBFConfigKeys.DFS_ROUTER_FAIRNESS_ENABLE_DEFAULT)) {
+      this.fairnessController = new RouterRpcFairnessController(
+          conf, DFSUtilClient.getNameServiceIds(conf));
+    } else {
+      this.fairnessController = null;
+    }
+
     int maxFailoverAttempts = conf.getInt(
         HdfsClientConfigKeys.Failover.MAX_ATTEMPTS_KEY,
         HdfsClientConfigKeys.Failover.MAX_ATTEMPTS_DEFAULT);
@@ -263,6 +274,19 @@ public String getJSON() {
     return this.connectionManager.getJSON();
   }
 
+  /**
+   * JSON representation of the handlers available for each nameservice.
+   *
+   * @return String representation of the JSON, empty if the handlers are not
+   *         shared out between the nameservices.
+   */
+  public String getAvailablePermitsPerNs() {
+    if (this.fairnessController == null) {
+      return "{}";
+    }
+    return this.fairnessController.getAvailablePermitsPerNs();
+  }
+
   /**
    * Get ClientProtocol proxy client for a NameNode. Each combination of user +
    * NN must use a unique proxy client. Previously created clients are cached
@@ -389,6 +413,54 @@ private Object invokeMethod(
           + router.getRouterId());
     }
 
+    final String nsId = namenodes.get(0).getNameserviceId();
+    acquirePermit(nsId, method);
+    try {
+      return invokeMethod(ugi, nsId, namenodes, protocol, method, params);
+    } finally {
+      releasePermit(nsId);
+    }
+  }
+
+  /**
+   * Get a permit to call a nameservice if the handlers are shared out between
+   * the nameservices.
+   *
+   * @param nsId Nameservice identifier.
+   * @param method Remote ClientProtcol method to invoke.
+   * @throws StandbyException If the nameservice uses all its handlers.
+   */
+  private void acquirePermit(final String nsId, final Method method)
+      throws StandbyException {
+    if (fairnessController != null &&
+        !fairnessController.acquirePermit(nsId)) {
+      if (rpcMonitor != null) {
+        rpcMonitor.proxyOpPermitRejected(nsId);
+      }
+      String msg = "Not enough handlers for " + nsId + " to invoke "
+          + method.getName();
+      LOG.debug(msg);
+      throw new StandbyException(
+          "Router " + router.getRouterId() + " is overloaded: " + msg);
+    }
+  }
+
+  private void releasePermit(final String nsId) {
+    if (fairnessController != null) {
+      fairnessController.releasePermit(nsId);
+    }
+  }
+
+  /**
+   * Invokes a method against the namenodes of a nameservice, see
+   * {@link #invokeMethod(UserGroupInformation, List, Class, Method, Object...)}.
+   */
+  private Object invokeMethod(
+      final UserGroupInformation ugi, final String nsId,
+      final List<? extends FederationNamenodeContext> namenodes,
+      final Class<?> protocol, final Method method, final Object... params)
+          throws ConnectException, StandbyException, IOException {
+
     Object ret = null;
     if (rpcMonitor != null) {
       rpcMonitor.proxyOp();
@@ -397,7 +469,6 @@ private Object invokeMethod(
     Map<FederationNamenodeContext, IOException> ioes = new LinkedHashMap<>();
     for (FederationNamenodeContext namenode : namenodes) {
       ConnectionContext connection = null;
-      String nsId = namenode.getNameserviceId();
       String rpcAddress = namenode.getRpcAddress();
       try {
         connection = this.getConnection(ugi, nsId, rpcAddress, protocol);
@@ -411,7 +482,7 @@ private Object invokeMethod(
           namenodeResolver.updateActiveNamenode(nsId, address);
         }
         if (this.rpcMonitor != null) {
-          this.rpcMonitor.proxyOpComplete(true);
+          this.rpcMonitor.proxyOpComplete(true, nsId);
         }
         return ret;
       } catch (IOException ioe) {
@@ -430,7 +501,7 @@ private Object invokeMethod(
           failover = true;
         } else if (ioe instanceof RemoteException) {
           if (this.rpcMonitor != null) {
-            this.rpcMonitor.proxyOpComplete(true);
+            this.rpcMonitor.proxyOpComplete(true, nsId);
           }
           // RemoteException returned by NN
           throw (RemoteException) ioe;
@@ -457,7 +528,7 @@ private Object invokeMethod(
           // Communication retries are handled by the retry policy
           if (this.rpcMonitor != null) {
             this.rpcMonitor.proxyOpFailureCommunicate();
-            this.rpcMonitor.proxyOpComplete(false);
+            this.rpcMonitor.proxyOpComplete(false, nsId);
           }
           throw ioe;
         }
@@ -468,7 +539,7 @@ private Object invokeMethod(
       }
     }
     if (this.rpcMonitor != null) {
-      this.rpcMonitor.proxyOpComplete(false);
+      this.rpcMonitor.proxyOpComplete(false, nsId);
     }
 
     // All namenodes were unavailable or in standby
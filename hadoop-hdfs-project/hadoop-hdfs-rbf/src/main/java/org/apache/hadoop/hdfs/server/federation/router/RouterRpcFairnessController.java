@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.router;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.eclipse.jetty.util.ajax.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gives each nameservice a share of the Router handlers, so that requests to
+ * a slow or overloaded nameservice cannot take all of them and block the
+ * requests to the other nameservices.
+ * <p>
+ * A request needs a permit of its nameservice for every call it proxies to
+ * it. A nameservice gets the number of permits in
+ * {@link RBFConfigKeys#DFS_ROUTER_FAIRNESS_HANDLER_COUNT_KEY_PREFIX} +
+ * nameservice; the handlers left are split evenly between the other
+ * nameservices, with at least one permit each. Waiting requests get the
+ * permits of their nameservice in arrival order.
+ */
+public class RouterRpcFairnessController {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(RouterRpcFairnessController.class);
+
+  /** Permits for the calls to each nameservice. */
+  private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+  /** Permits for a nameservice without a configured number of handlers. */
+  private final int defaultPermits;
+  /** Time to wait for a permit in milliseconds. */
+  private final long acquireTimeoutMs;
+
+  /**
+   * Create the controller for the handlers of a Router.
+   *
+   * @param conf Configuration of the Router.
+   * @param nameservices Nameservices known when the Router starts.
+   */
+  public RouterRpcFairnessController(Configuration conf,
+      Collection<String> nameservices) {
+    int handlerCount = conf.getInt(RBFConfigKeys.DFS_ROUTER_HANDLER_COUNT_KEY,
+        RBFConfigKeys.DFS_ROUTER_HANDLER_COUNT_DEFAULT);
+    this.acquireTimeoutMs = conf.getTimeDuration(
+        RBFConfigKeys.DFS_ROUTER_FAIRNESS_ACQUIRE_TIMEOUT,
+        RBFConfigKeys.DFS_ROUTER_FAIRNESS_ACQUIRE_TIMEOUT_DEFAULT,
+        TimeUnit.MILLISECONDS);
+
+    Map<String, String> configured = conf.getPropsWithPrefix(
+        RBFConfigKeys.DFS_ROUTER_FAIRNESS_HANDLER_COUNT_KEY_PREFIX);
+    int assigned = 0;
+    for (Entry<String, String> entry : configured.entrySet()) {
+      String nsId = entry.getKey();
+      int count = Integer.parseInt(entry.getValue().trim());
+      if (count <= 0) {
+        throw new IllegalArgumentException("Invalid number of handlers "
+            + count + " for nameservice " + nsId);
+      }
+      this.permits.put(nsId, new Semaphore(count, true));
+      assigned += count;
+    }
+    if (assigned > handlerCount) {
+      throw new IllegalArgumentException("The " + assigned
+          + " handlers assigned to nameservices exceed the " + handlerCount
+          + " handlers of the Router");
+    }
+
+    int others = 0;
+    for (String nsId : nameservices) {
+      if (!configured.containsKey(nsId)) {
+        others++;
+      }
+    }
+    this.defaultPermits =
+        Math.max(1, (handlerCount - assigned) / Math.max(1, others));
+    for (String nsId : nameservices) {
+      getPermits(nsId);
+    }
+    LOG.info("Router handlers per nameservice: {}, {} for the others",
+        getAvailablePermitsPerNs(), defaultPermits);
+  }
+
+  private Semaphore getPermits(String nsId) {
+    return permits.computeIfAbsent(
+        nsId, ns -> new Semaphore(defaultPermits, true));
+  }
+
+  /**
+   * Wait for a permit to call a nameservice.
+   *
+   * @param nsId Nameservice identifier.
+   * @return If the permit was granted before the timeout.
+   */
+  public boolean acquirePermit(String nsId) {
+    try {
+      return getPermits(nsId).tryAcquire(
+          acquireTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Return the permit of a call to a nameservice.
+   *
+   * @param nsId Nameservice identifier.
+   */
+  public void releasePermit(String nsId) {
+    getPermits(nsId).release();
+  }
+
+  /**
+   * JSON representation of the free permits of each nameservice.
+   *
+   * @return String representation of the JSON.
+   */
+  public String getAvailablePermitsPerNs() {
+    Map<String, Integer> available = new TreeMap<>();
+    for (Entry<String, Semaphore> entry : new HashMap<>(permits).entrySet()) {
+      available.put(entry.getKey(), entry.getValue().availablePermits());
+    }
+    return JSON.toString(available);
+  }
+}
@@ -61,8 +61,9 @@ void init(
   /**
    * Mark a proxy operation as completed.
    * @param success If the operation was successful.
+   * @param nsId Nameservice the operation was proxied to.
    */
-  void proxyOpComplete(boolean success);
+  void proxyOpComplete(boolean success, String nsId);
 
   /**
    * Failed to proxy an operation to a Namenode because it was in standby.
@@ -97,6 +98,13 @@ void init(
    */
   void proxyOpNoNamenodes();
 
+  /**
+   * Rejected an operation because all the handlers for its nameservice were
+   * in use.
+   * @param nsId Nameservice identifier.
+   */
+  void proxyOpPermitRejected(String nsId);
+
   /**
    * If the Router cannot contact the State Store in an operation.
    */
@@ -361,6 +361,15 @@ public RouterRpcServer(Configuration configuration, Router router,
     this.routerProto = new RouterUserProtocol(this);
   }
 
+  /**
+   * Get the Router using this RPC server.
+   *
+   * @return Router using this RPC server.
+   */
+  Router getRouter() {
+    return this.router;
+  }
+
   @Override
   protected void serviceInit(Configuration configuration) throws Exception {
     this.conf = configuration;
@@ -606,8 +615,17 @@ public HdfsFileStatus create(String src, FsPermission masked,
       CryptoProtocolVersion[] supportedVersions, String ecPolicyName,
       String storagePolicy)
       throws IOException {
-    return clientProto.create(src, masked, clientName, flag, createParent,
-        replication, blockSize, supportedVersions, ecPolicyName, storagePolicy);
+    try {
+      return clientProto.create(src, masked, clientName, flag, createParent,
+          replication, blockSize, supportedVersions, ecPolicyName,
+          storagePolicy);
+    } finally {
+      if (createParent) {
+        clientProto.invalidateMetadataWithAncestors(src);
+      } else {
+        clientProto.invalidateMetadata(src);
+      }
+    }
   }
 
 
@@ -681,7 +699,11 @@ private RemoteLocation getExistingLocation(String src,
   @Override // ClientProtocol
   public LastBlockWithStatus append(String src, final String clientName,
       final EnumSetWritable<CreateFlag> flag) throws IOException {
-    return clientProto.append(src, clientName, flag);
+    try {
+      return clientProto.append(src, clientName, flag);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -693,13 +715,21 @@ public boolean recoverLease(String src, String clientName)
   @Override // ClientProtocol
   public boolean setReplication(String src, short replication)
       throws IOException {
-    return clientProto.setReplication(src, replication);
+    try {
+      return clientProto.setReplication(src, replication);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void setStoragePolicy(String src, String policyName)
       throws IOException {
-    clientProto.setStoragePolicy(src, policyName);
+    try {
+      clientProto.setStoragePolicy(src, policyName);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -710,13 +740,21 @@ public BlockStoragePolicy[] getStoragePolicies() throws IOException {
   @Override // ClientProtocol
   public void setPermission(String src, FsPermission permissions)
       throws IOException {
-    clientProto.setPermission(src, permissions);
+    try {
+      clientProto.setPermission(src, permissions);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void setOwner(String src, String username, String groupname)
       throws IOException {
-    clientProto.setOwner(src, username, groupname);
+    try {
+      clientProto.setOwner(src, username, groupname);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   /**
@@ -728,8 +766,12 @@ public LocatedBlock addBlock(String src, String clientName,
       ExtendedBlock previous, DatanodeInfo[] excludedNodes, long fileId,
       String[] favoredNodes, EnumSet<AddBlockFlag> addBlockFlags)
       throws IOException {
-    return clientProto.addBlock(src, clientName, previous, excludedNodes,
-        fileId, favoredNodes, addBlockFlags);
+    try {
+      return clientProto.addBlock(src, clientName, previous, excludedNodes,
+          fileId, favoredNodes, addBlockFlags);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   /**
@@ -755,7 +797,11 @@ public void abandonBlock(ExtendedBlock b, long fileId, String src,
   @Override // ClientProtocol
   public boolean complete(String src, String clientName, ExtendedBlock last,
       long fileId) throws IOException {
-    return clientProto.complete(src, clientName, last, fileId);
+    try {
+      return clientProto.complete(src, clientName, last, fileId);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -785,35 +831,64 @@ public long getPreferredBlockSize(String src) throws IOException {
   @Override // ClientProtocol
   public boolean rename(final String src, final String dst)
       throws IOException {
-    return clientProto.rename(src, dst);
+    try {
+      return clientProto.rename(src, dst);
+    } finally {
+      clientProto.invalidateMetadata(src, dst);
+    }
   }
 
   @Override // ClientProtocol
   public void rename2(final String src, final String dst,
       final Options.Rename... options) throws IOException {
-    clientProto.rename2(src, dst, options);
+    try {
+      clientProto.rename2(src, dst, options);
+    } finally {
+      clientProto.invalidateMetadata(src, dst);
+    }
   }
 
   @Override // ClientProtocol
   public void concat(String trg, String[] src) throws IOException {
-    clientProto.concat(trg, src);
+    try {
+      clientProto.concat(trg, src);
+    } finally {
+      clientProto.invalidateMetadata(trg);
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public boolean truncate(String src, long newLength, String clientName)
       throws IOException {
-    return clientProto.truncate(src, newLength, clientName);
+    try {
+      return clientProto.truncate(src, newLength, clientName);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public boolean delete(String src, boolean recursive) throws IOException {
-    return clientProto.delete(src, recursive);
+    try {
+      return clientProto.delete(src, recursive);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public boolean mkdirs(String src, FsPermission masked, boolean createParent)
       throws IOException {
-    return clientProto.mkdirs(src, masked, createParent);
+    try {
+      return clientProto.mkdirs(src, masked, createParent);
+    } finally {
+      if (createParent) {
+        clientProto.invalidateMetadataWithAncestors(src);
+      } else {
+        clientProto.invalidateMetadata(src);
+      }
+    }
   }
 
   @Override // ClientProtocol
@@ -1001,18 +1076,30 @@ public ContentSummary getContentSummary(String path) throws IOException {
   @Override // ClientProtocol
   public void fsync(String src, long fileId, String clientName,
       long lastBlockLength) throws IOException {
-    clientProto.fsync(src, fileId, clientName, lastBlockLength);
+    try {
+      clientProto.fsync(src, fileId, clientName, lastBlockLength);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void setTimes(String src, long mtime, long atime) throws IOException {
-    clientProto.setTimes(src, mtime, atime);
+    try {
+      clientProto.setTimes(src, mtime, atime);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void createSymlink(String target, String link, FsPermission dirPerms,
       boolean createParent) throws IOException {
-    clientProto.createSymlink(target, link, dirPerms, createParent);
+    try {
+      clientProto.createSymlink(target, link, dirPerms, createParent);
+    } finally {
+      clientProto.invalidateMetadata(link);
+    }
   }
 
   @Override // ClientProtocol
@@ -1022,18 +1109,31 @@ public String getLinkTarget(String path) throws IOException {
 
   @Override // ClientProtocol
   public void allowSnapshot(String snapshotRoot) throws IOException {
-    clientProto.allowSnapshot(snapshotRoot);
+    try {
+      clientProto.allowSnapshot(snapshotRoot);
+    } finally {
+      clientProto.invalidateMetadata(snapshotRoot);
+    }
   }
 
   @Override // ClientProtocol
   public void disallowSnapshot(String snapshot) throws IOException {
-    clientProto.disallowSnapshot(snapshot);
+    try {
+      clientProto.disallowSnapshot(snapshot);
+    } finally {
+      clientProto.invalidateMetadata(snapshot);
+    }
   }
 
   @Override // ClientProtocol
   public void renameSnapshot(String snapshotRoot, String snapshotOldName,
       String snapshotNewName) throws IOException {
-    clientProto.renameSnapshot(snapshotRoot, snapshotOldName, snapshotNewName);
+    try {
+      clientProto.renameSnapshot(
+          snapshotRoot, snapshotOldName, snapshotNewName);
+    } finally {
+      clientProto.invalidateMetadata(snapshotRoot);
+    }
   }
 
   @Override // ClientProtocol
@@ -1104,28 +1204,48 @@ public BatchedEntries<CachePoolEntry> listCachePools(String prevKey)
   @Override // ClientProtocol
   public void modifyAclEntries(String src, List<AclEntry> aclSpec)
       throws IOException {
-    clientProto.modifyAclEntries(src, aclSpec);
+    try {
+      clientProto.modifyAclEntries(src, aclSpec);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClienProtocol
   public void removeAclEntries(String src, List<AclEntry> aclSpec)
       throws IOException {
-    clientProto.removeAclEntries(src, aclSpec);
+    try {
+      clientProto.removeAclEntries(src, aclSpec);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void removeDefaultAcl(String src) throws IOException {
-    clientProto.removeDefaultAcl(src);
+    try {
+      clientProto.removeDefaultAcl(src);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void removeAcl(String src) throws IOException {
-    clientProto.removeAcl(src);
+    try {
+      clientProto.removeAcl(src);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void setAcl(String src, List<AclEntry> aclSpec) throws IOException {
-    clientProto.setAcl(src, aclSpec);
+    try {
+      clientProto.setAcl(src, aclSpec);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -1136,7 +1256,11 @@ public AclStatus getAclStatus(String src) throws IOException {
   @Override // ClientProtocol
   public void createEncryptionZone(String src, String keyName)
       throws IOException {
-    clientProto.createEncryptionZone(src, keyName);
+    try {
+      clientProto.createEncryptionZone(src, keyName);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -1207,13 +1331,21 @@ public DataEncryptionKey getDataEncryptionKey() throws IOException {
   @Override // ClientProtocol
   public String createSnapshot(String snapshotRoot, String snapshotName)
       throws IOException {
-    return clientProto.createSnapshot(snapshotRoot, snapshotName);
+    try {
+      return clientProto.createSnapshot(snapshotRoot, snapshotName);
+    } finally {
+      clientProto.invalidateMetadata(snapshotRoot);
+    }
   }
 
   @Override // ClientProtocol
   public void deleteSnapshot(String snapshotRoot, String snapshotName)
       throws IOException {
-    clientProto.deleteSnapshot(snapshotRoot, snapshotName);
+    try {
+      clientProto.deleteSnapshot(snapshotRoot, snapshotName);
+    } finally {
+      clientProto.invalidateMetadata(snapshotRoot);
+    }
   }
 
   @Override // ClientProtocol
@@ -1234,7 +1366,11 @@ public void reportBadBlocks(LocatedBlock[] blocks) throws IOException {
 
   @Override // ClientProtocol
   public void unsetStoragePolicy(String src) throws IOException {
-    clientProto.unsetStoragePolicy(src);
+    try {
+      clientProto.unsetStoragePolicy(src);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
@@ -1286,12 +1422,20 @@ public ErasureCodingPolicy getErasureCodingPolicy(String src)
   @Override // ClientProtocol
   public void setErasureCodingPolicy(String src, String ecPolicyName)
       throws IOException {
-    clientProto.setErasureCodingPolicy(src, ecPolicyName);
+    try {
+      clientProto.setErasureCodingPolicy(src, ecPolicyName);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
   public void unsetErasureCodingPolicy(String src) throws IOException {
-    clientProto.unsetErasureCodingPolicy(src);
+    try {
+      clientProto.unsetErasureCodingPolicy(src);
+    } finally {
+      clientProto.invalidateMetadata(src);
+    }
   }
 
   @Override // ClientProtocol
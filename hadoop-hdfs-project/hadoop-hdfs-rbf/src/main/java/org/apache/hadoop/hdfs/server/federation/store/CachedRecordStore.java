@@ -69,6 +69,9 @@
   /** If it should override the expired values when loading the cache. */
   private boolean override = false;
 
+  /** Version of the records in the driver when the cache was loaded. */
+  private volatile long version = -1;
+
 
   /**
    * Create a new cached record store.
@@ -111,6 +114,16 @@ private void checkCacheAvailable() throws StateStoreUnavailableException {
   public boolean loadCache(boolean force) throws IOException {
     // Prevent loading the cache too frequently
     if (force || isUpdateTime()) {
+      // Get the version before the records to not miss concurrent changes
+      long newVersion = getDriver().getVersion(getRecordClass());
+      if (!this.override && this.initialized && newVersion >= 0 &&
+          newVersion == this.version) {
+        LOG.debug("{} records did not change, version {}",
+            getRecordClass().getSimpleName(), newVersion);
+        lastUpdate = Time.monotonicNow();
+        return true;
+      }
+
       List<R> newRecords = null;
       long t = -1;
       try {
@@ -136,6 +149,7 @@ public boolean loadCache(boolean force) throws IOException {
         this.records.addAll(newRecords);
         this.timestamp = t;
         this.initialized = true;
+        this.version = newVersion;
       } finally {
         writeLock.unlock();
       }
@@ -152,6 +166,11 @@ public boolean loadCache(boolean force) throws IOException {
     return true;
   }
 
+  @Override
+  public boolean dependsOn(Class<? extends BaseRecord> clazz) {
+    return getRecordClass().isAssignableFrom(clazz);
+  }
+
   /**
    * Check if it's time to update the cache. Update it it was never updated.
    *
@@ -19,6 +19,8 @@
 
 import java.io.IOException;
 
+import org.apache.hadoop.hdfs.server.federation.store.records.BaseRecord;
+
 /**
  * Interface for a cached copy of the State Store.
  */
@@ -33,4 +35,15 @@ public interface StateStoreCache {
    * @throws IOException If there was an error loading the cache.
    */
   boolean loadCache(boolean force) throws IOException;
+
+  /**
+   * Check if the cache is built from the records of a class, so it has to be
+   * loaded again when they change. By default, any change affects the cache.
+   *
+   * @param clazz Class of the changed records.
+   * @return If the cache depends on the records of the class.
+   */
+  default boolean dependsOn(Class<? extends BaseRecord> clazz) {
+    return true;
+  }
 }
@@ -17,11 +17,16 @@
  */
 package org.apache.hadoop.hdfs.server.federation.store;
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.server.federation.router.PeriodicService;
 import org.apache.hadoop.hdfs.server.federation.router.RBFConfigKeys;
+import org.apache.hadoop.hdfs.server.federation.store.records.BaseRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +44,9 @@ public class StateStoreCacheUpdateService extends PeriodicService {
 
   /** The service that manages the State Store connection. */
   private final StateStoreService stateStore;
+  /** Classes of the records that changed since the last requested update. */
+  private final Set<Class<? extends BaseRecord>> changedRecords =
+      ConcurrentHashMap.newKeySet();
 
 
   /**
@@ -62,9 +70,32 @@ protected void serviceInit(Configuration conf) throws Exception {
     super.serviceInit(conf);
   }
 
+  /**
+   * Update the caches of a record class right away, for example after the
+   * driver detected a change in the records.
+   *
+   * @param clazz Class of the changed records.
+   */
+  public void requestUpdate(Class<? extends BaseRecord> clazz) {
+    this.changedRecords.add(clazz);
+    runNow();
+  }
+
   @Override
   public void periodicInvoke() {
     LOG.debug("Updating State Store cache");
     stateStore.refreshCaches();
   }
+
+  @Override
+  protected void invokeNow() {
+    Set<Class<? extends BaseRecord>> changed = new HashSet<>();
+    Iterator<Class<? extends BaseRecord>> it = this.changedRecords.iterator();
+    while (it.hasNext()) {
+      changed.add(it.next());
+      it.remove();
+    }
+    LOG.debug("Updating State Store cache for {}", changed);
+    stateStore.refreshCaches(changed);
+  }
 }
\ No newline at end of file
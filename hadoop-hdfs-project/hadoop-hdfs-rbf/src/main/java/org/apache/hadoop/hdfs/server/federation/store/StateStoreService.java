@@ -184,6 +184,12 @@ protected void serviceInit(Configuration config) throws Exception {
     // Cache update service
     this.cacheUpdater = new StateStoreCacheUpdateService(this);
     addService(this.cacheUpdater);
+    this.driver.setChangeListener(clazz -> {
+      StateStoreCacheUpdateService updater = this.cacheUpdater;
+      if (updater != null) {
+        updater.requestUpdate(clazz);
+      }
+    });
 
     if (conf.getBoolean(RBFConfigKeys.DFS_ROUTER_METRICS_ENABLE,
         RBFConfigKeys.DFS_ROUTER_METRICS_ENABLE_DEFAULT)) {
@@ -403,20 +409,7 @@ public void refreshCaches(boolean force) {
       List<StateStoreCache> cachesToUpdate = new LinkedList<>();
       cachesToUpdate.addAll(cachesToUpdateInternal);
       cachesToUpdate.addAll(cachesToUpdateExternal);
-      for (StateStoreCache cachedStore : cachesToUpdate) {
-        String cacheName = cachedStore.getClass().getSimpleName();
-        boolean result = false;
-        try {
-          result = cachedStore.loadCache(force);
-        } catch (IOException e) {
-          LOG.error("Error updating cache for {}", cacheName, e);
-          result = false;
-        }
-        if (!result) {
-          success = false;
-          LOG.error("Cache update failed for cache {}", cacheName);
-        }
-      }
+      success = loadCaches(cachesToUpdate, force);
     } else {
       success = false;
       LOG.info("Skipping State Store cache update, driver is not ready.");
@@ -427,6 +420,76 @@ public void refreshCaches(boolean force) {
     }
   }
 
+  /**
+   * Refresh the caches which depend on the records of some classes, ignoring
+   * the cached periods. Called when the driver detects changes in the records.
+   *
+   * @param recordClasses Classes of the changed records.
+   */
+  public void refreshCaches(
+      Collection<Class<? extends BaseRecord>> recordClasses) {
+    if (!isDriverReady()) {
+      LOG.info("Skipping State Store cache update, driver is not ready.");
+      return;
+    }
+    List<StateStoreCache> cachesToUpdate = new LinkedList<>();
+    for (StateStoreCache cachedStore : cachesToUpdateInternal) {
+      if (dependsOnAny(cachedStore, recordClasses)) {
+        cachesToUpdate.add(cachedStore);
+      }
+    }
+    for (StateStoreCache cachedStore : cachesToUpdateExternal) {
+      if (dependsOnAny(cachedStore, recordClasses)) {
+        cachesToUpdate.add(cachedStore);
+      }
+    }
+    loadCaches(cachesToUpdate, true);
+  }
+
+  /**
+   * Check if a cache depends on the records of any of the classes.
+   *
+   * @param cachedStore Cache to check.
+   * @param recordClasses Classes of the records.
+   * @return If the cache depends on any of the classes.
+   */
+  private static boolean dependsOnAny(StateStoreCache cachedStore,
+      Collection<Class<? extends BaseRecord>> recordClasses) {
+    for (Class<? extends BaseRecord> clazz : recordClasses) {
+      if (cachedStore.dependsOn(clazz)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Load a list of caches from the State Store.
+   *
+   * @param cachesToUpdate Caches to load.
+   * @param force If we force the load.
+   * @return If all the caches were loaded.
+   */
+  private static boolean loadCaches(
+      List<StateStoreCache> cachesToUpdate, boolean force) {
+    boolean success = true;
+    for (StateStoreCache cachedStore : cachesToUpdate) {
+      String cacheName = cachedStore.getClass().getSimpleName();
+      boolean result = false;
+      try {
+        result = cachedStore.loadCache(force);
+      } catch (IOException e) {
+        LOG.error("Error updating cache for {}", cacheName, e);
+        result = false;
+      }
+      if (!result) {
+        success = false;
+        LOG.error("Cache update failed for cache {}", cacheName);
+      }
+    }
+    return success;
+  }
+
   /**
    * Update the cache for a specific record store.
    *
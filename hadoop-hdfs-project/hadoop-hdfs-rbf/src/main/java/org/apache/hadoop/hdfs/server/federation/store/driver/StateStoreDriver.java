@@ -19,6 +19,7 @@
 
 import java.net.InetAddress;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.server.federation.metrics.StateStoreMetrics;
@@ -50,6 +51,9 @@ public abstract class StateStoreDriver implements StateStoreRecordOperations {
   /** State Store metrics. */
   private StateStoreMetrics metrics;
 
+  /** Listener for the changes in the records detected by the driver. */
+  private volatile Consumer<Class<? extends BaseRecord>> changeListener;
+
 
   /**
    * Initialize the state store connection.
@@ -115,6 +119,42 @@ public StateStoreMetrics getMetrics() {
     return this.metrics;
   }
 
+  /**
+   * Set the listener for the changes in the records that the driver detects
+   * by itself, like the watches in ZooKeeper.
+   *
+   * @param listener Listener getting the class of the changed records.
+   */
+  public void setChangeListener(
+      Consumer<Class<? extends BaseRecord>> listener) {
+    this.changeListener = listener;
+  }
+
+  /**
+   * Report a change in the records of a class to the listener.
+   *
+   * @param clazz Class of the changed records.
+   */
+  protected void notifyChange(Class<? extends BaseRecord> clazz) {
+    Consumer<Class<? extends BaseRecord>> listener = this.changeListener;
+    if (listener != null) {
+      listener.accept(clazz);
+    }
+  }
+
+  /**
+   * Get the version of the records of a class. The version changes every time
+   * a record of the class changes, so the caches can skip the reload if it is
+   * the same as in their last load. By default, the driver does not track the
+   * changes and the records have to be reloaded every time.
+   *
+   * @param clazz Class of the records.
+   * @return Version of the records or -1 if the driver does not track it.
+   */
+  public <T extends BaseRecord> long getVersion(Class<T> clazz) {
+    return -1;
+  }
+
   /**
    * Prepare the driver to access data storage.
    *
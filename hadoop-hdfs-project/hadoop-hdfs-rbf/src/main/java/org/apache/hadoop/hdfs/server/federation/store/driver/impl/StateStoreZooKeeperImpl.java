@@ -23,8 +23,15 @@
 import static org.apache.hadoop.util.Time.monotonicNow;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
@@ -35,6 +42,11 @@
 import org.apache.hadoop.hdfs.server.federation.store.records.Query;
 import org.apache.hadoop.hdfs.server.federation.store.records.QueryResult;
 import org.apache.hadoop.util.curator.ZKCuratorManager;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.EventType;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
@@ -50,6 +62,12 @@
  * |--- MEMBERSHIP
  * |--- REBALANCER
  * |--- ROUTERS
+ * <p>
+ * With {@link #FEDERATION_STORE_ZK_WATCH_ENABLE}, the driver keeps the data of
+ * the znodes in memory and sets watches on them. Reading the records then only
+ * fetches the znodes which changed since the last read, and the changes are
+ * reported to the State Store right away so the Routers update their caches
+ * without waiting for the next periodic update.
  */
 public class StateStoreZooKeeperImpl extends StateStoreSerializableImpl {
 
@@ -64,6 +82,10 @@ public class StateStoreZooKeeperImpl extends StateStoreSerializableImpl {
       FEDERATION_STORE_ZK_DRIVER_PREFIX + "parent-path";
   public static final String FEDERATION_STORE_ZK_PARENT_PATH_DEFAULT =
       "/hdfs-federation";
+  public static final String FEDERATION_STORE_ZK_WATCH_ENABLE =
+      FEDERATION_STORE_ZK_DRIVER_PREFIX + "watch.enable";
+  public static final boolean FEDERATION_STORE_ZK_WATCH_ENABLE_DEFAULT =
+      false;
 
 
   /** Directory to store the state store data. */
@@ -73,6 +95,87 @@ public class StateStoreZooKeeperImpl extends StateStoreSerializableImpl {
   private ZKCuratorManager zkManager;
   /** ACLs for ZooKeeper. */
   private List<ACL> zkAcl;
+  /** If the znodes are cached and updated with watches. */
+  private boolean watchEnabled;
+  /** Record class znode -> Cached znodes of the records. */
+  private final Map<String, ZNodeCache> znodeCaches =
+      new ConcurrentHashMap<>();
+
+  /** Data and times of a znode. */
+  private static final class CachedZNode {
+    private final String data;
+    private final long ctime;
+    private final long mtime;
+
+    private CachedZNode(String data, Stat stat) {
+      this.data = data;
+      this.ctime = stat.getCtime();
+      this.mtime = stat.getMtime();
+    }
+  }
+
+  /**
+   * Cached znodes of a record class. The watches mark the children and the
+   * znodes that changed, so only those are read again.
+   */
+  private final class ZNodeCache implements Watcher {
+    private final String znode;
+    private final Class<? extends BaseRecord> clazz;
+    /** Version of the records, it increases with every change. */
+    private final AtomicLong version = new AtomicLong();
+    /** If the list of children has to be read again. */
+    private volatile boolean childrenChanged = true;
+    /** If the data of all the children has to be read again. */
+    private volatile boolean allChanged = false;
+    /** Children whose data has to be read again. */
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    /** Child -> Cached znode. Access under the lock of this cache. */
+    private final Map<String, CachedZNode> children = new HashMap<>();
+
+    private ZNodeCache(String znode, Class<? extends BaseRecord> clazz) {
+      this.znode = znode;
+      this.clazz = clazz;
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+      LOG.debug("Received {} for {}", event, znode);
+      if (event.getType() == EventType.None) {
+        if (event.getState() == Event.KeeperState.SyncConnected) {
+          return;
+        }
+        // The watches might be lost, read everything again
+        invalidate();
+      } else if (event.getType() == EventType.NodeChildrenChanged) {
+        this.childrenChanged = true;
+      } else if (event.getPath() != null &&
+          event.getPath().length() > znode.length() + 1) {
+        this.changed.add(event.getPath().substring(znode.length() + 1));
+      } else {
+        invalidate();
+      }
+      this.version.incrementAndGet();
+      notifyChange(clazz);
+    }
+
+    /** Read all the children and their data again. */
+    private void invalidate() {
+      this.childrenChanged = true;
+      this.allChanged = true;
+    }
+
+    /**
+     * Mark a child changed by this driver, so it is read again even before
+     * its watch is triggered.
+     *
+     * @param child Child that changed.
+     */
+    private void markChanged(String child) {
+      this.childrenChanged = true;
+      this.changed.add(child);
+      this.version.incrementAndGet();
+    }
+  }
 
 
   @Override
@@ -83,6 +186,10 @@ public boolean initDriver() {
     baseZNode = conf.get(
         FEDERATION_STORE_ZK_PARENT_PATH,
         FEDERATION_STORE_ZK_PARENT_PATH_DEFAULT);
+    watchEnabled = conf.getBoolean(
+        FEDERATION_STORE_ZK_WATCH_ENABLE,
+        FEDERATION_STORE_ZK_WATCH_ENABLE_DEFAULT);
+    znodeCaches.clear();
     try {
       this.zkManager = new ZKCuratorManager(conf);
       this.zkManager.start();
@@ -127,10 +234,32 @@ public boolean isDriverReady() {
     return curator.getState() == CuratorFrameworkState.STARTED;
   }
 
+  @Override
+  public <T extends BaseRecord> long getVersion(Class<T> clazz) {
+    if (!watchEnabled) {
+      return super.getVersion(clazz);
+    }
+    return getZNodeCache(clazz).version.get();
+  }
+
+  /**
+   * Get the cached znodes for a record class.
+   *
+   * @param clazz Record class.
+   * @return Cached znodes.
+   */
+  private ZNodeCache getZNodeCache(Class<? extends BaseRecord> clazz) {
+    String znode = getZNodeForClass(clazz);
+    return znodeCaches.computeIfAbsent(znode, z -> new ZNodeCache(z, clazz));
+  }
+
   @Override
   public <T extends BaseRecord> QueryResult<T> get(Class<T> clazz)
       throws IOException {
     verifyDriverReady();
+    if (watchEnabled) {
+      return getWatched(clazz);
+    }
     long start = monotonicNow();
     List<T> ret = new ArrayList<>();
     String znode = getZNodeForClass(clazz);
@@ -177,6 +306,123 @@ public <T extends BaseRecord> QueryResult<T> get(Class<T> clazz)
     return new QueryResult<T>(ret, getTime());
   }
 
+  /**
+   * Get the records of a class reading only the znodes that changed since the
+   * last read.
+   *
+   * @param clazz Record class.
+   * @return Records and the time of the State Store.
+   * @throws IOException If the children of the znode cannot be read.
+   */
+  private <T extends BaseRecord> QueryResult<T> getWatched(Class<T> clazz)
+      throws IOException {
+    long start = monotonicNow();
+    List<T> ret = new ArrayList<>();
+    ZNodeCache cache = getZNodeCache(clazz);
+    CuratorFramework curator = zkManager.getCurator();
+    synchronized (cache) {
+      if (cache.childrenChanged) {
+        cache.childrenChanged = false;
+        try {
+          List<String> current = curator.getChildren()
+              .usingWatcher(cache).forPath(cache.znode);
+          cache.children.keySet().retainAll(new HashSet<>(current));
+          for (String child : current) {
+            if (!cache.children.containsKey(child)) {
+              cache.changed.add(child);
+              cache.children.put(child, null);
+            }
+          }
+        } catch (Exception e) {
+          cache.childrenChanged = true;
+          getMetrics().addFailure(monotonicNow() - start);
+          String msg = "Cannot get children for \"" + cache.znode + "\": " +
+              e.getMessage();
+          LOG.error(msg);
+          throw new IOException(msg);
+        }
+      }
+
+      if (cache.allChanged) {
+        cache.allChanged = false;
+        cache.changed.addAll(cache.children.keySet());
+      }
+
+      int numRead = 0;
+      for (Map.Entry<String, CachedZNode> entry :
+          new ArrayList<>(cache.children.entrySet())) {
+        String child = entry.getKey();
+        CachedZNode cached = entry.getValue();
+        String path = getNodePath(cache.znode, child);
+        boolean changed = cache.changed.remove(child);
+        if (cached == null || changed) {
+          try {
+            Stat stat = new Stat();
+            byte[] bytes = curator.getData().storingStatIn(stat)
+                .usingWatcher(cache).forPath(path);
+            String data = bytes == null ? null :
+                new String(bytes, StandardCharsets.UTF_8);
+            cached = new CachedZNode(data, stat);
+            cache.children.put(child, cached);
+            numRead++;
+          } catch (Exception e) {
+            // Deleted since the children were listed or not readable
+            LOG.debug("Cannot get data for {}: {}", child, e.getMessage());
+            cache.children.remove(child);
+            cache.childrenChanged = true;
+            continue;
+          }
+        }
+
+        boolean corrupted = false;
+        if (cached.data == null || cached.data.equals("")) {
+          // All records should have data, otherwise this is corrupted
+          corrupted = true;
+        } else {
+          try {
+            T record = newRecord(cached.data, clazz, false);
+            record.setDateCreated(cached.ctime);
+            record.setDateModified(cached.mtime);
+            ret.add(record);
+          } catch (IOException e) {
+            LOG.error("Cannot create record type \"{}\" from \"{}\": {}",
+                clazz.getSimpleName(), cached.data, e.getMessage());
+            corrupted = true;
+          }
+        }
+
+        if (corrupted) {
+          LOG.error("Cannot get data for {} at {}, cleaning corrupted data",
+              child, path);
+          cache.children.remove(child);
+          try {
+            zkManager.delete(path);
+          } catch (Exception e) {
+            LOG.error("Cannot delete corrupted {}: {}", path, e.getMessage());
+          }
+        }
+      }
+      LOG.debug("Read {} of {} znodes for {}",
+          numRead, cache.children.size(), clazz.getSimpleName());
+    }
+    long end = monotonicNow();
+    getMetrics().addRead(end - start);
+    return new QueryResult<T>(ret, getTime());
+  }
+
+  /**
+   * Mark a record znode changed by this driver, so the next read gets it even
+   * if the watch is not triggered yet.
+   *
+   * @param clazz Record class.
+   * @param child Name of the znode of the record.
+   */
+  private void markChanged(Class<? extends BaseRecord> clazz, String child) {
+    if (watchEnabled) {
+      getZNodeCache(clazz).markChanged(child);
+    }
+  }
+
   @Override
   public <T extends BaseRecord> boolean putAll(
       List<T> records, boolean update, boolean error) throws IOException {
@@ -199,6 +445,7 @@ public <T extends BaseRecord> boolean putAll(
       if (!writeNode(recordZNode, data, update, error)){
         status = false;
       }
+      markChanged(recordClass, primaryKey);
     }
     long end = monotonicNow();
     if (status) {
@@ -240,6 +487,7 @@ public <T extends BaseRecord> int remove(
       try {
         String primaryKey = getPrimaryKey(existingRecord);
         String path = getNodePath(znode, primaryKey);
+        markChanged(clazz, primaryKey);
         if (zkManager.delete(path)) {
           removed++;
         } else {
@@ -269,6 +517,7 @@ public <T extends BaseRecord> boolean removeAll(Class<T> clazz)
       for (String child : children) {
         String path = getNodePath(znode, child);
         LOG.info("Deleting {}", path);
+        markChanged(clazz, child);
         zkManager.delete(path);
       }
     } catch (Exception e) {
@@ -287,14 +536,27 @@ public <T extends BaseRecord> boolean removeAll(Class<T> clazz)
   private boolean writeNode(
       String znode, byte[] bytes, boolean update, boolean error) {
     try {
-      boolean created = zkManager.create(znode);
+      // Create the znode with its data, readers should never see it empty
+      boolean created = false;
+      if (!zkManager.exists(znode)) {
+        try {
+          zkManager.getCurator().create()
+              .withMode(CreateMode.PERSISTENT)
+              .forPath(znode, bytes);
+          created = true;
+        } catch (NodeExistsException e) {
+          LOG.debug("Record \"{}\" was created concurrently", znode);
+        }
+      }
       if (!update && !created && error) {
         LOG.info("Cannot write record \"{}\", it already exists", znode);
         return false;
       }
 
       // Write data
-      zkManager.setData(znode, bytes, -1);
+      if (!created) {
+        zkManager.setData(znode, bytes, -1);
+      }
       return true;
     } catch (Exception e) {
       LOG.error("Cannot write record \"{}\": {}", znode, e.getMessage());
@@ -704,4 +704,48 @@ public void testLocationCache() throws Exception {
     mountTable.removeEntry("/testlocationcache");
     mountTable.removeEntry("/anothertestlocationcache");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testLocationCacheInvalidatesChangedMountPoints()
+      throws Exception {
+    List<MountTable> entries = mountTable.getMounts("/");
+    mountTable.refreshEntries(entries);
+
+    // Mount points that only share a prefix are not parents
+    Map<String, String> map = getMountTableEntry("4", "/tmp2");
+    entries.add(MountTable.newInstance("/tmp2", map));
+    mountTable.refreshEntries(entries);
+    assertEquals("4->/tmp2/file",
+        mountTable.getDestinationForPath("/tmp2/file").toString());
+    assertEquals("2->/file",
+        mountTable.getDestinationForPath("/tmp/file").toString());
+    assertEquals("3->/user/file",
+        mountTable.getDestinationForPath("/user/file").toString());
+    assertEquals("1->/usr/file",
+        mountTable.getDestinationForPath("/usr/file").toString());
+    assertEquals(4, mountTable.getCacheSize());
+
+    // Refreshing the same entries keeps the cache
+    mountTable.refreshEntries(entries);
+    assertEquals(4, mountTable.getCacheSize());
+
+    // Only the paths below the changed mount points are invalidated
+    entries.add(MountTable.newInstance("/usr",
+        getMountTableEntry("5", "/usr")));
+    mountTable.refreshEntries(entries);
+    assertEquals(3, mountTable.getCacheSize());
+    assertEquals("5->/usr/file",
+        mountTable.getDestinationForPath("/usr/file").toString());
+    assertEquals("2->/bin/file",
+        mountTable.getDestinationForPath("/usr/bin/file").toString());
+    assertEquals(5, mountTable.getCacheSize());
+
+    // Mount points below a cached path do not change it
+    entries.add(MountTable.newInstance("/user/file/c",
+        getMountTableEntry("6", "/c")));
+    mountTable.refreshEntries(entries);
+    assertEquals(5, mountTable.getCacheSize());
+    assertEquals("3->/user/file",
+        mountTable.getDestinationForPath("/user/file").toString());
+  }
+}
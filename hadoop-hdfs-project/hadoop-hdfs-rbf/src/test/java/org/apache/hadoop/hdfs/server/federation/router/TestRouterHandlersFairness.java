@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.router;
+
+import static org.apache.hadoop.hdfs.server.federation.FederationTestUtils.simulateSlowNamenode;
+import static org.apache.hadoop.test.GenericTestUtils.assertExceptionContains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.protocol.ClientProtocol;
+import org.apache.hadoop.hdfs.server.federation.MiniRouterDFSCluster;
+import org.apache.hadoop.hdfs.server.federation.MiniRouterDFSCluster.RouterContext;
+import org.apache.hadoop.hdfs.server.federation.RouterConfigBuilder;
+import org.apache.hadoop.hdfs.server.federation.metrics.FederationRPCMetrics;
+import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.ipc.StandbyException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Test the share of the Router handlers for each nameservice. This feature is
+ * managed by {@link RBFConfigKeys#DFS_ROUTER_FAIRNESS_ENABLE}.
+ */
+public class TestRouterHandlersFairness {
+
+  private static final int NUM_OPS = 4;
+
+  @Rule
+  public Timeout globalTimeout = new Timeout(120000);
+
+  private MiniRouterDFSCluster cluster;
+  private String ns0;
+  private String ns1;
+
+  @Before
+  public void setUp() throws Exception {
+    cluster = new MiniRouterDFSCluster(false, 2);
+    cluster.setNumDatanodesPerNameservice(0);
+    cluster.startCluster();
+
+    ns0 = cluster.getNameservices().get(0);
+    ns1 = cluster.getNameservices().get(1);
+    Configuration routerConf = new RouterConfigBuilder()
+        .metrics()
+        .rpc()
+        .build();
+    routerConf.setBoolean(RBFConfigKeys.DFS_ROUTER_FAIRNESS_ENABLE, true);
+    routerConf.setInt(
+        RBFConfigKeys.DFS_ROUTER_FAIRNESS_HANDLER_COUNT_KEY_PREFIX + ns0, 1);
+    routerConf.set(RBFConfigKeys.DFS_ROUTER_FAIRNESS_ACQUIRE_TIMEOUT, "100ms");
+    cluster.addRouterOverrides(routerConf);
+    cluster.startRouters();
+    cluster.registerNamenodes();
+    cluster.waitNamenodeRegistration();
+    cluster.installMockLocations();
+    cluster.createTestDirectoriesNamenode();
+  }
+
+  @After
+  public void cleanup() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test
+  public void testSlowNameserviceDoesNotBlockOthers() throws Exception {
+    RouterContext router = cluster.getRandomRouter();
+    final ClientProtocol routerProto = router.getClient().getNamenode();
+    FederationRPCMetrics rpcMetrics =
+        router.getRouter().getRpcServer().getRPCMetrics();
+    assertEquals("{\"" + ns0 + "\":1,\"" + ns1 + "\":9}",
+        rpcMetrics.getAvailableHandlersPerNs());
+
+    simulateSlowNamenode(cluster.getNamenode(ns0, null).getNamenode(), 1);
+
+    // Only one call to the slow nameservice can be in flight
+    final String dir0 = cluster.getFederatedTestDirectoryForNS(ns0);
+    final AtomicInteger rejected = new AtomicInteger();
+    ExecutorService exec = Executors.newFixedThreadPool(NUM_OPS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < NUM_OPS; i++) {
+      futures.add(exec.submit(() -> {
+        try {
+          routerProto.getFileInfo(dir0);
+        } catch (RemoteException re) {
+          IOException ioe = re.unwrapRemoteException();
+          assertTrue("Wrong exception: " + ioe,
+              ioe instanceof StandbyException);
+          assertExceptionContains("Not enough handlers for " + ns0, ioe);
+          rejected.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+
+    // The other nameservice still gets its calls through
+    final String dir1 = cluster.getFederatedTestDirectoryForNS(ns1);
+    for (int i = 0; i < NUM_OPS; i++) {
+      assertNotNull(routerProto.getFileInfo(dir1));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    exec.shutdown();
+
+    assertTrue("Expected rejected calls to " + ns0, rejected.get() > 0);
+    assertEquals(rejected.get(), rpcMetrics.getProxyOpPermitRejected());
+    assertEquals("{\"" + ns0 + "\":" + rejected.get() + "}",
+        rpcMetrics.getProxyOpPermitRejectedPerNs());
+    assertTrue(rpcMetrics.getProxyAvgPerNs().contains(ns1));
+    assertEquals("{\"" + ns0 + "\":1,\"" + ns1 + "\":9}",
+        rpcMetrics.getAvailableHandlersPerNs());
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.router;
+
+import static org.apache.hadoop.hdfs.server.federation.FederationTestUtils.simulateSlowNamenode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.protocol.ClientProtocol;
+import org.apache.hadoop.hdfs.protocol.DirectoryListing;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.server.federation.MiniRouterDFSCluster;
+import org.apache.hadoop.hdfs.server.federation.MiniRouterDFSCluster.RouterContext;
+import org.apache.hadoop.hdfs.server.federation.RouterConfigBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Test the coalescing and caching of the read-only metadata calls in the
+ * Router with {@link RouterMetadataCache}.
+ */
+public class TestRouterMetadataCache {
+
+  private static final int NUM_CALLS = 4;
+
+  @Rule
+  public Timeout globalTimeout = new Timeout(120000);
+
+  private MiniRouterDFSCluster cluster;
+  private RouterContext router;
+  private ClientProtocol routerProto;
+  private RouterMetrics metrics;
+  private String dir;
+
+  @Before
+  public void setUp() throws Exception {
+    cluster = new MiniRouterDFSCluster(false, 1);
+    cluster.setNumDatanodesPerNameservice(0);
+    cluster.startCluster();
+
+    Configuration routerConf = new RouterConfigBuilder()
+        .metrics()
+        .rpc()
+        .build();
+    routerConf.setBoolean(
+        RBFConfigKeys.DFS_ROUTER_METADATA_COALESCE_ENABLE, true);
+    routerConf.set(RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_TTL, "1m");
+    cluster.addRouterOverrides(routerConf);
+    cluster.startRouters();
+    cluster.registerNamenodes();
+    cluster.waitNamenodeRegistration();
+    cluster.installMockLocations();
+    cluster.createTestDirectoriesNamenode();
+
+    router = cluster.getRandomRouter();
+    routerProto = router.getClient().getNamenode();
+    metrics = router.getRouter().getRouterMetrics();
+    dir = cluster.getFederatedTestDirectoryForNS(
+        cluster.getNameservices().get(0));
+  }
+
+  @After
+  public void cleanup() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test
+  public void testCacheInvalidatedByWrites() throws Exception {
+    final String subDir = dir + "/cached";
+    assertNull(routerProto.getFileInfo(subDir));
+    long hits = metrics.getMetadataCacheHit();
+    assertNull(routerProto.getFileInfo(subDir));
+    assertEquals(hits + 1, metrics.getMetadataCacheHit());
+
+    DirectoryListing listing = routerProto.getListing(
+        dir, HdfsFileStatus.EMPTY_NAME, false);
+    int numEntries = listing.getPartialListing().length;
+
+    // The write through the Router invalidates the path and its parent
+    assertTrue(routerProto.mkdirs(subDir, new FsPermission("755"), true));
+    assertNotNull(routerProto.getFileInfo(subDir));
+    listing = routerProto.getListing(dir, HdfsFileStatus.EMPTY_NAME, false);
+    assertEquals(numEntries + 1, listing.getPartialListing().length);
+
+    // A write behind the Router is not seen until the results expire
+    cluster.getNamenode(cluster.getNameservices().get(0), null)
+        .getClient().delete(subDir, true);
+    assertNotNull(routerProto.getFileInfo(subDir));
+    assertTrue(routerProto.delete(subDir, true));
+    assertNull(routerProto.getFileInfo(subDir));
+    listing = routerProto.getListing(dir, HdfsFileStatus.EMPTY_NAME, false);
+    assertEquals(numEntries, listing.getPartialListing().length);
+  }
+
+  @Test
+  public void testCachedPathsNormalized() throws Exception {
+    final String subDir = dir + "/normalized";
+    assertNull(routerProto.getFileInfo(subDir));
+    long hits = metrics.getMetadataCacheHit();
+    assertNull(routerProto.getFileInfo(subDir + "/"));
+    assertNull(routerProto.getFileInfo(subDir.replace("/", "//")));
+    assertEquals(hits + 2, metrics.getMetadataCacheHit());
+
+    // A write to another form of the path invalidates it too
+    assertTrue(routerProto.mkdirs(
+        subDir + "/", new FsPermission("755"), true));
+    assertNotNull(routerProto.getFileInfo(subDir));
+  }
+
+  @Test
+  public void testCacheInvalidatedForCreatedAncestors() throws Exception {
+    final String parent = dir + "/parent";
+    final String child = parent + "/child/grandchild";
+    assertNull(routerProto.getFileInfo(parent));
+    DirectoryListing listing = routerProto.getListing(
+        dir, HdfsFileStatus.EMPTY_NAME, false);
+    int numEntries = listing.getPartialListing().length;
+
+    // Creating the missing parents invalidates all the ancestors
+    assertTrue(routerProto.mkdirs(child, new FsPermission("755"), true));
+    assertNotNull(routerProto.getFileInfo(parent));
+    listing = routerProto.getListing(dir, HdfsFileStatus.EMPTY_NAME, false);
+    assertEquals(numEntries + 1, listing.getPartialListing().length);
+  }
+
+  @Test
+  public void testCacheInvalidatedBySnapshots() throws Exception {
+    final String snapshotRoot = dir + "/snapshots";
+    final String snapshot = snapshotRoot + "/.snapshot/s1";
+    assertTrue(routerProto.mkdirs(
+        snapshotRoot, new FsPermission("755"), false));
+    routerProto.allowSnapshot(snapshotRoot);
+    assertTrue(routerProto.getFileInfo(snapshotRoot).isSnapshotEnabled());
+    assertNull(routerProto.getFileInfo(snapshot));
+
+    routerProto.createSnapshot(snapshotRoot, "s1");
+    assertNotNull(routerProto.getFileInfo(snapshot));
+    routerProto.deleteSnapshot(snapshotRoot, "s1");
+    assertNull(routerProto.getFileInfo(snapshot));
+    routerProto.disallowSnapshot(snapshotRoot);
+    assertFalse(routerProto.getFileInfo(snapshotRoot).isSnapshotEnabled());
+  }
+
+  @Test
+  public void testConcurrentCallsCoalesced() throws Exception {
+    simulateSlowNamenode(cluster.getNamenode(
+        cluster.getNameservices().get(0), null).getNamenode(), 1);
+
+    long coalesced = metrics.getMetadataCoalesced();
+    ExecutorService exec = Executors.newFixedThreadPool(NUM_CALLS);
+    List<Future<HdfsFileStatus>> futures = new ArrayList<>();
+    for (int i = 0; i < NUM_CALLS; i++) {
+      futures.add(exec.submit(() -> routerProto.getFileInfo(dir)));
+    }
+    for (Future<HdfsFileStatus> future : futures) {
+      HdfsFileStatus status = future.get();
+      assertNotNull(status);
+      assertTrue(status.isDirectory());
+    }
+    exec.shutdown();
+    assertTrue("Expected coalesced calls",
+        metrics.getMetadataCoalesced() > coalesced);
+  }
+}
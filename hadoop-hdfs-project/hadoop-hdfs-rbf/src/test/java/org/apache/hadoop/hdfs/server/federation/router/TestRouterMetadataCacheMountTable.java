@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.federation.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.protocol.ClientProtocol;
+import org.apache.hadoop.hdfs.server.federation.MiniRouterDFSCluster.RouterContext;
+import org.apache.hadoop.hdfs.server.federation.RouterConfigBuilder;
+import org.apache.hadoop.hdfs.server.federation.StateStoreDFSCluster;
+import org.apache.hadoop.hdfs.server.federation.resolver.MountTableManager;
+import org.apache.hadoop.hdfs.server.federation.resolver.MountTableResolver;
+import org.apache.hadoop.hdfs.server.federation.store.protocol.AddMountTableEntryRequest;
+import org.apache.hadoop.hdfs.server.federation.store.protocol.UpdateMountTableEntryRequest;
+import org.apache.hadoop.hdfs.server.federation.store.records.MountTable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test that the changes in the mount table invalidate the metadata cached by
+ * {@link RouterMetadataCache}.
+ */
+public class TestRouterMetadataCacheMountTable {
+
+  private static StateStoreDFSCluster cluster;
+  private static RouterContext routerContext;
+  private static MountTableResolver mountTable;
+  private static ClientProtocol routerProtocol;
+  private static RouterMetrics metrics;
+
+  @BeforeClass
+  public static void globalSetUp() throws Exception {
+    cluster = new StateStoreDFSCluster(false, 2);
+    Configuration conf = new RouterConfigBuilder()
+        .stateStore()
+        .admin()
+        .rpc()
+        .metrics()
+        .build();
+    conf.set(RBFConfigKeys.DFS_ROUTER_METADATA_CACHE_TTL, "1m");
+    cluster.addRouterOverrides(conf);
+    cluster.startCluster();
+    cluster.startRouters();
+    cluster.waitClusterUp();
+
+    routerContext = cluster.getRandomRouter();
+    Router router = routerContext.getRouter();
+    routerProtocol = routerContext.getClient().getNamenode();
+    mountTable = (MountTableResolver) router.getSubclusterResolver();
+    metrics = router.getRouterMetrics();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    if (cluster != null) {
+      cluster.stopRouter(routerContext);
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test
+  public void testCacheInvalidatedByMountTableChange() throws Exception {
+    // The folder only exists in the first subcluster
+    assertTrue(cluster.getNamenode("ns0", null).getFileSystem()
+        .mkdirs(new Path("/target/only-ns0")));
+    assertTrue(cluster.getNamenode("ns1", null).getFileSystem()
+        .mkdirs(new Path("/target")));
+
+    MountTable entry = MountTable.newInstance(
+        "/cached", Collections.singletonMap("ns0", "/target"));
+    MountTableManager manager =
+        routerContext.getAdminClient().getMountTableManager();
+    assertTrue(manager.addMountTableEntry(
+        AddMountTableEntryRequest.newInstance(entry)).getStatus());
+    assertTrue(mountTable.loadCache(true));
+
+    assertNotNull(routerProtocol.getFileInfo("/cached/only-ns0"));
+    long hits = metrics.getMetadataCacheHit();
+    assertNotNull(routerProtocol.getFileInfo("/cached/only-ns0"));
+    assertEquals(hits + 1, metrics.getMetadataCacheHit());
+
+    // Moving the mount point to the other subcluster drops the cached status
+    entry = MountTable.newInstance(
+        "/cached", Collections.singletonMap("ns1", "/target"));
+    assertTrue(manager.updateMountTableEntry(
+        UpdateMountTableEntryRequest.newInstance(entry)).getStatus());
+    assertTrue(mountTable.loadCache(true));
+    assertNull(routerProtocol.getFileInfo("/cached/only-ns0"));
+  }
+}
@@ -18,12 +18,20 @@
 package org.apache.hadoop.hdfs.server.federation.store.driver;
 
 import static org.apache.hadoop.hdfs.server.federation.store.FederationStateStoreTestUtils.getStateStoreConfiguration;
+import static org.apache.hadoop.hdfs.server.federation.store.FederationStateStoreTestUtils.newStateStore;
 import static org.apache.hadoop.hdfs.server.federation.store.driver.impl.StateStoreZooKeeperImpl.FEDERATION_STORE_ZK_PARENT_PATH;
 import static org.apache.hadoop.hdfs.server.federation.store.driver.impl.StateStoreZooKeeperImpl.FEDERATION_STORE_ZK_PARENT_PATH_DEFAULT;
+import static org.apache.hadoop.hdfs.server.federation.store.driver.impl.StateStoreZooKeeperImpl.FEDERATION_STORE_ZK_WATCH_ENABLE;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.curator.framework.CuratorFramework;
@@ -33,6 +41,12 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.hdfs.server.federation.router.RBFConfigKeys;
+import org.apache.hadoop.hdfs.server.federation.router.RouterServiceState;
+import org.apache.hadoop.hdfs.server.federation.store.CachedRecordStore;
+import org.apache.hadoop.hdfs.server.federation.store.MountTableStore;
+import org.apache.hadoop.hdfs.server.federation.store.RouterStore;
+import org.apache.hadoop.hdfs.server.federation.store.StateStoreService;
+import org.apache.hadoop.hdfs.server.federation.store.StateStoreUnavailableException;
 import org.apache.hadoop.hdfs.server.federation.store.StateStoreUtils;
 import org.apache.hadoop.hdfs.server.federation.store.driver.impl.StateStoreZooKeeperImpl;
 import org.apache.hadoop.hdfs.server.federation.store.records.BaseRecord;
@@ -40,6 +54,9 @@
 import org.apache.hadoop.hdfs.server.federation.store.records.MembershipState;
 import org.apache.hadoop.hdfs.server.federation.store.records.MountTable;
 import org.apache.hadoop.hdfs.server.federation.store.records.RouterState;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.Time;
 import org.apache.zookeeper.CreateMode;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -54,6 +71,7 @@ public class TestStateStoreZK extends TestStateStoreDriverBase {
   private static TestingServer curatorTestingServer;
   private static CuratorFramework curatorFramework;
   private static String baseZNode;
+  private static Configuration zkConf;
 
   @BeforeClass
   public static void setupCluster() throws Exception {
@@ -76,6 +94,7 @@ public static void setupCluster() throws Exception {
 
     baseZNode = conf.get(FEDERATION_STORE_ZK_PARENT_PATH,
         FEDERATION_STORE_ZK_PARENT_PATH_DEFAULT);
+    zkConf = new Configuration(conf);
     getStateStore(conf);
   }
 
@@ -155,4 +174,131 @@ public void testFetchErrors()
       throws IllegalArgumentException, IllegalAccessException, IOException {
     testFetchErrors(getStateStoreDriver());
   }
+
+  /**
+   * Create a second State Store reading the same znodes with watches. Its
+   * caches are only updated by the watches during the tests.
+   *
+   * @return State Store with watches.
+   * @throws Exception If the State Store cannot be created.
+   */
+  private static StateStoreService newWatchStateStore() throws Exception {
+    DefaultMetricsSystem.setMiniClusterMode(true);
+    Configuration conf = new Configuration(zkConf);
+    conf.setBoolean(FEDERATION_STORE_ZK_WATCH_ENABLE, true);
+    conf.setTimeDuration(RBFConfigKeys.DFS_ROUTER_CACHE_TIME_TO_LIVE_MS,
+        1, TimeUnit.HOURS);
+    return newStateStore(conf);
+  }
+
+  private static String getFirstNameservice(MountTable entry) {
+    return entry.getDestinations().get(0).getNameserviceId();
+  }
+
+  private static <R extends BaseRecord> List<R> getCachedRecords(
+      CachedRecordStore<R> store) {
+    try {
+      return store.getCachedRecords();
+    } catch (StateStoreUnavailableException e) {
+      return Collections.emptyList();
+    }
+  }
+
+  @Test
+  public void testWatchChanges() throws Exception {
+    StateStoreService watchStore = newWatchStateStore();
+    try {
+      final StateStoreDriver watchDriver = watchStore.getDriver();
+      assertEquals(0, watchDriver.get(MountTable.class).getRecords().size());
+      final long version = watchDriver.getVersion(MountTable.class);
+      assertTrue(version >= 0);
+
+      // A write through the other driver triggers the watch
+      StateStoreDriver driver = getStateStoreDriver();
+      MountTable entry = MountTable.newInstance("/watched",
+          Collections.singletonMap("ns0", "/watched"));
+      assertTrue(driver.put(entry, false, true));
+      GenericTestUtils.waitFor(
+          () -> watchDriver.getVersion(MountTable.class) > version,
+          10, 5000);
+      List<MountTable> records = watchDriver.get(MountTable.class).getRecords();
+      assertEquals(1, records.size());
+      assertEquals("/watched", records.get(0).getSourcePath());
+
+      // Without changes, the records come from memory
+      final long versionAfterRead = watchDriver.getVersion(MountTable.class);
+      assertEquals(1, watchDriver.get(MountTable.class).getRecords().size());
+      assertEquals(versionAfterRead, watchDriver.getVersion(MountTable.class));
+
+      // Updates of the existing znodes are detected too
+      MountTable updated = MountTable.newInstance("/watched",
+          Collections.singletonMap("ns1", "/watched"));
+      assertTrue(driver.put(updated, true, true));
+      GenericTestUtils.waitFor(
+          () -> watchDriver.getVersion(MountTable.class) > versionAfterRead,
+          10, 5000);
+      records = watchDriver.get(MountTable.class).getRecords();
+      assertEquals(1, records.size());
+      assertEquals("ns1", getFirstNameservice(records.get(0)));
+
+      // And the removals
+      final long versionAfterUpdate = watchDriver.getVersion(MountTable.class);
+      assertTrue(driver.removeAll(MountTable.class));
+      GenericTestUtils.waitFor(
+          () -> watchDriver.getVersion(MountTable.class) > versionAfterUpdate,
+          10, 5000);
+      assertEquals(0, watchDriver.get(MountTable.class).getRecords().size());
+    } finally {
+      watchStore.stop();
+    }
+  }
+
+  @Test
+  public void testWatchUpdatesCaches() throws Exception {
+    // The Router records exist before the State Store with watches loads them
+    StateStoreDriver driver = getStateStoreDriver();
+    RouterState router = RouterState.newInstance(
+        "router:1234", Time.now(), RouterServiceState.RUNNING);
+    assertTrue(driver.put(router, false, true));
+
+    StateStoreService watchStore = newWatchStateStore();
+    try {
+      final MountTableStore mountStore =
+          watchStore.getRegisteredRecordStore(MountTableStore.class);
+      final RouterStore routerStore =
+          watchStore.getRegisteredRecordStore(RouterStore.class);
+      GenericTestUtils.waitFor(
+          () -> getCachedRecords(routerStore).size() == 1, 10, 5000);
+      RouterState cachedRouter = routerStore.getCachedRecords().get(0);
+
+      // A new mount point gets to the cache without the periodic update
+      MountTable entry = MountTable.newInstance("/watched",
+          Collections.singletonMap("ns0", "/watched"));
+      assertTrue(driver.put(entry, false, true));
+      GenericTestUtils.waitFor(
+          () -> getCachedRecords(mountStore).size() == 1, 10, 5000);
+
+      // Only the caches of the changed records are loaded again
+      assertSame(cachedRouter, routerStore.getCachedRecords().get(0));
+
+      // Without changes, the cache keeps the records it already has
+      MountTable cachedEntry = mountStore.getCachedRecords().get(0);
+      assertTrue(mountStore.loadCache(true));
+      assertSame(cachedEntry, mountStore.getCachedRecords().get(0));
+
+      // An update of the mount point is loaded right away too
+      MountTable updated = MountTable.newInstance("/watched",
+          Collections.singletonMap("ns1", "/watched"));
+      assertTrue(driver.put(updated, true, true));
+      GenericTestUtils.waitFor(() -> {
+        List<MountTable> records = getCachedRecords(mountStore);
+        return records.size() == 1 &&
+            "ns1".equals(getFirstNameservice(records.get(0)));
+      }, 10, 5000);
+      assertNotSame(cachedEntry, mountStore.getCachedRecords().get(0));
+      assertSame(cachedRouter, routerStore.getCachedRecords().get(0));
+    } finally {
+      watchStore.stop();
+    }
+  }
 }
\ No newline at end of file
@@ -208,6 +208,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final long    DFS_NAMENODE_CHECKPOINT_TXNS_DEFAULT = 1000000;
   public static final String  DFS_NAMENODE_CHECKPOINT_MAX_RETRIES_KEY = "dfs.namenode.checkpoint.max-retries";
   public static final int     DFS_NAMENODE_CHECKPOINT_MAX_RETRIES_DEFAULT = 3;
+  public static final String  DFS_NAMENODE_CHECKPOINT_DELTA_MAX_KEY = "dfs.namenode.checkpoint.delta.max";
+  public static final int     DFS_NAMENODE_CHECKPOINT_DELTA_MAX_DEFAULT = 0;
+  public static final String  DFS_NAMENODE_CHECKPOINT_DELTA_MAX_INODES_KEY = "dfs.namenode.checkpoint.delta.max-inodes";
+  public static final int     DFS_NAMENODE_CHECKPOINT_DELTA_MAX_INODES_DEFAULT = 1000000;
   public static final String  DFS_NAMENODE_MISSING_CHECKPOINT_PERIODS_BEFORE_SHUTDOWN_KEY = "dfs.namenode.missing.checkpoint.periods.before.shutdown";
   public static final int     DFS_NAMENODE_MISSING_CHECKPOINT_PERIODS_BEFORE_SHUTDOWN_DEFAULT = 3;
   public static final String  DFS_NAMENODE_HEARTBEAT_RECHECK_INTERVAL_KEY =
@@ -335,6 +339,8 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final int     DFS_NAMENODE_EDITS_DIR_MINIMUM_DEFAULT = 1;
   public static final String  DFS_NAMENODE_QUOTA_INIT_THREADS_KEY = "dfs.namenode.quota.init-threads";
   public static final int     DFS_NAMENODE_QUOTA_INIT_THREADS_DEFAULT = 4;
+  public static final String  DFS_NAMENODE_EDITS_APPLY_THREADS_KEY = "dfs.namenode.edits.apply.threads";
+  public static final int     DFS_NAMENODE_EDITS_APPLY_THREADS_DEFAULT = 0;
 
   public static final String  DFS_NAMENODE_EDIT_LOG_AUTOROLL_MULTIPLIER_THRESHOLD = "dfs.namenode.edit.log.autoroll.multiplier.threshold";
   public static final float
@@ -883,6 +889,18 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String DFS_IMAGE_TRANSFER_CHUNKSIZE_KEY = "dfs.image.transfer.chunksize";
   public static final int DFS_IMAGE_TRANSFER_CHUNKSIZE_DEFAULT = 64 * 1024;
 
+  // Image download over parallel streams of ranges
+  public static final String DFS_IMAGE_TRANSFER_PARALLEL_STREAMS_KEY =
+      "dfs.image.transfer.parallel.streams";
+  public static final int DFS_IMAGE_TRANSFER_PARALLEL_STREAMS_DEFAULT = 1;
+  public static final String DFS_IMAGE_TRANSFER_RANGE_SIZE_KEY =
+      "dfs.image.transfer.range.size";
+  public static final long DFS_IMAGE_TRANSFER_RANGE_SIZE_DEFAULT =
+      128 * 1024 * 1024;
+  public static final String DFS_IMAGE_TRANSFER_COMPRESS_KEY =
+      "dfs.image.transfer.compress";
+  public static final boolean DFS_IMAGE_TRANSFER_COMPRESS_DEFAULT = false;
+
   // Edit Log segment transfer timeout
   public static final String DFS_EDIT_LOG_TRANSFER_TIMEOUT_KEY =
       "dfs.edit.log.transfer.timeout";
@@ -955,6 +973,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_SECONDARY_NAMENODE_INTERNAL_SPNEGO_USER_NAME_KEY = DFS_SECONDARY_NAMENODE_KERBEROS_INTERNAL_SPNEGO_PRINCIPAL_KEY;
   public static final String  DFS_NAMENODE_NAME_CACHE_THRESHOLD_KEY = "dfs.namenode.name.cache.threshold";
   public static final int     DFS_NAMENODE_NAME_CACHE_THRESHOLD_DEFAULT = 10;
+  public static final String  DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_KEY =
+      "dfs.namenode.name.cache.runtime.tracked";
+  public static final int     DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_DEFAULT =
+      0;
   public static final String  DFS_NAMENODE_LEGACY_OIV_IMAGE_DIR_KEY = "dfs.namenode.legacy-oiv-image.dir";
 
   public static final String  DFS_NAMESERVICES =
@@ -1011,6 +1033,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_HA_TAILEDITS_INPROGRESS_KEY =
           "dfs.ha.tail-edits.in-progress";
   public static final boolean DFS_HA_TAILEDITS_INPROGRESS_DEFAULT = false;
+  public static final String DFS_HA_TAILEDITS_STREAMING_WAIT_KEY =
+      "dfs.ha.tail-edits.streaming.wait";
+  public static final long DFS_HA_TAILEDITS_STREAMING_WAIT_DEFAULT = 0;
   public static final String DFS_HA_TAILEDITS_ROLLEDITS_TIMEOUT_KEY =
       "dfs.ha.tail-edits.rolledits.timeout";
   public static final int DFS_HA_TAILEDITS_ROLLEDITS_TIMEOUT_DEFAULT = 60; // 1m
@@ -1238,6 +1263,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String NNTOP_WINDOWS_MINUTES_KEY =
       "dfs.namenode.top.windows.minutes";
   public static final String[] NNTOP_WINDOWS_MINUTES_DEFAULT = {"1", "5", "25"};
+  // minimum lock time of a call in microseconds to rank its path in nntop
+  public static final String NNTOP_LOCK_PATH_THRESHOLD_US_KEY =
+      "dfs.namenode.top.lock.path.threshold-us";
+  public static final long NNTOP_LOCK_PATH_THRESHOLD_US_DEFAULT = 1000;
   public static final String DFS_PIPELINE_ECN_ENABLED = "dfs.pipeline.ecn";
   public static final boolean DFS_PIPELINE_ECN_ENABLED_DEFAULT = false;
 
@@ -114,6 +114,13 @@ public ListenableFuture<Void> finalizeLogSegment(
    */
   public ListenableFuture<GetJournaledEditsResponseProto> getJournaledEdits(
       long fromTxnId, int maxTransactions);
+
+  /**
+   * Fetch journaled edits from the cache, waiting up to waitMs for them if
+   * they were not written yet.
+   */
+  public ListenableFuture<GetJournaledEditsResponseProto> getJournaledEdits(
+      long fromTxnId, int maxTransactions, int waitMs);
   
   /**
    * Fetch the list of edit logs available on the remote node.
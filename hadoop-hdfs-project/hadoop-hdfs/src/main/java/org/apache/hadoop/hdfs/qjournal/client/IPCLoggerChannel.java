@@ -567,12 +567,18 @@ public Void call() throws Exception {
   @Override
   public ListenableFuture<GetJournaledEditsResponseProto> getJournaledEdits(
       long fromTxnId, int maxTransactions) {
+    return getJournaledEdits(fromTxnId, maxTransactions, 0);
+  }
+
+  @Override
+  public ListenableFuture<GetJournaledEditsResponseProto> getJournaledEdits(
+      long fromTxnId, int maxTransactions, int waitMs) {
     return parallelExecutor.submit(
         new Callable<GetJournaledEditsResponseProto>() {
           @Override
           public GetJournaledEditsResponseProto call() throws IOException {
             return getProxy().getJournaledEdits(journalId, nameServiceId,
-                fromTxnId, maxTransactions);
+                fromTxnId, maxTransactions, waitMs);
           }
         });
   }
@@ -56,6 +56,7 @@
 import org.apache.hadoop.hdfs.web.URLConnectionFactory;
 import org.apache.hadoop.log.LogThrottlingHelper;
 import org.apache.hadoop.log.LogThrottlingHelper.LogAction;
+import org.apache.hadoop.util.Time;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -81,6 +82,8 @@ public class QuorumJournalManager implements JournalManager {
   private final int maxTxnsPerRpc;
   // Whether or not in-progress tailing is enabled in the configuration
   private final boolean inProgressTailingEnabled;
+  // How long the JournalNodes hold an RPC edit fetch waiting for new edits
+  private volatile int rpcWaitMs = 0;
   // Timeouts for which the QJM will wait for each of the following actions.
   private final int startSegmentTimeoutMs;
   private final int prepareRecoveryTimeoutMs;
@@ -524,6 +527,27 @@ public void selectInputStreams(Collection<EditLogInputStream> streams,
         onlyDurableTxns);
   }
 
+  /**
+   * Set how long the JournalNodes hold the RPC fetches of edits which were
+   * not written yet, see
+   * {@link DFSConfigKeys#DFS_HA_TAILEDITS_STREAMING_WAIT_KEY}. Only the edit
+   * log tailer sets it while it runs, so other readers never wait.
+   *
+   * @param waitMs Time to wait in milliseconds, 0 to not wait.
+   */
+  public void setRpcWaitMs(long waitMs) {
+    // Leave time for the responses to arrive before the quorum times out
+    int newWaitMs = (int) Math.max(0,
+        Math.min(waitMs, selectInputStreamsTimeoutMs / 2));
+    if (newWaitMs < waitMs) {
+      LOG.warn("{} is too close to {}, using {}ms",
+          DFSConfigKeys.DFS_HA_TAILEDITS_STREAMING_WAIT_KEY,
+          DFSConfigKeys.DFS_QJOURNAL_SELECT_INPUT_STREAMS_TIMEOUT_KEY,
+          newWaitMs);
+    }
+    this.rpcWaitMs = newWaitMs;
+  }
+
   /**
    * Select input streams from the journals, specifically using the RPC
    * mechanism optimized for low latency.
@@ -536,11 +560,14 @@ public void selectInputStreams(Collection<EditLogInputStream> streams,
    */
   private void selectRpcInputStreams(Collection<EditLogInputStream> streams,
       long fromTxnId, boolean onlyDurableTxns) throws IOException {
-    QuorumCall<AsyncLogger, GetJournaledEditsResponseProto> q =
+    int waitMs = rpcWaitMs;
+    QuorumCall<AsyncLogger, GetJournaledEditsResponseProto> q = waitMs > 0 ?
+        loggers.getJournaledEdits(fromTxnId, maxTxnsPerRpc, waitMs) :
         loggers.getJournaledEdits(fromTxnId, maxTxnsPerRpc);
     Map<AsyncLogger, GetJournaledEditsResponseProto> responseMap =
         loggers.waitForWriteQuorum(q, selectInputStreamsTimeoutMs,
             "selectRpcInputStreams");
+    long receivedTime = Time.monotonicNow();
     assert responseMap.size() >= loggers.getMajoritySize() :
         "Quorum call returned without a majority";
 
@@ -586,8 +613,12 @@ private void selectRpcInputStreams(Collection<EditLogInputStream> streams,
     for (GetJournaledEditsResponseProto resp : responseMap.values()) {
       long endTxnId = fromTxnId - 1 +
           Math.min(maxAllowedTxns, resp.getTxnCount());
-      allStreams.add(EditLogFileInputStream.fromByteString(
-          resp.getEditLog(), fromTxnId, endTxnId, true));
+      EditLogInputStream elis = EditLogFileInputStream.fromByteString(
+          resp.getEditLog(), fromTxnId, endTxnId, true);
+      if (resp.hasEditsAgeMs()) {
+        elis.setAvailableTime(receivedTime - resp.getEditsAgeMs());
+      }
+      allStreams.add(elis);
     }
     JournalSet.chainAndMakeRedundantStreams(streams, allStreams, fromTxnId);
   }
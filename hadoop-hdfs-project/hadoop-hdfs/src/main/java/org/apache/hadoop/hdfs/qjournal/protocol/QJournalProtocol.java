@@ -151,6 +151,8 @@ GetEditLogManifestResponseProto getEditLogManifest(String jid,
    * @param nameServiceId The ID of the namespace for which to fetch edits.
    * @param sinceTxId Fetch edits starting at this transaction ID
    * @param maxTxns Request at most this many transactions to be returned
+   * @param waitMs If there are no edits after sinceTxId yet, wait up to this
+   *     many milliseconds for them to be written before returning
    * @throws IOException If there was an issue encountered while fetching edits
    *     from the cache, including a cache miss (cache does not contain the
    *     requested edits). The caller should then attempt to fetch the edits via
@@ -160,7 +162,8 @@ GetEditLogManifestResponseProto getEditLogManifest(String jid,
    * @see org.apache.hadoop.hdfs.qjournal.server.JournaledEditsCache
    */
   GetJournaledEditsResponseProto getJournaledEdits(String jid,
-      String nameServiceId, long sinceTxId, int maxTxns) throws IOException;
+      String nameServiceId, long sinceTxId, int maxTxns, int waitMs)
+      throws IOException;
 
   /**
    * Begin the recovery process for a given segment. See the HDFS-3077
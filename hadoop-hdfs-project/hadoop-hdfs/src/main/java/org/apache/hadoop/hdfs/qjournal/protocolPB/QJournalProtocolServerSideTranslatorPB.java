@@ -244,7 +244,8 @@ public GetJournaledEditsResponseProto getJournaledEdits(
     try {
       return impl.getJournaledEdits(request.getJid().getIdentifier(),
           request.hasNameServiceId() ? request.getNameServiceId() : null,
-          request.getSinceTxId(), request.getMaxTxns());
+          request.getSinceTxId(), request.getMaxTxns(),
+          request.hasWaitMs() ? request.getWaitMs() : 0);
     } catch (IOException ioe) {
       throw new ServiceException(ioe);
     }
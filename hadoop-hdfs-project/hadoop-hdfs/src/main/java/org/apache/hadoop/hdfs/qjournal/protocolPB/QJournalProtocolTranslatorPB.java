@@ -287,7 +287,8 @@ public GetEditLogManifestResponseProto getEditLogManifest(
 
   @Override
   public GetJournaledEditsResponseProto getJournaledEdits(String jid,
-      String nameServiceId, long sinceTxId, int maxTxns) throws IOException {
+      String nameServiceId, long sinceTxId, int maxTxns, int waitMs)
+      throws IOException {
     try {
       GetJournaledEditsRequestProto.Builder req =
           GetJournaledEditsRequestProto.newBuilder()
@@ -297,6 +298,9 @@ public GetJournaledEditsResponseProto getJournaledEdits(String jid,
       if (nameServiceId != null) {
         req.setNameServiceId(nameServiceId);
       }
+      if (waitMs > 0) {
+        req.setWaitMs(waitMs);
+      }
       return rpcProxy.getJournaledEdits(NULL_CONTROLLER, req.build());
     } catch (ServiceException se) {
       throw ProtobufHelper.getRemoteException(se);
@@ -22,6 +22,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
 import java.net.URL;
 import java.nio.ByteBuffer;
@@ -91,7 +92,9 @@ public class Journal implements Closeable {
   private long curSegmentTxId = HdfsServerConstants.INVALID_TXID;
   private int curSegmentLayoutVersion = 0;
   private long nextTxId = HdfsServerConstants.INVALID_TXID;
-  private long highestWrittenTxId = 0;
+  private volatile long highestWrittenTxId = 0;
+  /** Notified when new edits are written to the journal. */
+  private final Object editsWritten = new Object();
   
   private final String journalId;
   
@@ -320,6 +323,33 @@ synchronized long getHighestWrittenTxId() {
   private void updateHighestWrittenTxId(long val) {
     highestWrittenTxId = val;
     fjm.setLastReadableTxId(val);
+    synchronized (editsWritten) {
+      editsWritten.notifyAll();
+    }
+  }
+
+  /**
+   * Wait until a transaction is written to the journal or the time runs out.
+   * @param txId Transaction to wait for.
+   * @param waitMs Maximum time to wait in milliseconds.
+   * @throws InterruptedIOException If interrupted while waiting.
+   */
+  private void waitForEdits(long txId, long waitMs)
+      throws InterruptedIOException {
+    long deadline = Time.monotonicNow() + waitMs;
+    synchronized (editsWritten) {
+      long remaining = waitMs;
+      while (txId > highestWrittenTxId && remaining > 0) {
+        try {
+          editsWritten.wait(remaining);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException(
+              "Interrupted waiting for edits from txid " + txId);
+        }
+        remaining = deadline - Time.monotonicNow();
+      }
+    }
   }
 
   JournalMetrics getMetrics() {
@@ -741,15 +771,27 @@ public RemoteEditLogManifest getEditLogManifest(long sinceTxId,
   }
 
   /**
-   * @see QJournalProtocol#getJournaledEdits(String, String, long, int)
+   * @see QJournalProtocol#getJournaledEdits(String, String, long, int, int)
    */
   public GetJournaledEditsResponseProto getJournaledEdits(long sinceTxId,
       int maxTxns) throws IOException {
+    return getJournaledEdits(sinceTxId, maxTxns, 0);
+  }
+
+  /**
+   * @see QJournalProtocol#getJournaledEdits(String, String, long, int, int)
+   */
+  public GetJournaledEditsResponseProto getJournaledEdits(long sinceTxId,
+      int maxTxns, int waitMs) throws IOException {
     if (cache == null) {
       throw new IOException("The journal edits cache is not enabled, which " +
           "is a requirement to fetch journaled edits via RPC. Please enable " +
           "it via " + DFSConfigKeys.DFS_HA_TAILEDITS_INPROGRESS_KEY);
     }
+    if (waitMs > 0 && sinceTxId > highestWrittenTxId) {
+      metrics.rpcWaitsForEdits.incr();
+      waitForEdits(sinceTxId, waitMs);
+    }
     if (sinceTxId > getHighestWrittenTxId()) {
       // Requested edits that don't exist yet; short-circuit the cache here
       metrics.rpcEmptyResponses.incr();
@@ -768,10 +810,15 @@ public GetJournaledEditsResponseProto getJournaledEdits(long sinceTxId,
       for (ByteBuffer buf : buffers) {
         output.write(buf.array(), buf.position(), buf.remaining());
       }
-      return GetJournaledEditsResponseProto.newBuilder()
-          .setTxnCount(txnCount)
-          .setEditLog(output.toByteString())
-          .build();
+      GetJournaledEditsResponseProto.Builder resp =
+          GetJournaledEditsResponseProto.newBuilder()
+              .setTxnCount(txnCount)
+              .setEditLog(output.toByteString());
+      long storeTime = cache.getStoreTime(sinceTxId);
+      if (txnCount > 0 && storeTime > 0) {
+        resp.setEditsAgeMs(Math.max(0, Time.monotonicNow() - storeTime));
+      }
+      return resp.build();
     } catch (JournaledEditsCache.CacheMissException cme) {
       metrics.rpcRequestCacheMissAmount.add(cme.getCacheMissAmount());
       throw cme;
@@ -61,6 +61,9 @@ class JournalMetrics {
   @Metric("Number of RPC requests with zero edits returned")
   MutableCounterLong rpcEmptyResponses;
 
+  @Metric("Number of RPC requests which waited for new edits")
+  MutableCounterLong rpcWaitsForEdits;
+
   @Metric("Number of batches written where this node was lagging")
   MutableCounterLong batchesWrittenWhileLagging;
 
@@ -237,9 +237,10 @@ public GetEditLogManifestResponseProto getEditLogManifest(
 
   @Override
   public GetJournaledEditsResponseProto getJournaledEdits(String jid,
-      String nameServiceId, long sinceTxId, int maxTxns) throws IOException {
+      String nameServiceId, long sinceTxId, int maxTxns, int waitMs)
+      throws IOException {
     return jn.getOrCreateJournal(jid, nameServiceId)
-        .getJournaledEdits(sinceTxId, maxTxns);
+        .getJournaledEdits(sinceTxId, maxTxns, waitMs);
   }
 
   @Override
@@ -40,6 +40,7 @@
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogLoader;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp;
 import org.apache.hadoop.util.AutoCloseableLock;
+import org.apache.hadoop.util.Time;
 
 /**
  * An in-memory cache of edits in their serialized form. This is used to serve
@@ -97,6 +98,11 @@ class JournaledEditsCache {
    * individual data buffers are immutable and can be accessed without locking.
    */
   private final NavigableMap<Long, byte[]> dataMap = new TreeMap<>();
+  /**
+   * Stores the monotonic time at which each batch in {@link #dataMap} was
+   * stored, keyed by the StartTxnId of the batch.
+   */
+  private final NavigableMap<Long, Long> storeTimeMap = new TreeMap<>();
   /** Stores the layout version currently present in the cache. */
   private int layoutVersion = INVALID_LAYOUT_VERSION;
   /** Stores the serialized version of the header for the current version. */
@@ -271,6 +277,7 @@ void storeEdits(byte[] inputData, long newStartTxn, long newEndTxn,
       while ((totalSize + inputData.length) > capacity && !dataMap.isEmpty()) {
         Map.Entry<Long, byte[]> lowest = dataMap.firstEntry();
         dataMap.remove(lowest.getKey());
+        storeTimeMap.remove(lowest.getKey());
         totalSize -= lowest.getValue().length;
       }
       if (inputData.length > capacity) {
@@ -291,6 +298,7 @@ void storeEdits(byte[] inputData, long newStartTxn, long newEndTxn,
       }
 
       dataMap.put(newStartTxn, inputData);
+      storeTimeMap.put(newStartTxn, Time.monotonicNow());
       highestTxnId = newEndTxn;
       totalSize += inputData.length;
     }
@@ -357,12 +365,32 @@ private void updateLayoutVersion(int newLayoutVersion, long newStartTxn)
    */
   private void initialize(long newInitialTxnId) {
     dataMap.clear();
+    storeTimeMap.clear();
     totalSize = 0;
     initialTxnId = newInitialTxnId;
     lowestTxnId = initialTxnId;
     highestTxnId = INVALID_TXN_ID; // this will be set later
   }
 
+  /**
+   * Get the time at which the batch containing a transaction was stored. This
+   * is used to tell the tailers how old the edits they receive are.
+   *
+   * @param txnId Transaction ID.
+   * @return Monotonic time in milliseconds, -1 if the transaction is not in
+   *         the cache.
+   */
+  long getStoreTime(long txnId) {
+    try (AutoCloseableLock l = readLock.acquire()) {
+      if (lowestTxnId == INVALID_TXN_ID || txnId < lowestTxnId ||
+          txnId > highestTxnId) {
+        return -1;
+      }
+      Map.Entry<Long, Long> entry = storeTimeMap.floorEntry(txnId);
+      return entry == null ? -1 : entry.getValue();
+    }
+  }
+
   /**
    * Return the underlying data buffer used to store information about the
    * given transaction ID.
@@ -48,6 +48,9 @@ public class CheckpointConf {
   /** The output dir for legacy OIV image */
   private final String legacyOivImageDir;
 
+  /** number of delta checkpoints between two full checkpoints */
+  private final int maxDeltaCheckpoints;
+
   /**
   * multiplier on the checkpoint period to allow other nodes to do the checkpointing, when not the
   * 'primary' checkpoint node
@@ -66,6 +69,8 @@ public CheckpointConf(Configuration conf) {
     maxRetriesOnMergeError = conf.getInt(DFS_NAMENODE_CHECKPOINT_MAX_RETRIES_KEY,
                                   DFS_NAMENODE_CHECKPOINT_MAX_RETRIES_DEFAULT);
     legacyOivImageDir = conf.get(DFS_NAMENODE_LEGACY_OIV_IMAGE_DIR_KEY);
+    maxDeltaCheckpoints = conf.getInt(DFS_NAMENODE_CHECKPOINT_DELTA_MAX_KEY,
+                                  DFS_NAMENODE_CHECKPOINT_DELTA_MAX_DEFAULT);
     quietMultiplier = conf.getDouble(DFS_NAMENODE_CHECKPOINT_QUIET_MULTIPLIER_KEY,
       DFS_NAMENODE_CHECKPOINT_QUIET_MULTIPLIER_DEFAULT);
     warnForDeprecatedConfigs(conf);
@@ -103,6 +108,10 @@ public String getLegacyOivImageDir() {
     return legacyOivImageDir;
   }
 
+  public int getMaxDeltaCheckpoints() {
+    return maxDeltaCheckpoints;
+  }
+
   public double getQuietPeriod() {
     return this.checkpointPeriod * this.quietMultiplier;
   }
@@ -39,6 +39,7 @@ class EditLogBackupInputStream extends EditLogInputStream {
   private FSEditLogOp.Reader reader = null;
   private FSEditLogLoader.PositionTrackingInputStream tracker = null;
   private int version = 0;
+  private boolean opCacheDisabled = false;
 
   /**
    * A ByteArrayInputStream, which lets modify the underlying byte array.
@@ -120,6 +121,9 @@ void setBytes(byte[] newBytes, int version) throws IOException {
     this.version = version;
 
     reader = FSEditLogOp.Reader.create(in, tracker, version);
+    if (opCacheDisabled) {
+      reader.disableOpCache();
+    }
   }
 
   void clear() throws IOException {
@@ -148,6 +152,15 @@ public void setMaxOpSize(int maxOpSize) {
     reader.setMaxOpSize(maxOpSize);
   }
 
+  @Override
+  public boolean disableOpCache() {
+    this.opCacheDisabled = true;
+    if (reader != null) {
+      reader.disableOpCache();
+    }
+    return true;
+  }
+
   @Override
   public boolean isLocalLog() {
     return true;
@@ -61,6 +61,7 @@ public class EditLogFileInputStream extends EditLogInputStream {
   private final long lastTxId;
   private final boolean isInProgress;
   private int maxOpSize;
+  private boolean opCacheDisabled = false;
   static private enum State {
     UNINIT,
     OPEN,
@@ -186,6 +187,9 @@ private void init(boolean verifyLayoutVersion)
       }
       reader = FSEditLogOp.Reader.create(dataIn, tracker, logVersion);
       reader.setMaxOpSize(maxOpSize);
+      if (opCacheDisabled) {
+        reader.disableOpCache();
+      }
       state = State.OPEN;
     } finally {
       if (reader == null) {
@@ -526,6 +530,15 @@ public void setMaxOpSize(int maxOpSize) {
     }
   }
 
+  @Override
+  public boolean disableOpCache() {
+    this.opCacheDisabled = true;
+    if (reader != null) {
+      reader.disableOpCache();
+    }
+    return true;
+  }
+
   @Override
   public boolean isLocalLog() {
     return log instanceof FileLog;
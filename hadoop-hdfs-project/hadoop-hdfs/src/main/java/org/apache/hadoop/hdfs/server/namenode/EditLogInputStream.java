@@ -35,6 +35,7 @@
 @InterfaceStability.Evolving
 public abstract class EditLogInputStream implements Closeable {
   private FSEditLogOp cachedOp = null; 
+  private long availableTime = -1;
 
   /**
    * Returns the name of the currently active underlying stream.  The default
@@ -204,9 +205,55 @@ FSEditLogOp getCachedOp() {
    */
   public abstract void setMaxOpSize(int maxOpSize);
 
+  /**
+   * Return a new object from each call to {@link #readOp()}, instead of
+   * reusing one object per opcode, so the ops read can be kept while reading
+   * the next ones.
+   *
+   * @return true if the stream supports it, false if it reuses the objects.
+   */
+  public boolean disableOpCache() {
+    return false;
+  }
+
   /**
    * Returns true if we are currently reading the log from a local disk or an
    * even faster data source (e.g. a byte buffer).
    */
   public abstract boolean isLocalLog();
+
+  /**
+   * Set the time at which the first transaction of this stream became
+   * available in its source, e.g. when a JournalNode received it.
+   *
+   * @param time Monotonic time in milliseconds in this process.
+   */
+  public void setAvailableTime(long time) {
+    this.availableTime = time;
+  }
+
+  /**
+   * Returns the monotonic time at which the first transaction of this stream
+   * became available in its source or -1 if unknown. The edit log tailer uses
+   * it to measure how far behind the source it is.
+   */
+  public long getAvailableTime() {
+    return availableTime;
+  }
+
+  /**
+   * Returns the earliest time at which the edits of some streams became
+   * available in their source or -1 if it is unknown for all of them.
+   */
+  public static long getEarliestAvailableTime(
+      Iterable<? extends EditLogInputStream> streams) {
+    long time = -1;
+    for (EditLogInputStream elis : streams) {
+      long t = elis.getAvailableTime();
+      if (t != -1 && (time == -1 || t < time)) {
+        time = t;
+      }
+    }
+    return time;
+  }
 }
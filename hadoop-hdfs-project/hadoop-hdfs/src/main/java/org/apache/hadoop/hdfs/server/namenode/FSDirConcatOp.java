@@ -256,6 +256,7 @@ static void unprotectedConcat(FSDirectory fsd, INodesInPath targetIIP,
         nodeToRemove.getParent().removeChild(nodeToRemove,
             targetIIP.getLatestSnapshotId());
         fsd.getINodeMap().remove(nodeToRemove);
+        fsd.getINodeChangeTracker().markDeleted(nodeToRemove.getId());
         count++;
       }
     }
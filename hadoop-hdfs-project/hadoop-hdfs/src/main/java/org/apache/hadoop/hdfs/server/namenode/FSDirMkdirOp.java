@@ -220,6 +220,7 @@ private static INodesInPath unprotectedMkdir(FSDirectory fsd, long inodeId,
     }
     final INodeDirectory dir = new INodeDirectory(inodeId, name, permission,
         timestamp);
+    fsd.cacheName(dir);
 
     INodesInPath iip =
         fsd.addLastINode(parent, dir, permission.getPermission(), true);
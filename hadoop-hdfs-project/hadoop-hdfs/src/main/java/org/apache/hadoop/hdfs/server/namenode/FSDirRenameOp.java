@@ -680,9 +680,11 @@ INodesInPath addSourceToDestination() {
       final INode toDst;
       if (withCount == null) {
         srcChild.setLocalName(dstChildName);
+        fsd.cacheName(srcChild);
         toDst = srcChild;
       } else {
         withCount.getReferredINode().setLocalName(dstChildName);
+        fsd.cacheName(withCount.getReferredINode());
         toDst = new INodeReference.DstReference(dstParent.asDirectory(),
             withCount, dstIIP.getLatestSnapshotId());
       }
@@ -22,6 +22,7 @@
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import org.apache.hadoop.HadoopIllegalArgumentException;
@@ -79,6 +80,8 @@
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -161,6 +164,11 @@ private static INodeDirectory createRoot(FSNamesystem namesystem) {
   private final INodeMap inodeMap; // Synchronized by dirLock
   private long yieldCount = 0; // keep track of lock yield count.
   private int quotaInitThreads;
+  // threads to resolve the paths of the edits in parallel, 0 to disable
+  private final int editsApplyThreads;
+  private ExecutorService editsApplyExecutor; // created on first use
+  // inodes changed since the last full image, for the delta checkpoints
+  private final INodeChangeTracker changeTracker;
 
   private final int inodeXAttrsLimit; //inode xattrs max limit
 
@@ -358,9 +366,12 @@ public enum DirOp {
     int threshold = conf.getInt(
         DFSConfigKeys.DFS_NAMENODE_NAME_CACHE_THRESHOLD_KEY,
         DFSConfigKeys.DFS_NAMENODE_NAME_CACHE_THRESHOLD_DEFAULT);
+    int maxTracked = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_KEY,
+        DFSConfigKeys.DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_DEFAULT);
     NameNode.LOG.info("Caching file names occurring more than " + threshold
-        + " times");
-    nameCache = new NameCache<ByteArray>(threshold);
+        + " times, tracking up to " + maxTracked + " names at runtime");
+    nameCache = new NameCache<ByteArray>(threshold, maxTracked);
     namesystem = ns;
     this.editLog = ns.getEditLog();
     ezManager = new EncryptionZoneManager(this, conf);
@@ -368,6 +379,14 @@ public enum DirOp {
     this.quotaInitThreads = conf.getInt(
         DFSConfigKeys.DFS_NAMENODE_QUOTA_INIT_THREADS_KEY,
         DFSConfigKeys.DFS_NAMENODE_QUOTA_INIT_THREADS_DEFAULT);
+    this.editsApplyThreads = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_EDITS_APPLY_THREADS_KEY,
+        DFSConfigKeys.DFS_NAMENODE_EDITS_APPLY_THREADS_DEFAULT);
+    this.changeTracker = new INodeChangeTracker(
+        conf.getInt(DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_DELTA_MAX_KEY,
+            DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_DELTA_MAX_DEFAULT) > 0,
+        conf.getInt(DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_DELTA_MAX_INODES_KEY,
+            DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_DELTA_MAX_INODES_DEFAULT));
 
     initUsersToBypassExtProvider(conf);
   }
@@ -599,7 +618,41 @@ FSEditLog getEditLog() {
    * Shutdown the filestore
    */
   @Override
-  public void close() throws IOException {}
+  public synchronized void close() throws IOException {
+    if (editsApplyExecutor != null) {
+      editsApplyExecutor.shutdownNow();
+      editsApplyExecutor = null;
+    }
+  }
+
+  int getEditsApplyThreads() {
+    return editsApplyThreads;
+  }
+
+  /**
+   * Get the threads resolving the paths of the edits being applied.
+   * @return the executor or null if the edits are applied in a single thread.
+   */
+  synchronized ExecutorService getEditsApplyExecutor() {
+    if (editsApplyThreads <= 0) {
+      return null;
+    }
+    if (editsApplyExecutor == null) {
+      editsApplyExecutor = Executors.newFixedThreadPool(editsApplyThreads,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("Edits apply #%d")
+              .build());
+    }
+    return editsApplyExecutor;
+  }
+
+  /**
+   * Get the inodes changed since the last full image.
+   */
+  INodeChangeTracker getINodeChangeTracker() {
+    return changeTracker;
+  }
 
   void markNameCacheInitialized() {
     writeLock();
@@ -1474,6 +1527,7 @@ public final void removeFromInodeMap(List<? extends INode> inodes) {
         if (inode != null && inode instanceof INodeWithAdditionalFields) {
           inodeMap.remove(inode);
           ezManager.removeEncryptionZone(inode.getId());
+          changeTracker.markDeleted(inode.getId());
         }
       }
     }
@@ -1513,6 +1567,7 @@ void reset() {
       addToInodeMap(rootDir);
       nameCache.reset();
       inodeId.setCurrentValue(INodeId.LAST_RESERVED_ID);
+      changeTracker.stop();
     } finally {
       writeUnlock();
     }
@@ -1527,12 +1582,12 @@ static INode resolveLastINode(INodesInPath iip) throws FileNotFoundException {
   }
 
   /**
-   * Caches frequently used file names to reuse file name objects and
-   * reduce heap size.
+   * Caches frequently used file and directory names to reuse name objects
+   * and reduce heap size.
    */
   void cacheName(INode inode) {
-    // Name is cached only for files
-    if (!inode.isFile()) {
+    // Name is cached only for files and directories
+    if (!inode.isFile() && !inode.isDirectory()) {
       return;
     }
     ByteArray name = new ByteArray(inode.getLocalNameBytes());
@@ -1513,6 +1513,15 @@ synchronized void setOutputBufferCapacity(int size) {
     journalSet.setOutputBufferCapacity(size);
   }
 
+  /**
+   * Set how long the shared journals hold the fetches of edits which were not
+   * written yet. Used by the edit log tailer to stream the edits.
+   * @param waitMs Time to wait in milliseconds, 0 to not wait.
+   */
+  public synchronized void setStreamingWaitMs(long waitMs) {
+    journalSet.setRpcWaitMs(waitMs);
+  }
+
   /**
    * Create (or find if already exists) an edit output stream, which
    * streams journal records (edits) to the specified backup node.<br>
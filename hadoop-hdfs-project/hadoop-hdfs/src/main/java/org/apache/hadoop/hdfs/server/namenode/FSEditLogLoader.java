@@ -22,10 +22,19 @@
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,6 +96,7 @@
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetOwnerOp;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetPermissionsOp;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetQuotaOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetQuotaByStorageTypeOp;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetReplicationOp;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetStoragePolicyOp;
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetXAttrOp;
@@ -119,6 +129,7 @@
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 
 import static org.apache.hadoop.log.LogThrottlingHelper.LogAction;
 
@@ -141,6 +152,26 @@ public class FSEditLogLoader {
   private long lastAppliedTxId;
   /** Total number of end transactions loaded. */
   private int totalEdits = 0;
+
+  /** Maximum number of edits read ahead to resolve their paths together. */
+  @VisibleForTesting
+  static final int MAX_READ_AHEAD_EDITS = 1024;
+  /**
+   * Edits which change the files and directories in place or the blocks, but
+   * not which inode is at which path. Consecutive edits of these types can
+   * have their paths resolved in parallel before they are applied.
+   */
+  private static final EnumSet<FSEditLogOpCodes> PATH_PRESERVING_OPS =
+      EnumSet.of(FSEditLogOpCodes.OP_CLOSE, FSEditLogOpCodes.OP_UPDATE_BLOCKS,
+          FSEditLogOpCodes.OP_ADD_BLOCK, FSEditLogOpCodes.OP_SET_REPLICATION,
+          FSEditLogOpCodes.OP_SET_PERMISSIONS, FSEditLogOpCodes.OP_SET_OWNER,
+          FSEditLogOpCodes.OP_TIMES, FSEditLogOpCodes.OP_SET_ACL,
+          FSEditLogOpCodes.OP_SET_XATTR, FSEditLogOpCodes.OP_REMOVE_XATTR,
+          FSEditLogOpCodes.OP_SET_GENSTAMP_V2,
+          FSEditLogOpCodes.OP_ALLOCATE_BLOCK_ID);
+  /** Paths of the edits read ahead, resolved before they are applied. */
+  private final Map<FSEditLogOp, INodesInPath> resolvedPaths =
+      new IdentityHashMap<>();
   
   public FSEditLogLoader(FSNamesystem fsNamesys, long lastAppliedTxId) {
     this(fsNamesys, lastAppliedTxId, new Timer());
@@ -234,13 +265,28 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
     Counter counter = prog.getCounter(Phase.LOADING_EDITS, step);
     long lastLogTime = timer.monotonicNow();
     long lastInodeId = fsNamesys.dir.getLastInodeId();
+    // Edits are only read ahead when not skipping the bad ones in recovery
+    ExecutorService executor =
+        recovery == null ? fsDir.getEditsApplyExecutor() : null;
+    ReadAhead readAhead = executor != null && in.disableOpCache() ?
+        new ReadAhead(in) : null;
     
     try {
       while (true) {
         try {
           FSEditLogOp op;
           try {
-            op = in.readOp();
+            if (readAhead == null) {
+              op = in.readOp();
+            } else {
+              if (readAhead.isEmpty()) {
+                readAhead.fill(Math.min(MAX_READ_AHEAD_EDITS,
+                    maxTxnsToRead - numEdits));
+                resolvePaths(readAhead.getOps(), fsDir, in.getVersion(true),
+                    executor);
+              }
+              op = readAhead.next();
+            }
             if (op == null) {
               break;
             }
@@ -262,7 +308,7 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
             continue;
           }
           recentOpcodeOffsets[(int)(numEdits % recentOpcodeOffsets.length)] =
-            in.getPosition();
+            readAhead == null ? in.getPosition() : readAhead.getPosition();
           if (op.hasTransactionId()) {
             if (op.getTransactionId() > expectedTxId) { 
               MetaRecoveryContext.editLogLoaderPrompt("There appears " +
@@ -286,6 +332,9 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
             }
             long inodeId = applyEditLogOp(op, fsDir, startOpt,
                 in.getVersion(true), lastInodeId);
+            if (fsDir.getINodeChangeTracker().isTracking()) {
+              trackChanges(op, fsDir, in.getVersion(true));
+            }
             if (lastInodeId < inodeId) {
               lastInodeId = inodeId;
             }
@@ -296,6 +345,8 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
             if (recovery == null) {
               throw e instanceof IOException? (IOException)e: new IOException(e);
             }
+            // The changes of the edit are not known
+            fsDir.getINodeChangeTracker().stop();
 
             MetaRecoveryContext.editLogLoaderPrompt("Failed to " +
              "apply edit log operation " + op + ": error " +
@@ -336,6 +387,7 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
         }
       }
     } finally {
+      resolvedPaths.clear();
       fsNamesys.dir.resetLastInodeId(lastInodeId);
       if(closeOnExit) {
         in.close();
@@ -358,6 +410,322 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
     return numEdits;
   }
   
+  /**
+   * Edits read ahead of the one being applied, with the position of the
+   * stream after each of them. A run of edits in
+   * {@link #PATH_PRESERVING_OPS} is read at once, up to the first edit of
+   * another type. An error reading an edit is only thrown once all the edits
+   * read before it are returned.
+   */
+  private static class ReadAhead {
+    private final EditLogInputStream in;
+    private final Deque<FSEditLogOp> ops = new ArrayDeque<>();
+    private final Deque<Long> positions = new ArrayDeque<>();
+    private long position;
+    private Throwable error;
+    private boolean eof;
+
+    ReadAhead(EditLogInputStream in) {
+      this.in = in;
+    }
+
+    boolean isEmpty() {
+      return ops.isEmpty();
+    }
+
+    Iterable<FSEditLogOp> getOps() {
+      return ops;
+    }
+
+    void fill(long maxOps) {
+      while (!eof && error == null && ops.size() < maxOps) {
+        FSEditLogOp op;
+        try {
+          op = in.readOp();
+        } catch (Throwable e) {
+          error = e;
+          return;
+        }
+        if (op == null) {
+          eof = true;
+          return;
+        }
+        ops.add(op);
+        positions.add(in.getPosition());
+        if (!PATH_PRESERVING_OPS.contains(op.opCode)) {
+          return;
+        }
+      }
+    }
+
+    FSEditLogOp next() throws IOException {
+      if (!ops.isEmpty()) {
+        position = positions.remove();
+        return ops.remove();
+      }
+      if (error != null) {
+        Throwable e = error;
+        error = null;
+        Throwables.propagateIfPossible(e, IOException.class);
+        throw new IOException(e);
+      }
+      return null;
+    }
+
+    long getPosition() {
+      return position;
+    }
+  }
+
+  /**
+   * Resolve the paths of a run of edits in parallel. None of the edits before
+   * the last one changes which inode is at which path, so their paths can be
+   * resolved before the edits are applied. The last edit may be of any type
+   * and is resolved when applied. The tree is not modified meanwhile, as the
+   * calling thread holds the write lock and waits for the threads.
+   */
+  private void resolvePaths(Iterable<FSEditLogOp> ops, FSDirectory fsDir,
+      int logVersion, ExecutorService executor) throws IOException {
+    final List<FSEditLogOp> toResolve = new ArrayList<>();
+    for (FSEditLogOp op : ops) {
+      if (PATH_PRESERVING_OPS.contains(op.opCode)) {
+        toResolve.add(op);
+      }
+    }
+    if (toResolve.size() < 2) {
+      return;
+    }
+    int numTasks = Math.min(fsDir.getEditsApplyThreads(), toResolve.size());
+    List<Future<INodesInPath[]>> futures = new ArrayList<>(numTasks);
+    for (int t = 0; t < numTasks; t++) {
+      final int first = t;
+      final int step = numTasks;
+      futures.add(executor.submit(() -> {
+        INodesInPath[] iips = new INodesInPath[toResolve.size()];
+        for (int i = first; i < toResolve.size(); i += step) {
+          iips[i] = resolvePath(toResolve.get(i), fsDir, logVersion);
+        }
+        return iips;
+      }));
+    }
+    try {
+      for (int t = 0; t < numTasks; t++) {
+        INodesInPath[] iips = futures.get(t).get();
+        for (int i = t; i < toResolve.size(); i += numTasks) {
+          if (iips[i] != null) {
+            resolvedPaths.put(toResolve.get(i), iips[i]);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted resolving edit paths");
+    } catch (ExecutionException e) {
+      // The edits without a resolved path resolve it when they are applied
+      LOG.debug("Failed to resolve the paths of the edits", e.getCause());
+    } finally {
+      for (Future<INodesInPath[]> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Resolve the path of an edit in {@link #PATH_PRESERVING_OPS} as
+   * {@link #applyEditLogOp} does.
+   * @return the resolved path, null if the edit has no path or it cannot be
+   *         resolved now.
+   */
+  private static INodesInPath resolvePath(FSEditLogOp op, FSDirectory fsDir,
+      int logVersion) {
+    try {
+      final String src;
+      final DirOp dirOp;
+      switch (op.opCode) {
+      case OP_CLOSE:
+        src = renameReservedPathsOnUpgrade(((AddCloseOp) op).path, logVersion);
+        dirOp = DirOp.READ;
+        break;
+      case OP_UPDATE_BLOCKS:
+        src = renameReservedPathsOnUpgrade(
+            ((UpdateBlocksOp) op).path, logVersion);
+        dirOp = DirOp.READ;
+        break;
+      case OP_ADD_BLOCK:
+        src = renameReservedPathsOnUpgrade(
+            ((AddBlockOp) op).getPath(), logVersion);
+        dirOp = DirOp.READ;
+        break;
+      case OP_SET_REPLICATION:
+        src = renameReservedPathsOnUpgrade(
+            ((SetReplicationOp) op).path, logVersion);
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_SET_PERMISSIONS:
+        src = renameReservedPathsOnUpgrade(
+            ((SetPermissionsOp) op).src, logVersion);
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_SET_OWNER:
+        src = renameReservedPathsOnUpgrade(((SetOwnerOp) op).src, logVersion);
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_TIMES:
+        src = renameReservedPathsOnUpgrade(((TimesOp) op).path, logVersion);
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_SET_ACL:
+        src = ((SetAclOp) op).src;
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_SET_XATTR:
+        src = ((SetXAttrOp) op).src;
+        dirOp = DirOp.WRITE;
+        break;
+      case OP_REMOVE_XATTR:
+        src = ((RemoveXAttrOp) op).src;
+        dirOp = DirOp.WRITE;
+        break;
+      default:
+        return null;
+      }
+      return fsDir.getINodesInPath(src, dirOp);
+    } catch (IOException e) {
+      // Thrown when the edit is applied, in order
+      return null;
+    }
+  }
+
+  /**
+   * Mark the inodes changed by an edit applied, for the delta checkpoints.
+   */
+  private static void trackChanges(FSEditLogOp op, FSDirectory fsDir,
+      int logVersion) {
+    final INodeChangeTracker tracker = fsDir.getINodeChangeTracker();
+    switch (op.opCode) {
+    case OP_ADD:
+      // The file can be created, so the parent changes
+      trackPath(((AddCloseOp) op).path, true, fsDir, logVersion);
+      break;
+    case OP_CLOSE:
+      trackPath(((AddCloseOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_APPEND:
+      trackPath(((AppendOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_UPDATE_BLOCKS:
+      trackPath(((UpdateBlocksOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_ADD_BLOCK:
+      trackPath(((AddBlockOp) op).getPath(), false, fsDir, logVersion);
+      break;
+    case OP_SET_REPLICATION:
+      trackPath(((SetReplicationOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_CONCAT_DELETE: {
+      // The sources are deleted from the parent of the target
+      trackPath(((ConcatDeleteOp) op).trg, true, fsDir, logVersion);
+      break;
+    }
+    case OP_RENAME_OLD: {
+      RenameOldOp renameOp = (RenameOldOp) op;
+      trackPath(renameOp.src, true, fsDir, logVersion);
+      trackPath(renameOp.dst, true, fsDir, logVersion);
+      break;
+    }
+    case OP_RENAME: {
+      RenameOp renameOp = (RenameOp) op;
+      trackPath(renameOp.src, true, fsDir, logVersion);
+      trackPath(renameOp.dst, true, fsDir, logVersion);
+      break;
+    }
+    case OP_DELETE:
+      trackPath(((DeleteOp) op).path, true, fsDir, logVersion);
+      break;
+    case OP_MKDIR:
+      trackPath(((MkdirOp) op).path, true, fsDir, logVersion);
+      break;
+    case OP_SYMLINK:
+      trackPath(((SymlinkOp) op).path, true, fsDir, logVersion);
+      break;
+    case OP_SET_PERMISSIONS:
+      trackPath(((SetPermissionsOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_OWNER:
+      trackPath(((SetOwnerOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_NS_QUOTA:
+      trackPath(((SetNSQuotaOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_CLEAR_NS_QUOTA:
+      trackPath(((ClearNSQuotaOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_QUOTA:
+      trackPath(((SetQuotaOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_QUOTA_BY_STORAGETYPE:
+      trackPath(((SetQuotaByStorageTypeOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_TIMES:
+      trackPath(((TimesOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_REASSIGN_LEASE:
+      trackPath(((ReassignLeaseOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_SET_ACL:
+      trackPath(((SetAclOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_XATTR:
+      trackPath(((SetXAttrOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_REMOVE_XATTR:
+      trackPath(((RemoveXAttrOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_TRUNCATE:
+      trackPath(((TruncateOp) op).src, false, fsDir, logVersion);
+      break;
+    case OP_SET_STORAGE_POLICY:
+      trackPath(((SetStoragePolicyOp) op).path, false, fsDir, logVersion);
+      break;
+    case OP_ALLOW_SNAPSHOT:
+    case OP_DISALLOW_SNAPSHOT:
+    case OP_CREATE_SNAPSHOT:
+    case OP_DELETE_SNAPSHOT:
+    case OP_RENAME_SNAPSHOT:
+      // The delta images do not support snapshots
+      tracker.stop();
+      break;
+    default:
+      // The other edits do not change inodes
+      break;
+    }
+  }
+
+  private static void trackPath(String path, boolean withParent,
+      FSDirectory fsDir, int logVersion) {
+    final INodeChangeTracker tracker = fsDir.getINodeChangeTracker();
+    try {
+      INodesInPath iip = fsDir.getINodesInPath(
+          renameReservedPathsOnUpgrade(path, logVersion), DirOp.READ_LINK);
+      tracker.markChanged(iip.getLastINode());
+      if (withParent && iip.length() > 1) {
+        tracker.markChanged(iip.getINode(-2));
+      }
+    } catch (IOException e) {
+      LOG.warn("Cannot resolve " + path + " to track the changes", e);
+      tracker.stop();
+    }
+  }
+
+  /**
+   * Get the path of an edit, resolved ahead by {@link #resolvePaths} or now.
+   */
+  private INodesInPath getINodesInPath(FSDirectory fsDir, FSEditLogOp op,
+      String src, DirOp dirOp) throws IOException {
+    INodesInPath iip = resolvedPaths.remove(op);
+    return iip != null ? iip : fsDir.getINodesInPath(src, dirOp);
+  }
+
   // allocate and update last allocated inode id
   private long getAndUpdateLastInodeId(long inodeIdFromOp, int logVersion,
       long lastInodeId) throws IOException {
@@ -485,7 +853,8 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
             " clientMachine " + addCloseOp.clientMachine);
       }
 
-      final INodesInPath iip = fsDir.getINodesInPath(path, DirOp.READ);
+      final INodesInPath iip =
+          getINodesInPath(fsDir, op, path, DirOp.READ);
       final INodeFile file = INodeFile.valueOf(iip.getLastINode(), path);
 
       // Update the salient file attributes.
@@ -548,7 +917,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
         FSNamesystem.LOG.debug(op.opCode + ": " + path +
             " numblocks : " + updateOp.blocks.length);
       }
-      INodesInPath iip = fsDir.getINodesInPath(path, DirOp.READ);
+      INodesInPath iip = getINodesInPath(fsDir, op, path, DirOp.READ);
       INodeFile oldFile = INodeFile.valueOf(iip.getLastINode(), path);
       // Update in-memory data structures
       ErasureCodingPolicy ecPolicy =
@@ -568,7 +937,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
         FSNamesystem.LOG.debug(op.opCode + ": " + path +
             " new block id : " + addBlockOp.getLastBlock().getBlockId());
       }
-      INodesInPath iip = fsDir.getINodesInPath(path, DirOp.READ);
+      INodesInPath iip = getINodesInPath(fsDir, op, path, DirOp.READ);
       INodeFile oldFile = INodeFile.valueOf(iip.getLastINode(), path);
       // add the new block to the INodeFile
       ErasureCodingPolicy ecPolicy =
@@ -581,7 +950,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       SetReplicationOp setReplicationOp = (SetReplicationOp)op;
       String src = renameReservedPathsOnUpgrade(
           setReplicationOp.path, logVersion);
-      INodesInPath iip = fsDir.getINodesInPath(src, DirOp.WRITE);
+      INodesInPath iip = getINodesInPath(fsDir, op, src, DirOp.WRITE);
       short replication = fsNamesys.getBlockManager().adjustReplication(
           setReplicationOp.replication);
       FSDirAttrOp.unprotectedSetReplication(fsDir, iip, replication);
@@ -652,7 +1021,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       SetPermissionsOp setPermissionsOp = (SetPermissionsOp)op;
       final String src =
           renameReservedPathsOnUpgrade(setPermissionsOp.src, logVersion);
-      final INodesInPath iip = fsDir.getINodesInPath(src, DirOp.WRITE);
+      final INodesInPath iip = getINodesInPath(fsDir, op, src, DirOp.WRITE);
       FSDirAttrOp.unprotectedSetPermission(fsDir, iip,
           setPermissionsOp.permissions);
       break;
@@ -661,7 +1030,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       SetOwnerOp setOwnerOp = (SetOwnerOp)op;
       final String src = renameReservedPathsOnUpgrade(
           setOwnerOp.src, logVersion);
-      final INodesInPath iip = fsDir.getINodesInPath(src, DirOp.WRITE);
+      final INodesInPath iip = getINodesInPath(fsDir, op, src, DirOp.WRITE);
       FSDirAttrOp.unprotectedSetOwner(fsDir, iip,
           setOwnerOp.username, setOwnerOp.groupname);
       break;
@@ -708,7 +1077,7 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       TimesOp timesOp = (TimesOp)op;
       final String src = renameReservedPathsOnUpgrade(
           timesOp.path, logVersion);
-      final INodesInPath iip = fsDir.getINodesInPath(src, DirOp.WRITE);
+      final INodesInPath iip = getINodesInPath(fsDir, op, src, DirOp.WRITE);
       FSDirAttrOp.unprotectedSetTimes(fsDir, iip,
           timesOp.mtime, timesOp.atime, true);
       break;
@@ -966,13 +1335,15 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
     }
     case OP_SET_ACL: {
       SetAclOp setAclOp = (SetAclOp) op;
-      INodesInPath iip = fsDir.getINodesInPath(setAclOp.src, DirOp.WRITE);
+      INodesInPath iip =
+          getINodesInPath(fsDir, op, setAclOp.src, DirOp.WRITE);
       FSDirAclOp.unprotectedSetAcl(fsDir, iip, setAclOp.aclEntries, true);
       break;
     }
     case OP_SET_XATTR: {
       SetXAttrOp setXAttrOp = (SetXAttrOp) op;
-      INodesInPath iip = fsDir.getINodesInPath(setXAttrOp.src, DirOp.WRITE);
+      INodesInPath iip =
+          getINodesInPath(fsDir, op, setXAttrOp.src, DirOp.WRITE);
       FSDirXAttrOp.unprotectedSetXAttrs(fsDir, iip,
                                         setXAttrOp.xAttrs,
                                         EnumSet.of(XAttrSetFlag.CREATE,
@@ -984,7 +1355,8 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
     }
     case OP_REMOVE_XATTR: {
       RemoveXAttrOp removeXAttrOp = (RemoveXAttrOp) op;
-      INodesInPath iip = fsDir.getINodesInPath(removeXAttrOp.src, DirOp.WRITE);
+      INodesInPath iip =
+          getINodesInPath(fsDir, op, removeXAttrOp.src, DirOp.WRITE);
       FSDirXAttrOp.unprotectedRemoveXAttrs(fsDir, iip,
                                            removeXAttrOp.xAttrs);
       if (toAddRetryCache) {
@@ -4928,6 +4928,14 @@ public void setMaxOpSize(int maxOpSize) {
       this.maxOpSize = maxOpSize;
     }
 
+    /**
+     * Return a new object from each call to {@link #readOp(boolean)}, so
+     * the operations read can be kept while reading the next ones.
+     */
+    public void disableOpCache() {
+      cache.disableCache();
+    }
+
     /**
      * Read an operation from the input stream.
      * 
@@ -697,6 +697,9 @@ private boolean loadFSImage(FSNamesystem target, StartupOption startOpt,
 
     initEditLog(startOpt);
 
+    // The delta image to merge with the newest full image, if any
+    FSImageFile deltaFile = null;
+    long toAtLeastTxId = 0;
     if (NameNodeLayoutVersion.supports(
         LayoutVersion.Feature.TXID_BASED_LAYOUT, getLayoutVersion())) {
       // If we're open for write, we're either non-HA or we're the active NN, so
@@ -706,16 +709,19 @@ LayoutVersion.Feature.TXID_BASED_LAYOUT, getLayoutVersion())) {
       // this toAtLeastTxId to be set to the max-seen txid
       // For rollback in rolling upgrade, we need to set the toAtLeastTxId to
       // the txid right before the upgrade marker.  
-      long toAtLeastTxId = editLog.isOpenForWrite() ? inspector
+      toAtLeastTxId = editLog.isOpenForWrite() ? inspector
           .getMaxSeenTxId() : 0;
       if (rollingRollback) {
         // note that the first image in imageFiles is the special checkpoint
         // for the rolling upgrade
         toAtLeastTxId = imageFiles.get(0).getCheckpointTxId() + 2;
+      } else {
+        deltaFile = findDeltaImage(imageFiles.get(0));
       }
+      long loadedTxId = deltaFile != null ? deltaFile.getCheckpointTxId() :
+          imageFiles.get(0).getCheckpointTxId();
       editStreams = editLog.selectInputStreams(
-          imageFiles.get(0).getCheckpointTxId() + 1,
-          toAtLeastTxId, recovery, false);
+          loadedTxId + 1, toAtLeastTxId, recovery, false);
     } else {
       editStreams = FSImagePreTransactionalStorageInspector
         .getEditLogStreams(storage);
@@ -738,6 +744,28 @@ LayoutVersion.Feature.TXID_BASED_LAYOUT, getLayoutVersion())) {
       try {
         imageFile = imageFiles.get(i);
         loadFSImageFile(target, recovery, imageFile, startOpt);
+        if (isFullImage(imageFile)) {
+          target.dir.getINodeChangeTracker().reset(
+              imageFile.getCheckpointTxId());
+        }
+        if (deltaFile != null && i == 0) {
+          try {
+            LOG.info("Planning to load delta image: " + deltaFile);
+            loadFSImage(deltaFile.getFile(), target, recovery, false);
+          } catch (IOException e) {
+            LOG.error("Failed to load delta image from " + deltaFile +
+                ", loading the edits since " + imageFile + " instead", e);
+            target.clear();
+            loadFSImageFile(target, recovery, imageFile, startOpt);
+            FSEditLog.closeAllStreams(editStreams);
+            editStreams = editLog.selectInputStreams(
+                imageFile.getCheckpointTxId() + 1, toAtLeastTxId, recovery,
+                false);
+            for (EditLogInputStream elis : editStreams) {
+              elis.setMaxOpSize(maxOpSize);
+            }
+          }
+        }
         break;
       } catch (IllegalReservedPathException ie) {
         throw new IOException("Failed to load image from " + imageFile,
@@ -771,6 +799,45 @@ LayoutVersion.Feature.TXID_BASED_LAYOUT, getLayoutVersion())) {
     return needToSave;
   }
 
+  /**
+   * @return whether an image is a full image delta images can be based on.
+   */
+  private static boolean isFullImage(FSImageFile image) {
+    return image.getFile().getName().equals(
+        NNStorage.getImageFileName(image.getCheckpointTxId()));
+  }
+
+  /**
+   * Find the newest delta image based on a full image.
+   * @return the delta image, or null if there is none.
+   */
+  private FSImageFile findDeltaImage(FSImageFile base) throws IOException {
+    if (!isFullImage(base)) {
+      return null;
+    }
+    FSImageTransactionalStorageInspector inspector =
+        new FSImageTransactionalStorageInspector(
+            EnumSet.of(NameNodeFile.IMAGE_DELTA));
+    storage.inspectStorageDirs(inspector);
+    FSImageFile newest = null;
+    for (FSImageFile delta : inspector.getFoundImages()) {
+      long txId = delta.getCheckpointTxId();
+      if (txId <= base.getCheckpointTxId() ||
+          (newest != null && txId <= newest.getCheckpointTxId())) {
+        continue;
+      }
+      try {
+        if (FSImageFormatProtobuf.readDeltaBaseTxId(conf, delta.getFile())
+            == base.getCheckpointTxId()) {
+          newest = delta;
+        }
+      } catch (IOException e) {
+        LOG.warn("Unable to read delta image " + delta.getFile(), e);
+      }
+    }
+    return newest;
+  }
+
   /** rollback for rolling upgrade. */
   private void rollingRollback(long discardSegmentTxId, long ckptId)
       throws IOException {
@@ -1183,6 +1250,55 @@ public synchronized void saveNamespace(FSNamesystem source, NameNodeFile nnf,
     }
   }
 
+  /**
+   * Save the inodes changed since the last full image as a delta image in
+   * each of the current storage directories. The delta images are cumulative:
+   * loading the full image and the newest delta image gives the namespace at
+   * the transaction ID of the delta image.
+   *
+   * @return false if the changes since the last full image are not known and
+   * a full image must be saved instead.
+   */
+  public synchronized boolean saveDeltaNamespace(FSNamesystem source,
+      Canceler canceler) throws IOException {
+    INodeChangeTracker changedINodes =
+        source.getFSDirectory().getINodeChangeTracker();
+    if (!changedINodes.isTracking() ||
+        source.getSnapshotManager().getNumSnapshottableDirs() > 0) {
+      return false;
+    }
+    long imageTxId = getCorrectLastAppliedOrWrittenTxId();
+    LOG.info("Save delta namespace of " + changedINodes.getChanged().size() +
+        " changed and " + changedINodes.getDeleted().size() +
+        " deleted inodes since txid " + changedINodes.getBaseTxId() + " ...");
+    if (!addToCheckpointing(imageTxId)) {
+      throw new IOException(
+          "FS image is being downloaded from another NN at txid " + imageTxId);
+    }
+    try {
+      saveFSImageInAllDirs(source, NameNodeFile.IMAGE_DELTA, imageTxId,
+          canceler, changedINodes);
+    } finally {
+      removeFromCheckpointing(imageTxId);
+    }
+    getStorage().updateNameDirSize();
+
+    if (exitAfterSave.get()) {
+      LOG.error("NameNode process will exit now... The saved delta FsImage " +
+          "is potentially corrupted.");
+      ExitUtil.terminate(-1);
+    }
+    return true;
+  }
+
+  /**
+   * Start tracking the inodes changed since the last full image, after the
+   * Standby NameNode saved it.
+   */
+  public void resetChangedINodes(FSNamesystem source, long txid) {
+    source.getFSDirectory().getINodeChangeTracker().reset(txid);
+  }
+
   /**
    * @see #saveFSImageInAllDirs(FSNamesystem, NameNodeFile, long, Canceler)
    */
@@ -1208,6 +1324,12 @@ public void removeFromCheckpointing(long txid) {
 
   private synchronized void saveFSImageInAllDirs(FSNamesystem source,
       NameNodeFile nnf, long txid, Canceler canceler) throws IOException {
+    saveFSImageInAllDirs(source, nnf, txid, canceler, null);
+  }
+
+  private synchronized void saveFSImageInAllDirs(FSNamesystem source,
+      NameNodeFile nnf, long txid, Canceler canceler,
+      INodeChangeTracker changedINodes) throws IOException {
     StartupProgress prog = NameNode.getStartupProgress();
     prog.beginPhase(Phase.SAVING_CHECKPOINT);
     if (storage.getNumStorageDirs(NameNodeDirType.IMAGE) == 0) {
@@ -1217,7 +1339,7 @@ private synchronized void saveFSImageInAllDirs(FSNamesystem source,
       canceler = new Canceler();
     }
     SaveNamespaceContext ctx = new SaveNamespaceContext(
-        source, txid, canceler);
+        source, txid, canceler, changedINodes);
     
     try {
       List<Thread> saveThreads = new ArrayList<Thread>();
@@ -1250,7 +1372,13 @@ private synchronized void saveFSImageInAllDirs(FSNamesystem source,
       // old edit logs and checkpoints.
       // Do not purge anything if we just wrote a corrupted FsImage.
       if (!exitAfterSave.get()) {
-        purgeOldStorage(nnf);
+        if (nnf != NameNodeFile.IMAGE_DELTA) {
+          purgeOldStorage(nnf);
+        }
+        if (nnf != NameNodeFile.IMAGE_ROLLBACK) {
+          // The new checkpoint contains the changes of the older delta images
+          purgeOldDeltaImages(txid);
+        }
         archivalManager.purgeCheckpoints(NameNodeFile.IMAGE_NEW);
       }
     } finally {
@@ -1274,6 +1402,14 @@ void purgeOldStorage(NameNodeFile nnf) {
     }
   }
 
+  private void purgeOldDeltaImages(long txid) {
+    try {
+      archivalManager.purgeCheckpointsBefore(NameNodeFile.IMAGE_DELTA, txid);
+    } catch (Exception e) {
+      LOG.warn("Unable to purge old delta images", e);
+    }
+  }
+
   /**
    * Rename FSImage with the specific txid
    */
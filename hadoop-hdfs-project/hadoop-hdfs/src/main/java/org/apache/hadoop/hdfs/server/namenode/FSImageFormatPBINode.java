@@ -23,6 +23,7 @@
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -49,6 +50,7 @@
 import org.apache.hadoop.hdfs.server.namenode.FSImageFormatProtobuf.SaverContext;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.FileSummary;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.FilesUnderConstructionSection.FileUnderConstructionEntry;
+import org.apache.hadoop.hdfs.server.namenode.FsImageProto.INodeDeltaSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.INodeDirectorySection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.INodeSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.INodeSection.AclFeatureProto;
@@ -197,6 +199,10 @@ public static void updateBlocksMap(INodeFile file, BlockManager bm) {
     private final FSDirectory dir;
     private final FSNamesystem fsn;
     private final FSImageFormatProtobuf.Loader parent;
+    /** Whether a delta image is loaded on top of a full image. */
+    private boolean delta = false;
+    /** The inodes of the full image replaced by the delta image. */
+    private final List<INode> replaced = new ArrayList<>();
 
     Loader(FSNamesystem fsn, final FSImageFormatProtobuf.Loader parent) {
       this.fsn = fsn;
@@ -215,6 +221,9 @@ void loadINodeDirectorySection(InputStream in) throws IOException {
           break;
         }
         INodeDirectory p = dir.getInode(e.getParent()).asDirectory();
+        if (delta) {
+          p.clearChildren();
+        }
         for (long id : e.getChildrenList()) {
           INode child = dir.getInode(id);
           addToParent(p, child);
@@ -224,6 +233,81 @@ void loadINodeDirectorySection(InputStream in) throws IOException {
           addToParent(p, ref);
         }
       }
+      if (delta) {
+        replaceChildren();
+      }
+    }
+
+    /**
+     * Load the section marking a delta image and remove the inodes deleted
+     * since the full image loaded before it.
+     */
+    void loadINodeDeltaSection(InputStream in) throws IOException {
+      INodeDeltaSection s = INodeDeltaSection.parseDelimitedFrom(in);
+      LOG.info("Loading the delta since the image at txid " +
+          s.getBaseTxId() + ", removing " + s.getDeletedCount() + " INodes.");
+      delta = true;
+      INodeChangeTracker tracker = dir.getINodeChangeTracker();
+      tracker.reset(s.getBaseTxId());
+      for (long id : s.getDeletedList()) {
+        INode n = dir.getInode(id);
+        if (n != null) {
+          removeAtLoading(n);
+        }
+        tracker.markDeleted(id);
+      }
+    }
+
+    boolean isDelta() {
+      return delta;
+    }
+
+    /**
+     * Remove an inode loaded from the full image, which is deleted or
+     * replaced by the delta image.
+     */
+    private void removeAtLoading(INode n) {
+      if (n.isFile()) {
+        INodeFile file = n.asFile();
+        BlockInfo[] blocks = file.getBlocks();
+        if (blocks != null) {
+          for (BlockInfo b : blocks) {
+            b.delete();
+            fsn.getBlockManager().removeBlockFromMap(b);
+          }
+        }
+        if (file.isUnderConstruction()) {
+          fsn.leaseManager.removeLease(file.getId());
+        }
+      }
+      dir.writeLock();
+      try {
+        dir.removeFromInodeMap(Collections.singletonList(n));
+      } finally {
+        dir.writeUnlock();
+      }
+    }
+
+    /**
+     * Put the inodes of the delta image in place of the inodes they replace
+     * in directories whose children did not change.
+     */
+    private void replaceChildren() {
+      for (INode old : replaced) {
+        INode n = dir.getInode(old.getId());
+        INodeDirectory oldParent = old.getParent();
+        if (n == null || n.getParent() != null || oldParent == null) {
+          // Added to the children of a directory of the delta image
+          continue;
+        }
+        INodeDirectory p = dir.getInode(oldParent.getId()).asDirectory();
+        p.replaceChild(old, n, null);
+        n.setParent(p);
+        if (n.isFile()) {
+          updateBlocksMap(n.asFile(), fsn.getBlockManager());
+        }
+      }
+      replaced.clear();
     }
 
     void loadINodeSection(InputStream in, StartupProgress prog,
@@ -237,8 +321,19 @@ void loadINodeSection(InputStream in, StartupProgress prog,
       for (int i = 0; i < numInodes; ++i) {
         INodeSection.INode p = INodeSection.INode.parseDelimitedFrom(in);
         if (p.getId() == INodeId.ROOT_INODE_ID) {
+          if (delta) {
+            dir.getINodeChangeTracker().markChanged(p.getId());
+          }
           loadRootINode(p);
         } else {
+          if (delta) {
+            INode old = dir.getInode(p.getId());
+            if (old != null) {
+              removeAtLoading(old);
+              replaced.add(old);
+            }
+            dir.getINodeChangeTracker().markChanged(p.getId());
+          }
           INode n = loadINode(p);
           dir.addToInodeMap(n);
         }
@@ -393,6 +488,15 @@ private void loadRootINode(INodeSection.INode p) {
       }
       dir.rootDir.cloneModificationTime(root);
       dir.rootDir.clonePermissionStatus(root);
+      if (delta) {
+        // Replace the features loaded from the full image
+        if (dir.rootDir.getAclFeature() != null) {
+          dir.rootDir.removeAclFeature();
+        }
+        if (dir.rootDir.getXAttrFeature() != null) {
+          dir.rootDir.removeXAttrFeature();
+        }
+      }
       final AclFeature af = root.getFeature(AclFeature.class);
       if (af != null) {
         dir.rootDir.addAclFeature(af);
@@ -522,8 +626,8 @@ public static INodeSection.INodeDirectory.Builder buildINodeDirectory(
 
     void serializeINodeDirectorySection(OutputStream out) throws IOException {
       FSDirectory dir = fsn.getFSDirectory();
-      Iterator<INodeWithAdditionalFields> iter = dir.getINodeMap()
-          .getMapIterator();
+      final boolean delta = context.getChangedINodes() != null;
+      Iterator<INodeWithAdditionalFields> iter = getINodes().iterator();
       final ArrayList<INodeReference> refList = parent.getSaverContext()
           .getRefList();
       int i = 0;
@@ -535,7 +639,8 @@ void serializeINodeDirectorySection(OutputStream out) throws IOException {
 
         ReadOnlyList<INode> children = n.asDirectory().getChildrenList(
             Snapshot.CURRENT_STATE_ID);
-        if (children.size() > 0) {
+        // A delta image resets the children of every directory changed
+        if (children.size() > 0 || delta) {
           INodeDirectorySection.DirEntry.Builder b = INodeDirectorySection.
               DirEntry.newBuilder().setParent(n.getId());
           for (INode inode : children) {
@@ -573,15 +678,17 @@ void serializeINodeDirectorySection(OutputStream out) throws IOException {
     }
 
     void serializeINodeSection(OutputStream out) throws IOException {
-      INodeMap inodesMap = fsn.dir.getINodeMap();
+      Iterable<INodeWithAdditionalFields> inodes = getINodes();
+      long numInodes = inodes instanceof Collection ?
+          ((Collection<?>) inodes).size() : fsn.dir.getINodeMap().size();
 
       INodeSection.Builder b = INodeSection.newBuilder()
-          .setLastInodeId(fsn.dir.getLastInodeId()).setNumInodes(inodesMap.size());
+          .setLastInodeId(fsn.dir.getLastInodeId()).setNumInodes(numInodes);
       INodeSection s = b.build();
       s.writeDelimitedTo(out);
 
       int i = 0;
-      Iterator<INodeWithAdditionalFields> iter = inodesMap.getMapIterator();
+      Iterator<INodeWithAdditionalFields> iter = inodes.iterator();
       while (iter.hasNext()) {
         INodeWithAdditionalFields n = iter.next();
         save(out, n);
@@ -593,6 +700,41 @@ void serializeINodeSection(OutputStream out) throws IOException {
       parent.commitSection(summary, FSImageFormatProtobuf.SectionName.INODE);
     }
 
+    /**
+     * Save the transaction ID of the full image and the inodes deleted since
+     * it when saving a delta image.
+     */
+    void serializeINodeDeltaSection(OutputStream out) throws IOException {
+      INodeChangeTracker changes = context.getChangedINodes();
+      INodeDeltaSection.newBuilder()
+          .setBaseTxId(changes.getBaseTxId())
+          .addAllDeleted(changes.getDeleted())
+          .build().writeDelimitedTo(out);
+      parent.commitSection(summary,
+          FSImageFormatProtobuf.SectionName.INODE_DELTA);
+    }
+
+    /**
+     * @return all the inodes for a full image, or the inodes changed since
+     * the full image for a delta image.
+     */
+    private Iterable<INodeWithAdditionalFields> getINodes() {
+      final INodeMap inodesMap = fsn.dir.getINodeMap();
+      INodeChangeTracker changes = context.getChangedINodes();
+      if (changes == null) {
+        return inodesMap::getMapIterator;
+      }
+      List<INodeWithAdditionalFields> inodes =
+          new ArrayList<>(changes.getChanged().size());
+      for (long id : changes.getChanged()) {
+        INode n = inodesMap.get(id);
+        if (n instanceof INodeWithAdditionalFields) {
+          inodes.add((INodeWithAdditionalFields) n);
+        }
+      }
+      return inodes;
+    }
+
     void serializeFilesUCSection(OutputStream out) throws IOException {
       Collection<Long> filesWithUC = fsn.getLeaseManager()
               .getINodeIdWithLeases();
@@ -30,6 +30,7 @@
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
@@ -56,6 +57,7 @@
 import org.apache.hadoop.hdfs.server.common.HdfsServerConstants;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.CacheManagerSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.FileSummary;
+import org.apache.hadoop.hdfs.server.namenode.FsImageProto.INodeDeltaSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.NameSystemSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.SecretManagerSection;
 import org.apache.hadoop.hdfs.server.namenode.FsImageProto.StringTableSection;
@@ -315,6 +317,9 @@ public int compare(FileSummary.Section s1, FileSummary.Section s2) {
         case STRING_TABLE:
           loadStringTableSection(in);
           break;
+        case INODE_DELTA:
+          inodeLoader.loadINodeDeltaSection(in);
+          break;
         case INODE: {
           currentStep = new Step(StepType.INODES);
           prog.beginStep(Phase.LOADING_FSIMAGE, currentStep);
@@ -337,6 +342,10 @@ public int compare(FileSummary.Section s1, FileSummary.Section s2) {
           snapshotLoader.loadSnapshotDiffSection(in);
           break;
         case SECRET_MANAGER: {
+          if (inodeLoader.isDelta()) {
+            // Replace the tokens of the full image
+            fsn.getDelegationTokenSecretManager().reset();
+          }
           prog.endStep(Phase.LOADING_FSIMAGE, currentStep);
           Step step = new Step(StepType.DELEGATION_TOKENS);
           prog.beginStep(Phase.LOADING_FSIMAGE, step);
@@ -345,6 +354,9 @@ public int compare(FileSummary.Section s1, FileSummary.Section s2) {
         }
           break;
         case CACHE_MANAGER: {
+          if (inodeLoader.isDelta()) {
+            fsn.getCacheManager().clear();
+          }
           Step step = new Step(StepType.CACHE_POOLS);
           prog.beginStep(Phase.LOADING_FSIMAGE, step);
           loadCacheManagerSection(in, prog, step);
@@ -538,6 +550,9 @@ private long saveInodes(FileSummary.Builder summary) throws IOException {
       FSImageFormatPBINode.Saver saver = new FSImageFormatPBINode.Saver(this,
           summary);
 
+      if (context.getChangedINodes() != null) {
+        saver.serializeINodeDeltaSection(sectionOutputStream);
+      }
       saver.serializeINodeSection(sectionOutputStream);
       saver.serializeINodeDirectorySection(sectionOutputStream);
       saver.serializeFilesUCSection(sectionOutputStream);
@@ -727,6 +742,31 @@ private void saveStringTableSection(FileSummary.Builder summary)
     }
   }
 
+  /**
+   * Read the transaction ID of the full image a delta image is based on.
+   * @return the transaction ID, or INVALID_TXID if the image is not a delta.
+   */
+  static long readDeltaBaseTxId(Configuration conf, File file)
+      throws IOException {
+    try (RandomAccessFile raFile = new RandomAccessFile(file, "r")) {
+      if (!FSImageUtil.checkFileFormat(raFile)) {
+        throw new IOException("Unrecognized file format");
+      }
+      FileSummary summary = FSImageUtil.loadSummary(raFile);
+      for (FileSummary.Section s : summary.getSectionsList()) {
+        if (SectionName.fromString(s.getName()) == SectionName.INODE_DELTA) {
+          raFile.seek(s.getOffset());
+          InputStream in = FSImageUtil.wrapInputStreamForCompression(conf,
+              summary.getCodec(), new BufferedInputStream(new LimitInputStream(
+                  Channels.newInputStream(raFile.getChannel()),
+                  s.getLength())));
+          return INodeDeltaSection.parseDelimitedFrom(in).getBaseTxId();
+        }
+      }
+    }
+    return HdfsServerConstants.INVALID_TXID;
+  }
+
   /**
    * Supported section name. The order of the enum determines the order of
    * loading.
@@ -736,6 +776,7 @@ public enum SectionName {
     STRING_TABLE("STRING_TABLE"),
     EXTENDED_ACL("EXTENDED_ACL"),
     ERASURE_CODING("ERASURE_CODING"),
+    INODE_DELTA("INODE_DELTA"),
     INODE("INODE"),
     INODE_REFERENCE("INODE_REFERENCE"),
     SNAPSHOT("SNAPSHOT"),
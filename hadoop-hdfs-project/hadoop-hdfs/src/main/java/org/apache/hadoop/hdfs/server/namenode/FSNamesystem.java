@@ -1232,6 +1232,8 @@ void startActiveServices() throws IOException {
     LOG.info("Starting services required for active state");
     writeLock();
     try {
+      // The active NameNode does not save delta checkpoints
+      dir.getINodeChangeTracker().stop();
       FSEditLog editLog = getFSImage().getEditLog();
       
       if (!editLog.isOpenForWrite()) {
@@ -5257,17 +5259,27 @@ public String getTopUserOpCounts() {
     if (!topConf.isEnabled) {
       return null;
     }
+    return toTopJson(topMetrics.getTopWindows(), "TopUser");
+  }
+
+  @Override // FSNamesystemMBean
+  public String getTopLockTimes() {
+    if (!topConf.isEnabled) {
+      return null;
+    }
+    return toTopJson(topMetrics.getTopLockWindows(), "TopLock");
+  }
 
+  private static String toTopJson(
+      List<RollingWindowManager.TopWindow> topWindows, String name) {
     Date now = new Date();
-    final List<RollingWindowManager.TopWindow> topWindows =
-        topMetrics.getTopWindows();
     Map<String, Object> topMap = new TreeMap<String, Object>();
     topMap.put("windows", topWindows);
     topMap.put("timestamp", DFSUtil.dateToIso8601String(now));
     try {
       return JsonUtil.toJsonString(topMap);
     } catch (IOException e) {
-      LOG.warn("Failed to fetch TopUser metrics", e);
+      LOG.warn("Failed to fetch " + name + " metrics", e);
     }
     return null;
   }
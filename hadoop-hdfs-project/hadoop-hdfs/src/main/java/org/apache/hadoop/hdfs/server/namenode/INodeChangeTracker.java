@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.hdfs.server.common.HdfsServerConstants;
+
+/**
+ * Tracks the inodes changed and deleted since the last full fsimage, so the
+ * Standby NameNode can checkpoint them as a delta image on top of it. The
+ * tracker is reset when a full image is loaded or saved and stopped when the
+ * changes can no longer be tracked, e.g. when the NameNode becomes active,
+ * a snapshot is used or too many inodes changed. All the methods must be
+ * called with the namesystem lock or the checkpoint lock held.
+ */
+class INodeChangeTracker {
+  private final boolean enabled;
+  private final int maxChanged;
+  /** Transaction ID of the full image, or INVALID_TXID if not tracking. */
+  private long baseTxId = HdfsServerConstants.INVALID_TXID;
+  private final Set<Long> changed = new HashSet<>();
+  private final Set<Long> deleted = new HashSet<>();
+
+  INodeChangeTracker(boolean enabled, int maxChanged) {
+    this.enabled = enabled;
+    this.maxChanged = maxChanged;
+  }
+
+  boolean isTracking() {
+    return baseTxId != HdfsServerConstants.INVALID_TXID;
+  }
+
+  /**
+   * Start tracking the changes on top of a full image.
+   * @param txId transaction ID of the full image.
+   */
+  void reset(long txId) {
+    changed.clear();
+    deleted.clear();
+    baseTxId = enabled ? txId : HdfsServerConstants.INVALID_TXID;
+  }
+
+  /** Stop tracking until the next full image. */
+  void stop() {
+    if (isTracking()) {
+      FSImage.LOG.info("Stop tracking the inodes changed since the image at " +
+          "txid {}", baseTxId);
+    }
+    reset(HdfsServerConstants.INVALID_TXID);
+  }
+
+  void markChanged(INode inode) {
+    if (inode != null && isTracking()) {
+      markChanged(inode.getId());
+    }
+  }
+
+  void markChanged(long id) {
+    if (isTracking()) {
+      changed.add(id);
+      checkSize();
+    }
+  }
+
+  void markDeleted(long id) {
+    if (isTracking()) {
+      changed.remove(id);
+      deleted.add(id);
+      checkSize();
+    }
+  }
+
+  private void checkSize() {
+    if (changed.size() + deleted.size() > maxChanged) {
+      stop();
+    }
+  }
+
+  long getBaseTxId() {
+    return baseTxId;
+  }
+
+  Collection<Long> getChanged() {
+    return Collections.unmodifiableSet(changed);
+  }
+
+  Collection<Long> getDeleted() {
+    return Collections.unmodifiableSet(deleted);
+  }
+}
@@ -0,0 +1,450 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import static org.apache.hadoop.hdfs.server.common.Util.IO_FILE_BUFFER_SIZE;
+import static org.apache.hadoop.hdfs.server.common.Util.connectionFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ChecksumException;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.server.common.HttpGetFailedException;
+import org.apache.hadoop.hdfs.server.common.Storage;
+import org.apache.hadoop.hdfs.server.common.StorageErrorReporter;
+import org.apache.hadoop.hdfs.server.common.Util;
+import org.apache.hadoop.hdfs.util.DataTransferThrottler;
+import org.apache.hadoop.hdfs.util.MD5FileUtils;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.MD5Hash;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.authentication.client.AuthenticationException;
+import org.apache.hadoop.util.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Downloads an fsimage in ranges over parallel HTTP streams.
+ *
+ * The {@link ImageServlet} sends a range as a sequence of chunks, each of
+ * them with its length, its length on the wire and the CRC32 of its data,
+ * optionally compressed with an fsimage compression codec. The client writes
+ * the chunks at their offset in the destination files after verifying their
+ * checksum, so a range which fails is resumed from its last verified chunk.
+ */
+final class ImageRangeTransfer {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ImageRangeTransfer.class);
+
+  /** Attempts to download a range before failing the transfer. */
+  private static final int MAX_RANGE_ATTEMPTS = 3;
+
+  private ImageRangeTransfer() {
+  }
+
+  /**
+   * @return true if the images should be downloaded in ranges.
+   */
+  static boolean isEnabled(Configuration conf) {
+    return getNumStreams(conf) > 1 || conf.getBoolean(
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_COMPRESS_KEY,
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_COMPRESS_DEFAULT);
+  }
+
+  private static int getNumStreams(Configuration conf) {
+    return Math.max(1, conf.getInt(
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_PARALLEL_STREAMS_KEY,
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_PARALLEL_STREAMS_DEFAULT));
+  }
+
+  /**
+   * Send a range of a file as checksummed chunks.
+   * @param codec the codec to compress the chunks, or null.
+   */
+  static void sendRange(OutputStream os, File file, long offset, long length,
+      CompressionCodec codec, int chunkSize, DataTransferThrottler throttler)
+      throws IOException {
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(os, IO_FILE_BUFFER_SIZE));
+    Compressor compressor = null;
+    long sent = 0;
+    try (FileChannel channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.READ)) {
+      ByteBuffer buf = ByteBuffer.allocate(chunkSize);
+      ByteArrayOutputStream compressed = null;
+      if (codec != null) {
+        compressor = CodecPool.getCompressor(codec);
+        compressed = new ByteArrayOutputStream(chunkSize);
+      }
+      CRC32 crc = new CRC32();
+      while (sent < length) {
+        buf.clear();
+        buf.limit((int) Math.min(chunkSize, length - sent));
+        while (buf.hasRemaining()) {
+          if (channel.read(buf, offset + sent + buf.position()) < 0) {
+            throw new EOFException("File " + file + " ends before the range "
+                + offset + "+" + length);
+          }
+        }
+        int num = buf.position();
+        crc.reset();
+        crc.update(buf.array(), 0, num);
+        if (CheckpointFaultInjector.getInstance().shouldCorruptAByte(file)) {
+          // Simulate a corrupted byte on the wire
+          LOG.warn("SIMULATING A CORRUPT BYTE IN IMAGE TRANSFER!");
+          buf.array()[0]++;
+        }
+
+        out.writeInt(num);
+        if (codec != null) {
+          compressed.reset();
+          if (compressor != null) {
+            compressor.reset();
+          }
+          CompressionOutputStream cos =
+              codec.createOutputStream(compressed, compressor);
+          cos.write(buf.array(), 0, num);
+          cos.finish();
+          out.writeInt(compressed.size());
+          out.writeInt((int) crc.getValue());
+          compressed.writeTo(out);
+        } else {
+          out.writeInt(num);
+          out.writeInt((int) crc.getValue());
+          out.write(buf.array(), 0, num);
+        }
+        sent += num;
+        if (throttler != null) {
+          throttler.throttle(num);
+        }
+      }
+      out.flush();
+    } finally {
+      CodecPool.returnCompressor(compressor);
+      LOG.info("Sent " + sent + " bytes of the range " + offset + "+" + length
+          + " of " + file + (codec == null ? "" :
+          " compressed with " + codec.getClass().getSimpleName()));
+    }
+  }
+
+  /**
+   * Download an image in ranges over parallel streams into local files.
+   * @param imageQuery the query string to get the image from the servlet.
+   * @param dstStorage if an error occurs opening one of the files, this
+   *                   storage object will be notified.
+   * @return a digest of the received file if getChecksum is true.
+   */
+  static MD5Hash download(Configuration conf, URL infoServer,
+      String imageQuery, List<File> localPaths, Storage dstStorage,
+      boolean getChecksum) throws IOException {
+    long startTime = Time.monotonicNow();
+    int numStreams = getNumStreams(conf);
+    long rangeSize = Math.max(1, conf.getLongBytes(
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_RANGE_SIZE_KEY,
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_RANGE_SIZE_DEFAULT));
+    CompressionCodec codec = null;
+    if (conf.getBoolean(DFSConfigKeys.DFS_IMAGE_TRANSFER_COMPRESS_KEY,
+        DFSConfigKeys.DFS_IMAGE_TRANSFER_COMPRESS_DEFAULT)) {
+      codec = FSImageCompression.createCompression(conf, conf.get(
+          DFSConfigKeys.DFS_IMAGE_COMPRESSION_CODEC_KEY,
+          DFSConfigKeys.DFS_IMAGE_COMPRESSION_CODEC_DEFAULT)).getImageCodec();
+    }
+    final String codecName = codec == null ? null :
+        codec.getClass().getCanonicalName();
+
+    // An empty range to get the length and the digest of the image
+    URL url = new URL(infoServer, ImageServlet.PATH_SPEC + "?" + imageQuery
+        + "&" + ImageServlet.getParamStringForRange(0, 0, null, numStreams));
+    LOG.info("Opening connection to " + url);
+    HttpURLConnection connection = openConnection(url);
+    long fileLength;
+    MD5Hash advertisedDigest;
+    try {
+      String header = connection.getHeaderField(Util.FILE_LENGTH);
+      if (header == null) {
+        throw new IOException(Util.FILE_LENGTH + " header is not provided "
+            + "by the namenode when trying to fetch " + url);
+      }
+      fileLength = Long.parseLong(header);
+      header = connection.getHeaderField(Util.MD5_HEADER);
+      advertisedDigest = header == null ? null : new MD5Hash(header);
+    } finally {
+      IOUtils.closeStream(connection.getInputStream());
+      connection.disconnect();
+    }
+
+    List<File> files = new ArrayList<>();
+    List<RandomAccessFile> outputs = new ArrayList<>();
+    for (File f : localPaths) {
+      try {
+        if (f.exists()) {
+          LOG.warn("Overwriting existing file " + f
+              + " with file downloaded from " + url);
+        }
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        outputs.add(raf);
+        files.add(f);
+        raf.setLength(fileLength);
+      } catch (IOException ioe) {
+        LOG.warn("Unable to download file " + f, ioe);
+        if (dstStorage instanceof StorageErrorReporter) {
+          ((StorageErrorReporter) dstStorage).reportErrorOnFile(f);
+        }
+      }
+    }
+    if (outputs.isEmpty()) {
+      throw new IOException("Unable to download to any storage directory");
+    }
+    List<FileChannel> channels = new ArrayList<>();
+    for (RandomAccessFile raf : outputs) {
+      channels.add(raf.getChannel());
+    }
+
+    int numRanges = (int) Math.max(1, (fileLength + rangeSize - 1) / rangeSize);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(numStreams, numRanges), new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat("Image range transfer #%d")
+            .build());
+    boolean finished = false;
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (long offset = 0; offset < fileLength; offset += rangeSize) {
+        RangeReceiver receiver = new RangeReceiver(infoServer, imageQuery,
+            offset, Math.min(rangeSize, fileLength - offset), codec,
+            codecName, numStreams, channels);
+        futures.add(executor.submit(receiver));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while downloading " + url, e);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException(e.getCause());
+        }
+      }
+      for (FileChannel channel : channels) {
+        channel.force(true);
+      }
+      finished = true;
+    } finally {
+      executor.shutdownNow();
+      for (RandomAccessFile raf : outputs) {
+        IOUtils.closeStream(raf);
+      }
+      if (!finished) {
+        deleteFiles(files);
+      }
+    }
+    double xferSec = Math.max(
+        ((float) (Time.monotonicNow() - startTime)) / 1000.0, 0.001);
+    LOG.info(String.format("Downloaded %d bytes in %d ranges over %d streams "
+        + "in %.2fs at %.2f KB/s.", fileLength, numRanges,
+        Math.min(numStreams, numRanges), xferSec,
+        fileLength / 1024.0 / xferSec));
+
+    if (!getChecksum) {
+      return null;
+    }
+    MD5Hash computedDigest = MD5FileUtils.computeMd5ForFile(files.get(0));
+    if (advertisedDigest != null && !computedDigest.equals(advertisedDigest)) {
+      deleteFiles(files);
+      throw new IOException("File " + url + " computed digest "
+          + computedDigest + " does not match advertised digest "
+          + advertisedDigest);
+    }
+    return computedDigest;
+  }
+
+  private static HttpURLConnection openConnection(URL url)
+      throws IOException {
+    HttpURLConnection connection;
+    try {
+      connection = (HttpURLConnection) connectionFactory.openConnection(url,
+          UserGroupInformation.isSecurityEnabled());
+    } catch (AuthenticationException e) {
+      throw new IOException(e);
+    }
+    TransferFsImage.setTimeout(connection);
+    if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+      throw new HttpGetFailedException("Image transfer servlet at " + url +
+          " failed with status code " + connection.getResponseCode() +
+          "\nResponse message:\n" + connection.getResponseMessage(),
+          connection);
+    }
+    return connection;
+  }
+
+  private static void deleteFiles(List<File> files) {
+    LOG.info("Deleting temporary files: " + files);
+    for (File file : files) {
+      if (!file.delete()) {
+        LOG.warn("Deleting " + file + " has failed");
+      }
+    }
+  }
+
+  /**
+   * Receives a range of the image into the local files, resuming from the
+   * last verified chunk when the stream fails.
+   */
+  private static class RangeReceiver implements Callable<Void> {
+    private final URL infoServer;
+    private final String imageQuery;
+    private final long offset;
+    private final long length;
+    private final CompressionCodec codec;
+    private final String codecName;
+    private final int numStreams;
+    private final List<FileChannel> channels;
+    /** Bytes of the range written to the local files. */
+    private long received = 0;
+
+    RangeReceiver(URL infoServer, String imageQuery, long offset, long length,
+        CompressionCodec codec, String codecName, int numStreams,
+        List<FileChannel> channels) {
+      this.infoServer = infoServer;
+      this.imageQuery = imageQuery;
+      this.offset = offset;
+      this.length = length;
+      this.codec = codec;
+      this.codecName = codecName;
+      this.numStreams = numStreams;
+      this.channels = channels;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      Decompressor decompressor =
+          codec == null ? null : CodecPool.getDecompressor(codec);
+      try {
+        for (int attempt = 1; received < length; attempt++) {
+          try {
+            receive(decompressor);
+          } catch (IOException e) {
+            if (attempt >= MAX_RANGE_ATTEMPTS ||
+                Thread.currentThread().isInterrupted()) {
+              throw e;
+            }
+            LOG.warn("Failed to receive the range " + offset + "+" + length
+                + " of the image after " + received + " bytes, resuming", e);
+          }
+        }
+      } finally {
+        CodecPool.returnDecompressor(decompressor);
+      }
+      return null;
+    }
+
+    private void receive(Decompressor decompressor) throws IOException {
+      long start = offset + received;
+      URL url = new URL(infoServer, ImageServlet.PATH_SPEC + "?" + imageQuery
+          + "&" + ImageServlet.getParamStringForRange(start, length - received,
+          codecName, numStreams));
+      HttpURLConnection connection = openConnection(url);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+          connection.getInputStream(), IO_FILE_BUFFER_SIZE));
+      try {
+        CRC32 crc = new CRC32();
+        byte[] data = new byte[0];
+        byte[] raw = new byte[0];
+        while (received < length) {
+          int rawLength = in.readInt();
+          int dataLength = in.readInt();
+          int checksum = in.readInt();
+          if (rawLength <= 0 || rawLength > length - received ||
+              dataLength < 0) {
+            throw new IOException("Invalid chunk of " + rawLength + " bytes ("
+                + dataLength + " on the wire) at " + (offset + received)
+                + " from " + url);
+          }
+          if (data.length < dataLength) {
+            data = new byte[dataLength];
+          }
+          in.readFully(data, 0, dataLength);
+          if (codec == null) {
+            raw = data;
+          } else {
+            if (raw.length < rawLength) {
+              raw = new byte[rawLength];
+            }
+            if (decompressor != null) {
+              decompressor.reset();
+            }
+            InputStream chunk = codec.createInputStream(
+                new ByteArrayInputStream(data, 0, dataLength), decompressor);
+            IOUtils.readFully(chunk, raw, 0, rawLength);
+          }
+          crc.reset();
+          crc.update(raw, 0, rawLength);
+          if ((int) crc.getValue() != checksum) {
+            throw new ChecksumException("Checksum error in the chunk at "
+                + (offset + received) + " from " + url, offset + received);
+          }
+          for (FileChannel channel : channels) {
+            ByteBuffer buf = ByteBuffer.wrap(raw, 0, rawLength);
+            long position = offset + received;
+            while (buf.hasRemaining()) {
+              position += channel.write(buf, position);
+            }
+          }
+          received += rawLength;
+        }
+      } finally {
+        IOUtils.closeStream(in);
+        connection.disconnect();
+      }
+    }
+  }
+}
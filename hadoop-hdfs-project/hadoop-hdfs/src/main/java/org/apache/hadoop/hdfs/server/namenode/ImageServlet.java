@@ -59,6 +59,7 @@
 import org.apache.hadoop.http.HttpServer2;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.MD5Hash;
+import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.util.ServletUtil;
 import org.apache.hadoop.util.StringUtils;
@@ -91,6 +92,10 @@ public class ImageServlet extends HttpServlet {
   private static final String LATEST_FSIMAGE_VALUE = "latest";
   private static final String IMAGE_FILE_TYPE = "imageFile";
   private static final String IS_BOOTSTRAP_STANDBY = "bootstrapstandby";
+  private static final String RANGE_OFFSET_PARAM = "rangeOffset";
+  private static final String RANGE_LENGTH_PARAM = "rangeLength";
+  private static final String RANGE_CODEC_PARAM = "rangeCodec";
+  private static final String RANGE_STREAMS_PARAM = "rangeStreams";
 
   private SortedSet<ImageUploadRequest> currentlyDownloadingCheckpoints = Collections
       .<ImageUploadRequest> synchronizedSortedSet(new TreeSet<ImageUploadRequest>());
@@ -132,7 +137,11 @@ public Void run() throws Exception {
             }
             CheckpointFaultInjector.getInstance().beforeGetImageSetsHeaders();
             long start = monotonicNow();
-            serveFile(imageFile);
+            if (parsedParams.isGetRange()) {
+              serveRange(imageFile);
+            } else {
+              serveFile(imageFile);
+            }
 
             if (metrics != null) { // Metrics non-null only when used inside name node
               long elapsed = monotonicNow() - start;
@@ -188,6 +197,33 @@ private void serveFile(File file) throws IOException {
             IOUtils.closeStream(fis);
           }
         }
+
+        private void serveRange(File file) throws IOException {
+          setFileNameHeaders(response, file);
+          response.setHeader(Util.FILE_LENGTH, String.valueOf(file.length()));
+          MD5Hash hash = MD5FileUtils.readStoredMd5ForFile(file);
+          if (hash != null) {
+            response.setHeader(Util.MD5_HEADER, hash.toString());
+          }
+          CompressionCodec codec = null;
+          if (parsedParams.getRangeCodec() != null) {
+            codec = FSImageCompression.createCompression(conf,
+                parsedParams.getRangeCodec()).getImageCodec();
+          }
+          // The parallel streams of a transfer share its bandwidth
+          DataTransferThrottler throttler = parsedParams.isBootstrapStandby ?
+              getThrottlerForBootstrapStandby(conf) : getThrottler(conf);
+          if (throttler != null) {
+            throttler.setBandwidth(Math.max(1,
+                throttler.getBandwidth() / parsedParams.getRangeStreams()));
+          }
+          int chunkSize = (int) conf.getLongBytes(
+              DFSConfigKeys.DFS_IMAGE_TRANSFER_CHUNKSIZE_KEY,
+              DFSConfigKeys.DFS_IMAGE_TRANSFER_CHUNKSIZE_DEFAULT);
+          ImageRangeTransfer.sendRange(response.getOutputStream(), file,
+              parsedParams.getRangeOffset(), parsedParams.getRangeLength(),
+              codec, chunkSize, throttler);
+        }
       });
       
     } catch (Throwable t) {
@@ -350,6 +386,14 @@ static String getParamStringForImage(NameNodeFile nnf, long txid,
       + IS_BOOTSTRAP_STANDBY + "=" + isBootstrapStandby;
   }
 
+  static String getParamStringForRange(long offset, long length,
+      String codecName, int numStreams) {
+    return RANGE_OFFSET_PARAM + "=" + offset
+        + "&" + RANGE_LENGTH_PARAM + "=" + length
+        + (codecName == null ? "" : "&" + RANGE_CODEC_PARAM + "=" + codecName)
+        + "&" + RANGE_STREAMS_PARAM + "=" + numStreams;
+  }
+
   static String getParamStringForLog(RemoteEditLog log,
       StorageInfo remoteStorageInfo) {
     return "getedit=1&" + START_TXID_PARAM + "=" + log.getStartTxId()
@@ -372,6 +416,10 @@ static class GetImageParams {
     private boolean fetchLatest;
     private boolean isBootstrapStandby;
     private boolean isGetAliasMap;
+    private boolean isGetRange;
+    private long rangeOffset, rangeLength;
+    private String rangeCodec;
+    private int rangeStreams;
 
     /**
      * @param request the object from which this servlet reads the url contents
@@ -399,6 +447,21 @@ public GetImageParams(HttpServletRequest request,
                 IS_BOOTSTRAP_STANDBY);
             isBootstrapStandby = bootstrapStandby != null &&
                 Boolean.parseBoolean(bootstrapStandby);
+            if (ServletUtil.getParameter(request, RANGE_OFFSET_PARAM) != null) {
+              isGetRange = true;
+              rangeOffset = ServletUtil.parseLongParam(request,
+                  RANGE_OFFSET_PARAM);
+              rangeLength = ServletUtil.parseLongParam(request,
+                  RANGE_LENGTH_PARAM);
+              rangeCodec = ServletUtil.getParameter(request,
+                  RANGE_CODEC_PARAM);
+              rangeStreams = Math.max(1, (int) ServletUtil.parseLongParam(
+                  request, RANGE_STREAMS_PARAM));
+              if (rangeOffset < 0 || rangeLength < 0) {
+                throw new IOException("Illegal range " + rangeOffset + "+"
+                    + rangeLength);
+              }
+            }
           } catch (NumberFormatException nfe) {
             if (request.getParameter(TXID_PARAM).equals(LATEST_FSIMAGE_VALUE)) {
               fetchLatest = true;
@@ -466,6 +529,30 @@ boolean shouldFetchLatest() {
     boolean isGetAliasMap() {
       return isGetAliasMap;
     }
+
+    boolean isGetRange() {
+      return isGetRange;
+    }
+
+    long getRangeOffset() {
+      Preconditions.checkState(isGetRange);
+      return rangeOffset;
+    }
+
+    long getRangeLength() {
+      Preconditions.checkState(isGetRange);
+      return rangeLength;
+    }
+
+    String getRangeCodec() {
+      Preconditions.checkState(isGetRange);
+      return rangeCodec;
+    }
+
+    int getRangeStreams() {
+      Preconditions.checkState(isGetRange);
+      return rangeStreams;
+    }
   }
 
   /**
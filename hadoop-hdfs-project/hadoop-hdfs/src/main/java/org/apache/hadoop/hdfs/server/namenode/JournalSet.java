@@ -33,6 +33,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hdfs.qjournal.client.QuorumJournalManager;
 import org.apache.hadoop.hdfs.server.common.Storage;
 import org.apache.hadoop.hdfs.server.common.StorageInfo;
 import org.apache.hadoop.hdfs.server.protocol.NamespaceInfo;
@@ -569,6 +570,19 @@ public void apply(JournalAndStream jas) throws IOException {
     }
   }
   
+  /**
+   * Set how long the quorum journals hold the fetches of edits which were not
+   * written yet.
+   * @param waitMs Time to wait in milliseconds, 0 to not wait.
+   */
+  void setRpcWaitMs(long waitMs) {
+    for (JournalAndStream jas : journals) {
+      if (jas.getManager() instanceof QuorumJournalManager) {
+        ((QuorumJournalManager) jas.getManager()).setRpcWaitMs(waitMs);
+      }
+    }
+  }
+
   List<JournalAndStream> getAllJournalStreams() {
     return journals;
   }
@@ -79,6 +79,7 @@ public enum NameNodeFile {
     EDITS     ("edits"),
     IMAGE_NEW ("fsimage.ckpt"),
     IMAGE_ROLLBACK("fsimage_rollback"),
+    IMAGE_DELTA("fsimage_delta"),
     EDITS_NEW ("edits.new"), // from "old" pre-HDFS-1073 format
     EDITS_INPROGRESS ("edits_inprogress"),
     EDITS_TMP ("edits_tmp"),
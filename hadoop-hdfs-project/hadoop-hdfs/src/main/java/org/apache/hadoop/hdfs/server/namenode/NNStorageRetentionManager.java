@@ -108,6 +108,18 @@ void purgeCheckpoinsAfter(NameNodeFile nnf, long fromTxId)
     }
   }
 
+  /**
+   * Purge the checkpoints of a type older than a transaction ID, e.g. the
+   * delta images superseded by a newer checkpoint.
+   */
+  void purgeCheckpointsBefore(NameNodeFile nnf, long txId)
+      throws IOException {
+    FSImageTransactionalStorageInspector inspector =
+        new FSImageTransactionalStorageInspector(EnumSet.of(nnf));
+    storage.inspectStorageDirs(inspector);
+    purgeCheckpointsOlderThan(inspector, txId);
+  }
+
   void purgeOldStorage(NameNodeFile nnf) throws IOException {
     FSImageTransactionalStorageInspector inspector =
         new FSImageTransactionalStorageInspector(EnumSet.of(nnf));
@@ -18,6 +18,7 @@
 package org.apache.hadoop.hdfs.server.namenode;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -33,7 +34,12 @@
  * 
  * One all the names are added, {@link #initialized()} should be called to
  * finish initialization. The transient map where use count is tracked is
- * discarded and cache is ready for use.
+ * discarded and cache is ready for use. If {@code maxTracked} is set, the use
+ * count of the names added afterwards, e.g. for files and directories
+ * created at runtime, is tracked in a transient map of at most that many
+ * names, so they are promoted to the cache too. At most {@code maxTracked}
+ * names promoted after initialization are kept, the least recently used
+ * ones are evicted.
  * 
  * <p>
  * This class must be synchronized externally.
@@ -70,12 +76,18 @@ int get() {
   /** names used more than {@code useThreshold} is added to the cache */
   private final int useThreshold;
 
+  /** maximum number of names tracked after initialization */
+  private final int maxTracked;
+
   /** of times a cache look up was successful */
   private int lookups = 0;
 
   /** Cached names */
   final HashMap<K, K> cache = new HashMap<K, K>();
 
+  /** Names promoted after initialization, in access order */
+  private final Map<K, K> runtimeCache;
+
   /** Names and with number of occurrences tracked during initialization */
   Map<K, UseCount> transientMap = new HashMap<K, UseCount>();
 
@@ -85,7 +97,32 @@ int get() {
    *          cache
    */
   NameCache(int useThreshold) {
+    this(useThreshold, 0);
+  }
+
+  /**
+   * Constructor
+   * @param useThreshold names occurring more than this is promoted to the
+   *          cache
+   * @param maxTracked maximum number of names whose use count is tracked
+   *          after initialization and of names promoted after it, or 0 to
+   *          only track it during initialization
+   */
+  NameCache(int useThreshold, final int maxTracked) {
     this.useThreshold = useThreshold;
+    this.maxTracked = maxTracked;
+    if (maxTracked > 0) {
+      runtimeCache = new LinkedHashMap<K, K>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, K> eldest) {
+          return size() > maxTracked;
+        }
+      };
+    } else {
+      runtimeCache = null;
+    }
   }
   
   /**
@@ -97,13 +134,16 @@ int get() {
    */
   K put(final K name) {
     K internal = cache.get(name);
+    if (internal == null && runtimeCache != null) {
+      internal = runtimeCache.get(name);
+    }
     if (internal != null) {
       lookups++;
       return internal;
     }
 
-    // Track the usage count only during initialization
-    if (!initialized) {
+    // Track the usage count during initialization, and after it if enabled
+    if (transientMap != null) {
       UseCount useCount = transientMap.get(name);
       if (useCount != null) {
         useCount.increment();
@@ -112,6 +152,10 @@ K put(final K name) {
         }
         return useCount.value;
       }
+      if (initialized && transientMap.size() >= maxTracked) {
+        // Start tracking a new window of names
+        transientMap.clear();
+      }
       useCount = new UseCount(name);
       transientMap.put(name, useCount);
     }
@@ -131,31 +175,41 @@ int getLookupCount() {
    * @return Number of names stored in the cache
    */
   int size() {
-    return cache.size();
+    return cache.size() + (runtimeCache == null ? 0 : runtimeCache.size());
   }
 
   /**
    * Mark the name cache as initialized. The use count is no longer tracked
    * and the transient map used for initializing the cache is discarded to
-   * save heap space.
+   * save heap space, unless the names added after initialization are
+   * tracked.
    */
   void initialized() {
     LOG.info("initialized with " + size() + " entries " + lookups + " lookups");
     this.initialized = true;
     transientMap.clear();
-    transientMap = null;
+    if (maxTracked <= 0) {
+      transientMap = null;
+    }
   }
   
   /** Promote a frequently used name to the cache */
   private void promote(final K name) {
     transientMap.remove(name);
-    cache.put(name, name);
+    if (initialized) {
+      runtimeCache.put(name, name);
+    } else {
+      cache.put(name, name);
+    }
     lookups += useThreshold;
   }
 
   public void reset() {
     initialized = false;
     cache.clear();
+    if (runtimeCache != null) {
+      runtimeCache.clear();
+    }
     if (transientMap == null) {
       transientMap = new HashMap<K, UseCount>();
     } else {
@@ -162,6 +162,11 @@ public void close() throws IOException {
     IOUtils.cleanupWithLogger(LOG,  streams);
   }
 
+  @Override
+  public long getAvailableTime() {
+    return getEarliestAvailableTime(Arrays.asList(streams));
+  }
+
   @Override
   protected FSEditLogOp nextValidOp() {
     try {
@@ -292,6 +297,15 @@ public void setMaxOpSize(int maxOpSize) {
     }
   }
 
+  @Override
+  public boolean disableOpCache() {
+    boolean disabled = true;
+    for (EditLogInputStream elis : streams) {
+      disabled &= elis.disableOpCache();
+    }
+    return disabled;
+  }
+
   @Override
   public boolean isLocalLog() {
     return streams[curIdx].isLocalLog();
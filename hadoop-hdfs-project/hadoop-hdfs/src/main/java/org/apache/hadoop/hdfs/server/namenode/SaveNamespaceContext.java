@@ -42,14 +42,25 @@ public class SaveNamespaceContext {
   
   private final Canceler canceller;
   private final CountDownLatch completionLatch = new CountDownLatch(1);
+  /** The inodes to save in a delta image, null for a full image. */
+  private final INodeChangeTracker changedINodes;
 
   SaveNamespaceContext(
       FSNamesystem sourceNamesystem,
       long txid,
       Canceler canceller) {
+    this(sourceNamesystem, txid, canceller, null);
+  }
+
+  SaveNamespaceContext(
+      FSNamesystem sourceNamesystem,
+      long txid,
+      Canceler canceller,
+      INodeChangeTracker changedINodes) {
     this.sourceNamesystem = sourceNamesystem;
     this.txid = txid;
     this.canceller = canceller;
+    this.changedINodes = changedINodes;
   }
 
   FSNamesystem getSourceNamesystem() {
@@ -60,6 +71,10 @@ long getTxId() {
     return txid;
   }
 
+  INodeChangeTracker getChangedINodes() {
+    return changedINodes;
+  }
+
   void reportErrorOnStorageDirectory(StorageDirectory sd) {
     errorSDs.add(sd);
   }
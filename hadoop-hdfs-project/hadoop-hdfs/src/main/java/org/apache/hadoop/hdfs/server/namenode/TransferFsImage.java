@@ -110,6 +110,19 @@ public static void downloadMostRecentImageToDirectory(URL infoServer,
   public static MD5Hash downloadImageToStorage(URL fsName, long imageTxId,
       Storage dstStorage, boolean needDigest, boolean isBootstrapStandby)
       throws IOException {
+    return downloadImageToStorage(fsName, imageTxId, dstStorage, needDigest,
+        isBootstrapStandby, null);
+  }
+
+  /**
+   * Download an image into the storage, in ranges over parallel streams if
+   * enabled in the configuration.
+   * @param conf the configuration of the transfer, or null to download the
+   *             image over a single stream.
+   */
+  public static MD5Hash downloadImageToStorage(URL fsName, long imageTxId,
+      Storage dstStorage, boolean needDigest, boolean isBootstrapStandby,
+      Configuration conf) throws IOException {
     String fileid = ImageServlet.getParamStringForImage(null,
         imageTxId, dstStorage, isBootstrapStandby);
     String fileName = NNStorage.getCheckpointImageFileName(imageTxId);
@@ -120,7 +133,13 @@ public static MD5Hash downloadImageToStorage(URL fsName, long imageTxId,
       throw new IOException("No targets in destination storage!");
     }
     
-    MD5Hash hash = getFileClient(fsName, fileid, dstFiles, dstStorage, needDigest);
+    MD5Hash hash;
+    if (conf != null && ImageRangeTransfer.isEnabled(conf)) {
+      hash = ImageRangeTransfer.download(conf, fsName, fileid, dstFiles,
+          dstStorage, needDigest);
+    } else {
+      hash = getFileClient(fsName, fileid, dstFiles, dstStorage, needDigest);
+    }
     LOG.info("Downloaded file " + dstFiles.get(0).getName() + " size " +
         dstFiles.get(0).length() + " bytes.");
     return hash;
@@ -447,7 +466,7 @@ private static MD5Hash parseMD5Header(HttpServletRequest request) {
     return (header != null) ? new MD5Hash(header) : null;
   }
 
-  private static void setTimeout(HttpURLConnection connection) {
+  static void setTimeout(HttpURLConnection connection) {
     if (timeout <= 0) {
       Configuration conf = new HdfsConfiguration();
       timeout = conf.getInt(DFSConfigKeys.DFS_IMAGE_TRANSFER_TIMEOUT_KEY,
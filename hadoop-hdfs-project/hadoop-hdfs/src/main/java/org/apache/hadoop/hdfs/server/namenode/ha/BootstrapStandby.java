@@ -352,7 +352,7 @@ private int downloadImage(NNStorage storage, NamenodeProtocol proxy, RemoteNameN
 
       // Download that checkpoint into our storage directories.
       MD5Hash hash = TransferFsImage.downloadImageToStorage(
-        proxyInfo.getHttpAddress(), imageTxId, storage, true, true);
+        proxyInfo.getHttpAddress(), imageTxId, storage, true, true, conf);
       image.saveDigestAndRenameCheckpointImage(NameNodeFile.IMAGE, imageTxId,
           hash);
 
@@ -52,6 +52,7 @@
 import org.apache.hadoop.hdfs.server.namenode.FSNamesystem;
 import org.apache.hadoop.hdfs.server.namenode.NameNode;
 import org.apache.hadoop.hdfs.server.protocol.NamenodeProtocol;
+import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.ipc.RPC;
 import org.apache.hadoop.security.SecurityUtil;
 
@@ -166,6 +167,17 @@ public class EditLogTailer {
    */
   private final boolean inProgressOk;
 
+  /**
+   * How long the JournalNodes hold a request for edits which were not written
+   * yet. If positive and tailing in-progress edits, the tailer streams the
+   * edits: it fetches them outside of the namesystem lock and goes back for
+   * more right away instead of sleeping.
+   */
+  private final long streamingWaitMs;
+
+  /** Time the last fetch of edits took in milliseconds. */
+  private long lastFetchTimeMs;
+
   /**
    * Release the namesystem lock after loading this many transactions.
    * Then re-acquire the lock to load more edits.
@@ -248,6 +260,10 @@ public EditLogTailer(FSNamesystem namesystem, Configuration conf) {
     inProgressOk = conf.getBoolean(
         DFSConfigKeys.DFS_HA_TAILEDITS_INPROGRESS_KEY,
         DFSConfigKeys.DFS_HA_TAILEDITS_INPROGRESS_DEFAULT);
+    streamingWaitMs = inProgressOk ? conf.getTimeDuration(
+        DFSConfigKeys.DFS_HA_TAILEDITS_STREAMING_WAIT_KEY,
+        DFSConfigKeys.DFS_HA_TAILEDITS_STREAMING_WAIT_DEFAULT,
+        TimeUnit.MILLISECONDS) : 0;
 
     this.maxTxnsPerLock = conf.getLong(
         DFS_HA_TAILEDITS_MAX_TXNS_PER_LOCK_KEY,
@@ -312,11 +328,42 @@ public Void run() throws Exception {
   
   @VisibleForTesting
   public long doTailEdits() throws IOException, InterruptedException {
+    return doTailEdits(null);
+  }
+
+  /**
+   * When streaming, fetch the next edits without holding any lock, as the
+   * JournalNodes may hold the fetch until new edits arrive. Only the tailer
+   * thread applies edits, so they still follow the last applied transaction
+   * when loaded unless the tailer is being stopped.
+   *
+   * @return Streams with the next edits or null if there are none.
+   */
+  private Collection<EditLogInputStream> fetchEdits() {
+    Collection<EditLogInputStream> fetched =
+        selectInputStreams(namesystem.getFSImage().getLastAppliedTxId());
+    return fetched == null || fetched.isEmpty() ? null : fetched;
+  }
+
+  /**
+   * Load the edits after the last applied transaction.
+   *
+   * @param fetched Streams fetched before taking the lock, null to select
+   *                them under the lock.
+   * @return Number of edits loaded.
+   */
+  private long doTailEdits(Collection<EditLogInputStream> fetched)
+      throws IOException, InterruptedException {
     // Write lock needs to be interruptible here because the 
     // transitionToActive RPC takes the write lock before calling
     // tailer.stop() -- so if we're not interruptible, it will
     // deadlock.
-    namesystem.writeLockInterruptibly();
+    try {
+      namesystem.writeLockInterruptibly();
+    } catch (InterruptedException ie) {
+      closeStreams(fetched);
+      throw ie;
+    }
     try {
       FSImage image = namesystem.getFSImage();
 
@@ -326,20 +373,15 @@ public long doTailEdits() throws IOException, InterruptedException {
         LOG.debug("lastTxnId: " + lastTxnId);
       }
       Collection<EditLogInputStream> streams;
-      long startTime = Time.monotonicNow();
-      try {
-        streams = editLog.selectInputStreams(lastTxnId + 1, 0,
-            null, inProgressOk, true);
-      } catch (IOException ioe) {
-        // This is acceptable. If we try to tail edits in the middle of an edits
-        // log roll, i.e. the last one has been finalized but the new inprogress
-        // edits file hasn't been started yet.
-        LOG.warn("Edits tailer failed to find any streams. Will try again " +
-            "later.", ioe);
-        return 0;
-      } finally {
-        NameNode.getNameNodeMetrics().addEditLogFetchTime(
-            Time.monotonicNow() - startTime);
+      if (fetched != null &&
+          fetched.iterator().next().getFirstTxId() == lastTxnId + 1) {
+        streams = fetched;
+      } else {
+        closeStreams(fetched);
+        streams = selectInputStreams(lastTxnId);
+        if (streams == null) {
+          return 0;
+        }
       }
       if (LOG.isDebugEnabled()) {
         LOG.debug("edit streams to load from: " + streams.size());
@@ -365,6 +407,12 @@ public long doTailEdits() throws IOException, InterruptedException {
 
       if (editsLoaded > 0) {
         lastLoadTimeMs = monotonicNow();
+        long availableTime =
+            EditLogInputStream.getEarliestAvailableTime(streams);
+        if (availableTime != -1) {
+          NameNode.getNameNodeMetrics().addEditLogTailLag(
+              lastLoadTimeMs - availableTime);
+        }
       }
       lastLoadedTxnId = image.getLastAppliedTxId();
       return editsLoaded;
@@ -373,6 +421,36 @@ public long doTailEdits() throws IOException, InterruptedException {
     }
   }
 
+  /**
+   * Select the streams with the edits after a transaction.
+   * @param lastTxnId Last transaction already applied.
+   * @return Streams to load the edits from or null if they cannot be found.
+   */
+  private Collection<EditLogInputStream> selectInputStreams(long lastTxnId) {
+    long startTime = Time.monotonicNow();
+    try {
+      return editLog.selectInputStreams(lastTxnId + 1, 0,
+          null, inProgressOk, true);
+    } catch (IOException ioe) {
+      // This is acceptable. If we try to tail edits in the middle of an edits
+      // log roll, i.e. the last one has been finalized but the new inprogress
+      // edits file hasn't been started yet.
+      LOG.warn("Edits tailer failed to find any streams. Will try again " +
+          "later.", ioe);
+      return null;
+    } finally {
+      lastFetchTimeMs = Time.monotonicNow() - startTime;
+      NameNode.getNameNodeMetrics().addEditLogFetchTime(lastFetchTimeMs);
+    }
+  }
+
+  private static void closeStreams(Collection<EditLogInputStream> streams) {
+    if (streams != null) {
+      IOUtils.cleanupWithLogger(LOG,
+          streams.toArray(new EditLogInputStream[0]));
+    }
+  }
+
   /**
    * @return time in msec of when we last loaded a non-zero number of edits.
    */
@@ -461,6 +539,20 @@ public Object run() {
     }
     
     private void doWork() {
+      if (streamingWaitMs > 0) {
+        editLog.setStreamingWaitMs(streamingWaitMs);
+      }
+      try {
+        tailEdits();
+      } finally {
+        if (streamingWaitMs > 0) {
+          // Other readers, like the catch up during failover, must not wait
+          editLog.setStreamingWaitMs(0);
+        }
+      }
+    }
+
+    private void tailEdits() {
       long currentSleepTimeMs = sleepTimeMs;
       while (shouldRun) {
         long editsTailed  = 0;
@@ -481,22 +573,30 @@ private void doWork() {
           if (!shouldRun) {
             break;
           }
-          // Prevent reading of name system while being modified. The full
-          // name system lock will be acquired to further block even the block
-          // state updates.
-          namesystem.cpLockInterruptibly();
-          long startTime = Time.monotonicNow();
-          try {
-            NameNode.getNameNodeMetrics().addEditLogTailInterval(
-                startTime - lastLoadTimeMs);
-            editsTailed = doTailEdits();
-          } finally {
-            namesystem.cpUnlock();
-            NameNode.getNameNodeMetrics().addEditLogTailTime(
-                Time.monotonicNow() - startTime);
+          Collection<EditLogInputStream> fetched = null;
+          if (streamingWaitMs > 0) {
+            // Do not hold the checkpoint lock while waiting for edits
+            fetched = fetchEdits();
+          }
+          if (streamingWaitMs <= 0 || fetched != null) {
+            // Prevent reading of name system while being modified. The full
+            // name system lock will be acquired to further block even the
+            // block state updates.
+            namesystem.cpLockInterruptibly();
+            long startTime = Time.monotonicNow();
+            try {
+              NameNode.getNameNodeMetrics().addEditLogTailInterval(
+                  startTime - lastLoadTimeMs);
+              editsTailed = fetched == null ? doTailEdits() :
+                  doTailEdits(fetched);
+            } finally {
+              namesystem.cpUnlock();
+              NameNode.getNameNodeMetrics().addEditLogTailTime(
+                  Time.monotonicNow() - startTime);
+            }
+            //Update NameDirSize Metric
+            namesystem.getFSImage().getStorage().updateNameDirSize();
           }
-          //Update NameDirSize Metric
-          namesystem.getFSImage().getStorage().updateNameDirSize();
         } catch (EditLogInputException elie) {
           LOG.warn("Error while reading edits from disk. Will try again.", elie);
         } catch (InterruptedException ie) {
@@ -508,6 +608,13 @@ private void doWork() {
           terminate(1, t);
         }
 
+        if (streamingWaitMs > 0 &&
+            (editsTailed > 0 || lastFetchTimeMs >= streamingWaitMs)) {
+          // The JournalNodes already held the fetch until edits arrived or
+          // the wait ran out, go back for the next edits right away
+          currentSleepTimeMs = sleepTimeMs;
+          continue;
+        }
         try {
           if (editsTailed == 0 && maxSleepTimeMs > 0) {
             // If no edits were tailed, apply exponential backoff
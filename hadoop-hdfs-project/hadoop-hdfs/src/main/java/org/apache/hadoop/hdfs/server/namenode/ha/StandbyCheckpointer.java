@@ -77,6 +77,9 @@ public class StandbyCheckpointer {
   private final Object cancelLock = new Object();
   private Canceler canceler;
 
+  // Number of delta checkpoints since the last full checkpoint
+  private int numDeltaCheckpoints = 0;
+
   // Keep track of how many checkpoints were canceled.
   // This is for use in tests.
   private static int canceledCount = 0;
@@ -195,6 +198,7 @@ private void doCheckpoint() throws InterruptedException, IOException {
     assert canceler != null;
     final long txid;
     final NameNodeFile imageType;
+    boolean deltaImage = false;
     // Acquire cpLock to make sure no one is modifying the name system.
     // It does not need the full namesystem write lock, since the only thing
     // that modifies namesystem on standby node is edit log replaying.
@@ -224,7 +228,20 @@ private void doCheckpoint() throws InterruptedException, IOException {
       } else {
         imageType = NameNodeFile.IMAGE;
       }
-      img.saveNamespace(namesystem, imageType, canceler);
+      if (imageType == NameNodeFile.IMAGE &&
+          numDeltaCheckpoints < checkpointConf.getMaxDeltaCheckpoints()) {
+        deltaImage = img.saveDeltaNamespace(namesystem, canceler);
+      }
+      if (deltaImage) {
+        numDeltaCheckpoints++;
+      } else {
+        img.saveNamespace(namesystem, imageType, canceler);
+        if (imageType == NameNodeFile.IMAGE) {
+          // Compact the delta images into this full image
+          img.resetChangedINodes(namesystem, thisCheckpointTxId);
+          numDeltaCheckpoints = 0;
+        }
+      }
       txid = img.getStorage().getMostRecentCheckpointTxId();
       assert txid == thisCheckpointTxId : "expected to save checkpoint at txid=" +
           thisCheckpointTxId + " but instead saved at txid=" + txid;
@@ -243,6 +260,12 @@ private void doCheckpoint() throws InterruptedException, IOException {
       namesystem.cpUnlock();
     }
 
+    if (deltaImage) {
+      // The delta images are only merged by this NameNode, the next full
+      // image is uploaded to the active
+      return;
+    }
+
     // Upload the saved checkpoint back to the active
     // Do this in a separate thread to avoid blocking transition to active, but don't allow more
     // than the expected number of tasks to run or queue up
@@ -204,6 +204,15 @@ public interface FSNamesystemMBean {
    */
   public String getTopUserOpCounts();
 
+  /**
+   * Returns a nested JSON object listing the callers and the paths which
+   * held the namesystem lock the longest, with their lock time in
+   * microseconds, over tracked time windows.
+   *
+   * @return JSON string
+   */
+  String getTopLockTimes();
+
   /**
    * Return the number of encryption zones in the system.
    */
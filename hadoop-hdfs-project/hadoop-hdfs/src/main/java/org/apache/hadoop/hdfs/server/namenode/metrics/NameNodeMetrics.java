@@ -146,6 +146,10 @@ public long totalFileOps(){
   @Metric("Time between edit log tailing in msec")
   MutableRate editLogTailInterval;
   private final MutableQuantiles[] editLogTailIntervalQuantiles;
+  @Metric("Time between an edit reaching the JournalNodes and being applied"
+      + " by the tailer in msec")
+  MutableRate editLogTailLag;
+  private final MutableQuantiles[] editLogTailLagQuantiles;
 
   @Metric("GetImageServlet getEdit")
   MutableRate getEdit;
@@ -175,6 +179,7 @@ public long totalFileOps(){
     editLogFetchTimeQuantiles = new MutableQuantiles[len];
     numEditLogLoadedQuantiles = new MutableQuantiles[len];
     editLogTailIntervalQuantiles = new MutableQuantiles[len];
+    editLogTailLagQuantiles = new MutableQuantiles[len];
 
     for (int i = 0; i < len; i++) {
       int interval = intervals[i];
@@ -212,6 +217,9 @@ public long totalFileOps(){
       editLogTailIntervalQuantiles[i] = registry.newQuantiles(
           "editLogTailInterval" + interval + "s",
           "Edit log tailing interval", "ops", "latency", interval);
+      editLogTailLagQuantiles[i] = registry.newQuantiles(
+          "editLogTailLag" + interval + "s",
+          "Edit log tailing lag", "ops", "latency", interval);
     }
   }
 
@@ -452,4 +460,11 @@ public void addEditLogTailInterval(long elapsed) {
       q.add(elapsed);
     }
   }
+
+  public void addEditLogTailLag(long lag) {
+    editLogTailLag.add(lag);
+    for (MutableQuantiles q : editLogTailLagQuantiles) {
+      q.add(lag);
+    }
+  }
 }
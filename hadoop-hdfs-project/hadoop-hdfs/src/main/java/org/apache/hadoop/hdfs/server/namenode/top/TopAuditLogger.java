@@ -18,12 +18,16 @@
 package org.apache.hadoop.hdfs.server.namenode.top;
 
 import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.hdfs.server.namenode.AuditLogger;
+import org.apache.hadoop.ipc.ProcessingDetails;
+import org.apache.hadoop.ipc.ProcessingDetails.Timing;
+import org.apache.hadoop.ipc.Server;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +58,7 @@ public void logAuditEvent(boolean succeeded, String userName,
       InetAddress addr, String cmd, String src, String dst, FileStatus status) {
     try {
       topMetrics.report(succeeded, userName, addr, cmd, src, dst, status);
+      topMetrics.reportLockTime(userName, src, getLockTimeMicros());
     } catch (Throwable t) {
       LOG.error("An error occurred while reflecting the event in top service, "
           + "event: (cmd={},userName={})", cmd, userName);
@@ -79,4 +84,17 @@ public void logAuditEvent(boolean succeeded, String userName,
     }
   }
 
+  /**
+   * @return the time the current call held the namesystem lock so far, or 0
+   * if it is not an RPC call.
+   */
+  private static long getLockTimeMicros() {
+    Server.Call call = Server.getCurCall().get();
+    if (call == null) {
+      return 0;
+    }
+    ProcessingDetails details = call.getProcessingDetails();
+    return details.get(Timing.LOCKSHARED, TimeUnit.MICROSECONDS)
+        + details.get(Timing.LOCKEXCLUSIVE, TimeUnit.MICROSECONDS);
+  }
 }
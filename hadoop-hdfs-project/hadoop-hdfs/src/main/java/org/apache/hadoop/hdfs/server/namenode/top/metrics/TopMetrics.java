@@ -58,6 +58,13 @@
  * intervals, e.g. 1min, 5min, 25min. Each interval is tracked by a
  * RollingWindowManager.
  * <p>
+ * TopMetrics also ranks the callers and the paths by the time their calls
+ * held the namesystem lock, over the same intervals. These are published as
+ * a JSON string via {@link org.apache.hadoop.hdfs.server.namenode.metrics
+ * .FSNamesystemMBean#getTopLockTimes}, where the ops are {@link #LOCK_CALLERS}
+ * and {@link #LOCK_PATHS}, the users are the callers or the paths and the
+ * counts are the lock times in microseconds.
+ * <p>
  * These metrics are published as a JSON string via {@link org.apache.hadoop
  * .hdfs.server .namenode.metrics.FSNamesystemMBean#getTopWindows}. This is
  * done by calling {@link org.apache.hadoop.hdfs.server.namenode.top.window
@@ -70,7 +77,13 @@ public class TopMetrics implements MetricsSource {
   public static final Logger LOG = LoggerFactory.getLogger(TopMetrics.class);
   public static final String TOPMETRICS_METRICS_SOURCE_NAME =
       "NNTopUserOpCounts";
+  /** The op of the lock times by caller. */
+  public static final String LOCK_CALLERS = "callers";
+  /** The op of the lock times by path. */
+  public static final String LOCK_PATHS = "paths";
   private final boolean isMetricsSourceEnabled;
+  /** Minimum lock time of a call to rank its path. */
+  private final long lockPathThresholdMicros;
 
   private static void logConf(Configuration conf) {
     LOG.info("NNTop conf: " + DFSConfigKeys.NNTOP_BUCKETS_PER_WINDOW_KEY +
@@ -88,14 +101,25 @@ private static void logConf(Configuration conf) {
   final Map<Integer, RollingWindowManager> rollingWindowManagers =
       new HashMap<Integer, RollingWindowManager>();
 
+  /**
+   * A map from reporting periods to the WindowManager of the lock times.
+   */
+  final Map<Integer, RollingWindowManager> lockRollingWindowManagers =
+      new HashMap<Integer, RollingWindowManager>();
+
   public TopMetrics(Configuration conf, int[] reportingPeriods) {
     logConf(conf);
     for (int i = 0; i < reportingPeriods.length; i++) {
       rollingWindowManagers.put(reportingPeriods[i], new RollingWindowManager(
           conf, reportingPeriods[i]));
+      lockRollingWindowManagers.put(reportingPeriods[i],
+          new RollingWindowManager(conf, reportingPeriods[i]));
     }
     isMetricsSourceEnabled = conf.getBoolean(DFSConfigKeys.NNTOP_ENABLED_KEY,
         DFSConfigKeys.NNTOP_ENABLED_DEFAULT);
+    lockPathThresholdMicros = conf.getLong(
+        DFSConfigKeys.NNTOP_LOCK_PATH_THRESHOLD_US_KEY,
+        DFSConfigKeys.NNTOP_LOCK_PATH_THRESHOLD_US_DEFAULT);
   }
 
   /**
@@ -103,11 +127,23 @@ public TopMetrics(Configuration conf, int[] reportingPeriods) {
    * time interval.
    */
   public List<TopWindow> getTopWindows() {
+    return getTopWindows(rollingWindowManagers);
+  }
+
+  /**
+   * Get a list of the current TopWindow statistics of the lock times, one
+   * TopWindow per tracked time interval.
+   */
+  public List<TopWindow> getTopLockWindows() {
+    return getTopWindows(lockRollingWindowManagers);
+  }
+
+  private static List<TopWindow> getTopWindows(
+      Map<Integer, RollingWindowManager> managers) {
     long monoTime = Time.monotonicNow();
     List<TopWindow> windows = Lists.newArrayListWithCapacity
-        (rollingWindowManagers.size());
-    for (Entry<Integer, RollingWindowManager> entry : rollingWindowManagers
-        .entrySet()) {
+        (managers.size());
+    for (Entry<Integer, RollingWindowManager> entry : managers.entrySet()) {
       TopWindow window = entry.getValue().snapshot(monoTime);
       windows.add(window);
     }
@@ -149,6 +185,37 @@ public void report(long currTime, String userName, String cmd) {
     }
   }
 
+  /**
+   * Report the time a call held the namesystem lock, for both its caller and
+   * its path. The path is only ranked if the lock time reaches the
+   * configured threshold, to bound the number of paths tracked.
+   * @param userName the caller
+   * @param src the path of the call, may be null
+   * @param lockTimeMicros the time the call held the lock
+   */
+  public void reportLockTime(String userName, String src,
+      long lockTimeMicros) {
+    reportLockTime(Time.monotonicNow(), userName, src, lockTimeMicros);
+  }
+
+  public void reportLockTime(long currTime, String userName, String src,
+      long lockTimeMicros) {
+    if (lockTimeMicros <= 0) {
+      return;
+    }
+    userName = UserGroupInformation.trimLoginMethod(userName);
+    boolean rankPath = src != null && lockTimeMicros >= lockPathThresholdMicros;
+    for (RollingWindowManager rollingWindowManager :
+        lockRollingWindowManagers.values()) {
+      rollingWindowManager.recordMetric(currTime, LOCK_CALLERS, userName,
+          lockTimeMicros);
+      if (rankPath) {
+        rollingWindowManager.recordMetric(currTime, LOCK_PATHS, src,
+            lockTimeMicros);
+      }
+    }
+  }
+
   /**
    * Flatten out the top window metrics into
    * {@link org.apache.hadoop.metrics2.MetricsRecord}s for consumption by
@@ -32,6 +32,7 @@
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalDirAllocator;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.util.Time;
 import org.apache.hadoop.util.Tool;
@@ -165,7 +166,9 @@ private static void printUsage() {
     System.err.println("Usage: dfsthroughput [#reps]");
     System.err.println("Config properties:\n" +
       "  dfsthroughput.file.size:\tsize of each write/read (10GB)\n" +
-      "  dfsthroughput.buffer.size:\tbuffer size for write/read (4k)\n");
+      "  dfsthroughput.buffer.size:\tbuffer size for write/read (4k)\n" +
+      "  dfsthroughput.adaptive.packet.size:\talso write to dfs with " +
+      "adaptive packet sizing (false)\n");
   }
 
   @Override
@@ -216,6 +219,17 @@ public int run(String[] args) throws IOException {
       for(int i=0; i < reps; ++i) {
         writeAndReadFile(dfs, "dfs", conf, SIZE);
       }
+      if (conf.getBoolean("dfsthroughput.adaptive.packet.size", false)) {
+        Configuration adaptiveConf = new Configuration(conf);
+        adaptiveConf.setBoolean(
+            HdfsClientConfigKeys.Write.AdaptivePacketSize.ENABLED_KEY, true);
+        try (FileSystem adaptiveDfs = FileSystem.newInstance(
+            cluster.getURI(), adaptiveConf)) {
+          for(int i=0; i < reps; ++i) {
+            writeAndReadFile(adaptiveDfs, "dfs-adaptive", adaptiveConf, SIZE);
+          }
+        }
+      }
     } finally {
       if (cluster != null) {
         cluster.shutdown();
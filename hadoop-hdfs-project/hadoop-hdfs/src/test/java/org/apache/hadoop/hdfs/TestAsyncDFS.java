@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Options.Rename;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.ipc.Client;
+import org.apache.hadoop.util.Time;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Tests {@link AsyncDistributedFileSystem}.
+ */
+public class TestAsyncDFS {
+  private static final int NUM_DIRS = 150;
+  private static final int BLOCK_SIZE = 1024;
+
+  @Rule
+  public Timeout globalTimeout = new Timeout(120000);
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+  private AsyncDistributedFileSystem adfs;
+
+  @Before
+  public void setUp() throws IOException {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_KEY,
+        2 * NUM_DIRS);
+    // Make listing take several calls.
+    conf.setInt(DFSConfigKeys.DFS_LIST_LIMIT, 7);
+    conf.setLong(DFSConfigKeys.DFS_BLOCK_SIZE_KEY, BLOCK_SIZE);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    adfs = fs.getAsyncDistributedFileSystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private static Throwable getCause(CompletableFuture<?> future)
+      throws InterruptedException {
+    try {
+      future.get();
+      fail("Expected the call to fail");
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  @Test
+  public void testManyCallsInFlight() throws Exception {
+    final Path parent = new Path("/async");
+    final List<CompletableFuture<Boolean>> mkdirs = new ArrayList<>();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      mkdirs.add(adfs.mkdirs(new Path(parent, "dir" + i),
+          new FsPermission((short) 0755)));
+    }
+    assertFalse(Client.isAsynchronousMode());
+    for (CompletableFuture<Boolean> future : mkdirs) {
+      assertTrue(future.get());
+    }
+
+    final List<CompletableFuture<FileStatus>> statuses = new ArrayList<>();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      statuses.add(adfs.getFileStatus(new Path(parent, "dir" + i)));
+    }
+    for (int i = 0; i < NUM_DIRS; i++) {
+      FileStatus status = statuses.get(i).get();
+      assertTrue(status.isDirectory());
+      assertEquals(fs.makeQualified(new Path(parent, "dir" + i)),
+          status.getPath());
+      assertEquals(fs.getFileStatus(status.getPath()), status);
+    }
+
+    FileStatus[] listing = adfs.listStatus(parent).get();
+    assertEquals(NUM_DIRS, listing.length);
+    assertEquals(fs.listStatus(parent).length, listing.length);
+  }
+
+  @Test
+  public void testChainedCalls() throws Exception {
+    final Path dir = new Path("/chained");
+    fs.mkdirs(dir);
+    adfs.getFileStatus(dir).get();
+
+    // Each call is made when the previous one completes, by the thread
+    // processing the async calls. The responses arriving while it is still
+    // busy with the callback must not be left to the next periodic check.
+    final int numCalls = 30;
+    final long start = Time.monotonicNow();
+    CompletableFuture<FileStatus> chain = adfs.getFileStatus(dir);
+    for (int i = 1; i < numCalls; i++) {
+      chain = chain.thenCompose(status -> {
+        final CompletableFuture<FileStatus> next =
+            adfs.getFileStatus(status.getPath());
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return next;
+      });
+    }
+    assertTrue(chain.get().isDirectory());
+    final long elapsed = Time.monotonicNow() - start;
+    assertTrue("Chained calls took " + elapsed + " ms",
+        elapsed < numCalls * 60);
+  }
+
+  @Test
+  public void testModifications() throws Exception {
+    final Path dir = new Path("/modify");
+    final Path file = new Path(dir, "file");
+    DFSTestUtil.createFile(fs, file, 3 * BLOCK_SIZE, (short) 1, 0L);
+
+    BlockLocation[] locations =
+        adfs.getFileBlockLocations(file, 0, 3 * BLOCK_SIZE).get();
+    assertEquals(3, locations.length);
+
+    final FsPermission permission = new FsPermission((short) 0600);
+    adfs.setPermission(file, permission).get();
+    assertEquals(permission, fs.getFileStatus(file).getPermission());
+
+    adfs.setOwner(file, "user1", "group1").get();
+    assertEquals("user1", fs.getFileStatus(file).getOwner());
+    assertEquals("group1", fs.getFileStatus(file).getGroup());
+
+    final Path renamed = new Path(dir, "renamed");
+    adfs.rename(file, renamed, Rename.NONE).get();
+    assertFalse(fs.exists(file));
+    assertTrue(fs.exists(renamed));
+
+    assertTrue(adfs.delete(dir, true).get());
+    assertFalse(fs.exists(dir));
+    assertFalse(adfs.delete(dir, true).get());
+  }
+
+  @Test
+  public void testFailures() throws Exception {
+    final Path missing = new Path("/missing");
+    assertTrue(getCause(adfs.getFileStatus(missing))
+        instanceof FileNotFoundException);
+    assertTrue(getCause(adfs.listStatus(missing))
+        instanceof FileNotFoundException);
+    assertTrue(getCause(adfs.setPermission(missing, FsPermission.getDefault()))
+        instanceof FileNotFoundException);
+
+    final Path file = new Path("/file");
+    DFSTestUtil.createFile(fs, file, 10, (short) 1, 0L);
+    assertTrue(getCause(adfs.rename(missing, file))
+        instanceof FileNotFoundException);
+    assertTrue(getCause(adfs.mkdirs(new Path(file, "dir"), null))
+        instanceof IOException);
+  }
+}
@@ -0,0 +1,255 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.GlobalStorageStatistics;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Tests the client side metadata cache of {@link DFSClient}.
+ */
+public class TestDFSClientMetadataCache {
+  private static final int BLOCK_SIZE = 1024;
+  private static final int FILE_LENGTH = 3 * BLOCK_SIZE + 100;
+
+  @Rule
+  public Timeout globalTimeout = new Timeout(120000);
+
+  private MiniDFSCluster cluster;
+  private Configuration conf;
+
+  @Before
+  public void setUp() throws IOException {
+    conf = new HdfsConfiguration();
+    conf.setLong(DFSConfigKeys.DFS_BLOCK_SIZE_KEY, BLOCK_SIZE);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    cluster.waitActive();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private DistributedFileSystem newFileSystem(boolean cacheEnabled,
+      long ttlMs, boolean inotify) throws IOException {
+    Configuration clientConf = new Configuration(conf);
+    clientConf.setBoolean(HdfsClientConfigKeys.MetadataCache.ENABLED_KEY,
+        cacheEnabled);
+    clientConf.setLong(HdfsClientConfigKeys.MetadataCache.TTL_MS_KEY, ttlMs);
+    clientConf.setBoolean(
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_KEY, inotify);
+    return (DistributedFileSystem) FileSystem.newInstance(cluster.getURI(),
+        clientConf);
+  }
+
+  private static long getCount(OpType op) {
+    return GlobalStorageStatistics.INSTANCE.get(DFSOpsCountStatistics.NAME)
+        .getLong(op.getSymbol());
+  }
+
+  private static byte[] readFile(FileSystem fs, Path path) throws IOException {
+    return DFSTestUtil.readFileAsBytes(fs, path);
+  }
+
+  @Test
+  public void testFileStatusAndBlocksAreCached() throws Exception {
+    final Path path = new Path("/cached/file");
+    try (DistributedFileSystem fs = newFileSystem(true, 60000, false)) {
+      DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+      final byte[] expected = readFile(fs, path);
+      assertEquals(FILE_LENGTH, expected.length);
+
+      final long hits = getCount(OpType.METADATA_CACHE_HIT);
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      assertArrayEquals(expected, readFile(fs, path));
+      assertEquals(4, fs.getFileBlockLocations(path, 0, FILE_LENGTH).length);
+      assertTrue(getCount(OpType.METADATA_CACHE_HIT) - hits >= 3);
+
+      // Directories are never cached.
+      final long misses = getCount(OpType.METADATA_CACHE_MISS);
+      assertTrue(fs.getFileStatus(path.getParent()).isDirectory());
+      assertTrue(fs.getFileStatus(path.getParent()).isDirectory());
+      assertEquals(misses + 2, getCount(OpType.METADATA_CACHE_MISS));
+    }
+  }
+
+  @Test
+  public void testCachedFileStatusIsNotShared() throws Exception {
+    final Path path = new Path("/cached/shared");
+    try (DistributedFileSystem fs = newFileSystem(true, 60000, false)) {
+      DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+      final FileStatus expected = fs.getFileStatus(path);
+
+      // Changing a returned status doesn't change the cached one.
+      final HdfsFileStatus status = fs.getClient().getFileInfo(
+          path.toUri().getPath());
+      status.setOwner("someone");
+      status.setPermission(new FsPermission((short) 0777));
+      status.setPath(new Path("/elsewhere"));
+
+      final long hits = getCount(OpType.METADATA_CACHE_HIT);
+      final FileStatus actual = fs.getFileStatus(path);
+      assertEquals(hits + 1, getCount(OpType.METADATA_CACHE_HIT));
+      assertNotSame(status, actual);
+      assertEquals(expected, actual);
+      assertEquals(expected.getOwner(), actual.getOwner());
+      assertEquals(expected.getPermission(), actual.getPermission());
+      assertEquals(FILE_LENGTH, actual.getLen());
+    }
+  }
+
+  @Test
+  public void testChangesByThisClientInvalidate() throws Exception {
+    final Path dir = new Path("/dir");
+    final Path path = new Path(dir, "file");
+    final Path renamed = new Path("/renamed");
+    try (DistributedFileSystem fs = newFileSystem(true, 60000, false)) {
+      DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      readFile(fs, path);
+
+      try (FSDataOutputStream out = fs.append(path)) {
+        out.write(new byte[10]);
+        out.hflush();
+        // A file open for write is not cached.
+        fs.getFileStatus(path);
+        assertEquals(0, fs.getClient().getMetadataCache().size());
+      }
+      assertEquals(FILE_LENGTH + 10, fs.getFileStatus(path).getLen());
+      assertEquals(FILE_LENGTH + 10, readFile(fs, path).length);
+
+      // Renaming the parent directory invalidates the file under it.
+      fs.rename(dir, renamed);
+      assertFalse(fs.exists(path));
+      assertEquals(FILE_LENGTH + 10,
+          fs.getFileStatus(new Path(renamed, "file")).getLen());
+    }
+  }
+
+  @Test
+  public void testInvalidationKeepsOtherPaths() throws Exception {
+    final Path dir = new Path("/inv");
+    final Path[] kept = {new Path("/inv-other/file"), new Path("/inv0")};
+    try (DistributedFileSystem fs = newFileSystem(true, 60000, false)) {
+      DFSTestUtil.createFile(fs, new Path(dir, "file"), FILE_LENGTH,
+          (short) 1, 0L);
+      fs.getFileStatus(new Path(dir, "file"));
+      for (Path path : kept) {
+        DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+        fs.getFileStatus(path);
+      }
+      assertEquals(3, fs.getClient().getMetadataCache().size());
+
+      // Only the file below the deleted directory is dropped.
+      assertTrue(fs.delete(dir, true));
+      assertEquals(2, fs.getClient().getMetadataCache().size());
+      final long hits = getCount(OpType.METADATA_CACHE_HIT);
+      for (Path path : kept) {
+        assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      }
+      assertEquals(hits + kept.length, getCount(OpType.METADATA_CACHE_HIT));
+    }
+  }
+
+  @Test
+  public void testFilesWrittenByOtherClientsAreNotCached() throws Exception {
+    final Path path = new Path("/written");
+    try (DistributedFileSystem fs = newFileSystem(true, 60000, false);
+         DistributedFileSystem other = newFileSystem(false, 1000, false)) {
+      try (FSDataOutputStream out = other.create(path)) {
+        out.write(new byte[FILE_LENGTH]);
+        out.hflush();
+        fs.getFileStatus(path);
+        assertEquals(0, fs.getClient().getMetadataCache().size());
+      }
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      assertEquals(1, fs.getClient().getMetadataCache().size());
+    }
+  }
+
+  @Test
+  public void testChangesByOtherClientsExpire() throws Exception {
+    final Path path = new Path("/expiring");
+    try (DistributedFileSystem fs = newFileSystem(true, 1000, false);
+         DistributedFileSystem other = newFileSystem(false, 1000, false)) {
+      DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      other.delete(path, false);
+      GenericTestUtils.waitFor(() -> {
+        try {
+          fs.getFileStatus(path);
+          return false;
+        } catch (FileNotFoundException e) {
+          return true;
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }, 100, 10000);
+    }
+  }
+
+  @Test
+  public void testChangesByOtherClientsInvalidateWithInotify()
+      throws Exception {
+    final Path path = new Path("/watched");
+    try (DistributedFileSystem fs = newFileSystem(true, 3600000, true);
+         DistributedFileSystem other = newFileSystem(false, 1000, false)) {
+      DFSTestUtil.createFile(fs, path, FILE_LENGTH, (short) 1, 0L);
+      assertEquals(FILE_LENGTH, fs.getFileStatus(path).getLen());
+      try (FSDataOutputStream out = other.append(path)) {
+        out.write(new byte[10]);
+      }
+      GenericTestUtils.waitFor(() -> {
+        try {
+          return fs.getFileStatus(path).getLen() == FILE_LENGTH + 10;
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }, 100, 30000);
+      assertEquals(FILE_LENGTH + 10, readFile(fs, path).length);
+    }
+  }
+}
@@ -40,6 +40,7 @@
 import org.apache.hadoop.fs.StreamCapabilities.StreamCapability;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hdfs.DataStreamer.LastExceptionInStreamer;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
 import org.apache.hadoop.hdfs.client.impl.DfsClientConf;
 import org.apache.hadoop.hdfs.protocol.BlockListAsLongs;
 import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
@@ -371,6 +372,73 @@ public void testStreamFlush() throws Exception {
     os.close();
   }
 
+  @Test
+  public void testPacketSizeTuner() {
+    final int acks = PacketSizeTuner.ACKS_PER_ADJUSTMENT;
+    PacketSizeTuner tuner = new PacketSizeTuner(64 * 1024, 16 * 1024,
+        256 * 1024, 20);
+    assertEquals(64 * 1024, tuner.getPacketSize());
+    // Acks well within the target let the packets grow, up to the maximum.
+    for (int i = 0; i < 3 * acks; i++) {
+      tuner.addAck(1);
+    }
+    assertEquals(256 * 1024, tuner.getPacketSize());
+    // Acks close to the target keep the size.
+    for (int i = 0; i < acks; i++) {
+      tuner.addAck(15);
+    }
+    assertEquals(256 * 1024, tuner.getPacketSize());
+    // Slow acks shrink the packets, down to the minimum.
+    for (int i = 0; i < 10 * acks; i++) {
+      tuner.addAck(100);
+    }
+    assertEquals(16 * 1024, tuner.getPacketSize());
+    // The size only changes once enough acks were seen.
+    for (int i = 0; i < acks - 1; i++) {
+      tuner.addAck(0);
+    }
+    assertEquals(16 * 1024, tuner.getPacketSize());
+  }
+
+  @Test
+  public void testAdaptivePacketSize() throws Exception {
+    Configuration conf = new Configuration(cluster.getConfiguration(0));
+    conf.setBoolean(
+        HdfsClientConfigKeys.Write.AdaptivePacketSize.ENABLED_KEY, true);
+    conf.setInt(HdfsClientConfigKeys.Write.AdaptivePacketSize.MIN_KEY,
+        8 * 1024);
+    conf.setInt(HdfsClientConfigKeys.Write.AdaptivePacketSize.MAX_KEY,
+        512 * 1024);
+    // A target no pipeline misses, so that the packets grow.
+    conf.setLong(HdfsClientConfigKeys.Write.AdaptivePacketSize
+        .TARGET_ACK_LATENCY_MS_KEY, 3600 * 1000);
+    final Path path = new Path("/adaptive-packet-size");
+    final int blockSize = 1024 * 1024;
+    final byte[] data = new byte[5 * blockSize + 1234];
+    new Random(0).nextBytes(data);
+    try (FileSystem fs = FileSystem.newInstance(cluster.getURI(), conf)) {
+      PacketSizeTuner tuner;
+      try (FSDataOutputStream os = fs.create(path, true, 4096, (short) 3,
+          blockSize)) {
+        DFSOutputStream dos = (DFSOutputStream) os.getWrappedStream();
+        tuner = dos.getStreamer().getPacketSizeTuner();
+        for (int off = 0; off < data.length; off += 10000) {
+          os.write(data, off, Math.min(10000, data.length - off));
+        }
+      }
+      assertEquals(512 * 1024, tuner.getPacketSize());
+      Assert.assertArrayEquals(data, DFSTestUtil.readFileAsBytes(fs, path));
+
+      // Appending to the last block uses it as well.
+      try (FSDataOutputStream os = fs.append(path)) {
+        DFSOutputStream dos = (DFSOutputStream) os.getWrappedStream();
+        Assert.assertNotNull(dos.getStreamer().getPacketSizeTuner());
+        os.write(data, 0, 100000);
+      }
+      assertEquals(data.length + 100000, fs.getFileStatus(path).getLen());
+    }
+  }
+
   @AfterClass
   public static void tearDown() {
     if (cluster != null) {
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.hdfs.client.HdfsDataInputStream;
+import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
+import org.apache.hadoop.hdfs.protocol.ErasureCodingPolicy;
+import org.apache.hadoop.hdfs.protocol.LocatedStripedBlock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+
+/**
+ * Test that a striped read decodes around a slow DataNode when hedged striped
+ * reads are enabled, instead of waiting for it.
+ */
+public class TestReadStripedFileWithSlowDataNode {
+  private static final long SLOW_READ_MILLIS = 2000;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+  private final Configuration conf = new HdfsConfiguration();
+  private final ErasureCodingPolicy ecPolicy =
+      StripedFileTestUtil.getDefaultECPolicy();
+  private final short dataBlocks = (short) ecPolicy.getNumDataUnits();
+  private final short parityBlocks = (short) ecPolicy.getNumParityUnits();
+  private final int cellSize = ecPolicy.getCellSize();
+  private final int stripPerBlock = 2;
+  private final int blockSize = stripPerBlock * cellSize;
+  private final int fileLength = blockSize * dataBlocks + 123;
+  private DFSClientFaultInjector oldInjector;
+
+  @Rule
+  public Timeout globalTimeout = new Timeout(300000);
+
+  @Before
+  public void setup() throws IOException {
+    conf.setLong(DFSConfigKeys.DFS_BLOCK_SIZE_KEY, blockSize);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_REPLICATION_MAX_STREAMS_KEY, 0);
+    conf.setBoolean(
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_ENABLED_KEY, true);
+    conf.setLong(
+        HdfsClientConfigKeys.StripedRead.HEDGED_READ_THRESHOLD_MILLIS_KEY,
+        100);
+    cluster = new MiniDFSCluster.Builder(conf)
+        .numDataNodes(dataBlocks + parityBlocks).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    fs.enableErasureCodingPolicy(ecPolicy.getName());
+    fs.getClient().setErasureCodingPolicy("/", ecPolicy.getName());
+    oldInjector = DFSClientFaultInjector.get();
+  }
+
+  @After
+  public void tearDown() {
+    DFSClientFaultInjector.set(oldInjector);
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test
+  public void testReadWithSlowDataNode() throws Exception {
+    final Path srcPath = new Path("/slow");
+    final byte[] expected = StripedFileTestUtil.generateBytes(fileLength);
+    DFSTestUtil.writeFile(fs, srcPath, expected);
+    StripedFileTestUtil.waitBlockGroupsReported(fs, srcPath.toUri().getPath());
+
+    // Slow down the DataNode holding the first data block.
+    LocatedStripedBlock blockGroup = (LocatedStripedBlock) fs.getClient()
+        .getLocatedBlocks(srcPath.toString(), 0).get(0);
+    String slowAddr = null;
+    for (int i = 0; i < blockGroup.getBlockIndices().length; i++) {
+      if (blockGroup.getBlockIndices()[i] == 0) {
+        slowAddr = blockGroup.getLocations()[i].getXferAddr();
+      }
+    }
+    Assert.assertNotNull(slowAddr);
+    final String slowXferAddr = slowAddr;
+    DFSClientFaultInjector.set(new DFSClientFaultInjector() {
+      @Override
+      public void delayStripedCellRead(DatanodeInfo datanode) {
+        if (slowXferAddr.equals(datanode.getXferAddr())) {
+          try {
+            Thread.sleep(SLOW_READ_MILLIS);
+          } catch (InterruptedException ignored) {
+          }
+        }
+      }
+    });
+
+    final DFSHedgedReadMetrics metrics =
+        fs.getClient().getHedgedReadMetrics();
+    final long hedgedReads = metrics.getStripedHedgedReadOps();
+    final long hedgedWins = metrics.getStripedHedgedReadWins();
+
+    try (FSDataInputStream in = fs.open(srcPath)) {
+      final byte[] result = new byte[fileLength];
+      int readLen = 0;
+      int ret;
+      while ((ret = in.read(result, readLen, fileLength - readLen)) > 0) {
+        readLen += ret;
+      }
+      Assert.assertEquals(fileLength, readLen);
+      Assert.assertArrayEquals(expected, result);
+
+      ReadStatistics stats = ((HdfsDataInputStream) in).getReadStatistics();
+      Assert.assertTrue(stats.getTotalEcHedgedReads() > 0);
+      Assert.assertTrue(stats.getTotalEcHedgedReadWins() > 0);
+    }
+    Assert.assertTrue(metrics.getStripedHedgedReadOps() > hedgedReads);
+    Assert.assertTrue(metrics.getStripedHedgedReadWins() > hedgedWins);
+
+    StripedFileTestUtil.verifyPread(fs, srcPath, fileLength, expected,
+        new byte[fileLength + 100]);
+  }
+}
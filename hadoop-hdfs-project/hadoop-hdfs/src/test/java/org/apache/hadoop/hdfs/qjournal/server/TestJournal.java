@@ -29,6 +29,9 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileUtil;
@@ -507,6 +510,35 @@ public void testReadFromCache() throws Exception {
     assertJournaledEditsTxnCountAndContents(16, 10, 20, newLayoutVersion);
   }
 
+  @Test
+  public void testReadFromCacheWaitsForEdits() throws Exception {
+    journal.newEpoch(FAKE_NSINFO, 1);
+    journal.startLogSegment(makeRI(1), 1,
+        NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION);
+    journal.journal(makeRI(2), 1, 1, 5, QJMTestUtil.createTxnData(1, 5));
+
+    // Nothing new arrives: the request returns empty once the wait runs out
+    long start = System.currentTimeMillis();
+    assertEquals(0, journal.getJournaledEdits(6, 10, 100).getTxnCount());
+    assertTrue(System.currentTimeMillis() - start >= 100);
+
+    // The request waiting for the next edits returns them once written
+    ExecutorService exec = Executors.newSingleThreadExecutor();
+    try {
+      Future<GetJournaledEditsResponseProto> future = exec.submit(
+          () -> journal.getJournaledEdits(6, 10, 60000));
+      Thread.sleep(100);
+      assertFalse(future.isDone());
+      journal.journal(makeRI(3), 1, 6, 5, QJMTestUtil.createTxnData(6, 5));
+      GetJournaledEditsResponseProto result = future.get();
+      assertEquals(5, result.getTxnCount());
+      assertTrue(result.hasEditsAgeMs());
+      assertTrue(result.getEditsAgeMs() < 60000);
+    } finally {
+      exec.shutdownNow();
+    }
+  }
+
   private void assertJournaledEditsTxnCountAndContents(int startTxn,
       int requestedMaxTxns, int expectedEndTxn, int layoutVersion)
       throws Exception {
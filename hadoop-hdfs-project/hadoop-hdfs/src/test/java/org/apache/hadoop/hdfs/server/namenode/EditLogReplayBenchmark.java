@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.server.common.Storage;
+import org.apache.hadoop.hdfs.server.common.Util;
+import org.apache.hadoop.hdfs.server.namenode.FileJournalManager.EditLogFile;
+import org.apache.hadoop.hdfs.server.namenode.NNStorage.NameNodeFile;
+import org.apache.hadoop.hdfs.util.PersistentLongFile;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * EditLogReplayBenchmark
+ *   Synopsis: EditLogReplayBenchmark -dir nameDirectory
+ *        [-threads t1,t2,...] [-runs numRuns] [-work workDirectory]
+ *
+ *   Replay the edit logs recorded in a NameNode name directory, for example
+ *   copied from a production cluster, and report the time to apply them for
+ *   each number of {@link DFSConfigKeys#DFS_NAMENODE_EDITS_APPLY_THREADS_KEY}.
+ *
+ *   For each run, the newest fsimage of the directory is loaded from a copy
+ *   in the work directory and the finalized edit logs after it are applied.
+ *   Only the time to apply the edits is measured.
+ */
+public class EditLogReplayBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: EditLogReplayBenchmark"
+      + " -dir nameDirectory [-threads t1,t2,...] [-runs numRuns]"
+      + " [-work workDirectory]";
+
+  public EditLogReplayBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    File nameDir = null;
+    File workDir = new File(System.getProperty("java.io.tmpdir"),
+        "EditLogReplayBenchmark");
+    String[] threads = {"0", "4"};
+    int runs = 3;
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-dir")) {
+        nameDir = new File(args[++i]);
+      } else if (args[i].equals("-threads")) {
+        threads = args[++i].split(",");
+      } else if (args[i].equals("-runs")) {
+        runs = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-work")) {
+        workDir = new File(args[++i]);
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+    if (nameDir == null) {
+      System.err.println(USAGE);
+      return -1;
+    }
+
+    for (String t : threads) {
+      int numThreads = Integer.parseInt(t.trim());
+      long totalMs = 0;
+      long numTxns = 0;
+      for (int run = 0; run < runs; run++) {
+        long[] result = replay(nameDir, workDir, numThreads);
+        numTxns = result[0];
+        totalMs += result[1];
+      }
+      long avgMs = totalMs / Math.max(runs, 1);
+      System.out.println("Threads: " + numThreads + ", transactions: "
+          + numTxns + ", average time: " + avgMs + " ms, rate: "
+          + (avgMs == 0 ? "-" : String.valueOf(numTxns * 1000 / avgMs))
+          + " txns/s");
+    }
+    FileUtil.fullyDelete(workDir);
+    return 0;
+  }
+
+  /**
+   * Load the newest image of a name directory and apply the edits after it.
+   * @return the number of transactions applied and the time to apply them.
+   */
+  private long[] replay(File nameDir, File workDir, int numThreads)
+      throws IOException {
+    File current = new File(nameDir, Storage.STORAGE_DIR_CURRENT);
+    long imageTxId = getNewestImageTxId(current);
+
+    // Copy the image without the edits, so only the image is loaded
+    FileUtil.fullyDelete(workDir);
+    File workCurrent = new File(workDir, Storage.STORAGE_DIR_CURRENT);
+    if (!workCurrent.mkdirs()) {
+      throw new IOException("Cannot create " + workCurrent);
+    }
+    File[] files = current.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        String name = file.getName();
+        if (name.equals("VERSION") ||
+            name.startsWith(NNStorage.getImageFileName(imageTxId))) {
+          Files.copy(file.toPath(), new File(workCurrent, name).toPath());
+        }
+      }
+    }
+    PersistentLongFile.writeFile(new File(workCurrent,
+        NameNodeFile.SEEN_TXID.getName()), imageTxId);
+
+    Configuration conf = new Configuration(getConf());
+    conf.set(DFSConfigKeys.DFS_NAMENODE_NAME_DIR_KEY,
+        Util.fileAsURI(workDir).toString());
+    conf.set(DFSConfigKeys.DFS_NAMENODE_EDITS_DIR_KEY,
+        Util.fileAsURI(workDir).toString());
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_EDITS_APPLY_THREADS_KEY,
+        numThreads);
+    FSNamesystem fsn = FSNamesystem.loadFromDisk(conf);
+    try {
+      List<EditLogInputStream> streams = new ArrayList<>();
+      List<EditLogFile> logs = FileJournalManager.matchEditLogs(current);
+      Collections.sort(logs,
+          Comparator.comparingLong(EditLogFile::getFirstTxId));
+      for (EditLogFile log : logs) {
+        if (!log.isInProgress() && log.getFirstTxId() > imageTxId) {
+          streams.add(new EditLogFileInputStream(log.getFile(),
+              log.getFirstTxId(), log.getLastTxId(), false));
+        }
+      }
+      long start = Time.monotonicNow();
+      long numTxns = fsn.getFSImage().loadEdits(streams, fsn);
+      return new long[] {numTxns, Time.monotonicNow() - start};
+    } finally {
+      fsn.close();
+    }
+  }
+
+  private static long getNewestImageTxId(File current) throws IOException {
+    String imagePrefix = NameNodeFile.IMAGE.getName() + "_";
+    long newest = -1;
+    File[] files = current.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        String name = file.getName();
+        if (name.startsWith(imagePrefix) && !name.endsWith(".md5")) {
+          try {
+            newest = Math.max(newest,
+                Long.parseLong(name.substring(imagePrefix.length())));
+          } catch (NumberFormatException e) {
+            // Not a finalized image
+          }
+        }
+      }
+    }
+    if (newest < 0) {
+      throw new IOException("No fsimage in " + current);
+    }
+    return newest;
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(
+        new EditLogReplayBenchmark(new HdfsConfiguration()), args));
+  }
+}
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.fs.permission.PermissionStatus;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DFSUtil;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.server.blockmanagement.BlockInfo;
+import org.apache.hadoop.hdfs.server.common.Util;
+import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * INodeMemoryBenchmark
+ *   Synopsis: INodeMemoryBenchmark [-inodes numINodes]
+ *        [-filesPerDir numFiles] [-names numNames] [-tracked numTracked]
+ *        [-work workDirectory]
+ *
+ *   Measure the heap used per inode by a namespace of directories and files
+ *   created at runtime, with and without caching the names created at
+ *   runtime ({@link DFSConfigKeys#DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_KEY}).
+ *
+ *   The files of each directory are named after numNames distinct names,
+ *   like the part files of jobs, and the directories after dates. Run with
+ *   a heap large enough for the inodes, e.g. about 30GB for 100M inodes.
+ */
+public class INodeMemoryBenchmark extends Configured implements Tool {
+
+  private static final String USAGE = "Usage: INodeMemoryBenchmark"
+      + " [-inodes numINodes] [-filesPerDir numFiles] [-names numNames]"
+      + " [-tracked numTracked] [-work workDirectory]";
+
+  public INodeMemoryBenchmark(Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int run(String[] args) throws Exception {
+    long numINodes = 1000000;
+    int filesPerDir = 100;
+    int numNames = 1000;
+    int numTracked = 100000;
+    File workDir = new File(System.getProperty("java.io.tmpdir"),
+        "INodeMemoryBenchmark");
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 >= args.length) {
+        System.err.println(USAGE);
+        return -1;
+      }
+      if (args[i].equals("-inodes")) {
+        numINodes = Long.parseLong(args[++i]);
+      } else if (args[i].equals("-filesPerDir")) {
+        filesPerDir = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-names")) {
+        numNames = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-tracked")) {
+        numTracked = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-work")) {
+        workDir = new File(args[++i]);
+      } else {
+        System.err.println(USAGE);
+        return -1;
+      }
+    }
+
+    for (int maxTracked : new int[] {0, numTracked}) {
+      long[] result = measure(workDir, maxTracked, numINodes, filesPerDir,
+          numNames);
+      System.out.println("Runtime names tracked: " + maxTracked
+          + ", inodes: " + result[0] + ", heap: " + result[1] / (1024 * 1024)
+          + " MB, bytes per inode: " + result[1] / Math.max(result[0], 1)
+          + ", time: " + result[2] + " ms");
+    }
+    FileUtil.fullyDelete(workDir);
+    return 0;
+  }
+
+  /**
+   * Create the inodes in a new namespace.
+   * @return the number of inodes, the heap used by them and the time to
+   * create them.
+   */
+  private long[] measure(File workDir, int maxTracked, long numINodes,
+      int filesPerDir, int numNames) throws IOException {
+    FileUtil.fullyDelete(workDir);
+    Configuration conf = new Configuration(getConf());
+    conf.set(DFSConfigKeys.DFS_NAMENODE_NAME_DIR_KEY,
+        Util.fileAsURI(workDir).toString());
+    conf.set(DFSConfigKeys.DFS_NAMENODE_EDITS_DIR_KEY,
+        Util.fileAsURI(workDir).toString());
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_NAME_CACHE_RUNTIME_TRACKED_KEY,
+        maxTracked);
+    DFSTestUtil.formatNameNode(conf);
+    FSNamesystem fsn = FSNamesystem.loadFromDisk(conf);
+    try {
+      FSDirectory fsd = fsn.getFSDirectory();
+      PermissionStatus perm = new PermissionStatus("user", "group",
+          FsPermission.getDefault());
+      long used = getUsedHeap();
+      long start = Time.monotonicNow();
+      long created = 0;
+      fsn.writeLock();
+      try {
+        for (long d = 0; created < numINodes; d++) {
+          // Names are new arrays, as if they came from the requests
+          INodeDirectory dir = new INodeDirectory(fsd.allocateNewInodeId(),
+              DFSUtil.string2Bytes("dt=" + (d % 3650)), perm, start);
+          fsd.cacheName(dir);
+          INodeDirectory parent = new INodeDirectory(fsd.allocateNewInodeId(),
+              DFSUtil.string2Bytes("job_" + d), perm, start);
+          fsd.cacheName(parent);
+          fsd.getRoot().addChild(parent);
+          fsd.addToInodeMap(parent);
+          parent.addChild(dir);
+          fsd.addToInodeMap(dir);
+          created += 2;
+          for (int f = 0; f < filesPerDir && created < numINodes; f++) {
+            INodeFile file = new INodeFile(fsd.allocateNewInodeId(),
+                DFSUtil.string2Bytes(String.format("part-%05d",
+                    f % numNames)), perm, start, start,
+                BlockInfo.EMPTY_ARRAY, (short) 3, 128L * 1024 * 1024);
+            fsd.cacheName(file);
+            if (dir.addChild(file)) {
+              fsd.addToInodeMap(file);
+              created++;
+            }
+          }
+        }
+      } finally {
+        fsn.writeUnlock();
+      }
+      long time = Time.monotonicNow() - start;
+      return new long[] {created, getUsedHeap() - used, time};
+    } finally {
+      fsn.close();
+    }
+  }
+
+  private static long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(ToolRunner.run(
+        new INodeMemoryBenchmark(new HdfsConfiguration()), args));
+  }
+}
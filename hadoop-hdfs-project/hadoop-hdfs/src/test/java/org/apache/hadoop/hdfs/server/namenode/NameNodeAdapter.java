@@ -42,6 +42,7 @@
 import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.MkdirOp;
 import org.apache.hadoop.hdfs.server.namenode.LeaseManager.Lease;
 import org.apache.hadoop.hdfs.server.namenode.ha.EditLogTailer;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.hdfs.server.protocol.DatanodeRegistration;
 import org.apache.hadoop.hdfs.server.protocol.HeartbeatResponse;
 import org.apache.hadoop.hdfs.server.protocol.NamenodeCommand;
@@ -249,6 +250,16 @@ public static FSImage spyOnFsImage(NameNode nn1) {
     return spy;
   }
   
+  /**
+   * Replace the NameNode metrics, which all the NameNodes in the JVM share,
+   * with a spy.
+   */
+  public static NameNodeMetrics spyOnNameNodeMetrics() {
+    NameNodeMetrics spyMetrics = spy(NameNode.getNameNodeMetrics());
+    NameNode.metrics = spyMetrics;
+    return spyMetrics;
+  }
+
   public static FSEditLog spyOnEditLog(NameNode nn) {
     FSEditLog spyEditLog = spy(nn.getNamesystem().getFSImage().getEditLog());
     DFSTestUtil.setEditLogForTesting(nn.getNamesystem(), spyEditLog);
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.ToolRunner;
+import org.junit.Test;
+
+/**
+ * Tests the EditLogReplayBenchmark utility.
+ */
+public class TestEditLogReplayBenchmark {
+
+  /**
+   * Tests that the edits recorded by a NameNode can be replayed.
+   */
+  @Test(timeout=120000)
+  public void testReplayRecordedEdits() throws Exception {
+    HdfsConfiguration conf = new HdfsConfiguration();
+    File nameDir;
+    MiniDFSCluster cluster = new MiniDFSCluster.Builder(conf)
+        .numDataNodes(1).build();
+    try {
+      cluster.waitActive();
+      FileSystem fs = cluster.getFileSystem();
+      for (int i = 0; i < 10; i++) {
+        Path file = new Path("/bench/file" + i);
+        DFSTestUtil.createFile(fs, file, 1024, (short) 1, i);
+        fs.setTimes(file, 1000L, 1000L);
+      }
+      nameDir = new File(cluster.getNameDirs(0).iterator().next());
+    } finally {
+      // Finalizes the edit log
+      cluster.shutdown();
+    }
+
+    File workDir = GenericTestUtils.getTestDir("TestEditLogReplayBenchmark");
+    assertEquals(0, ToolRunner.run(new EditLogReplayBenchmark(conf),
+        new String[] {"-dir", nameDir.getAbsolutePath(), "-threads", "0,2",
+            "-runs", "1", "-work", workDir.getAbsolutePath()}));
+  }
+}
@@ -41,6 +41,7 @@
 import java.util.SortedMap;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
@@ -806,6 +807,64 @@ public void testErasureCodingPolicyOperations() throws IOException {
     }
   }
 
+  /**
+   * Test that the edits applied with their paths resolved in parallel give
+   * the same namespace as the edits were applied to.
+   */
+  @Test
+  public void testParallelApply() throws Exception {
+    Configuration conf = getConf();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_EDITS_APPLY_THREADS_KEY, 4);
+    conf.setInt(DFSConfigKeys.DFS_REPLICATION_KEY, 1);
+    final int numFiles = 10;
+    MiniDFSCluster cluster = null;
+    try {
+      cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+      cluster.waitActive();
+      DistributedFileSystem fs = cluster.getFileSystem();
+      Path dir = new Path("/parallel");
+      for (int i = 0; i < numFiles; i++) {
+        DFSTestUtil.createFile(fs, new Path(dir, "file" + i), 1024, (short) 1,
+            i);
+      }
+      // Runs of edits on different files, broken by a rename of one of them
+      for (int i = 0; i < numFiles; i++) {
+        Path file = new Path(dir, "file" + i);
+        fs.setTimes(file, 1000L + i, 2000L + i);
+        fs.setPermission(file, new FsPermission((short) (0700 + i)));
+        fs.setOwner(file, "user" + i, "group" + i);
+        fs.setXAttr(file, "user.a", new byte[] {(byte) i});
+        if (i == numFiles / 2) {
+          fs.rename(file, new Path(dir, "renamed"));
+          fs.setTimes(new Path(dir, "renamed"), 3000L, 4000L);
+          DFSTestUtil.appendFile(fs, new Path(dir, "renamed"), 512);
+        }
+      }
+      FileStatus[] before = fs.listStatus(dir);
+
+      cluster.restartNameNode();
+      fs = cluster.getFileSystem();
+      FileStatus[] after = fs.listStatus(dir);
+      assertEquals(numFiles, after.length);
+      for (int i = 0; i < before.length; i++) {
+        assertEquals(before[i], after[i]);
+        assertEquals(before[i].getLen(), after[i].getLen());
+        assertEquals(before[i].getModificationTime(),
+            after[i].getModificationTime());
+        assertEquals(before[i].getAccessTime(), after[i].getAccessTime());
+        assertEquals(before[i].getPermission(), after[i].getPermission());
+        assertEquals(before[i].getOwner(), after[i].getOwner());
+        assertEquals(before[i].getGroup(), after[i].getGroup());
+        assertEquals(fs.getXAttrs(before[i].getPath()).size(), 1);
+      }
+      assertEquals(1536, fs.getFileStatus(new Path(dir, "renamed")).getLen());
+    } finally {
+      if (cluster != null) {
+        cluster.shutdown();
+      }
+    }
+  }
+
   @Test
   public void setLoadFSEditLogThrottling() throws Exception {
     FSNamesystem namesystem = mock(FSNamesystem.class);
@@ -71,6 +71,37 @@ public void testDictionary() throws Exception {
     }
   }
 
+  @Test
+  public void testRuntimeNames() throws Exception {
+    // Track at most 3 names after initialization
+    NameCache<String> cache = new NameCache<String>(2, 3);
+    cache.initialized();
+
+    // Names used at runtime are promoted to the dictionary
+    String name = "part-00000";
+    assertNull(cache.put(name));
+    assertTrue(name == cache.put(new String(name)));
+    verifyNameReuse(cache, name, true);
+    assertEquals(1, cache.size());
+
+    // Names are tracked in windows of at most 3 names
+    assertNull(cache.put("a"));
+    assertNull(cache.put("b"));
+    assertNull(cache.put("c"));
+    assertNull(cache.put("d"));
+    assertNull(cache.put("a"));
+    assertEquals(1, cache.size());
+
+    // At most 3 names promoted at runtime are cached
+    for (String promoted : new String[] {"e", "f", "g", "h"}) {
+      assertNull(cache.put(promoted));
+      assertTrue(promoted == cache.put(new String(promoted)));
+    }
+    assertEquals(3, cache.size());
+    assertNull(cache.put(new String(name)));
+    verifyNameReuse(cache, "h", true);
+  }
+
   private void verifyNameReuse(NameCache<String> cache, String s, boolean reused) {
     cache.put(s);
     int lookupCount = cache.getLookupCount();
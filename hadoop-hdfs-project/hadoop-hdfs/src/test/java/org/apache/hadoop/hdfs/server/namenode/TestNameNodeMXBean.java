@@ -47,6 +47,7 @@
 import org.apache.hadoop.hdfs.server.datanode.DataNodeTestUtils;
 import org.apache.hadoop.hdfs.server.namenode.ha.HATestUtil;
 import org.apache.hadoop.hdfs.server.namenode.top.TopConf;
+import org.apache.hadoop.hdfs.server.namenode.top.metrics.TopMetrics;
 import org.apache.hadoop.hdfs.util.HostsFileWriter;
 import org.apache.hadoop.hdfs.util.StripedBlockUtil;
 import org.apache.hadoop.io.IOUtils;
@@ -583,6 +584,25 @@ public void testTopUsers() throws Exception {
           assertEquals("Unexpected total count", expected, count);
         }
       }
+
+      // The callers held the lock for the operations
+      String topLocks =
+          (String) (mbs.getAttribute(mxbeanNameFsns, "TopLockTimes"));
+      map = mapper.readValue(topLocks, Map.class);
+      windows = (List<Map<String, List<Map<String, Object>>>>)
+          map.get("windows");
+      assertEquals("Unexpected num windows", 3, windows.size());
+      for (Map<String, List<Map<String, Object>>> window : windows) {
+        boolean foundCallers = false;
+        for (Map<String, Object> op : window.get("ops")) {
+          if (op.get("opType").equals(TopMetrics.LOCK_CALLERS)) {
+            foundCallers = true;
+            assertTrue("Expected lock time",
+                Long.parseLong(op.get("totalCount").toString()) > 0);
+          }
+        }
+        assertTrue("Could not find the callers", foundCallers);
+      }
     } finally {
       if (cluster != null) {
         cluster.shutdown();
@@ -36,12 +36,15 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystemTestHelper;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.DFSUtil;
 import org.apache.hadoop.hdfs.HdfsConfiguration;
 import org.apache.hadoop.hdfs.MiniDFSCluster;
 import org.apache.hadoop.hdfs.server.namenode.NNStorage.NameNodeFile;
+import org.apache.hadoop.hdfs.util.MD5FileUtils;
 import org.apache.hadoop.http.HttpServer2;
 import org.apache.hadoop.http.HttpServerFunctionalTest;
+import org.apache.hadoop.io.MD5Hash;
 import org.apache.hadoop.test.PathUtils;
 import org.apache.hadoop.util.StringUtils;
 import org.junit.Test;
@@ -117,6 +120,58 @@ public void testClientSideExceptionOnJustOneDir() throws IOException {
     }
   }
 
+  /**
+   * Test the download of an image in compressed ranges over parallel streams,
+   * with a corrupted chunk which is downloaded again.
+   */
+  @Test(timeout = 60000)
+  public void testParallelImageDownload() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_IMAGE_TRANSFER_CHUNKSIZE_KEY, 32);
+    MiniDFSCluster cluster = new MiniDFSCluster.Builder(conf)
+      .numDataNodes(0).build();
+    CheckpointFaultInjector oldInjector = CheckpointFaultInjector.getInstance();
+    CheckpointFaultInjector mockInjector =
+        Mockito.mock(CheckpointFaultInjector.class);
+    Mockito.when(mockInjector.shouldCorruptAByte(Mockito.any(File.class)))
+        .thenReturn(true, false);
+    try {
+      NNStorage storage = cluster.getNameNode().getFSImage().getStorage();
+      File image = storage.findImageFile(NameNodeFile.IMAGE, 0);
+      List<File> localPaths = ImmutableList.of(
+          new File(TEST_DIR, "parallel1"), new File(TEST_DIR, "parallel2"));
+      NNStorage mockStorage = Mockito.mock(NNStorage.class);
+      Mockito.when(mockStorage.getFiles(Mockito.any(), Mockito.anyString()))
+          .thenReturn(localPaths);
+      Mockito.when(mockStorage.toColonSeparatedString())
+          .thenReturn(storage.toColonSeparatedString());
+      URL fsName = DFSUtil.getInfoServer(
+          cluster.getNameNode().getServiceRpcAddress(), conf,
+          DFSUtil.getHttpClientScheme(conf)).toURL();
+
+      Configuration clientConf = new HdfsConfiguration();
+      clientConf.setInt(DFSConfigKeys.DFS_IMAGE_TRANSFER_PARALLEL_STREAMS_KEY,
+          3);
+      clientConf.setLong(DFSConfigKeys.DFS_IMAGE_TRANSFER_RANGE_SIZE_KEY,
+          image.length() / 4 + 1);
+      clientConf.setBoolean(DFSConfigKeys.DFS_IMAGE_TRANSFER_COMPRESS_KEY,
+          true);
+      CheckpointFaultInjector.set(mockInjector);
+      MD5Hash hash = TransferFsImage.downloadImageToStorage(fsName, 0,
+          mockStorage, true, false, clientConf);
+
+      assertEquals(MD5FileUtils.computeMd5ForFile(image), hash);
+      for (File localPath : localPaths) {
+        assertEquals(hash, MD5FileUtils.computeMd5ForFile(localPath));
+      }
+      Mockito.verify(mockInjector, Mockito.atLeast(5))
+          .shouldCorruptAByte(image);
+    } finally {
+      CheckpointFaultInjector.set(oldInjector);
+      cluster.shutdown();
+    }
+  }
+
   /**
    * Test to verify the read timeout
    */
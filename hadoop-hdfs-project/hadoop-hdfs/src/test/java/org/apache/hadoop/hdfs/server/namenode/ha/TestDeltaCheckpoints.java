@@ -0,0 +1,229 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode.ha;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.BindException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.MiniDFSNNTopology;
+import org.apache.hadoop.hdfs.server.namenode.FSImageTestUtil;
+import org.apache.hadoop.hdfs.server.namenode.NNStorage;
+import org.apache.hadoop.hdfs.server.namenode.NNStorage.NameNodeFile;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the delta checkpoints of the Standby NameNode and their merge with the
+ * full image when the NameNode starts.
+ */
+public class TestDeltaCheckpoints {
+  private static final Path DIR = new Path("/delta");
+
+  private MiniDFSCluster cluster;
+  private FileSystem fs;
+
+  @Before
+  public void setupCluster() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_CHECK_PERIOD_KEY, 1);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_TXNS_KEY, 5);
+    conf.setInt(DFSConfigKeys.DFS_HA_TAILEDITS_PERIOD_KEY, 1);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_DELTA_MAX_KEY, 1);
+
+    // The standby only checkpoints with HTTP ports to upload the images
+    Random random = new Random();
+    int retryCount = 0;
+    while (true) {
+      try {
+        int basePort = 10060 + random.nextInt(100) * 2;
+        MiniDFSNNTopology topology = new MiniDFSNNTopology()
+            .addNameservice(new MiniDFSNNTopology.NSConf("ns1")
+                .addNN(new MiniDFSNNTopology.NNConf("nn1")
+                    .setHttpPort(basePort))
+                .addNN(new MiniDFSNNTopology.NNConf("nn2")
+                    .setHttpPort(basePort + 1)));
+        cluster = new MiniDFSCluster.Builder(conf)
+            .nnTopology(topology)
+            .numDataNodes(1)
+            .build();
+        cluster.waitActive();
+        break;
+      } catch (BindException e) {
+        if (++retryCount >= 5) {
+          throw e;
+        }
+      }
+    }
+    cluster.transitionToActive(0);
+    fs = HATestUtil.configureFailoverFs(cluster, conf);
+  }
+
+  @After
+  public void shutdownCluster() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test(timeout = 300000)
+  public void testRestartWithDeltaImage() throws Exception {
+    // Changes of files and directories, with some deleted and moved
+    fs.mkdirs(new Path(DIR, "a/b"));
+    fs.mkdirs(new Path(DIR, "c"));
+    DFSTestUtil.createFile(fs, new Path(DIR, "a/f1"), 1024, (short) 1, 0L);
+    DFSTestUtil.createFile(fs, new Path(DIR, "a/b/f2"), 2048, (short) 1, 0L);
+    DFSTestUtil.createFile(fs, new Path(DIR, "c/f3"), 512, (short) 1, 0L);
+    fs.setPermission(new Path(DIR, "a/f1"), new FsPermission("600"));
+    fs.setOwner(new Path(DIR, "a/b"), "user1", "group1");
+    fs.setTimes(new Path(DIR, "c/f3"), 1000L, 2000L);
+    fs.rename(new Path(DIR, "a/b/f2"), new Path(DIR, "c/f4"));
+    fs.delete(new Path(DIR, "a/b"), true);
+    fs.setReplication(new Path(DIR, "c/f4"), (short) 2);
+    fs.setPermission(new Path("/"), new FsPermission("751"));
+
+    // The standby only saves a delta on top of the image of the format
+    HATestUtil.waitForStandbyToCatchUp(cluster.getNameNode(0),
+        cluster.getNameNode(1));
+    long firstDeltaTxId = waitForImage(1, NameNodeFile.IMAGE_DELTA, 0);
+    assertEquals(Collections.singleton(NNStorage.getImageFileName(0)),
+        new HashSet<>(findImages(1, NameNodeFile.IMAGE)));
+    Map<String, String> expected = getStatuses();
+
+    // The restarted standby loads the full image and the delta image
+    cluster.restartNameNode(1);
+    assertEquals(firstDeltaTxId, cluster.getNameNode(1).getFSImage()
+        .getStorage().getMostRecentCheckpointTxId());
+    cluster.transitionToStandby(0);
+    cluster.transitionToActive(1);
+    assertEquals(expected, getStatuses());
+
+    // The old active saves a full image first, then a delta image on top
+    HATestUtil.waitForStandbyToCatchUp(cluster.getNameNode(1),
+        cluster.getNameNode(0));
+    long fullTxId = waitForImage(0, NameNodeFile.IMAGE, 0);
+    DFSTestUtil.createFile(fs, new Path(DIR, "c/f5"), 512, (short) 1, 0L);
+    fs.delete(new Path(DIR, "c/f3"), false);
+    fs.setPermission(new Path(DIR, "c/f5"), new FsPermission("640"));
+    fs.setOwner(new Path(DIR, "c/f5"), "user2", "group2");
+    fs.mkdirs(new Path(DIR, "d/e"));
+    fs.delete(new Path(DIR, "c/f4"), false);
+    HATestUtil.waitForStandbyToCatchUp(cluster.getNameNode(1),
+        cluster.getNameNode(0));
+    long deltaTxId = waitForImage(0, NameNodeFile.IMAGE_DELTA, fullTxId);
+    expected = getStatuses();
+
+    cluster.restartNameNode(0);
+    assertEquals(deltaTxId, cluster.getNameNode(0).getFSImage().getStorage()
+        .getMostRecentCheckpointTxId());
+    cluster.transitionToStandby(1);
+    cluster.transitionToActive(0);
+    assertEquals(expected, getStatuses());
+    assertFalse(fs.exists(new Path(DIR, "c/f4")));
+
+    // The full image of the old active supersedes its delta images
+    DFSTestUtil.createFile(fs, new Path(DIR, "d/f6"), 512, (short) 1, 0L);
+    fs.delete(new Path(DIR, "a"), true);
+    HATestUtil.waitForStandbyToCatchUp(cluster.getNameNode(0),
+        cluster.getNameNode(1));
+    waitForImage(1, NameNodeFile.IMAGE, 0);
+    assertFalse(findImages(1, NameNodeFile.IMAGE_DELTA).contains(
+        getImageName(NameNodeFile.IMAGE_DELTA, firstDeltaTxId)));
+  }
+
+  /**
+   * Wait for a NameNode to save an image newer than a transaction.
+   * @return the transaction ID of the newest image.
+   */
+  private long waitForImage(final int nnIdx, final NameNodeFile nnf,
+      final long afterTxId) throws Exception {
+    GenericTestUtils.waitFor(() -> getNewestImageTxId(nnIdx, nnf) > afterTxId,
+        100, 60000);
+    return getNewestImageTxId(nnIdx, nnf);
+  }
+
+  private long getNewestImageTxId(int nnIdx, NameNodeFile nnf) {
+    long newest = -1;
+    for (String name : findImages(nnIdx, nnf)) {
+      newest = Math.max(newest,
+          Long.parseLong(name.substring(nnf.getName().length() + 1)));
+    }
+    return newest;
+  }
+
+  private static String getImageName(NameNodeFile nnf, long txId) {
+    return String.format("%s_%019d", nnf.getName(), txId);
+  }
+
+  private List<String> findImages(int nnIdx, NameNodeFile nnf) {
+    List<String> names = new ArrayList<>();
+    for (File dir : FSImageTestUtil.getNameNodeCurrentDirs(cluster, nnIdx)) {
+      String[] files = dir.list();
+      if (files == null) {
+        continue;
+      }
+      for (String name : files) {
+        if (name.matches(nnf.getName() + "_\\d+")) {
+          names.add(name);
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * @return the status of the files by path, with all their attributes.
+   */
+  private Map<String, String> getStatuses() throws Exception {
+    Map<String, String> statuses = new HashMap<>();
+    statuses.put("/", fs.getFileStatus(new Path("/")).toString());
+    addStatuses(DIR, statuses);
+    return statuses;
+  }
+
+  private void addStatuses(Path path, Map<String, String> statuses)
+      throws Exception {
+    for (FileStatus status : fs.listStatus(path)) {
+      statuses.put(status.getPath().toUri().getPath(), status.toString());
+      if (status.isDirectory()) {
+        addStatuses(status.getPath(), statuses);
+      }
+    }
+  }
+}
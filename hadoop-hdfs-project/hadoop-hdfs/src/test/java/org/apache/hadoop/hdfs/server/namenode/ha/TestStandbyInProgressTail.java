@@ -20,6 +20,9 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.FilenameFilter;
@@ -27,6 +30,7 @@
 import java.net.URI;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,12 +44,15 @@
 import org.apache.hadoop.hdfs.qjournal.server.JournalTestUtil;
 import org.apache.hadoop.hdfs.server.namenode.NNStorage;
 import org.apache.hadoop.hdfs.server.namenode.NameNode;
+import org.apache.hadoop.hdfs.server.namenode.NameNodeAdapter;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.test.GenericTestUtils;
 import static org.apache.hadoop.hdfs.server.namenode.NameNodeAdapter.getFileInfo;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
@@ -396,6 +403,44 @@ public void testTailWithoutCache() throws Exception {
     waitForFileInfo(nn1, "/test", "/test2", "/test3");
   }
 
+  @Test
+  public void testStreamingTail() throws Exception {
+    qjmhaCluster.shutdown();
+    // The JournalNodes hold the fetches for new edits. The tailer only gets
+    // the edits in time by streaming them, otherwise it sleeps for the whole
+    // tail period after each fetch.
+    conf.setTimeDuration(DFSConfigKeys.DFS_HA_TAILEDITS_STREAMING_WAIT_KEY,
+        200, TimeUnit.MILLISECONDS);
+    qjmhaCluster = new MiniQJMHACluster.Builder(conf).build();
+    cluster = qjmhaCluster.getDfsCluster();
+    cluster.transitionToActive(0);
+    cluster.waitActive(0);
+    nn0 = cluster.getNameNode(0);
+    nn1 = cluster.getNameNode(1);
+
+    NameNodeMetrics metrics = NameNodeAdapter.spyOnNameNodeMetrics();
+
+    // Every round needs a new fetch by the tailer thread
+    for (int i = 0; i < 3; i++) {
+      String dir = "/test" + i;
+      mkdirs(nn0, dir);
+      GenericTestUtils.waitFor(() -> {
+        try {
+          return getFileInfo(nn1, dir, true, false, false) != null;
+        } catch (IOException e) {
+          throw new AssertionError("Exception while waiting: " + e);
+        }
+      }, 10, 5000);
+    }
+
+    // The lag from the JournalNodes to the standby is tracked
+    ArgumentCaptor<Long> lag = ArgumentCaptor.forClass(Long.class);
+    verify(metrics, atLeastOnce()).addEditLogTailLag(lag.capture());
+    for (long lagMs : lag.getAllValues()) {
+      assertTrue("Unexpected lag " + lagMs, lagMs >= 0 && lagMs < 5000);
+    }
+  }
+
   /**
    * Check that no edits files are present in the given storage dirs.
    */
@@ -17,9 +17,16 @@
  */
 package org.apache.hadoop.hdfs.server.namenode.metrics;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.server.namenode.top.TopConf;
 import org.apache.hadoop.hdfs.server.namenode.top.metrics.TopMetrics;
+import org.apache.hadoop.hdfs.server.namenode.top.window.RollingWindowManager.Op;
+import org.apache.hadoop.hdfs.server.namenode.top.window.RollingWindowManager.TopWindow;
+import org.apache.hadoop.hdfs.server.namenode.top.window.RollingWindowManager.User;
 import org.apache.hadoop.metrics2.MetricsCollector;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.Interns;
@@ -27,6 +34,7 @@
 
 import static org.apache.hadoop.hdfs.server.namenode.top.metrics.TopMetrics.TOPMETRICS_METRICS_SOURCE_NAME;
 import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -60,4 +68,45 @@ public void testPresence() {
     verify(rb, times(3)).addCounter(Interns.info("op=listStatus." +
         "user=test.count", "Total operations performed by user"), 3L);
   }
+
+  @Test
+  public void testLockTimes() {
+    Configuration conf = new Configuration();
+    TopConf topConf = new TopConf(conf);
+    TopMetrics topMetrics = new TopMetrics(conf,
+        topConf.nntopReportingPeriodsMs);
+    topMetrics.reportLockTime("user1", "/a", 5000);
+    // Below the threshold to rank the path
+    topMetrics.reportLockTime("user1", "/b", 100);
+    topMetrics.reportLockTime("user2", "/b", 2000);
+    topMetrics.reportLockTime("user2", null, 400);
+    // Calls without lock time are not ranked
+    topMetrics.reportLockTime("user3", "/c", 0);
+
+    List<TopWindow> windows = topMetrics.getTopLockWindows();
+    assertEquals(3, windows.size());
+    for (TopWindow window : windows) {
+      Map<String, Op> ops = new HashMap<>();
+      for (Op op : window.getOps()) {
+        ops.put(op.getOpType(), op);
+      }
+      assertEquals(2, ops.size());
+      Op callers = ops.get(TopMetrics.LOCK_CALLERS);
+      assertEquals(7500, callers.getTotalCount());
+      assertUsers(callers, "user1", 5100, "user2", 2400);
+      Op paths = ops.get(TopMetrics.LOCK_PATHS);
+      assertEquals(7000, paths.getTotalCount());
+      assertUsers(paths, "/a", 5000, "/b", 2000);
+    }
+  }
+
+  private static void assertUsers(Op op, String first, long firstCount,
+      String second, long secondCount) {
+    List<User> users = op.getTopUsers();
+    assertEquals(2, users.size());
+    assertEquals(first, users.get(0).getUser());
+    assertEquals(firstCount, users.get(0).getCount());
+    assertEquals(second, users.get(1).getUser());
+    assertEquals(secondCount, users.get(1).getCount());
+  }
 }
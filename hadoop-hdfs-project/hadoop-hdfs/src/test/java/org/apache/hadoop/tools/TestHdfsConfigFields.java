@@ -44,7 +44,9 @@ public void initializeMemberVariables() {
         HdfsClientConfigKeys.Failover.class,
         HdfsClientConfigKeys.StripedRead.class, DFSConfigKeys.class,
         HdfsClientConfigKeys.BlockWrite.class,
-        HdfsClientConfigKeys.BlockWrite.ReplaceDatanodeOnFailure.class };
+        HdfsClientConfigKeys.BlockWrite.ReplaceDatanodeOnFailure.class,
+        HdfsClientConfigKeys.MetadataCache.class,
+        HdfsClientConfigKeys.Write.AdaptivePacketSize.class };
 
     // Set error modes
     errorIfMissingConfigProps = true;
@@ -43,6 +43,7 @@
 import org.apache.hadoop.fs.RawLocalFileSystem;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.KeyPrefixComparator;
 import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
@@ -893,6 +894,7 @@ private long getOutputBytes(List<Statistics> stats) {
     private Class<K> keyClass;
     private Class<V> valClass;
     private RawComparator<K> comparator;
+    private KeyPrefixComparator prefixComparator;
     private SerializationFactory serializationFactory;
     private Serializer<K> keySerializer;
     private Serializer<V> valSerializer;
@@ -919,6 +921,9 @@ private long getOutputBytes(List<Statistics> stats) {
     byte[] kvbuffer;        // main output buffer
     private final byte[] b0 = new byte[0];
 
+    long[] keyPrefixes;     // key prefixes of the spill being sorted
+    int prefixStart;        // meta position of the first key prefix
+
     private static final int VALSTART = 0;         // val offset in acct
     private static final int KEYSTART = 1;         // key offset in acct
     private static final int PARTITION = 2;        // partition offset in acct
@@ -1016,6 +1021,11 @@ public void init(MapOutputCollector.Context context
 
       // k/v serialization
       comparator = job.getOutputKeyComparator();
+      if (job.getBoolean(MRJobConfig.MAP_SORT_KEY_PREFIX_ENABLED,
+          MRJobConfig.DEFAULT_MAP_SORT_KEY_PREFIX_ENABLED)) {
+        prefixComparator = getKeyPrefixComparator(comparator);
+        LOG.info("Sorting by key prefixes: " + (prefixComparator != null));
+      }
       keyClass = (Class<K>)job.getMapOutputKeyClass();
       valClass = (Class<V>)job.getMapOutputValueClass();
       serializationFactory = new SerializationFactory(job);
@@ -1264,9 +1274,51 @@ int offsetFor(int metapos) {
       return metapos * NMETA;
     }
 
+    /**
+     * Get the comparator as a {@link KeyPrefixComparator}, unless it does not
+     * provide key prefixes or a subclass changed its order without changing
+     * its key prefixes.
+     * @return the comparator providing key prefixes or null.
+     */
+    static KeyPrefixComparator getKeyPrefixComparator(
+        RawComparator<?> comparator) {
+      if (!(comparator instanceof KeyPrefixComparator)) {
+        return null;
+      }
+      try {
+        Class<?> compareClass = comparator.getClass().getMethod("compare",
+            byte[].class, int.class, int.class, byte[].class, int.class,
+            int.class).getDeclaringClass();
+        Class<?> prefixClass = comparator.getClass().getMethod("getKeyPrefix",
+            byte[].class, int.class, int.class).getDeclaringClass();
+        return compareClass.isAssignableFrom(prefixClass)
+            ? (KeyPrefixComparator) comparator : null;
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Compute the key prefixes of the records of a spill, for
+     * {@link #compare} and {@link #swap}.
+     */
+    private void computeKeyPrefixes(final int mstart, final int mend) {
+      final int n = mend - mstart;
+      if (keyPrefixes == null || keyPrefixes.length < n) {
+        keyPrefixes = new long[n];
+      }
+      prefixStart = mstart;
+      for (int m = mstart; m < mend; ++m) {
+        final int kvoff = offsetFor(m % maxRec);
+        final int keystart = kvmeta.get(kvoff + KEYSTART);
+        keyPrefixes[m - mstart] = prefixComparator.getKeyPrefix(kvbuffer,
+            keystart, kvmeta.get(kvoff + VALSTART) - keystart);
+      }
+    }
+
     /**
      * Compare logical range, st i, j MOD offset capacity.
-     * Compare by partition, then by key.
+     * Compare by partition, then by key prefix if available, then by key.
      * @see IndexedSortable#compare
      */
     @Override
@@ -1279,6 +1331,14 @@ public int compare(final int mi, final int mj) {
       if (kvip != kvjp) {
         return kvip - kvjp;
       }
+      // sort by key prefix
+      if (prefixComparator != null) {
+        final int cmp = Long.compareUnsigned(keyPrefixes[mi - prefixStart],
+            keyPrefixes[mj - prefixStart]);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
       // sort by key
       return comparator.compare(kvbuffer,
           kvmeta.get(kvi + KEYSTART),
@@ -1300,6 +1360,11 @@ public void swap(final int mi, final int mj) {
       System.arraycopy(kvbuffer, iOff, META_BUFFER_TMP, 0, METASIZE);
       System.arraycopy(kvbuffer, jOff, kvbuffer, iOff, METASIZE);
       System.arraycopy(META_BUFFER_TMP, 0, kvbuffer, jOff, METASIZE);
+      if (prefixComparator != null) {
+        final long prefix = keyPrefixes[mi - prefixStart];
+        keyPrefixes[mi - prefixStart] = keyPrefixes[mj - prefixStart];
+        keyPrefixes[mj - prefixStart] = prefix;
+      }
     }
 
     /**
@@ -1524,6 +1589,7 @@ public void flush() throws IOException, ClassNotFoundException,
       }
       // release sort buffer before the merge
       kvbuffer = null;
+      keyPrefixes = null;
       mergeParts();
       Path outputPath = mapOutputFile.getOutputFile();
       fileOutputByteCounter.increment(rfs.getFileStatus(outputPath).getLen());
@@ -1622,6 +1688,9 @@ private void sortAndSpill() throws IOException, ClassNotFoundException,
           (kvstart >= kvend
           ? kvstart
           : kvmeta.capacity() + kvstart) / NMETA;
+        if (prefixComparator != null) {
+          computeKeyPrefixes(mstart, mend);
+        }
         sorter.sort(MapOutputBuffer.this, mstart, mend, reporter);
         int spindex = mstart;
         final IndexRecord rec = new IndexRecord();
@@ -380,6 +380,15 @@ public interface MRJobConfig {
 
   public static final String MAP_SORT_SPILL_PERCENT = "mapreduce.map.sort.spill.percent";
 
+  /**
+   * Whether the map output buffer sorts the keys by the prefixes of
+   * {@link org.apache.hadoop.io.KeyPrefixComparator}s first.
+   */
+  public static final String MAP_SORT_KEY_PREFIX_ENABLED =
+      "mapreduce.map.sort.key-prefix.enabled";
+
+  public static final boolean DEFAULT_MAP_SORT_KEY_PREFIX_ENABLED = false;
+
   public static final String MAP_INPUT_FILE = "mapreduce.map.input.file";
 
   public static final String MAP_INPUT_PATH = "mapreduce.map.input.length";
@@ -19,14 +19,22 @@
 package org.apache.hadoop.mapred;
 
 import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.mapred.Counters.Counter;
 import org.apache.hadoop.mapred.MapTask.MapOutputBuffer;
 import org.apache.hadoop.mapred.Task.TaskReporter;
 import org.apache.hadoop.mapreduce.MRConfig;
+import org.apache.hadoop.mapreduce.MRJobConfig;
 import org.apache.hadoop.mapreduce.TaskCounter;
 import org.apache.hadoop.mapreduce.TaskType;
 import org.apache.hadoop.util.Progress;
@@ -35,6 +43,7 @@
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Random;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
@@ -84,4 +93,91 @@ public void testShufflePermissions() throws Exception {
     Assert.assertEquals("Incorrect index file perms",
         (short)0640, perms.toShort());
   }
+
+  @Test
+  public void testSortByKeyPrefix() throws Exception {
+    JobConf conf = new JobConf();
+    conf.set(MRConfig.LOCAL_DIR, TEST_ROOT_DIR.getAbsolutePath());
+    conf.setInt(MRJobConfig.IO_SORT_MB, 1);
+    conf.setBoolean(MRJobConfig.MAP_SORT_KEY_PREFIX_ENABLED, true);
+    conf.setNumReduceTasks(3);
+    conf.setMapOutputKeyClass(Text.class);
+    conf.setMapOutputValueClass(IntWritable.class);
+    MapOutputFile mof = new MROutputFiles();
+    mof.setConf(conf);
+    TaskAttemptID attemptId = new TaskAttemptID("12345", 1, TaskType.MAP, 1, 1);
+    MapTask mockTask = mock(MapTask.class);
+    doReturn(mof).when(mockTask).getMapOutputFile();
+    doReturn(attemptId).when(mockTask).getTaskID();
+    doReturn(new Progress()).when(mockTask).getSortPhase();
+    TaskReporter mockReporter = mock(TaskReporter.class);
+    doReturn(new Counter()).when(mockReporter).getCounter(
+        any(TaskCounter.class));
+    MapOutputCollector.Context ctx = new MapOutputCollector.Context(mockTask,
+        conf, mockReporter);
+    MapOutputBuffer<Text, IntWritable> mob = new MapOutputBuffer<>();
+    mob.init(ctx);
+    // Enough records to spill several times, with keys sharing prefixes
+    Random random = new Random(1);
+    int numRecords = 50000;
+    for (int i = 0; i < numRecords; i++) {
+      StringBuilder key = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        key.append((char) ('a' + random.nextInt(3)));
+      }
+      mob.collect(new Text(key.toString()), new IntWritable(i), i % 3);
+    }
+    mob.flush();
+    mob.close();
+
+    FileSystem lfs = FileSystem.getLocal(conf);
+    SpillRecord spillRecord = new SpillRecord(mof.getOutputIndexFile(), conf);
+    int records = 0;
+    try (FSDataInputStream in = lfs.open(mof.getOutputFile())) {
+      for (int p = 0; p < 3; p++) {
+        IndexRecord index = spillRecord.getIndex(p);
+        in.seek(index.startOffset);
+        IFile.Reader<Text, IntWritable> reader = new IFile.Reader<>(conf, in,
+            index.partLength, null, null);
+        DataInputBuffer key = new DataInputBuffer();
+        DataInputBuffer value = new DataInputBuffer();
+        byte[] previous = null;
+        while (reader.nextRawKey(key)) {
+          reader.nextRawValue(value);
+          byte[] current = new byte[key.getLength() - key.getPosition()];
+          System.arraycopy(key.getData(), key.getPosition(), current, 0,
+              current.length);
+          if (previous != null) {
+            Assert.assertTrue("Keys out of order", WritableComparator.get(
+                Text.class).compare(previous, 0, previous.length, current, 0,
+                current.length) <= 0);
+          }
+          previous = current;
+          records++;
+        }
+      }
+    }
+    Assert.assertEquals(numRecords, records);
+  }
+
+  @Test
+  public void testGetKeyPrefixComparator() throws Exception {
+    Assert.assertNotNull(MapOutputBuffer.getKeyPrefixComparator(
+        new Text.Comparator()));
+    Assert.assertNotNull(MapOutputBuffer.getKeyPrefixComparator(
+        new BytesWritable.Comparator()));
+    Assert.assertNull(MapOutputBuffer.getKeyPrefixComparator(
+        new LongWritable.Comparator()));
+    // The prefixes do not follow the order of the subclass
+    Assert.assertNull(MapOutputBuffer.getKeyPrefixComparator(
+        new DecreasingTextComparator()));
+  }
+
+  public static class DecreasingTextComparator extends Text.Comparator {
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      return super.compare(b2, s2, l2, b1, s1, l1);
+    }
+  }
 }
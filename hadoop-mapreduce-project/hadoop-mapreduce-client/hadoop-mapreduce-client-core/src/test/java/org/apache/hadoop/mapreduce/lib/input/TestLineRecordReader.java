@@ -23,6 +23,7 @@
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -32,21 +33,30 @@
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import java.nio.charset.StandardCharsets;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.BZip2Codec;
 import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.Lz4Codec;
+import org.apache.hadoop.io.compress.SeekableLz4Codec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskAttemptID;
 import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Test;
 
 public class TestLineRecordReader {
@@ -646,4 +656,69 @@ public void testBzipWithMultibyteDelimiter() throws IOException {
     testSplitRecordsForFile(conf, firstSplitLength, testFileSize,
         testFilePath);
   }
+
+  /**
+   * Read a file with TextInputFormat and count its records across the
+   * splits.
+   *
+   * @return the number of splits that read records
+   */
+  private int readSeekableFrameSplits(Configuration conf,
+      Class<? extends CompressionCodec> codecClass, int numLines,
+      int numSplits) throws IOException, InterruptedException {
+    CompressionCodec codec = ReflectionUtils.newInstance(codecClass, conf);
+    FileSystem localFs = FileSystem.getLocal(conf);
+    Path file = new Path(inputDir, "test" + codec.getDefaultExtension());
+    try (Writer writer = new OutputStreamWriter(
+        codec.createOutputStream(localFs.create(file, true)),
+        StandardCharsets.UTF_8)) {
+      for (int i = 0; i < numLines; i++) {
+        writer.write("line " + i + "\n");
+      }
+    }
+
+    Job job = Job.getInstance(conf);
+    FileInputFormat.setInputPaths(job, file);
+    FileInputFormat.setMaxInputSplitSize(job,
+        localFs.getFileStatus(file).getLen() / numSplits + 1);
+    TextInputFormat format = new TextInputFormat();
+    List<InputSplit> splits = format.getSplits(job);
+    int splitsWithRecords = 0;
+    int numRecords = 0;
+    for (InputSplit split : splits) {
+      TaskAttemptContext context = new TaskAttemptContextImpl(
+          job.getConfiguration(), new TaskAttemptID());
+      try (RecordReader<LongWritable, Text> reader =
+          format.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        int splitRecords = 0;
+        while (reader.nextKeyValue()) {
+          // Every record is read once, in order
+          assertEquals("line " + numRecords,
+              reader.getCurrentValue().toString());
+          numRecords++;
+          splitRecords++;
+        }
+        if (splitRecords > 0) {
+          splitsWithRecords++;
+        }
+      }
+    }
+    assertEquals(numLines, numRecords);
+    return splitsWithRecords;
+  }
+
+  @Test
+  public void testSeekableFrameSplits() throws Exception {
+    assumeTrue(Lz4Codec.isNativeCodeLoaded());
+    Configuration conf = new Configuration();
+    conf.setInt(CommonConfigurationKeys.
+        IO_COMPRESSION_CODEC_LZ4_SEEKABLE_FRAME_SIZE_KEY, 4096);
+    // The records of the files with seekable frames are read by all splits
+    assertTrue(readSeekableFrameSplits(conf, SeekableLz4Codec.class,
+        20000, 10) > 1);
+    // The other files are not split
+    assertEquals(1, readSeekableFrameSplits(conf, Lz4Codec.class,
+        20000, 10));
+  }
 }